@@ -0,0 +1,102 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark;
+
+/**
+ * A micro benchmark. The {@link BenchmarkRunner} calls {@link #invoke()}
+ * repeatedly for a fixed time and reports the average time of each operation.
+ * Values returned by {@link #invoke()} are consumed by the runner, so that the
+ * compiler cannot eliminate the measured code.
+ * <p>
+ * Benchmarks that perform more than one operation on each invocation (e.g.
+ * decoding a buffer with several frames) should say so on the constructor, so
+ * scores are comparable.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public abstract class Benchmark {
+	/**
+	 * The benchmark name
+	 */
+	private final String name;
+	/**
+	 * The amount of operations performed on each invocation
+	 */
+	private final int operations;
+
+	/**
+	 * @param name
+	 *            the benchmark name
+	 */
+	protected Benchmark(String name) {
+		this(name, 1);
+	}
+
+	/**
+	 * @param name
+	 *            the benchmark name
+	 * @param operations
+	 *            the amount of operations performed on each invocation
+	 */
+	protected Benchmark(String name, int operations) {
+		this.name = name;
+		this.operations = operations;
+	}
+
+	/**
+	 * Prepares the benchmark state. Called once, before the warm up.
+	 * 
+	 * @param environment
+	 *            the environment, which provides game server services
+	 * @throws Exception
+	 *             if the benchmark could not be prepared
+	 */
+	public void setUp(BenchmarkEnvironment environment) throws Exception {
+	}
+
+	/**
+	 * Performs the measured operations
+	 * 
+	 * @return any value computed by the operations
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	public abstract Object invoke() throws Exception;
+
+	/**
+	 * Releases the benchmark state. Called once, after the measurement.
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * @return the benchmark name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the amount of operations performed on each invocation
+	 */
+	public int getOperations() {
+		return operations;
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.l2jserver.model.id.provider.AccountIDProvider;
+import com.l2jserver.model.id.provider.IDProviderModule;
+import com.l2jserver.model.template.actor.ActorSex;
+import com.l2jserver.model.template.character.CharacterClass;
+import com.l2jserver.model.world.L2Character;
+import com.l2jserver.model.world.character.CharacterAppearance.CharacterFace;
+import com.l2jserver.model.world.character.CharacterAppearance.CharacterHairColor;
+import com.l2jserver.model.world.character.CharacterAppearance.CharacterHairStyle;
+import com.l2jserver.service.Service;
+import com.l2jserver.service.ServiceManager;
+import com.l2jserver.service.ServiceStartException;
+import com.l2jserver.service.game.character.CharacterService;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Provides game server services to benchmarks. Services are loaded from a
+ * services descriptor, but only started when a benchmark requests them, so
+ * benchmarks that do not need the server run without it.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class BenchmarkEnvironment {
+	/**
+	 * The logger
+	 */
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	/**
+	 * The account of the characters created by benchmarks
+	 */
+	private static final String ACCOUNT = "benchmark";
+
+	/**
+	 * The services descriptor
+	 */
+	private final Path descriptor;
+	/**
+	 * The service manager. Created on the first request.
+	 */
+	private ServiceManager serviceManager;
+	/**
+	 * The injector
+	 */
+	private Injector injector;
+	/**
+	 * The services started, in start order
+	 */
+	private final List<Class<? extends Service>> started = CollectionFactory
+			.newList();
+
+	/**
+	 * @param descriptor
+	 *            the services descriptor
+	 */
+	public BenchmarkEnvironment(Path descriptor) {
+		this.descriptor = descriptor;
+	}
+
+	/**
+	 * Starts a service, and all its dependencies, if not started yet
+	 * 
+	 * @param <T>
+	 *            the service type
+	 * @param serviceClass
+	 *            the service interface
+	 * @return the service instance
+	 * @throws ServiceStartException
+	 *             if the service could not be started
+	 */
+	public <T extends Service> T start(Class<T> serviceClass)
+			throws ServiceStartException {
+		init();
+		final T service = serviceManager.start(serviceClass);
+		if (!started.contains(serviceClass))
+			started.add(serviceClass);
+		return service;
+	}
+
+	/**
+	 * Returns an instance from the game server injector, such as a DAO or an
+	 * ID provider. The services it uses must have been started with
+	 * {@link #start(Class)}.
+	 * 
+	 * @param <T>
+	 *            the instance type
+	 * @param type
+	 *            the instance type
+	 * @return the instance
+	 * @throws ServiceStartException
+	 *             if the services descriptor could not be loaded
+	 */
+	public <T> T getInstance(Class<T> type) throws ServiceStartException {
+		init();
+		return injector.getInstance(type);
+	}
+
+	/**
+	 * Creates a new human fighter character, with the same state as characters
+	 * entering the world. Starts the {@link CharacterService}, if not started
+	 * yet.
+	 * 
+	 * @param name
+	 *            the character name, unique
+	 * @return the character
+	 * @throws Exception
+	 *             if the character could not be created
+	 */
+	public L2Character createCharacter(String name) throws Exception {
+		final L2Character character = start(CharacterService.class).create(
+				name, getInstance(AccountIDProvider.class).resolveID(ACCOUNT),
+				ActorSex.MALE, CharacterClass.HUMAN_FIGHTER,
+				CharacterHairStyle.STYLE_A, CharacterHairColor.COLOR_A,
+				CharacterFace.FACE_A);
+		character.getStats().updateCalculator();
+		return character;
+	}
+
+	/**
+	 * Stops all started services, in the reverse start order
+	 */
+	public void stop() {
+		for (int i = started.size() - 1; i >= 0; i--) {
+			try {
+				serviceManager.stop(started.get(i));
+			} catch (Exception e) {
+				log.warn("Error stopping service " + started.get(i), e);
+			}
+		}
+		started.clear();
+	}
+
+	/**
+	 * Loads the services descriptor and creates the injector, if not done yet
+	 * 
+	 * @throws ServiceStartException
+	 *             if the descriptor could not be loaded
+	 */
+	private void init() throws ServiceStartException {
+		if (serviceManager != null)
+			return;
+		final ServiceManager manager = new ServiceManager();
+		try {
+			manager.load(descriptor);
+		} catch (Exception e) {
+			throw new ServiceStartException(
+					"Error loading the services descriptor " + descriptor, e);
+		}
+		injector = Guice.createInjector(new IDProviderModule(),
+				manager.newGuiceModule());
+		manager.init(injector);
+		serviceManager = manager;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.l2jserver.benchmark.database.NPCLoadBenchmark;
+import com.l2jserver.benchmark.database.SelectQueryBenchmark;
+import com.l2jserver.benchmark.database.SelectQueryBenchmark.Lookup;
+import com.l2jserver.benchmark.model.CalculatorBenchmark;
+import com.l2jserver.benchmark.model.IDAllocatorBenchmark;
+import com.l2jserver.benchmark.network.CodecBenchmark;
+import com.l2jserver.benchmark.network.CodecBenchmark.Codec;
+import com.l2jserver.benchmark.network.HtmlRenderBenchmark;
+import com.l2jserver.benchmark.network.HtmlRenderBenchmark.Renderer;
+import com.l2jserver.benchmark.network.PacketWriterBenchmark;
+import com.l2jserver.benchmark.network.PacketWriterBenchmark.Packet;
+import com.l2jserver.benchmark.network.SystemMessageBenchmark;
+import com.l2jserver.benchmark.network.SystemMessageBenchmark.Message;
+import com.l2jserver.benchmark.scripting.ScriptCacheBenchmark;
+import com.l2jserver.benchmark.scripting.ScriptCacheBenchmark.Startup;
+import com.l2jserver.benchmark.threading.TimerWheelBenchmark;
+import com.l2jserver.benchmark.threading.TimerWheelBenchmark.Implementation;
+import com.l2jserver.benchmark.world.EventDispatchBenchmark;
+import com.l2jserver.benchmark.world.MovementBenchmark;
+import com.l2jserver.benchmark.world.MovementBenchmark.Processing;
+import com.l2jserver.benchmark.world.WorldServiceBenchmark;
+import com.l2jserver.benchmark.world.WorldServiceBenchmark.Operation;
+
+/**
+ * Runs the game server benchmarks. Arguments, similar to JMH:
+ * <ul>
+ * <li><tt>-f REGEX</tt>: only runs benchmarks whose name contain the pattern</li>
+ * <li><tt>-wi N</tt>: the amount of warm up iterations (default 5)</li>
+ * <li><tt>-i N</tt>: the amount of measurement iterations (default 10)</li>
+ * <li><tt>-r MS</tt>: the duration of each iteration (default 1000)</li>
+ * <li><tt>-rf csv|json</tt> and <tt>-rff FILE</tt>: the result format and file
+ * (default CSV, <tt>benchmarks.csv</tt>). JSON uses the JMH layout.</li>
+ * <li><tt>-baseline FILE</tt>: a CSV result of a previous run, for example of
+ * another commit, to compare the scores with</li>
+ * <li><tt>-services FILE</tt>: the services descriptor (default
+ * <tt>services.xml</tt>)</li>
+ * </ul>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class BenchmarkMain {
+	/**
+	 * @return all benchmarks, in run order
+	 */
+	private static List<Benchmark> benchmarks() {
+		return Arrays.asList(new IDAllocatorBenchmark(),
+				new CodecBenchmark(Codec.FRAME_DECODER), new CodecBenchmark(
+						Codec.ENCRYPTER), new WorldServiceBenchmark(
+						Operation.FIND), new WorldServiceBenchmark(
+						Operation.KNOWNLIST), new EventDispatchBenchmark(),
+				new CalculatorBenchmark(), new PacketWriterBenchmark(
+						Packet.SM_CHAR_INFO), new PacketWriterBenchmark(
+						Packet.SM_CHAR_INFO_BROADCAST),
+				new PacketWriterBenchmark(Packet.SM_NPC_INFO),
+				new NPCLoadBenchmark(), new TimerWheelBenchmark(
+						Implementation.WHEEL), new TimerWheelBenchmark(
+						Implementation.EXECUTOR), new MovementBenchmark(
+						Processing.POINT), new MovementBenchmark(
+						Processing.PRIMITIVE), new HtmlRenderBenchmark(
+						Renderer.REGEX), new HtmlRenderBenchmark(
+						Renderer.COMPILED), new SystemMessageBenchmark(
+						Message.LEGACY), new SystemMessageBenchmark(
+						Message.ENCODED), new SelectQueryBenchmark(
+						Lookup.LINEAR), new SelectQueryBenchmark(
+						Lookup.INDEXED), new ScriptCacheBenchmark(
+						Startup.NO_CACHE), new ScriptCacheBenchmark(
+						Startup.WARM_CACHE), new ScriptCacheBenchmark(
+						Startup.RELOAD));
+	}
+
+	/**
+	 * Main method
+	 * 
+	 * @param args
+	 *            the arguments
+	 * @throws Exception
+	 *             if any benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		BasicConfigurator.configure();
+		Logger.getRootLogger().setLevel(Level.WARN);
+
+		final BenchmarkRunner runner = new BenchmarkRunner();
+		String format = "csv";
+		Path file = null;
+		Path baseline = null;
+		Path services = Paths.get("services.xml");
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-f":
+				runner.setFilter(Pattern.compile(args[++i]));
+				break;
+			case "-wi":
+				runner.setWarmupIterations(Integer.parseInt(args[++i]));
+				break;
+			case "-i":
+				runner.setIterations(Integer.parseInt(args[++i]));
+				break;
+			case "-r":
+				runner.setIterationTime(Long.parseLong(args[++i]));
+				break;
+			case "-rf":
+				format = args[++i].toLowerCase();
+				break;
+			case "-rff":
+				file = Paths.get(args[++i]);
+				break;
+			case "-baseline":
+				baseline = Paths.get(args[++i]);
+				break;
+			case "-services":
+				services = Paths.get(args[++i]);
+				break;
+			default:
+				System.out.println("Unknown argument: " + args[i]);
+				return;
+			}
+		}
+		if (file == null)
+			file = Paths.get("benchmarks." + format);
+
+		final BenchmarkEnvironment environment = new BenchmarkEnvironment(
+				services);
+		final List<BenchmarkResult> results;
+		try {
+			results = runner.run(benchmarks(), environment, System.out);
+		} finally {
+			environment.stop();
+		}
+
+		final Map<String, Double> previous = (baseline != null ? BenchmarkResult
+				.readCSV(baseline) : null);
+		System.out.println();
+		System.out.printf("%-40s %4s %18s %18s %7s %12s %4s%s%n",
+				"Benchmark", "Cnt", "Score", "Error", "Units", "Allocated",
+				"", (previous != null ? "   Baseline" : ""));
+		for (final BenchmarkResult result : results) {
+			String comparison = "";
+			if (previous != null && previous.containsKey(result.getBenchmark())) {
+				final double before = previous.get(result.getBenchmark());
+				comparison = String.format("   %+.1f%%",
+						(result.getScore() - before) / before * 100);
+			}
+			System.out.printf("%-40s %4d %,18.3f +- %,15.3f %7s %,12.1f %4s%s%n",
+					result.getBenchmark(), result.getIterations(),
+					result.getScore(), result.getError(),
+					BenchmarkResult.UNIT, result.getAllocated(),
+					BenchmarkResult.ALLOCATION_UNIT, comparison);
+		}
+
+		if (format.equals("json"))
+			BenchmarkResult.writeJSON(results, file);
+		else
+			BenchmarkResult.writeCSV(results, file);
+		System.out.println("Results written to " + file.toAbsolutePath());
+		// services may leave non daemon threads behind
+		System.exit(0);
+	}
+}
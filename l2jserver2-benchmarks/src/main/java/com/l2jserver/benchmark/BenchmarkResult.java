@@ -0,0 +1,321 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.math.MathException;
+import org.apache.commons.math.distribution.TDistributionImpl;
+import org.apache.commons.math.stat.descriptive.SummaryStatistics;
+
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * The result of a {@link Benchmark}: the average time per operation of each
+ * measurement iteration, their mean and the 99.9% confidence interval of the
+ * mean, and the same for the bytes allocated per operation. Results are
+ * written as CSV or as JSON, the latter in the same layout as JMH, so existing
+ * tools can plot and compare them. Allocations are written as the secondary
+ * metric JMH's GC profiler uses, {@value #ALLOCATION_METRIC}.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class BenchmarkResult {
+	/**
+	 * The score unit
+	 */
+	public static final String UNIT = "ns/op";
+	/**
+	 * The allocation unit
+	 */
+	public static final String ALLOCATION_UNIT = "B/op";
+	/**
+	 * The name of the allocation metric
+	 */
+	public static final String ALLOCATION_METRIC = "\u00b7gc.alloc.rate.norm";
+	/**
+	 * The header of CSV result files
+	 */
+	private static final String CSV_HEADER = "\"Benchmark\",\"Mode\",\"Cnt\",\"Score\",\"Error\",\"Unit\"";
+
+	/**
+	 * The benchmark name
+	 */
+	private final String benchmark;
+	/**
+	 * The time per operation of each iteration, in nanoseconds
+	 */
+	private final double[] samples;
+	/**
+	 * The mean of the samples
+	 */
+	private final double score;
+	/**
+	 * The half width of the 99.9% confidence interval of the mean
+	 */
+	private final double error;
+	/**
+	 * The bytes allocated per operation of each iteration
+	 */
+	private final double[] allocations;
+	/**
+	 * The mean of the allocations
+	 */
+	private final double allocated;
+	/**
+	 * The half width of the 99.9% confidence interval of the allocations mean
+	 */
+	private final double allocatedError;
+
+	/**
+	 * @param benchmark
+	 *            the benchmark name
+	 * @param samples
+	 *            the time per operation of each iteration, in nanoseconds
+	 * @param allocations
+	 *            the bytes allocated per operation of each iteration,
+	 *            <code>NaN</code> if not measured
+	 */
+	public BenchmarkResult(String benchmark, double[] samples,
+			double[] allocations) {
+		this.benchmark = benchmark;
+		this.samples = samples;
+		this.allocations = allocations;
+
+		final double[] score = statistics(samples);
+		this.score = score[0];
+		this.error = score[1];
+		final double[] allocated = statistics(allocations);
+		this.allocated = allocated[0];
+		this.allocatedError = allocated[1];
+	}
+
+	/**
+	 * @param samples
+	 *            the samples
+	 * @return the mean of the samples and the half width of its 99.9%
+	 *         confidence interval
+	 */
+	private static double[] statistics(double[] samples) {
+		final SummaryStatistics statistics = new SummaryStatistics();
+		for (final double sample : samples) {
+			statistics.addValue(sample);
+		}
+		if (samples.length < 2)
+			return new double[] { statistics.getMean(), Double.NaN };
+		double t;
+		try {
+			t = new TDistributionImpl(samples.length - 1)
+					.inverseCumulativeProbability(1 - 0.001 / 2);
+		} catch (MathException e) {
+			t = Double.NaN;
+		}
+		return new double[] {
+				statistics.getMean(),
+				t * statistics.getStandardDeviation()
+						/ Math.sqrt(samples.length) };
+	}
+
+	/**
+	 * @return the benchmark name
+	 */
+	public String getBenchmark() {
+		return benchmark;
+	}
+
+	/**
+	 * @return the average time per operation, in nanoseconds
+	 */
+	public double getScore() {
+		return score;
+	}
+
+	/**
+	 * @return the half width of the 99.9% confidence interval of the score
+	 */
+	public double getError() {
+		return error;
+	}
+
+	/**
+	 * @return the average bytes allocated per operation, <code>NaN</code> if
+	 *         not measured
+	 */
+	public double getAllocated() {
+		return allocated;
+	}
+
+	/**
+	 * @return the half width of the 99.9% confidence interval of the
+	 *         allocations
+	 */
+	public double getAllocatedError() {
+		return allocatedError;
+	}
+
+	/**
+	 * @return the amount of measurement iterations
+	 */
+	public int getIterations() {
+		return samples.length;
+	}
+
+	/**
+	 * Writes results as CSV
+	 * 
+	 * @param results
+	 *            the results
+	 * @param file
+	 *            the file
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	public static void writeCSV(List<BenchmarkResult> results, Path file)
+			throws IOException {
+		try (final PrintWriter out = writer(file)) {
+			out.println(CSV_HEADER);
+			for (final BenchmarkResult result : results) {
+				out.printf(Locale.ROOT, "\"%s\",\"avgt\",%d,%f,%f,\"%s\"%n",
+						result.benchmark, result.samples.length,
+						result.score, result.error, UNIT);
+				out.printf(Locale.ROOT, "\"%s:%s\",\"avgt\",%d,%f,%f,\"%s\"%n",
+						result.benchmark, ALLOCATION_METRIC,
+						result.allocations.length, result.allocated,
+						result.allocatedError, ALLOCATION_UNIT);
+			}
+		}
+	}
+
+	/**
+	 * Writes results as JSON, in the layout used by JMH
+	 * 
+	 * @param results
+	 *            the results
+	 * @param file
+	 *            the file
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	public static void writeJSON(List<BenchmarkResult> results, Path file)
+			throws IOException {
+		try (final PrintWriter out = writer(file)) {
+			out.println("[");
+			for (int i = 0; i < results.size(); i++) {
+				final BenchmarkResult result = results.get(i);
+				out.println("    {");
+				out.printf("        \"benchmark\" : \"%s\",%n",
+						result.benchmark);
+				out.println("        \"mode\" : \"avgt\",");
+				out.println("        \"threads\" : 1,");
+				out.printf("        \"measurementIterations\" : %d,%n",
+						result.samples.length);
+				out.println("        \"primaryMetric\" : {");
+				out.printf(Locale.ROOT, "            \"score\" : %s,%n",
+						number(result.score));
+				out.printf(Locale.ROOT, "            \"scoreError\" : %s,%n",
+						number(result.error));
+				out.printf("            \"scoreUnit\" : \"%s\",%n", UNIT);
+				out.println("            \"rawData\" : "
+						+ numbers(result.samples));
+				out.println("        },");
+				out.println("        \"secondaryMetrics\" : {");
+				out.printf("            \"%s\" : {%n", ALLOCATION_METRIC);
+				out.printf(Locale.ROOT, "                \"score\" : %s,%n",
+						number(result.allocated));
+				out.printf(Locale.ROOT,
+						"                \"scoreError\" : %s,%n",
+						number(result.allocatedError));
+				out.printf("                \"scoreUnit\" : \"%s\",%n",
+						ALLOCATION_UNIT);
+				out.println("                \"rawData\" : "
+						+ numbers(result.allocations));
+				out.println("            }");
+				out.println("        }");
+				out.println(i + 1 < results.size() ? "    }," : "    }");
+			}
+			out.println("]");
+		}
+	}
+
+	/**
+	 * Reads the scores of a CSV result file, written by
+	 * {@link #writeCSV(List, Path)}
+	 * 
+	 * @param file
+	 *            the file
+	 * @return the scores, by benchmark name
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public static Map<String, Double> readCSV(Path file) throws IOException {
+		final Map<String, Double> scores = CollectionFactory.newMap();
+		for (final String line : Files.readAllLines(file,
+				Charset.forName("UTF-8"))) {
+			if (line.isEmpty() || line.equals(CSV_HEADER))
+				continue;
+			final String[] columns = line.split(",");
+			scores.put(columns[0].replace("\"", ""),
+					Double.parseDouble(columns[3]));
+		}
+		return scores;
+	}
+
+	/**
+	 * @param value
+	 *            the value
+	 * @return the value as a JSON number, <tt>"NaN"</tt> if not a number
+	 */
+	private static String number(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value))
+			return "\"NaN\"";
+		return String.format(Locale.ROOT, "%f", value);
+	}
+
+	/**
+	 * @param values
+	 *            the values of each iteration
+	 * @return the values as the JSON raw data of a single fork
+	 */
+	private static String numbers(double[] values) {
+		final StringBuilder json = new StringBuilder("[ [ ");
+		for (int i = 0; i < values.length; i++) {
+			json.append(i > 0 ? ", " : "").append(number(values[i]));
+		}
+		return json.append(" ] ]").toString();
+	}
+
+	/**
+	 * @param file
+	 *            the file
+	 * @return a writer for the file
+	 * @throws IOException
+	 *             if the file could not be opened
+	 */
+	private static PrintWriter writer(Path file) throws IOException {
+		final Writer writer = Files.newBufferedWriter(file,
+				Charset.forName("UTF-8"));
+		return new PrintWriter(writer);
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Runs {@link Benchmark}s. Each benchmark runs a number of warm up iterations,
+ * whose results are discarded, and then the measurement iterations. Every
+ * iteration calls {@link Benchmark#invoke()} for a fixed time, checking the
+ * clock once per call, so benchmarks should not be much faster than reading
+ * {@link System#nanoTime()}.
+ * <p>
+ * The bytes allocated by the benchmark thread during each iteration are read
+ * from the JVM, when supported, and reported per operation. Allocations made
+ * by other threads, such as a thread pool running a scheduled task, are not
+ * included.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class BenchmarkRunner {
+	/**
+	 * The amount of warm up iterations
+	 */
+	private int warmupIterations = 5;
+	/**
+	 * The amount of measurement iterations
+	 */
+	private int iterations = 10;
+	/**
+	 * The duration of each iteration, in milliseconds
+	 */
+	private long iterationTime = 1000;
+	/**
+	 * The pattern benchmark names must contain to run. <code>null</code> runs
+	 * all benchmarks.
+	 */
+	private Pattern filter;
+
+	/**
+	 * The JVM thread bean, <code>null</code> if it cannot measure allocations
+	 */
+	private final com.sun.management.ThreadMXBean threads = threads();
+	/**
+	 * The bytes allocated per operation in the last iteration
+	 */
+	private double allocated;
+
+	/**
+	 * The last value returned by a benchmark
+	 */
+	private Object sink;
+	/**
+	 * Published at the end of each iteration, so writes to {@link #sink}
+	 * cannot be eliminated
+	 */
+	private volatile Object published;
+
+	/**
+	 * Runs the benchmarks matching the filter
+	 * 
+	 * @param benchmarks
+	 *            the benchmarks
+	 * @param environment
+	 *            the environment
+	 * @param out
+	 *            the stream receiving the progress
+	 * @return the results
+	 * @throws Exception
+	 *             if any benchmark fails
+	 */
+	public List<BenchmarkResult> run(List<Benchmark> benchmarks,
+			BenchmarkEnvironment environment, PrintStream out)
+			throws Exception {
+		final List<BenchmarkResult> results = CollectionFactory.newList();
+		for (final Benchmark benchmark : benchmarks) {
+			if (filter != null
+					&& !filter.matcher(benchmark.getName()).find())
+				continue;
+			out.printf("# %s%n", benchmark.getName());
+			benchmark.setUp(environment);
+			try {
+				for (int i = 0; i < warmupIterations; i++) {
+					out.printf("Warmup %2d: %,.3f %s, %,.1f %s%n", i + 1,
+							iteration(benchmark), BenchmarkResult.UNIT,
+							allocated, BenchmarkResult.ALLOCATION_UNIT);
+				}
+				final double[] samples = new double[iterations];
+				final double[] allocations = new double[iterations];
+				for (int i = 0; i < iterations; i++) {
+					samples[i] = iteration(benchmark);
+					allocations[i] = allocated;
+					out.printf("Iteration %2d: %,.3f %s, %,.1f %s%n", i + 1,
+							samples[i], BenchmarkResult.UNIT, allocations[i],
+							BenchmarkResult.ALLOCATION_UNIT);
+				}
+				results.add(new BenchmarkResult(benchmark.getName(), samples,
+						allocations));
+			} finally {
+				benchmark.tearDown();
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Runs one iteration. The bytes allocated per operation are stored in
+	 * {@link #allocated}.
+	 * 
+	 * @param benchmark
+	 *            the benchmark
+	 * @return the average time per operation, in nanoseconds
+	 * @throws Exception
+	 *             if the benchmark fails
+	 */
+	private double iteration(Benchmark benchmark) throws Exception {
+		final long duration = TimeUnit.MILLISECONDS.toNanos(iterationTime);
+		final long thread = Thread.currentThread().getId();
+		final long bytes = (threads != null ? threads
+				.getThreadAllocatedBytes(thread) : 0);
+		final long start = System.nanoTime();
+		long invocations = 0;
+		long elapsed;
+		do {
+			sink = benchmark.invoke();
+			invocations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < duration);
+		published = sink;
+
+		final long operations = invocations * benchmark.getOperations();
+		allocated = (threads != null ? (double) (threads
+				.getThreadAllocatedBytes(thread) - bytes) / operations
+				: Double.NaN);
+		return (double) elapsed / operations;
+	}
+
+	/**
+	 * @return the JVM thread bean, with allocation measurement enabled.
+	 *         <code>null</code> if allocations cannot be measured by this JVM.
+	 */
+	private static com.sun.management.ThreadMXBean threads() {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+			return null;
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported())
+			return null;
+		threads.setThreadAllocatedMemoryEnabled(true);
+		return threads;
+	}
+
+	/**
+	 * @param warmupIterations
+	 *            the amount of warm up iterations
+	 */
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+	}
+
+	/**
+	 * @param iterations
+	 *            the amount of measurement iterations
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	/**
+	 * @param iterationTime
+	 *            the duration of each iteration, in milliseconds
+	 */
+	public void setIterationTime(long iterationTime) {
+		this.iterationTime = iterationTime;
+	}
+
+	/**
+	 * @param filter
+	 *            the pattern benchmark names must contain to run.
+	 *            <code>null</code> runs all benchmarks.
+	 */
+	public void setFilter(Pattern filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * @return the last published benchmark value
+	 */
+	public Object getPublished() {
+		return published;
+	}
+}
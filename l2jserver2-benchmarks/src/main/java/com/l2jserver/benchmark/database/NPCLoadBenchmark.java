@@ -0,0 +1,57 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.database;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.model.dao.NPCDAO;
+import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.database.dao.sql.SQLNPCDAO;
+import com.l2jserver.service.game.template.TemplateService;
+
+/**
+ * Measures {@link SQLNPCDAO#loadAll()} on the in-memory H2 database, filled
+ * with the default NPC spawns when the {@link DatabaseService} starts. The
+ * score is the time to load all NPCs.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class NPCLoadBenchmark extends Benchmark {
+	/**
+	 * The NPC DAO
+	 */
+	private NPCDAO dao;
+
+	/**
+	 * Creates a new instance
+	 */
+	public NPCLoadBenchmark() {
+		super("database.npc-load-all");
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) throws Exception {
+		environment.start(DatabaseService.class);
+		environment.start(TemplateService.class);
+		dao = environment.getInstance(NPCDAO.class);
+	}
+
+	@Override
+	public Object invoke() {
+		return dao.loadAll().size();
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.service.database.ddl.QueryFactory;
+import com.l2jserver.service.database.ddl.TableFactory;
+import com.l2jserver.service.database.model.QNPC;
+import com.l2jserver.service.database.sql.H2DatabaseEngine;
+import com.l2jserver.service.database.sql.SQLDatabaseRow;
+import com.mysema.query.sql.AbstractSQLQuery;
+import com.mysema.query.sql.SQLQueryFactory;
+import com.mysema.query.sql.dml.SQLInsertClause;
+import com.mysema.query.types.Path;
+
+/**
+ * Selects every row of the <tt>npc</tt> table from an in-memory H2 database
+ * and reads all their columns, the way <tt>SelectListQuery</tt> and the NPC
+ * mapper do. Columns are read through {@link SQLDatabaseRow} (
+ * {@link Lookup#INDEXED}) or through a linear search over the entity columns (
+ * {@link Lookup#LINEAR}), the previous implementation. The score is the time
+ * per row, including the query.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class SelectQueryBenchmark extends Benchmark {
+	/**
+	 * The amount of rows in the table
+	 */
+	private static final int ROWS = 10000;
+	/**
+	 * The NPC entity
+	 */
+	private static final QNPC e = QNPC.npc;
+	/**
+	 * The columns read for each row, in the order the mapper reads them
+	 */
+	private static final Path<?>[] COLUMNS = { e.npcId, e.npcTemplateId, e.hp,
+			e.hp, e.mp, e.mp, e.pointX, e.pointY, e.pointZ, e.pointAngle,
+			e.pointX, e.pointY, e.pointZ, e.pointAngle, e.respawnTime };
+
+	/**
+	 * The column lookup
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum Lookup {
+		/**
+		 * Columns are read through {@link SQLDatabaseRow}
+		 */
+		INDEXED,
+		/**
+		 * Columns are searched in the entity columns list
+		 */
+		LINEAR;
+	}
+
+	/**
+	 * The column lookup
+	 */
+	private final Lookup lookup;
+	/**
+	 * The database connection
+	 */
+	private Connection conn;
+	/**
+	 * The query factory
+	 */
+	private SQLQueryFactory<? extends AbstractSQLQuery<?>, ?, ?, ?, ?, ?> factory;
+	/**
+	 * The entity columns
+	 */
+	private List<Path<?>> columns;
+	/**
+	 * The row used by {@link Lookup#INDEXED}
+	 */
+	private SQLDatabaseRow row;
+
+	/**
+	 * @param lookup
+	 *            the column lookup
+	 */
+	public SelectQueryBenchmark(Lookup lookup) {
+		super("database.select-all." + lookup.name().toLowerCase(), ROWS);
+		this.lookup = lookup;
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) throws SQLException {
+		final H2DatabaseEngine engine = new H2DatabaseEngine();
+		conn = engine.newDriver().connect(
+				"jdbc:h2:mem:select-" + lookup.name().toLowerCase(),
+				new Properties());
+		try (final Statement statement = conn.createStatement()) {
+			statement.execute(QueryFactory.createTableQuery(
+					TableFactory.createTable(e), engine.getTemplate()));
+		}
+		factory = engine.createSQLQueryFactory(conn);
+		final SQLInsertClause insert = factory.insert(e);
+		for (int i = 0; i < ROWS; i++) {
+			insert.columns(e.npcId, e.npcTemplateId, e.hp, e.mp, e.pointX,
+					e.pointY, e.pointZ, e.pointAngle, e.respawnTime)
+					.values(i, 20000 + (i % 1000), 100.0, 50.0, i * 10,
+							i * 20, -3000, 0.0, 60000L).addBatch();
+		}
+		insert.execute();
+
+		columns = e.getColumns();
+		row = new SQLDatabaseRow(e);
+	}
+
+	@Override
+	public Object invoke() {
+		final List<Object[]> results = factory.query().from(e).list(e.all());
+		long checksum = 0;
+		for (final Object[] data : results) {
+			row.setRow(data);
+			for (final Path<?> column : COLUMNS) {
+				final Object value = (lookup == Lookup.INDEXED ? row
+						.get(column) : data[columns.indexOf(column)]);
+				if (value != null)
+					checksum++;
+			}
+		}
+		return checksum;
+	}
+
+	@Override
+	public void tearDown() throws SQLException {
+		conn.close();
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.model;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.model.world.character.CharacterStats;
+import com.l2jserver.util.calculator.ComplexCalculator;
+
+/**
+ * Measures {@link ComplexCalculator#calculate(Enum, com.l2jserver.util.calculator.CalculatorContext)}
+ * through {@link CharacterStats}, calculating the {@link #STATS} stats sent on
+ * every <tt>SM_CHAR_INFO</tt> for a new character.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class CalculatorBenchmark extends Benchmark {
+	/**
+	 * The amount of stats calculated on each invocation
+	 */
+	private static final int STATS = 20;
+
+	/**
+	 * The character stats
+	 */
+	private CharacterStats stats;
+
+	/**
+	 * Creates a new instance
+	 */
+	public CalculatorBenchmark() {
+		super("model.calculator", STATS);
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) throws Exception {
+		stats = environment.createCharacter("Calculator").getStats();
+	}
+
+	@Override
+	public Object invoke() {
+		return stats.getMaxHP() + stats.getMaxMP() + stats.getMaxCP()
+				+ stats.getStrength() + stats.getDexterity()
+				+ stats.getConcentration() + stats.getIntelligence()
+				+ stats.getWitness() + stats.getMentality()
+				+ stats.getRunSpeed() + stats.getWalkSpeed()
+				+ stats.getPhysicalAttack() + stats.getPhysicalAttackSpeed()
+				+ stats.getPhysicalCriticalRate()
+				+ stats.getPhysicalDefense() + stats.getMagicalAttack()
+				+ stats.getMagicalAttackSpeed() + stats.getMagicalDefense()
+				+ stats.getAccuracy() + stats.getEvasionRate();
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.model;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.model.id.object.allocator.BitSetIDAllocator;
+
+/**
+ * Measures {@link BitSetIDAllocator#allocate()} and
+ * {@link BitSetIDAllocator#release(int)} with {@link #LIVE_IDS} IDs allocated,
+ * releasing the oldest ID for every new allocation, the way items and NPCs are
+ * created and destroyed while the server runs.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class IDAllocatorBenchmark extends Benchmark {
+	/**
+	 * The amount of IDs kept allocated
+	 */
+	private static final int LIVE_IDS = 100000;
+
+	/**
+	 * The allocator
+	 */
+	private BitSetIDAllocator allocator;
+	/**
+	 * The allocated IDs
+	 */
+	private int[] live;
+	/**
+	 * The index of the oldest ID
+	 */
+	private int next;
+
+	/**
+	 * Creates a new instance
+	 */
+	public IDAllocatorBenchmark() {
+		super("model.id-allocator");
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) {
+		allocator = new BitSetIDAllocator();
+		allocator.init();
+		live = new int[LIVE_IDS];
+		for (int i = 0; i < live.length; i++) {
+			live[i] = allocator.allocate();
+		}
+	}
+
+	@Override
+	public Object invoke() {
+		allocator.release(live[next]);
+		final int id = allocator.allocate();
+		live[next] = id;
+		next = (next + 1) % live.length;
+		return id;
+	}
+}
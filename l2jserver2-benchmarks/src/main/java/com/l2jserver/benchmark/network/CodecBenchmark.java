@@ -0,0 +1,146 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.network;
+
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.game.net.codec.Lineage2Encrypter;
+import com.l2jserver.game.net.codec.Lineage2FrameDecoder;
+import com.l2jserver.service.network.model.Lineage2CryptographyKey;
+
+/**
+ * Measures the game server codecs with {@link #FRAMES} frames of random
+ * sizes, from 16 to 512 bytes. The codecs run inside Netty embedders, which
+ * add a small, constant, cost to each call.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class CodecBenchmark extends Benchmark {
+	/**
+	 * The amount of frames processed on each invocation
+	 */
+	private static final int FRAMES = 64;
+
+	/**
+	 * The measured codec
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum Codec {
+		/**
+		 * {@link Lineage2FrameDecoder}, splitting a buffer with all frames, as
+		 * if received in a single read
+		 */
+		FRAME_DECODER,
+		/**
+		 * {@link Lineage2Encrypter}, encrypting one frame at a time
+		 */
+		ENCRYPTER;
+	}
+
+	/**
+	 * The measured codec
+	 */
+	private final Codec codec;
+	/**
+	 * The frames, including the length header
+	 */
+	private ChannelBuffer[] frames;
+	/**
+	 * All frames, in a single buffer
+	 */
+	private ChannelBuffer stream;
+	/**
+	 * The frame decoder embedder
+	 */
+	private DecoderEmbedder<ChannelBuffer> decoder;
+	/**
+	 * The encrypter embedder
+	 */
+	private EncoderEmbedder<ChannelBuffer> encrypter;
+
+	/**
+	 * @param codec
+	 *            the measured codec
+	 */
+	public CodecBenchmark(Codec codec) {
+		super("network." + codec.name().toLowerCase().replace('_', '-'),
+				FRAMES);
+		this.codec = codec;
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) {
+		final Random random = new Random(FRAMES);
+		frames = new ChannelBuffer[FRAMES];
+		stream = ChannelBuffers.dynamicBuffer(ByteOrder.LITTLE_ENDIAN,
+				FRAMES * 512);
+		for (int i = 0; i < frames.length; i++) {
+			final byte[] payload = new byte[16 + random.nextInt(512 - 16)];
+			random.nextBytes(payload);
+			frames[i] = ChannelBuffers.buffer(ByteOrder.LITTLE_ENDIAN,
+					payload.length + 2);
+			frames[i].writeShort(payload.length + 2);
+			frames[i].writeBytes(payload);
+			stream.writeBytes(frames[i], 0, frames[i].readableBytes());
+		}
+
+		final byte[] key = new byte[16];
+		random.nextBytes(key);
+		final Lineage2Encrypter handler = new Lineage2Encrypter();
+		handler.enable(new Lineage2CryptographyKey(key));
+		encrypter = new EncoderEmbedder<ChannelBuffer>(handler);
+		decoder = new DecoderEmbedder<ChannelBuffer>(
+				new Lineage2FrameDecoder());
+	}
+
+	@Override
+	public Object invoke() {
+		int bytes = 0;
+		switch (codec) {
+		case FRAME_DECODER:
+			decoder.offer(stream.duplicate());
+			ChannelBuffer frame;
+			while ((frame = decoder.poll()) != null) {
+				bytes += frame.readableBytes();
+			}
+			break;
+		case ENCRYPTER:
+			// encrypting the same frames again is as costly as new frames
+			for (final ChannelBuffer buffer : frames) {
+				encrypter.offer(buffer);
+				bytes += encrypter.poll().readableBytes();
+			}
+			break;
+		}
+		return bytes;
+	}
+
+	@Override
+	public void tearDown() {
+		encrypter.finish();
+		decoder.finish();
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.network;
+
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.model.template.NPCTemplate.Talk.Chat;
+import com.l2jserver.util.BufferUtils;
+import com.l2jserver.util.factory.CollectionFactory;
+import com.l2jserver.util.html.CompiledHtml;
+
+/**
+ * Renders NPC chat pages into a packet buffer. The pages are similar to the
+ * ones in the NPC templates: around 1KB with a few bypass links. Two ways of
+ * rendering are measured:
+ * <ul>
+ * <li>{@link Renderer#REGEX}: the chat is searched linearly,
+ * <tt>%objectId%</tt> is replaced with
+ * {@link String#replaceAll(String, String)} and the result is encoded by
+ * {@link BufferUtils#writeString(ChannelBuffer, String)};</li>
+ * <li>{@link Renderer#COMPILED}: the chat is looked up in the compiled pages
+ * and written by {@link CompiledHtml#write(ChannelBuffer, String...)}.</li>
+ * </ul>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class HtmlRenderBenchmark extends Benchmark {
+	/**
+	 * The amount of chat pages
+	 */
+	private static final int CHATS = 20;
+
+	/**
+	 * The renderer
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum Renderer {
+		/**
+		 * Linear lookup and {@link String#replaceAll(String, String)}
+		 */
+		REGEX,
+		/**
+		 * {@link CompiledHtml} lookup and rendering
+		 */
+		COMPILED;
+	}
+
+	/**
+	 * The renderer
+	 */
+	private final Renderer renderer;
+	/**
+	 * The chat pages
+	 */
+	private List<Chat> chats;
+	/**
+	 * The compiled chat pages, by id
+	 */
+	private Map<String, CompiledHtml> compiled;
+	/**
+	 * The packet buffer
+	 */
+	private ChannelBuffer buffer;
+	/**
+	 * The amount of renders performed, used to vary the page and object id
+	 */
+	private int renders;
+
+	/**
+	 * @param renderer
+	 *            the renderer
+	 */
+	public HtmlRenderBenchmark(Renderer renderer) {
+		super("network.html." + renderer.name().toLowerCase());
+		this.renderer = renderer;
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) {
+		chats = CollectionFactory.newList();
+		compiled = CollectionFactory.newMap();
+		for (int i = 0; i < CHATS; i++) {
+			final StringBuilder html = new StringBuilder(
+					"<html><body>Gatekeeper:<br>");
+			for (int l = 0; l < 8; l++) {
+				html.append("Some text of the chat page number ").append(i)
+						.append(", line ").append(l).append(".<br>");
+				html.append("<a action=\"bypass -h npc_%objectId%_Chat ")
+						.append(l).append("\">Link ").append(l)
+						.append("</a><br>");
+			}
+			html.append("</body></html>");
+
+			final Chat chat = new Chat();
+			chat.setId(Integer.toString(i));
+			chat.setValue(html.toString());
+			chats.add(chat);
+			compiled.put(chat.getId(), CompiledHtml.compile(chat.getValue(),
+					"%", "%", "objectId"));
+		}
+		buffer = ChannelBuffers.dynamicBuffer(ByteOrder.LITTLE_ENDIAN,
+				8 * 1024);
+	}
+
+	@Override
+	public Object invoke() {
+		final int i = renders++;
+		final String id = chats.get(i % CHATS).getId();
+		final String objectId = Integer.toString(0x10000000 + (i & 0xFFFF));
+		buffer.clear();
+		if (renderer == Renderer.COMPILED) {
+			compiled.get(id).write(buffer, objectId);
+		} else {
+			String html = null;
+			for (final Chat chat : chats) {
+				if (chat.getId().equals(id)) {
+					html = chat.getValue();
+					break;
+				}
+			}
+			BufferUtils.writeString(buffer,
+					html.replaceAll("%objectId%", objectId));
+		}
+		return buffer.writerIndex();
+	}
+
+	@Override
+	public void tearDown() {
+		chats = null;
+		compiled = null;
+		buffer = null;
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.network;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder;
+
+import com.l2jserver.L2JConstant;
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.game.net.Lineage2ClientImpl;
+import com.l2jserver.game.net.codec.Lineage2PacketWriter;
+import com.l2jserver.game.net.packet.server.SM_CHAR_INFO;
+import com.l2jserver.game.net.packet.server.SM_CHAR_INFO_BROADCAST;
+import com.l2jserver.game.net.packet.server.SM_NPC_INFO;
+import com.l2jserver.model.dao.NPCDAO;
+import com.l2jserver.model.world.L2Character;
+import com.l2jserver.model.world.NPC;
+import com.l2jserver.service.network.model.packet.ServerPacket;
+
+/**
+ * Measures the encoding of the largest server packets by
+ * {@link Lineage2PacketWriter}, including the creation of the packet object,
+ * as done by the game server for every packet sent. The packets are written
+ * for a new {@link L2Character} and the first NPC in the database.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class PacketWriterBenchmark extends Benchmark {
+	/**
+	 * The measured packet
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum Packet {
+		/**
+		 * {@link SM_CHAR_INFO}, sent to the character itself
+		 */
+		SM_CHAR_INFO,
+		/**
+		 * {@link SM_CHAR_INFO_BROADCAST}, sent to characters nearby
+		 */
+		SM_CHAR_INFO_BROADCAST,
+		/**
+		 * {@link SM_NPC_INFO}
+		 */
+		SM_NPC_INFO;
+	}
+
+	/**
+	 * The measured packet
+	 */
+	private final Packet packet;
+	/**
+	 * The packet writer embedder
+	 */
+	private EncoderEmbedder<ChannelBuffer> writer;
+	/**
+	 * The character
+	 */
+	private L2Character character;
+	/**
+	 * The NPC
+	 */
+	private NPC npc;
+
+	/**
+	 * @param packet
+	 *            the measured packet
+	 */
+	public PacketWriterBenchmark(Packet packet) {
+		super("network.writer." + packet.name());
+		this.packet = packet;
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) throws Exception {
+		character = environment.createCharacter("Writer" + packet.ordinal());
+		npc = environment.getInstance(NPCDAO.class).loadAll().iterator()
+				.next();
+
+		final Lineage2ClientImpl client = new Lineage2ClientImpl(null);
+		client.setVersion(L2JConstant.SUPPORTED_PROTOCOL);
+		final Lineage2PacketWriter handler = new Lineage2PacketWriter();
+		handler.setConnection(client);
+		writer = new EncoderEmbedder<ChannelBuffer>(handler);
+	}
+
+	@Override
+	public Object invoke() {
+		final ServerPacket message;
+		switch (packet) {
+		case SM_CHAR_INFO:
+			message = new SM_CHAR_INFO(character);
+			break;
+		case SM_CHAR_INFO_BROADCAST:
+			message = new SM_CHAR_INFO_BROADCAST(character);
+			break;
+		default:
+			message = new SM_NPC_INFO(npc);
+			break;
+		}
+		writer.offer(message);
+		return writer.poll().readableBytes();
+	}
+
+	@Override
+	public void tearDown() {
+		writer.finish();
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.network;
+
+import java.nio.ByteOrder;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.game.net.packet.server.SM_SYSTEM_MESSAGE;
+import com.l2jserver.service.network.model.Lineage2Client;
+import com.l2jserver.service.network.model.SystemMessage;
+import com.l2jserver.service.network.model.packet.AbstractServerPacket;
+import com.l2jserver.service.network.model.packet.ServerPacket;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Replays a combat log, in which each hit sends
+ * {@link SystemMessage#YOU_DID_S1_DMG} and every tenth hit also sends a
+ * message without parameters, and encodes the packets the same way the packet
+ * writer does. Two implementations are measured:
+ * <ul>
+ * <li>{@link Message#LEGACY}: a copy of the former
+ * {@link SM_SYSTEM_MESSAGE}, which kept a list of parameter objects and was
+ * created for every message;</li>
+ * <li>{@link Message#ENCODED}:
+ * {@link SM_SYSTEM_MESSAGE#withNumber(SystemMessage, int)} and
+ * {@link SM_SYSTEM_MESSAGE#getSharedInstance(SystemMessage)}.</li>
+ * </ul>
+ * The score is the time of one hit.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class SystemMessageBenchmark extends Benchmark {
+	/**
+	 * The system message implementation
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum Message {
+		/**
+		 * A packet object with a list of parameters for every message
+		 */
+		LEGACY,
+		/**
+		 * Pre-encoded and shared {@link SM_SYSTEM_MESSAGE} packets
+		 */
+		ENCODED;
+	}
+
+	/**
+	 * The system message implementation
+	 */
+	private final Message message;
+	/**
+	 * The packet buffer
+	 */
+	private ChannelBuffer buffer;
+	/**
+	 * The amount of hits replayed, used to vary the damage
+	 */
+	private int hits;
+
+	/**
+	 * @param message
+	 *            the system message implementation
+	 */
+	public SystemMessageBenchmark(Message message) {
+		super("network.system-message."
+				+ message.name().toLowerCase());
+		this.message = message;
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) {
+		buffer = ChannelBuffers.dynamicBuffer(ByteOrder.LITTLE_ENDIAN, 64);
+	}
+
+	@Override
+	public Object invoke() {
+		final int i = hits++;
+		final int damage = 100 + (i & 0x3FF);
+		long checksum;
+		if (message == Message.ENCODED) {
+			checksum = encode(SM_SYSTEM_MESSAGE.withNumber(
+					SystemMessage.YOU_DID_S1_DMG, damage));
+			if (i % 10 == 0)
+				checksum += encode(SM_SYSTEM_MESSAGE
+						.getSharedInstance(SystemMessage.MISSED_TARGET));
+		} else {
+			checksum = encode(new LegacySystemMessage(
+					SystemMessage.YOU_DID_S1_DMG).addNumber(damage));
+			if (i % 10 == 0)
+				checksum += encode(new LegacySystemMessage(
+						SystemMessage.MISSED_TARGET));
+		}
+		return checksum;
+	}
+
+	@Override
+	public void tearDown() {
+		buffer = null;
+	}
+
+	/**
+	 * Encodes the packet like the packet writer: length, opcode and packet
+	 * data
+	 * 
+	 * @param packet
+	 *            the packet
+	 * @return the last 4 bytes of the encoded packet
+	 */
+	private int encode(ServerPacket packet) {
+		buffer.clear();
+		buffer.writeShort(0);
+		buffer.writeByte(packet.getOpcode());
+		packet.write(null, buffer);
+		buffer.setShort(0, buffer.writerIndex());
+		return buffer.getInt(buffer.writerIndex() - 4);
+	}
+
+	/**
+	 * The former {@link SM_SYSTEM_MESSAGE} implementation, limited to number
+	 * parameters
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class LegacySystemMessage extends AbstractServerPacket {
+		/**
+		 * The System message id
+		 */
+		private int id;
+		/**
+		 * The system message parameters
+		 */
+		private List<Parameter> params = CollectionFactory.newList();
+
+		/**
+		 * A parameter writer
+		 * 
+		 * @author <a href="http://www.rogiel.com">Rogiel</a>
+		 */
+		private interface Parameter {
+			/**
+			 * @param conn
+			 *            the connection
+			 * @param buffer
+			 *            the buffer
+			 */
+			void write(Lineage2Client conn, ChannelBuffer buffer);
+		}
+
+		/**
+		 * @param message
+		 *            the {@link SystemMessage}
+		 */
+		public LegacySystemMessage(SystemMessage message) {
+			super(SM_SYSTEM_MESSAGE.OPCODE);
+			this.id = message.id;
+		}
+
+		@Override
+		public void write(Lineage2Client conn, ChannelBuffer buffer) {
+			buffer.writeInt(id);
+			buffer.writeInt(params.size());
+			for (final Parameter param : params) {
+				param.write(conn, buffer);
+			}
+		}
+
+		/**
+		 * @param number
+		 *            the number
+		 * @return this instance
+		 */
+		public LegacySystemMessage addNumber(final int number) {
+			params.add(new Parameter() {
+				@Override
+				public void write(Lineage2Client conn, ChannelBuffer buffer) {
+					buffer.writeInt(1);
+					buffer.writeInt(number);
+				}
+			});
+			return this;
+		}
+	}
+}
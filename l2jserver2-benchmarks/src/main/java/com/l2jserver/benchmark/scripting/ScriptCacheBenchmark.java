@@ -0,0 +1,202 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.scripting;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.service.game.scripting.impl.ScriptClassCache;
+import com.l2jserver.service.game.scripting.impl.ScriptContextImpl;
+import com.l2jserver.service.game.scripting.impl.ecj.EclipseScriptCompiler;
+
+/**
+ * Measures the startup of an script context with the eclipse compiler, with
+ * and without {@link ScriptClassCache}:
+ * <ul>
+ * <li>{@link Startup#NO_CACHE}: every script is compiled;</li>
+ * <li>{@link Startup#WARM_CACHE}: the cache is filled on set up, as after a
+ * server restart;</li>
+ * <li>{@link Startup#RELOAD}: a single script is changed and the context is
+ * reloaded.</li>
+ * </ul>
+ * Scripts are generated in packages of 10 classes: each class uses the
+ * previous one in its package. Scripts do not use <tt>java.util.Map</tt>, that
+ * the eclipse compiler cannot read from a Java 8 runtime. The score is the
+ * time per script.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ScriptCacheBenchmark extends Benchmark {
+	/**
+	 * The amount of scripts
+	 */
+	private static final int SCRIPTS = 100;
+
+	/**
+	 * The context startup
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum Startup {
+		/**
+		 * The context is created without a class cache
+		 */
+		NO_CACHE,
+		/**
+		 * The context is created with a filled class cache
+		 */
+		WARM_CACHE,
+		/**
+		 * The context is reloaded after changing a single script
+		 */
+		RELOAD;
+	}
+
+	/**
+	 * The {@link Guice} {@link Injector}
+	 */
+	private final Injector injector = Guice.createInjector();
+	/**
+	 * The context startup
+	 */
+	private final Startup startup;
+	/**
+	 * The scripts root
+	 */
+	private Path root;
+	/**
+	 * The class cache directory
+	 */
+	private Path cache;
+	/**
+	 * The context reloaded by {@link Startup#RELOAD}
+	 */
+	private ScriptContextImpl context;
+	/**
+	 * The version of the changed script
+	 */
+	private int version;
+
+	/**
+	 * @param startup
+	 *            the context startup
+	 */
+	public ScriptCacheBenchmark(Startup startup) {
+		super("scripting.context."
+				+ startup.name().toLowerCase().replace('_', '-'), SCRIPTS);
+		this.startup = startup;
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) throws IOException {
+		root = Files.createTempDirectory("scripts");
+		cache = Files.createTempDirectory("script-cache");
+		for (int i = 0; i < SCRIPTS; i++) {
+			write(root, i, 0);
+		}
+		if (startup == Startup.WARM_CACHE)
+			create(true).shutdown();
+		else if (startup == Startup.RELOAD)
+			context = create(true);
+	}
+
+	@Override
+	public Object invoke() throws IOException {
+		if (startup == Startup.RELOAD) {
+			write(root, SCRIPTS - 1, ++version);
+			context.reload();
+			return context.getCompilationStatistics();
+		}
+		final ScriptContextImpl context = create(startup == Startup.WARM_CACHE);
+		final Object statistics = context.getCompilationStatistics();
+		context.shutdown();
+		return statistics;
+	}
+
+	@Override
+	public void tearDown() {
+		if (context != null)
+			context.shutdown();
+		context = null;
+		FileUtils.deleteQuietly(root.toFile());
+		FileUtils.deleteQuietly(cache.toFile());
+	}
+
+	/**
+	 * @param cached
+	 *            whether to use the class cache
+	 * @return the initialized context
+	 */
+	private ScriptContextImpl create(boolean cached) {
+		final ScriptContextImpl context = new ScriptContextImpl(injector,
+				root.toFile());
+		context.setCompilerClassName(EclipseScriptCompiler.class.getName());
+		if (cached)
+			context.setClassCache(new ScriptClassCache(cache, root.toFile()));
+		context.init();
+		return context;
+	}
+
+	/**
+	 * Writes a script. Scripts use the previous script in their package.
+	 * 
+	 * @param root
+	 *            the scripts root
+	 * @param i
+	 *            the script number
+	 * @param version
+	 *            the script version
+	 * @throws IOException
+	 *             if the script could not be written
+	 */
+	private static void write(Path root, int i, int version)
+			throws IOException {
+		final String pkg = "script.p" + (i / 10);
+		final StringBuilder source = new StringBuilder();
+		source.append("package ").append(pkg).append(";\n");
+		source.append("import java.util.*;\n");
+		source.append("public class S").append(i).append(" {\n");
+		source.append("  private final int[] values = new int[10];\n");
+		source.append("  public int version() { return ").append(version)
+				.append("; }\n");
+		for (int m = 0; m < 10; m++) {
+			source.append("  public int m").append(m)
+					.append("(List<Integer> list) {\n");
+			source.append("    int sum = 0;\n");
+			source.append("    for (Integer v : list) { if (v % ")
+					.append(m + 2).append(" == 0) sum += v; }\n");
+			source.append("    values[").append(m).append("] = sum;\n");
+			source.append("    return sum;\n  }\n");
+		}
+		if (i % 10 != 0) {
+			source.append("  public int previous() { return new S")
+					.append(i - 1).append("().m0(new ArrayList<Integer>()); }\n");
+		}
+		source.append("}\n");
+		final File file = root.resolve(pkg.replace('.', '/'))
+				.resolve("S" + i + ".java").toFile();
+		FileUtils.writeStringToFile(file, source.toString(), "UTF-8");
+	}
+}
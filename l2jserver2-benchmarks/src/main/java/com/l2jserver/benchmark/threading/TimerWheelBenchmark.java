@@ -0,0 +1,164 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.threading;
+
+import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.service.core.threading.AbstractTask;
+import com.l2jserver.service.core.threading.Task;
+import com.l2jserver.service.core.threading.ThreadService;
+import com.l2jserver.service.core.threading.TimerWheel;
+
+/**
+ * Measures scheduling and cancelling a timer while {@link #TIMERS} other
+ * timers are pending, about the amount of respawns and decays pending in a
+ * populated server. Each operation cancels one pending timer and schedules a
+ * new one in its place, so the amount of pending timers stays constant.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class TimerWheelBenchmark extends Benchmark {
+	/**
+	 * The amount of pending timers
+	 */
+	private static final int TIMERS = 100000;
+	/**
+	 * The maximum timer delay, in milliseconds. Timers never expire during the
+	 * benchmark.
+	 */
+	private static final int DELAY = 60 * 60 * 1000;
+	/**
+	 * The amount of timers replaced on each invocation
+	 */
+	private static final int REPLACES = 64;
+
+	/**
+	 * The timer implementation
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum Implementation {
+		/**
+		 * {@link TimerWheel}, with the default resolution
+		 */
+		WHEEL,
+		/**
+		 * {@link ScheduledThreadPoolExecutor}, removing cancelled tasks from
+		 * its queue
+		 */
+		EXECUTOR;
+	}
+
+	/**
+	 * The task scheduled, never executed
+	 */
+	private static final Task<Object> TASK = new AbstractTask<Object>() {
+		@Override
+		public Object call() throws Exception {
+			return null;
+		}
+	};
+
+	/**
+	 * The timer implementation
+	 */
+	private final Implementation implementation;
+	/**
+	 * The timer wheel
+	 */
+	private TimerWheel wheel;
+	/**
+	 * The executor
+	 */
+	private ScheduledThreadPoolExecutor executor;
+	/**
+	 * The pending timers
+	 */
+	private Future<?>[] timers;
+	/**
+	 * The random generator
+	 */
+	private final Random random = new Random(TIMERS);
+
+	/**
+	 * @param implementation
+	 *            the timer implementation
+	 */
+	public TimerWheelBenchmark(Implementation implementation) {
+		super("threading.timer." + implementation.name().toLowerCase(),
+				REPLACES);
+		this.implementation = implementation;
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) throws Exception {
+		switch (implementation) {
+		case WHEEL:
+			wheel = environment.start(ThreadService.class).createTimerWheel(
+					"benchmark", 100, TimeUnit.MILLISECONDS);
+			break;
+		case EXECUTOR:
+			executor = new ScheduledThreadPoolExecutor(1);
+			executor.setRemoveOnCancelPolicy(true);
+			break;
+		}
+		timers = new Future<?>[TIMERS];
+		for (int i = 0; i < timers.length; i++) {
+			timers[i] = schedule();
+		}
+	}
+
+	@Override
+	public Object invoke() {
+		Future<?> timer = null;
+		for (int i = 0; i < REPLACES; i++) {
+			final int index = random.nextInt(TIMERS);
+			timers[index].cancel(false);
+			timer = timers[index] = schedule();
+		}
+		return timer;
+	}
+
+	@Override
+	public void tearDown() {
+		if (wheel != null)
+			wheel.dispose();
+		if (executor != null)
+			executor.shutdownNow();
+		wheel = null;
+		executor = null;
+		timers = null;
+	}
+
+	/**
+	 * @return a new timer, with a random delay
+	 */
+	private Future<?> schedule() {
+		final long delay = DELAY / 2 + random.nextInt(DELAY / 2);
+		switch (implementation) {
+		case WHEEL:
+			return wheel.async(delay, TimeUnit.MILLISECONDS, TASK);
+		default:
+			return executor.schedule(TASK, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+}
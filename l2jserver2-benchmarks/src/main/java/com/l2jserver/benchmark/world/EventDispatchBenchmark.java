@@ -0,0 +1,110 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.world;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.model.id.object.NPCID;
+import com.l2jserver.model.id.template.NPCTemplateID;
+import com.l2jserver.model.template.NPCTemplate;
+import com.l2jserver.model.world.NPC;
+import com.l2jserver.model.world.npc.event.NPCSpawnEvent;
+import com.l2jserver.service.game.world.event.WorldEvent;
+import com.l2jserver.service.game.world.event.WorldEventDispatcherService;
+import com.l2jserver.service.game.world.event.WorldEventFuture;
+import com.l2jserver.service.game.world.event.WorldListener;
+import com.l2jserver.util.geometry.Point3D;
+
+/**
+ * Measures {@link WorldEventDispatcherService#dispatch(WorldEvent)}, from the
+ * dispatch until the event has been delivered to all listeners. Each
+ * invocation dispatches {@link #EVENTS} events and waits for the last one, so
+ * the score includes the time the dispatcher threads take to pick the events
+ * from the queue.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class EventDispatchBenchmark extends Benchmark {
+	/**
+	 * The amount of events dispatched on each invocation
+	 */
+	private static final int EVENTS = 1024;
+	/**
+	 * The amount of listeners registered on the event object
+	 */
+	private static final int LISTENERS = 4;
+
+	/**
+	 * The dispatcher
+	 */
+	private WorldEventDispatcherService dispatcher;
+	/**
+	 * The event object
+	 */
+	private NPC npc;
+	/**
+	 * The event
+	 */
+	private WorldEvent event;
+	/**
+	 * The amount of events delivered
+	 */
+	private volatile int delivered;
+
+	/**
+	 * Creates a new instance
+	 */
+	public EventDispatchBenchmark() {
+		super("world.dispatch", EVENTS);
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) throws Exception {
+		dispatcher = environment.start(WorldEventDispatcherService.class);
+
+		final NPCTemplate template = new NPCTemplate();
+		template.setID(new NPCTemplateID(20000, null));
+		npc = new NPC(template);
+		npc.setID(new NPCID(0x70000000, null, null));
+		event = new NPCSpawnEvent(npc, Point3D.fromXYZA(0, 0, 0, 0));
+		for (int i = 0; i < LISTENERS; i++) {
+			dispatcher.addListener(npc, new WorldListener() {
+				@Override
+				public boolean dispatch(WorldEvent e) {
+					// only dispatcher threads write the counter, one at a time
+					delivered++;
+					return true;
+				}
+			});
+		}
+	}
+
+	@Override
+	public Object invoke() throws Exception {
+		WorldEventFuture<WorldEvent> future = null;
+		for (int i = 0; i < EVENTS; i++) {
+			future = dispatcher.dispatch(event);
+		}
+		future.await();
+		return delivered;
+	}
+
+	@Override
+	public void tearDown() {
+		dispatcher.clear(npc.getID());
+	}
+}
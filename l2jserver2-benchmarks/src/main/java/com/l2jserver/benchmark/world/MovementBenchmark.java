@@ -0,0 +1,211 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.world;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.model.id.object.CharacterID;
+import com.l2jserver.model.id.template.CharacterTemplateID;
+import com.l2jserver.model.template.CharacterTemplate;
+import com.l2jserver.model.world.L2Character;
+import com.l2jserver.model.world.PositionableObject;
+import com.l2jserver.model.world.character.event.CharacterMoveEvent;
+import com.l2jserver.util.geometry.Point3D;
+
+/**
+ * Processes a stream of position validation packets sent by {@link #PLAYERS}
+ * online players, one packet from each player on every invocation. Two ways
+ * of processing them are measured:
+ * <ul>
+ * <li>{@link Processing#POINT}: the packet is read into a {@link Point3D},
+ * the old position is read with {@link L2Character#getPoint()} and the range
+ * check goes through both objects points;</li>
+ * <li>{@link Processing#PRIMITIVE}: the packet is read into primitive fields,
+ * the position is updated in place and
+ * {@link L2Character#isInRange(PositionableObject, double)} is used for the
+ * range check, as done by <tt>CM_CHAR_POSITION</tt>.</li>
+ * </ul>
+ * Both modes create an {@link CharacterMoveEvent} for each packet. The score
+ * is the time to process one packet.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class MovementBenchmark extends Benchmark {
+	/**
+	 * The amount of players sending packets
+	 */
+	private static final int PLAYERS = 1000;
+	/**
+	 * The size of each validation packet: x, y, z, heading and vehicle id
+	 */
+	private static final int PACKET_SIZE = 5 * 4;
+
+	/**
+	 * The packet processing
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum Processing {
+		/**
+		 * Positions are read and written as {@link Point3D} objects
+		 */
+		POINT,
+		/**
+		 * Positions are read and written as primitives
+		 */
+		PRIMITIVE;
+	}
+
+	/**
+	 * The packet processing
+	 */
+	private final Processing processing;
+	/**
+	 * The characters
+	 */
+	private L2Character[] characters;
+	/**
+	 * The packets, one from each character
+	 */
+	private ChannelBuffer buffer;
+	/**
+	 * Holds the objects that, on the server, are handed over to other code
+	 * (the packet to its processing, the event to the dispatcher queue), so
+	 * that they are not scalar replaced here
+	 */
+	private final Object[] escaped = new Object[1024];
+
+	/**
+	 * @param processing
+	 *            the packet processing
+	 */
+	public MovementBenchmark(Processing processing) {
+		super("world.movement." + processing.name().toLowerCase(), PLAYERS);
+		this.processing = processing;
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) {
+		final CharacterTemplate template = new CharacterTemplate();
+		template.setID(new CharacterTemplateID(0x00, null));
+		characters = new L2Character[PLAYERS];
+		for (int i = 0; i < PLAYERS; i++) {
+			characters[i] = new L2Character(template);
+			characters[i].setID(new CharacterID(0x10000000 + i, null));
+			characters[i].setPosition(i * 10, i * 10, -3000, 0);
+		}
+
+		// a packet from each player, moving 10 units
+		buffer = ChannelBuffers.buffer(PLAYERS * PACKET_SIZE);
+		for (int i = 0; i < PLAYERS; i++) {
+			buffer.writeInt(i * 10 + 10);
+			buffer.writeInt(i * 10);
+			buffer.writeInt(-3000);
+			buffer.writeInt(i);
+			buffer.writeInt(0);
+		}
+	}
+
+	@Override
+	public Object invoke() {
+		long checksum = 0;
+		buffer.readerIndex(0);
+		for (int i = 0; i < PLAYERS; i++) {
+			final L2Character character = characters[i];
+			final L2Character neighbour = characters[(i + 1) % PLAYERS];
+			if (processing == Processing.PRIMITIVE)
+				checksum += processPrimitive(character, neighbour);
+			else
+				checksum += processPoint(character, neighbour);
+		}
+		return checksum;
+	}
+
+	@Override
+	public void tearDown() {
+		characters = null;
+		buffer = null;
+	}
+
+	/**
+	 * Processes a packet the way it was done with {@link Point3D} objects
+	 * 
+	 * @param character
+	 *            the character
+	 * @param neighbour
+	 *            the character to check range against
+	 * @return a checksum of the processing
+	 */
+	private long processPoint(L2Character character, L2Character neighbour) {
+		final Point3D point = Point3D.fromXYZA(buffer.readInt(),
+				buffer.readInt(), buffer.readInt(), buffer.readInt());
+		buffer.readInt();
+		escaped[character.getID().intValue() & 1023] = point;
+
+		final Point3D old = character.getPoint();
+		character.setPoint(point);
+		final CharacterMoveEvent event = new CharacterMoveEvent(character,
+				old);
+		escaped[(character.getID().intValue() + 512) & 1023] = event;
+		long checksum = event.getPoint().getX();
+
+		final double dx = Math.abs(character.getPoint().getX()
+				- neighbour.getPoint().getX());
+		final double dy = Math.abs(character.getPoint().getY()
+				- neighbour.getPoint().getY());
+		final double dz = Math.abs(character.getPoint().getZ()
+				- neighbour.getPoint().getZ());
+		if (dx <= 1000 && dy <= 1000 && dz <= 1000)
+			checksum++;
+		return checksum;
+	}
+
+	/**
+	 * Processes a packet with primitive coordinates, as done by
+	 * <tt>CM_CHAR_POSITION</tt>
+	 * 
+	 * @param character
+	 *            the character
+	 * @param neighbour
+	 *            the character to check range against
+	 * @return a checksum of the processing
+	 */
+	private long processPrimitive(L2Character character, L2Character neighbour) {
+		final int x = buffer.readInt();
+		final int y = buffer.readInt();
+		final int z = buffer.readInt();
+		final int heading = buffer.readInt();
+		buffer.readInt();
+
+		final int oldX = character.getX();
+		final int oldY = character.getY();
+		final int oldZ = character.getZ();
+		final double oldAngle = character.getAngle();
+		character.setPosition(x, y, z, heading);
+		final CharacterMoveEvent event = new CharacterMoveEvent(character,
+				oldX, oldY, oldZ, oldAngle, x - oldX, y - oldY, z - oldZ);
+		escaped[(character.getID().intValue() + 512) & 1023] = event;
+		long checksum = event.getX();
+
+		if (character.isInRange(neighbour, 1000))
+			checksum++;
+		return checksum;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.benchmark.world;
+
+import java.util.Random;
+
+import com.l2jserver.benchmark.Benchmark;
+import com.l2jserver.benchmark.BenchmarkEnvironment;
+import com.l2jserver.model.id.object.NPCID;
+import com.l2jserver.model.id.template.NPCTemplateID;
+import com.l2jserver.model.template.NPCTemplate;
+import com.l2jserver.model.world.NPC;
+import com.l2jserver.model.world.WorldObject;
+import com.l2jserver.service.game.world.WorldService;
+import com.l2jserver.service.game.world.WorldService.KnownListCallback;
+import com.l2jserver.util.geometry.Point3D;
+
+/**
+ * Measures {@link WorldService} lookups in a world populated with
+ * {@link #OBJECTS} NPCs spread over a square of {@link #AREA} units, about the
+ * NPC density of the Interlude world.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class WorldServiceBenchmark extends Benchmark {
+	/**
+	 * The amount of objects in the world
+	 */
+	private static final int OBJECTS = 20000;
+	/**
+	 * The size of the populated area
+	 */
+	private static final int AREA = 150000;
+	/**
+	 * The amount of lookups on each invocation
+	 */
+	private static final int LOOKUPS = 64;
+
+	/**
+	 * The measured operation
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum Operation {
+		/**
+		 * {@link WorldService#find(com.l2jserver.model.id.ObjectID)}
+		 */
+		FIND,
+		/**
+		 * {@link WorldService#knownlist(com.l2jserver.model.world.PositionableObject, KnownListCallback)}
+		 */
+		KNOWNLIST;
+	}
+
+	/**
+	 * The measured operation
+	 */
+	private final Operation operation;
+	/**
+	 * The world service
+	 */
+	private WorldService world;
+	/**
+	 * The objects added to the world
+	 */
+	private NPC[] npcs;
+	/**
+	 * The known list callback, counting the known objects
+	 */
+	private final CountingCallback callback = new CountingCallback();
+	/**
+	 * The index of the next object looked up
+	 */
+	private int next;
+
+	/**
+	 * @param operation
+	 *            the measured operation
+	 */
+	public WorldServiceBenchmark(Operation operation) {
+		super("world." + operation.name().toLowerCase(), LOOKUPS);
+		this.operation = operation;
+	}
+
+	@Override
+	public void setUp(BenchmarkEnvironment environment) throws Exception {
+		world = environment.start(WorldService.class);
+
+		final NPCTemplate template = new NPCTemplate();
+		template.setID(new NPCTemplateID(20000, null));
+		final Random random = new Random(OBJECTS);
+		npcs = new NPC[OBJECTS];
+		for (int i = 0; i < npcs.length; i++) {
+			final NPC npc = new NPC(template);
+			npc.setID(new NPCID(0x70000000 + i, null, null));
+			npc.setPoint(Point3D.fromXYZA(random.nextInt(AREA),
+					random.nextInt(AREA), -3000, 0));
+			world.add(npc);
+			npcs[i] = npc;
+		}
+		// the lookups are spread over the whole world
+		for (int i = npcs.length - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final NPC npc = npcs[i];
+			npcs[i] = npcs[j];
+			npcs[j] = npc;
+		}
+	}
+
+	@Override
+	public Object invoke() {
+		int found = 0;
+		for (int i = 0; i < LOOKUPS; i++) {
+			final NPC npc = npcs[next];
+			next = (next + 1) % npcs.length;
+			switch (operation) {
+			case FIND:
+				if (world.find(npc.getID()) != null)
+					found++;
+				break;
+			case KNOWNLIST:
+				callback.count = 0;
+				world.knownlist(npc, callback);
+				found += callback.count;
+				break;
+			}
+		}
+		return found;
+	}
+
+	@Override
+	public void tearDown() {
+		for (final NPC npc : npcs) {
+			world.remove(npc);
+		}
+		npcs = null;
+	}
+
+	/**
+	 * Counts the known objects
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class CountingCallback implements KnownListCallback {
+		/**
+		 * The amount of known objects
+		 */
+		private int count;
+
+		@Override
+		public void knownObject(WorldObject object) {
+			count++;
+		}
+	}
+}
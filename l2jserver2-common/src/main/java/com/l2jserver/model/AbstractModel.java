@@ -34,7 +34,8 @@ public abstract class AbstractModel<T extends ID<?>> implements Model<T> {
 	/**
 	 * The logger instance
 	 */
-	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private static final Logger log = LoggerFactory
+			.getLogger(AbstractModel.class);
 
 	/**
 	 * The object id
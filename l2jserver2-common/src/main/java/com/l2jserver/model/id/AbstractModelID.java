@@ -38,6 +38,15 @@ public abstract class AbstractModelID<T, O extends Model<? extends ID<T>>>
 		super(id);
 	}
 
+	/**
+	 * Creates an ID that stores the raw id itself
+	 * 
+	 * @see ID#ID()
+	 */
+	protected AbstractModelID() {
+		super();
+	}
+
 	/**
 	 * @return the {@link Model} object associated with this
 	 *         {@link AbstractModelID}. <tt>null</tt> if {@link Model} does not
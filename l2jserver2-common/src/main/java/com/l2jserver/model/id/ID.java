@@ -28,7 +28,7 @@ import com.google.inject.Inject;
  */
 public abstract class ID<T> {
 	/**
-	 * The id itself
+	 * The id itself. <tt>null</tt> if the subclass stores the raw id itself.
 	 */
 	protected final T id;
 
@@ -41,6 +41,16 @@ public abstract class ID<T> {
 		this.id = id;
 	}
 
+	/**
+	 * Creates an ID that stores the raw id itself (i.e. as a primitive). The
+	 * subclass must override {@link #getID()} and should also override
+	 * {@link #hashCode()} and {@link #equals(Object)}, which would otherwise
+	 * box the raw id on every call.
+	 */
+	protected ID() {
+		this.id = null;
+	}
+
 	/**
 	 * @return the id
 	 */
@@ -50,14 +60,15 @@ public abstract class ID<T> {
 
 	@Override
 	public String toString() {
-		return this.getClass().getSimpleName() + " [id=" + id + "]";
+		return this.getClass().getSimpleName() + " [id=" + getID() + "]";
 	}
 
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + id.hashCode() + this.getClass().hashCode();
+		result = prime * result + getID().hashCode()
+				+ this.getClass().hashCode();
 		return result;
 	}
 
@@ -71,10 +82,11 @@ public abstract class ID<T> {
 			return false;
 		@SuppressWarnings("rawtypes")
 		ID other = (ID) obj;
+		final T id = getID();
 		if (id == null) {
-			if (other.id != null)
+			if (other.getID() != null)
 				return false;
-		} else if (!id.equals(other.id))
+		} else if (!id.equals(other.getID()))
 			return false;
 		return true;
 	}
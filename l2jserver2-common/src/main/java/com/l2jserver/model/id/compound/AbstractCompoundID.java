@@ -70,4 +70,42 @@ public class AbstractCompoundID<T1, T2> extends ID<AbstractCompoundID<T1, T2>> {
 	public AbstractCompoundID<T1, T2> getID() {
 		return this;
 	}
+
+	@Override
+	public String toString() {
+		return this.getClass().getSimpleName() + " [id1=" + id1 + ", id2="
+				+ id2 + "]";
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((id1 == null) ? 0 : id1.hashCode());
+		result = prime * result + ((id2 == null) ? 0 : id2.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		@SuppressWarnings("rawtypes")
+		AbstractCompoundID other = (AbstractCompoundID) obj;
+		if (id1 == null) {
+			if (other.id1 != null)
+				return false;
+		} else if (!id1.equals(other.id1))
+			return false;
+		if (id2 == null) {
+			if (other.id2 != null)
+				return false;
+		} else if (!id2.equals(other.id2))
+			return false;
+		return true;
+	}
 }
@@ -16,18 +16,30 @@
  */
 package com.l2jserver.model.id.object.allocator;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.l2jserver.util.PrimeFinder;
-
 /**
- * The {@link BitSet} id allocator allocates new IDs backed by an {@link BitSet}
+ * The {@link BitSet} id allocator allocates new IDs backed by a lock-free
+ * bitmap. Each bit is stored in an {@link AtomicLongArray} page, pages are
+ * created as they are first used, and bits are set and cleared with a
+ * compare-and-set on their word.
+ * <p>
+ * To keep threads from competing for the same word on every allocation, each
+ * thread takes a word with free bits from a shared cursor and allocates from
+ * that word until it is full. Bits are only set when their ID is handed out,
+ * so a thread dying or the allocator being cleared never leaves reserved but
+ * unused IDs behind, and other threads (or {@link #allocate(int)}) can still
+ * take free bits of a word owned by a thread.
+ * <p>
+ * New IDs are taken in ascending order. IDs that have been released are only
+ * reused once the allocator wraps around the end of the ID space.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
@@ -39,81 +51,147 @@ public class BitSetIDAllocator implements IDAllocator {
 			.getLogger(BitSetIDAllocator.class);
 
 	/**
-	 * Lock to guarantee synchronization
+	 * The amount of words per page (as a power of two)
 	 */
-	private Lock lock = new ReentrantLock();
-
+	private static final int PAGE_SHIFT = 10;
 	/**
-	 * Available IDs
+	 * The amount of words per page
 	 */
-	private BitSet ids = new BitSet();
+	private static final int PAGE_WORDS = 1 << PAGE_SHIFT;
 	/**
-	 * Amount of free ids
+	 * The amount of words in the bitmap
 	 */
-	private AtomicInteger freeIdCount = new AtomicInteger();
+	private static final int WORDS = (int) ((ALLOCABLE_IDS + 63L) >>> 6);
 	/**
-	 * Next free ID
+	 * The bitmap pages
 	 */
-	private AtomicInteger nextId = new AtomicInteger();
+	private volatile AtomicReferenceArray<AtomicLongArray> pages;
+	/**
+	 * The first word that might have free bits
+	 */
+	private final AtomicInteger cursor = new AtomicInteger();
+	/**
+	 * Amount of allocated ids
+	 */
+	private final AtomicInteger allocatedIdCount = new AtomicInteger();
+	/**
+	 * Incremented every time the allocator is cleared, invalidating all
+	 * thread words
+	 */
+	private volatile int generation;
 
 	/**
-	 * Initializes this allocator
+	 * The word each thread is allocating from
 	 */
-	public void init() {
-		ids = new BitSet(PrimeFinder.nextPrime(100000));
-		ids.clear();
-		freeIdCount = new AtomicInteger(ALLOCABLE_IDS);
+	private final ThreadLocal<ThreadWord> words = new ThreadLocal<ThreadWord>() {
+		@Override
+		protected ThreadWord initialValue() {
+			return new ThreadWord();
+		}
+	};
+
+	/**
+	 * Creates a new allocator
+	 */
+	public BitSetIDAllocator() {
+		reset();
+	}
 
-		nextId = new AtomicInteger(ids.nextClearBit(0));
+	/**
+	 * Initializes this allocator, releasing all IDs
+	 */
+	public void init() {
+		reset();
 		log.info("BitSet IDAllocator initialized. Next available ID is {}",
-				nextId.get());
+				FIRST_ID);
 	}
 
 	@Override
 	public void allocate(int id) {
-		if (ids.get(id - FIRST_ID))
-			throw new IDAllocatorException("ID already allocated");
+		if (id < FIRST_ID)
+			return;
 		log.debug("Allocating ID {}", id);
-		lock.lock();
-		try {
-			if (id < FIRST_ID)
-				return;
-			ids.set(id - FIRST_ID);
-			nextId = new AtomicInteger(ids.nextClearBit(0));
-		} finally {
-			lock.unlock();
-		}
+		if (!set(id - FIRST_ID))
+			throw new IDAllocatorException("ID already allocated");
+		allocatedIdCount.incrementAndGet();
 	}
 
 	@Override
-	public int allocate() {
-		lock.lock();
-		try {
-			final int newID = nextId.get();
-			ids.set(newID);
-			freeIdCount.decrementAndGet();
+	public void allocate(int[] ids) {
+		final int[] sorted = Arrays.copyOf(ids, ids.length);
+		Arrays.sort(sorted);
 
-			if (log.isDebugEnabled())
-				log.debug("Allocated a new ID {}", newID + FIRST_ID);
-
-			int nextFree = ids.nextClearBit(newID);
+		int start = 0;
+		while (start < sorted.length && sorted[start] < FIRST_ID)
+			start++;
+		for (int i = start + 1; i < sorted.length; i++) {
+			if (sorted[i] == sorted[i - 1])
+				throw new IDAllocatorException("ID " + sorted[i]
+						+ " allocated twice");
+		}
+		if (start < sorted.length
+				&& sorted[sorted.length - 1] - FIRST_ID >= ALLOCABLE_IDS)
+			throw new IDAllocatorException("ID out of range");
 
-			if (nextFree < 0) {
-				nextFree = ids.nextClearBit(0);
+		for (int i = start; i < sorted.length;) {
+			// set all bits in the same word with a single update
+			final int first = i;
+			final int word = (sorted[i] - FIRST_ID) >>> 6;
+			long mask = 0;
+			for (; i < sorted.length && (sorted[i] - FIRST_ID) >>> 6 == word; i++) {
+				mask |= 1L << (sorted[i] - FIRST_ID);
 			}
-			if (nextFree < 0) {
-				if (ids.size() < ALLOCABLE_IDS) {
-					increaseBitSetCapacity();
-				} else {
-					log.error("ID exhaustion");
-					throw new IDAllocatorException("ID exhaustion");
+			final AtomicLongArray page = page(word >>> PAGE_SHIFT);
+			final int offset = word & (PAGE_WORDS - 1);
+			long current;
+			do {
+				current = page.get(offset);
+				if ((current & mask) != 0) {
+					// undo the words already set
+					for (int j = start; j < first; j++) {
+						clear(sorted[j] - FIRST_ID);
+					}
+					throw new IDAllocatorException("ID "
+							+ (FIRST_ID + (word << 6) + Long
+									.numberOfTrailingZeros(current & mask))
+							+ " already allocated");
 				}
+			} while (!page.compareAndSet(offset, current, current | mask));
+		}
+		allocatedIdCount.addAndGet(sorted.length - start);
+		log.debug("Allocated {} IDs", sorted.length - start);
+	}
+
+	@Override
+	public int allocate() {
+		final ThreadWord owned = words.get();
+		final int generation = this.generation;
+		if (owned.generation != generation) {
+			owned.generation = generation;
+			owned.word = -1;
+		}
+		while (true) {
+			if (owned.word < 0)
+				owned.word = claim();
+			final int word = owned.word;
+			final AtomicLongArray page = page(word >>> PAGE_SHIFT);
+			final int offset = word & (PAGE_WORDS - 1);
+			final long current = page.get(offset);
+			final long free = ~current & valid(word);
+			if (free == 0) {
+				owned.word = -1;
+				continue;
 			}
+			final long bit = Long.lowestOneBit(free);
+			if (!page.compareAndSet(offset, current, current | bit))
+				continue;
+			allocatedIdCount.incrementAndGet();
 
-			nextId.set(nextFree);
-			return newID + FIRST_ID;
-		} finally {
-			lock.unlock();
+			final int id = FIRST_ID + (word << 6)
+					+ Long.numberOfTrailingZeros(bit);
+			if (log.isDebugEnabled())
+				log.debug("Allocated a new ID {}", id);
+			return id;
 		}
 	}
 
@@ -122,42 +200,154 @@ public class BitSetIDAllocator implements IDAllocator {
 		if (id < FIRST_ID)
 			throw new IDAllocatorException(
 					"Can't release ID, smaller then initial ID");
-		if (!ids.get(id - FIRST_ID))
+		if (log.isDebugEnabled())
+			log.debug("Releasing allocated ID {}", id);
+		if (!clear(id - FIRST_ID))
 			throw new IDAllocatorException("ID not allocated");
-
-		log.debug("Releasing allocated ID {}", id);
-		lock.lock();
-		try {
-			ids.clear(id - FIRST_ID);
-			freeIdCount.incrementAndGet();
-		} finally {
-			lock.unlock();
-		}
+		allocatedIdCount.decrementAndGet();
 	}
 
+	/**
+	 * Releases all IDs. This must not be called while other threads are using
+	 * the allocator.
+	 */
 	@Override
 	public void clear() {
-		ids.clear();
+		reset();
+	}
+
+	/**
+	 * Drops all pages and invalidates all thread words
+	 */
+	private void reset() {
+		pages = new AtomicReferenceArray<AtomicLongArray>(
+				(WORDS + PAGE_WORDS - 1) >>> PAGE_SHIFT);
+		cursor.set(0);
+		allocatedIdCount.set(0);
+		generation++;
+	}
+
+	/**
+	 * Takes the next word with free bits from the cursor. No bits are set.
+	 * 
+	 * @return the word index
+	 */
+	private int claim() {
+		boolean wrapped = false;
+		while (true) {
+			final int word = cursor.get();
+			if (word >= WORDS) {
+				if (wrapped || getFreeIDs() <= 0) {
+					log.error("ID exhaustion");
+					throw new IDAllocatorException("ID exhaustion");
+				}
+				wrapped = true;
+				cursor.compareAndSet(word, 0);
+				continue;
+			}
+			final AtomicLongArray page = page(word >>> PAGE_SHIFT);
+			final int offset = word & (PAGE_WORDS - 1);
+			final boolean full = (~page.get(offset) & valid(word)) == 0;
+			if (cursor.compareAndSet(word, word + 1) && !full)
+				return word;
+		}
 	}
 
 	/**
-	 * Increases the {@link BitSet} capacity
+	 * Sets a bit
+	 * 
+	 * @param index
+	 *            the bit index
+	 * @return <code>true</code> if the bit was not set
 	 */
-	private void increaseBitSetCapacity() {
-		log.debug("Increasing BitSet capacity from {}", ids.size());
-		BitSet newBitSet = new BitSet(
-				PrimeFinder.nextPrime((getAllocatedIDs() * 11) / 10));
-		newBitSet.or(ids);
-		ids = newBitSet;
+	private boolean set(int index) {
+		if (index >= ALLOCABLE_IDS)
+			throw new IDAllocatorException("ID out of range");
+		final AtomicLongArray page = page(index >>> (PAGE_SHIFT + 6));
+		final int offset = (index >>> 6) & (PAGE_WORDS - 1);
+		final long bit = 1L << index;
+		long current;
+		do {
+			current = page.get(offset);
+			if ((current & bit) != 0)
+				return false;
+		} while (!page.compareAndSet(offset, current, current | bit));
+		return true;
+	}
+
+	/**
+	 * Clears a bit
+	 * 
+	 * @param index
+	 *            the bit index
+	 * @return <code>true</code> if the bit was set
+	 */
+	private boolean clear(int index) {
+		if (index >= ALLOCABLE_IDS)
+			return false;
+		final AtomicLongArray page = pages.get(index >>> (PAGE_SHIFT + 6));
+		if (page == null)
+			return false;
+		final int offset = (index >>> 6) & (PAGE_WORDS - 1);
+		final long bit = 1L << index;
+		long current;
+		do {
+			current = page.get(offset);
+			if ((current & bit) == 0)
+				return false;
+		} while (!page.compareAndSet(offset, current, current & ~bit));
+		return true;
+	}
+
+	/**
+	 * @param index
+	 *            the page index
+	 * @return the page, created if needed
+	 */
+	private AtomicLongArray page(int index) {
+		final AtomicReferenceArray<AtomicLongArray> pages = this.pages;
+		AtomicLongArray page = pages.get(index);
+		if (page == null) {
+			page = new AtomicLongArray(PAGE_WORDS);
+			if (!pages.compareAndSet(index, null, page))
+				page = pages.get(index);
+		}
+		return page;
+	}
+
+	/**
+	 * @param word
+	 *            the word index
+	 * @return the mask of bits in the word that map to allocable IDs
+	 */
+	private static long valid(int word) {
+		final long remaining = ALLOCABLE_IDS - ((long) word << 6);
+		return (remaining >= 64 ? -1L : (1L << remaining) - 1);
 	}
 
 	@Override
 	public int getAllocatedIDs() {
-		return ALLOCABLE_IDS - getFreeIDs();
+		return allocatedIdCount.get();
 	}
 
 	@Override
 	public int getFreeIDs() {
-		return freeIdCount.get();
+		return ALLOCABLE_IDS - getAllocatedIDs();
+	}
+
+	/**
+	 * The word a thread is allocating from
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class ThreadWord {
+		/**
+		 * The allocator generation the word was taken in
+		 */
+		private int generation;
+		/**
+		 * The word index or <code>-1</code> if none
+		 */
+		private int word = -1;
 	}
 }
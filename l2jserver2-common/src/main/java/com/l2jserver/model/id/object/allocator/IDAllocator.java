@@ -44,6 +44,15 @@ public interface IDAllocator {
 	 */
 	void allocate(int id);
 
+	/**
+	 * Registers several IDs as used at startup time. Either all IDs are
+	 * registered, or none is and an {@link IDAllocatorException} is thrown.
+	 * 
+	 * @param ids
+	 *            the ids
+	 */
+	void allocate(int[] ids);
+
 	/**
 	 * Allocates a new ID
 	 * 
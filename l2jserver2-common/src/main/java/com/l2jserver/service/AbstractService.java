@@ -36,9 +36,10 @@ public abstract class AbstractService implements Service {
 	protected final Logger logger = LoggerFactory.getLogger(this.getClass());
 
 	/**
-	 * Running state of a service
+	 * Running state of a service. Services can be started and stopped from
+	 * the {@link ServiceManager} pool threads.
 	 */
-	protected boolean running = false;
+	protected volatile boolean running = false;
 
 	@Override
 	public final void start() throws ServiceStartException {
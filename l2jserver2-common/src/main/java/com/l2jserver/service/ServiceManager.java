@@ -19,8 +19,23 @@ package com.l2jserver.service;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -39,7 +54,6 @@ import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.Scopes;
 import com.l2jserver.service.configuration.ConfigurationService;
-import com.l2jserver.util.ClassUtils;
 import com.l2jserver.util.factory.CollectionFactory;
 
 /**
@@ -48,6 +62,14 @@ import com.l2jserver.util.factory.CollectionFactory;
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
 public class ServiceManager {
+	/**
+	 * The maximum amount of services started or stopped concurrently. Most of
+	 * the startup time is spent on I/O (database, templates, scripts), so at
+	 * least a few threads are used even on single core machines.
+	 */
+	private static final int MAX_THREADS = Math.max(4, Runtime.getRuntime()
+			.availableProcessors());
+
 	/**
 	 * The logger
 	 */
@@ -66,9 +88,11 @@ public class ServiceManager {
 	private Class<? extends Module> daoModule;
 
 	/**
-	 * List of all known services by this manager
+	 * All known services by this manager, mapped to the service interface
+	 * used to start them
 	 */
-	private final Set<Service> knownServices = CollectionFactory.newSet();
+	private final Map<Service, Class<? extends Service>> knownServices = CollectionFactory
+			.newMap();
 	/**
 	 * The service descriptors
 	 */
@@ -171,7 +195,8 @@ public class ServiceManager {
 	}
 
 	/**
-	 * Starts the given service implementation
+	 * Starts the given service implementation and all of its (not yet started)
+	 * dependencies.
 	 * 
 	 * @param <T>
 	 *            the service interface type
@@ -180,8 +205,8 @@ public class ServiceManager {
 	 * @return the service implementation
 	 * @throws ServiceStartException
 	 *             if any error occur while starting service
+	 * @see #start(Class...)
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public <T extends Service> T start(Class<T> serviceClass)
 			throws ServiceStartException {
 		final T service = injector.getInstance(serviceClass);
@@ -189,126 +214,531 @@ public class ServiceManager {
 			return null;
 		if (service.isStarted())
 			return service;
-		knownServices.add(service);
+		start(Collections
+				.<Class<? extends Service>> singletonList(serviceClass));
+		return service;
+	}
+
+	/**
+	 * Starts all the given services. The full dependency graph is resolved
+	 * from the {@link AbstractService.Depends} annotations before any service is started and
+	 * every service whose dependencies are already running is started
+	 * concurrently on a bounded pool. Once all services are up, an report
+	 * with per-service timings and the startup critical path is logged.
+	 * 
+	 * @param serviceClasses
+	 *            the service interfaces
+	 * @throws ServiceStartException
+	 *             if the dependency graph contains a cycle or if any error
+	 *             occur while starting any of the services
+	 */
+	@SafeVarargs
+	public final void start(Class<? extends Service>... serviceClasses)
+			throws ServiceStartException {
+		start(Arrays.asList(serviceClasses));
+	}
+
+	/**
+	 * Starts all the given services.
+	 * 
+	 * @param serviceClasses
+	 *            the service interfaces
+	 * @throws ServiceStartException
+	 *             if the dependency graph contains a cycle or if any error
+	 *             occur while starting any of the services
+	 * @see #start(Class...)
+	 */
+	public void start(Collection<Class<? extends Service>> serviceClasses)
+			throws ServiceStartException {
+		final Map<Service, ServiceNode> graph = new IdentityHashMap<>();
+		final List<ServiceNode> path = CollectionFactory.newList();
+		for (final Class<? extends Service> serviceClass : serviceClasses) {
+			resolve(serviceClass, graph, path);
+		}
+		if (graph.isEmpty())
+			return;
+		for (final ServiceNode node : graph.values()) {
+			node.pending = node.dependencies.size();
+			node.next = node.dependents;
+		}
+		for (final ServiceNode node : graph.values()) {
+			knownServices.put(node.service, node.serviceClass);
+		}
 		try {
-			startDependencies(service.getDependencies());
-			logger.debug("{}: Starting service...",
-					serviceClass.getSimpleName());
-			if (service instanceof ConfigurableService) {
-				final ServiceConfiguration config = configurationService
-						.getServiceConfiguration(
-								(ConfigurableService<?>) service,
-								(Class<? extends Service>) serviceClass);
-				((ConfigurableService) service).setConfiguration(config);
-			}
-			service.start();
-			logger.info("{} started", serviceClass.getSimpleName());
-			return service;
-		} catch (ServiceStartException e) {
-			logger.error("{}: Error starting service: {}",
-					serviceClass.getSimpleName(), e);
-			throw e;
-		} catch (Exception e) {
-			logger.error("{}: Error starting service: {}",
-					serviceClass.getSimpleName(), e);
+			execute(graph.values(), true);
+		} catch (ServiceStopException e) {
+			// never thrown while starting
 			throw new ServiceStartException(e);
 		}
+		report("Startup", graph.values());
 	}
 
 	/**
-	 * Starts the dependencies
+	 * Resolves the dependency graph node for <code>serviceClass</code>.
+	 * Services already running are not part of the graph.
 	 * 
-	 * @param dependencies
-	 *            the dependencies
+	 * @param serviceClass
+	 *            the service interface
+	 * @param graph
+	 *            the graph being built
+	 * @param path
+	 *            the current resolution path, used to detect cycles
+	 * @return the graph node or <code>null</code> if the service is not
+	 *         available or already started
 	 * @throws ServiceStartException
-	 *             if any error occur while starting dependencies
+	 *             if a dependency cycle is detected
 	 */
-	private void startDependencies(Class<? extends Service>[] dependencies)
+	private ServiceNode resolve(Class<? extends Service> serviceClass,
+			Map<Service, ServiceNode> graph, List<ServiceNode> path)
 			throws ServiceStartException {
-		if (dependencies == null)
-			return;
-		if (dependencies.length == 0)
-			return;
-		for (final Class<? extends Service> serviceClass : dependencies) {
-			this.start(serviceClass);
+		final Service service = injector.getInstance(serviceClass);
+		if (service == null)
+			return null;
+		if (service.isStarted())
+			return null;
+		ServiceNode node = graph.get(service);
+		if (node != null) {
+			if (path.contains(node)) {
+				final StringBuilder cycle = new StringBuilder();
+				for (final ServiceNode visiting : path.subList(
+						path.indexOf(node), path.size())) {
+					cycle.append(visiting).append(" -> ");
+				}
+				cycle.append(node);
+				throw new ServiceStartException(
+						"Circular service dependency detected: " + cycle);
+			}
+			return node;
+		}
+		node = new ServiceNode(serviceClass, service);
+		graph.put(service, node);
+		path.add(node);
+		final Class<? extends Service>[] dependencies = service
+				.getDependencies();
+		if (dependencies != null) {
+			for (final Class<? extends Service> dependency : dependencies) {
+				final ServiceNode child = resolve(dependency, graph, path);
+				if (child == null || child == node
+						|| node.dependencies.contains(child))
+					continue;
+				node.dependencies.add(child);
+				child.dependents.add(node);
+			}
 		}
+		path.remove(path.size() - 1);
+		return node;
 	}
 
 	/**
-	 * Stops the given service implementation
+	 * Stops the given service implementation. Every running service that
+	 * depends on it is stopped first.
 	 * 
 	 * @param serviceClass
 	 *            the service interface
 	 * @throws ServiceStopException
 	 *             if any error occur while stopping service
+	 * @see #stop(Class...)
 	 */
 	public void stop(Class<? extends Service> serviceClass)
 			throws ServiceStopException {
-		final Service service = injector.getInstance(serviceClass);
-		if (service == null)
-			return;
-		if (service.isStopped())
+		stop(Collections
+				.<Class<? extends Service>> singletonList(serviceClass));
+	}
+
+	/**
+	 * Stops all the given services. The startup graph is walked in reverse: a
+	 * service is only stopped after every running service that depends on it
+	 * has been stopped, and independent services are stopped concurrently.
+	 * 
+	 * @param serviceClasses
+	 *            the service interfaces
+	 * @throws ServiceStopException
+	 *             if any error occur while stopping any of the services. All
+	 *             other services are still stopped.
+	 */
+	@SafeVarargs
+	public final void stop(Class<? extends Service>... serviceClasses)
+			throws ServiceStopException {
+		stop(Arrays.asList(serviceClasses));
+	}
+
+	/**
+	 * Stops all the given services.
+	 * 
+	 * @param serviceClasses
+	 *            the service interfaces
+	 * @throws ServiceStopException
+	 *             if any error occur while stopping any of the services. All
+	 *             other services are still stopped.
+	 * @see #stop(Class...)
+	 */
+	public void stop(Collection<Class<? extends Service>> serviceClasses)
+			throws ServiceStopException {
+		final Map<Service, ServiceNode> graph = new IdentityHashMap<>();
+		final List<ServiceNode> queue = CollectionFactory.newList();
+		for (final Class<? extends Service> serviceClass : serviceClasses) {
+			final Service service = injector.getInstance(serviceClass);
+			if (service == null || service.isStopped()
+					|| graph.containsKey(service))
+				continue;
+			final ServiceNode node = new ServiceNode(serviceClass, service);
+			graph.put(service, node);
+			queue.add(node);
+		}
+		// pull every running service that depends on the ones being stopped
+		while (!queue.isEmpty()) {
+			final ServiceNode node = queue.remove(queue.size() - 1);
+			for (final Entry<Service, Class<? extends Service>> entry : knownServices
+					.entrySet()) {
+				final Service known = entry.getKey();
+				if (known.isStopped() || known.getDependencies() == null)
+					continue;
+				for (final Class<? extends Service> dependency : known
+						.getDependencies()) {
+					if (injector.getInstance(dependency) != node.service)
+						continue;
+					ServiceNode dependent = graph.get(known);
+					if (dependent == null) {
+						dependent = new ServiceNode(entry.getValue(), known);
+						graph.put(known, dependent);
+						queue.add(dependent);
+					}
+					if (dependent != node
+							&& !node.dependents.contains(dependent)) {
+						node.dependents.add(dependent);
+						dependent.dependencies.add(node);
+					}
+				}
+			}
+		}
+		if (graph.isEmpty())
 			return;
-		knownServices.add(service);
+		for (final ServiceNode node : graph.values()) {
+			node.pending = node.dependents.size();
+			node.next = node.dependencies;
+		}
 		try {
-			logger.debug("{}: Stopping service...",
-					serviceClass.getSimpleName());
-			stopDependencies(service);
-			if (service instanceof ConfigurableService) {
-				((ConfigurableService<?>) service).setConfiguration(null);
-			}
-			service.stop();
-			logger.info("{}: Service stopped!", serviceClass.getSimpleName());
-		} catch (ServiceStopException e) {
-			logger.error("{}: Error stopping service: {}",
-					serviceClass.getSimpleName(), e.getCause());
-			throw e;
+			execute(graph.values(), false);
+		} catch (ServiceStartException e) {
+			// never thrown while stopping
+			throw new ServiceStopException(e);
 		}
+		report("Shutdown", graph.values());
 	}
 
 	/**
-	 * Stops the dependencies
+	 * Starts or stops all services in the graph. Nodes are dispatched to a
+	 * bounded pool as soon as their pending count reaches zero. Scheduling is
+	 * done entirely by the calling thread, the pool only runs the
+	 * {@link Service#start()} and {@link Service#stop()} calls.
 	 * 
-	 * @param service
-	 *            the service
+	 * @param nodes
+	 *            the graph nodes
+	 * @param starting
+	 *            <code>true</code> to start the services, <code>false</code>
+	 *            to stop them
+	 * @throws ServiceStartException
+	 *             if any service failed to start
 	 * @throws ServiceStopException
-	 *             if any error occur while stopping dependencies
+	 *             if any service failed to stop
 	 */
-	private void stopDependencies(Service service) throws ServiceStopException {
-		final Set<Class<? extends Service>> dependencies = createStopDependencies(
-				null, service);
-		for (final Class<? extends Service> dependency : dependencies) {
-			this.stop(dependency);
+	private void execute(Collection<ServiceNode> nodes, final boolean starting)
+			throws ServiceStartException, ServiceStopException {
+		final int threads = Math.max(1, Math.min(nodes.size(), MAX_THREADS));
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+					private final AtomicInteger threadNumber = new AtomicInteger(
+							1);
+
+					@Override
+					public Thread newThread(Runnable r) {
+						return new Thread(r, "ServiceManager-"
+								+ threadNumber.getAndIncrement());
+					}
+				});
+		final CompletionService<ServiceNode> completion = new ExecutorCompletionService<>(
+				executor);
+		int running = 0;
+		ServiceException failure = null;
+		try {
+			for (final ServiceNode node : nodes) {
+				if (node.pending != 0)
+					continue;
+				completion.submit(node.task(starting));
+				running++;
+			}
+			while (running > 0) {
+				final Future<ServiceNode> future = completion.take();
+				running--;
+				ServiceNode done;
+				try {
+					done = future.get();
+				} catch (ExecutionException e) {
+					final Throwable cause = e.getCause();
+					if (cause instanceof ServiceNodeException) {
+						// a failed stop does not hold back the shutdown
+						done = ((ServiceNodeException) cause).node;
+						if (failure == null)
+							failure = (ServiceStopException) cause.getCause();
+					} else {
+						if (failure == null)
+							failure = (cause instanceof ServiceStartException ? (ServiceStartException) cause
+									: new ServiceStartException(cause));
+						continue;
+					}
+				}
+				if (starting && failure != null)
+					continue;
+				for (final ServiceNode node : done.next) {
+					if (--node.pending != 0)
+						continue;
+					completion.submit(node.task(starting));
+					running++;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			if (starting)
+				throw new ServiceStartException(e);
+			throw new ServiceStopException(e);
+		} finally {
+			executor.shutdown();
+		}
+		if (failure instanceof ServiceStartException)
+			throw (ServiceStartException) failure;
+		if (failure != null)
+			throw (ServiceStopException) failure;
+		for (final ServiceNode node : nodes) {
+			if (node.pending == 0)
+				continue;
+			if (starting)
+				throw new ServiceStartException("Service " + node
+						+ " could not be scheduled");
+			throw new ServiceStopException("Service " + node
+					+ " could not be scheduled");
 		}
 	}
 
 	/**
-	 * Creates a {@link Set} of all dependencies to be stopped
+	 * Logs the per-service timings and the critical path of an startup or
+	 * shutdown.
 	 * 
-	 * @param depends
-	 *            the service
-	 * @param serviceClass
-	 *            the service class
-	 * @return the {@link Set} of all dependencies to be stopped
+	 * @param operation
+	 *            the operation name
+	 * @param nodes
+	 *            the graph nodes
 	 */
-	private Set<Class<? extends Service>> createStopDependencies(
-			Set<Class<? extends Service>> depends, Service serviceClass) {
-		if (depends == null)
-			depends = CollectionFactory.newSet();
-		for (final Service service : knownServices) {
-			if (service.getDependencies() == null
-					|| service.getDependencies().length == 0)
-				continue;
-			for (final Class<? extends Service> dependency : service
-					.getDependencies()) {
-				if (!ClassUtils.isSubclass(service.getClass(), dependency))
-					continue;
-				depends.add(dependency);
-				createStopDependencies(depends,
-						injector.getInstance(dependency));
+	private void report(String operation, Collection<ServiceNode> nodes) {
+		long begin = Long.MAX_VALUE;
+		ServiceNode last = null;
+		for (final ServiceNode node : nodes) {
+			begin = Math.min(begin, node.begin);
+			if (last == null || node.end > last.end)
+				last = node;
+		}
+		final List<ServiceNode> critical = CollectionFactory.newList();
+		for (ServiceNode node = last; node != null;) {
+			critical.add(0, node);
+			ServiceNode previous = null;
+			for (final ServiceNode candidate : node.next == node.dependents ? node.dependencies
+					: node.dependents) {
+				if (previous == null || candidate.end > previous.end)
+					previous = candidate;
+			}
+			node = previous;
+		}
+		final StringBuilder path = new StringBuilder();
+		for (final ServiceNode node : critical) {
+			if (path.length() > 0)
+				path.append(" -> ");
+			path.append(node).append(" (").append(node.millis())
+					.append(" ms)");
+		}
+		logger.info("{} of {} services took {} ms. Critical path: {}",
+				new Object[] { operation, nodes.size(),
+						TimeUnit.NANOSECONDS.toMillis(last.end - begin), path });
+		if (logger.isDebugEnabled()) {
+			for (final ServiceNode node : nodes) {
+				logger.debug("{}: {} ms (started at +{} ms)", new Object[] {
+						node, node.millis(),
+						TimeUnit.NANOSECONDS.toMillis(node.begin - begin) });
+			}
+		}
+	}
+
+	/**
+	 * An node in the service dependency graph
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private class ServiceNode {
+		/**
+		 * The service interface used to resolve this node
+		 */
+		private final Class<? extends Service> serviceClass;
+		/**
+		 * The service implementation
+		 */
+		private final Service service;
+		/**
+		 * The nodes this service depends on
+		 */
+		private final List<ServiceNode> dependencies = CollectionFactory
+				.newList();
+		/**
+		 * The nodes that depend on this service
+		 */
+		private final List<ServiceNode> dependents = CollectionFactory
+				.newList();
+		/**
+		 * The nodes unlocked once this node completes. Either
+		 * {@link #dependents} (startup) or {@link #dependencies} (shutdown).
+		 */
+		private List<ServiceNode> next;
+		/**
+		 * The amount of nodes that must complete before this node can run.
+		 * Only accessed by the scheduling thread.
+		 */
+		private int pending;
+		/**
+		 * The {@link System#nanoTime()} this node started running
+		 */
+		private volatile long begin;
+		/**
+		 * The {@link System#nanoTime()} this node finished running
+		 */
+		private volatile long end;
+
+		/**
+		 * @param serviceClass
+		 *            the service interface
+		 * @param service
+		 *            the service implementation
+		 */
+		public ServiceNode(Class<? extends Service> serviceClass,
+				Service service) {
+			this.serviceClass = serviceClass;
+			this.service = service;
+		}
+
+		/**
+		 * @param starting
+		 *            <code>true</code> to start the service, <code>false</code>
+		 *            to stop it
+		 * @return the task that starts or stops the service
+		 */
+		public Callable<ServiceNode> task(final boolean starting) {
+			return new Callable<ServiceNode>() {
+				@Override
+				public ServiceNode call() throws Exception {
+					begin = System.nanoTime();
+					try {
+						if (starting)
+							doStart();
+						else
+							doStop();
+					} finally {
+						end = System.nanoTime();
+					}
+					return ServiceNode.this;
+				}
+			};
+		}
+
+		/**
+		 * Starts the service
+		 * 
+		 * @throws ServiceStartException
+		 *             if any error occur while starting the service
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private void doStart() throws ServiceStartException {
+			try {
+				logger.debug("{}: Starting service...", this);
+				if (service instanceof ConfigurableService) {
+					final ServiceConfiguration config = configurationService
+							.getServiceConfiguration(
+									(ConfigurableService<?>) service,
+									serviceClass);
+					((ConfigurableService) service).setConfiguration(config);
+				}
+				service.start();
+				logger.info("{} started in {} ms", this,
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+			} catch (ServiceStartException e) {
+				logger.error("{}: Error starting service: {}", this, e);
+				throw e;
+			} catch (Exception e) {
+				logger.error("{}: Error starting service: {}", this, e);
+				throw new ServiceStartException(e);
 			}
 		}
-		return depends;
+
+		/**
+		 * Stops the service
+		 * 
+		 * @throws ServiceNodeException
+		 *             if any error occur while stopping the service
+		 */
+		private void doStop() throws ServiceNodeException {
+			try {
+				logger.debug("{}: Stopping service...", this);
+				if (service instanceof ConfigurableService) {
+					((ConfigurableService<?>) service).setConfiguration(null);
+				}
+				service.stop();
+				logger.info("{}: Service stopped!", this);
+			} catch (ServiceStopException e) {
+				logger.error("{}: Error stopping service: {}", this,
+						e.getCause());
+				throw new ServiceNodeException(this, e);
+			} catch (RuntimeException e) {
+				logger.error("{}: Error stopping service: {}", this, e);
+				throw new ServiceNodeException(this,
+						new ServiceStopException(e));
+			}
+		}
+
+		/**
+		 * @return the time taken to start or stop this service, in
+		 *         milliseconds
+		 */
+		public long millis() {
+			return TimeUnit.NANOSECONDS.toMillis(end - begin);
+		}
+
+		@Override
+		public String toString() {
+			return serviceClass.getSimpleName();
+		}
+	}
+
+	/**
+	 * Exception thrown when a service failed to stop, keeping a reference to
+	 * its graph node so that the shutdown can proceed.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class ServiceNodeException extends ServiceStopException {
+		/**
+		 * The Java Serialization API serial
+		 */
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The node that failed to stop
+		 */
+		private final transient ServiceNode node;
+
+		/**
+		 * @param node
+		 *            the node that failed to stop
+		 * @param cause
+		 *            the root cause
+		 */
+		public ServiceNodeException(ServiceNode node, ServiceStopException cause) {
+			super(cause.getMessage(), cause);
+			this.node = node;
+		}
 	}
 
 	/**
@@ -329,7 +759,7 @@ public class ServiceManager {
 			return null;
 		if (service.isStopped())
 			throw new ServiceStopException("Service is already stopped");
-		knownServices.add(service);
+		knownServices.put(service, serviceClass);
 		try {
 			logger.debug("{}: Restaring service...",
 					serviceClass.getSimpleName());
@@ -28,9 +28,13 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.inject.Inject;
 import com.l2jserver.service.AbstractService;
 import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
+import com.l2jserver.service.core.metrics.Counter;
+import com.l2jserver.service.core.metrics.Gauge;
+import com.l2jserver.service.core.metrics.MetricRegistry;
 
 /**
  * Simple cache that stores invocation results in a Google Guava
@@ -44,11 +48,25 @@ public class GuavaCacheService extends AbstractService implements CacheService {
 	 */
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+	/**
+	 * The metric registry
+	 */
+	private final MetricRegistry metrics;
+
 	/**
 	 * The interface cache
 	 */
 	private Cache<MethodInvocation, Object> interfaceCache;
 
+	/**
+	 * @param metrics
+	 *            the metric registry
+	 */
+	@Inject
+	public GuavaCacheService(MetricRegistry metrics) {
+		this.metrics = metrics;
+	}
+
 	@Override
 	protected void doStart() throws ServiceStartException {
 		interfaceCache = createCache("interface-cache");
@@ -107,7 +125,7 @@ public class GuavaCacheService extends AbstractService implements CacheService {
 						throw new Exception("Key is not bounded to any value");
 					}
 				});
-		return new GuavaCacheFacade<K, V>(cache);
+		return new GuavaCacheFacade<K, V>(name, cache);
 	}
 
 	@Override
@@ -126,7 +144,7 @@ public class GuavaCacheService extends AbstractService implements CacheService {
 						throw new Exception("Key is not bounded to any value");
 					}
 				});
-		return new GuavaCacheFacade<K, V>(cache);
+		return new GuavaCacheFacade<K, V>(name, cache);
 	}
 
 	@Override
@@ -139,6 +157,8 @@ public class GuavaCacheService extends AbstractService implements CacheService {
 		if (cache instanceof GuavaCacheFacade) {
 			log.debug("Disposing cache {}", cache);
 			((GuavaCacheFacade<K, V>) cache).cache.invalidateAll();
+			metrics.removeAll("cache." + ((GuavaCacheFacade<K, V>) cache).name
+					+ ".");
 		} else {
 			log.warn("Trying to dispose {} cache when it is not EhCacheFacade type");
 		}
@@ -164,13 +184,37 @@ public class GuavaCacheService extends AbstractService implements CacheService {
 		 * The backing cache
 		 */
 		private final com.google.common.cache.LoadingCache<K, V> cache;
+		/**
+		 * The cache name
+		 */
+		private final String name;
+		/**
+		 * The amount of lookups that found a value
+		 */
+		private final Counter hits;
+		/**
+		 * The amount of lookups that did not find a value
+		 */
+		private final Counter misses;
 
 		/**
+		 * @param name
+		 *            the cache name
 		 * @param cache
 		 *            the backing cache
 		 */
-		public GuavaCacheFacade(com.google.common.cache.LoadingCache<K, V> cache) {
+		public GuavaCacheFacade(String name,
+				final com.google.common.cache.LoadingCache<K, V> cache) {
+			this.name = name;
 			this.cache = cache;
+			this.hits = metrics.counter("cache." + name + ".hits");
+			this.misses = metrics.counter("cache." + name + ".misses");
+			metrics.gauge("cache." + name + ".size", new Gauge() {
+				@Override
+				public long getValue() {
+					return cache.size();
+				}
+			});
 		}
 
 		@Override
@@ -180,12 +224,17 @@ public class GuavaCacheService extends AbstractService implements CacheService {
 
 		@Override
 		public V get(K key) {
-			return cache.getIfPresent(key);
+			final V value = cache.getIfPresent(key);
+			if (value == null)
+				misses.increment();
+			else
+				hits.increment();
+			return value;
 		}
 
 		@Override
 		public boolean contains(K key) {
-			return cache.getIfPresent(key) != null;
+			return get(key) != null;
 		}
 
 		@Override
@@ -131,6 +131,25 @@ public class XMLConfigurationService extends AbstractService implements
 				throws Throwable {
 			log.debug("Configuration service, method invoked: {}",
 					method.getName());
+			// the DOM is not thread safe, even for reads, and services are
+			// configured concurrently at startup
+			synchronized (XMLConfigurationService.this) {
+				return invoke(method, args);
+			}
+		}
+
+		/**
+		 * Invokes the configuration method
+		 * 
+		 * @param method
+		 *            the invoked method
+		 * @param args
+		 *            the method arguments
+		 * @return the method result
+		 * @throws Throwable
+		 *             if any error occur
+		 */
+		private Object invoke(Method method, Object[] args) throws Throwable {
 			if (args == null || args.length == 0) {
 				final ConfigurationPropertyGetter getter = method
 						.getAnnotation(ConfigurationPropertyGetter.class);
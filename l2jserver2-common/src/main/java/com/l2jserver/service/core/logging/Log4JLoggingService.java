@@ -16,6 +16,7 @@
  */
 package com.l2jserver.service.core.logging;
 
+import org.apache.log4j.Appender;
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Layout;
@@ -31,7 +32,8 @@ import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
 
 /**
- * Logging service implementation for Log4J
+ * Logging service implementation for Log4J. Events are written to the console,
+ * optionally in a dedicated thread through a {@link RingBufferAppender}.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
@@ -57,7 +59,12 @@ public class Log4JLoggingService extends
 
 		rootLogger.removeAllAppenders();
 		// rootLogger.setLevel(config.getLoggersNode().);
-		rootLogger.addAppender(new ConsoleAppender(layout, "System.err"));
+		final Appender console = new ConsoleAppender(layout, "System.err");
+		if (config.isAsync())
+			rootLogger.addAppender(new RingBufferAppender(console, config
+					.getAsyncBufferSize(), config.getAsyncOverflowPolicy()));
+		else
+			rootLogger.addAppender(console);
 
 		final NodeList nodes = config.getLoggersNode().getChildNodes();
 		for (int i = 0; i < nodes.getLength(); i++) {
@@ -19,6 +19,7 @@ package com.l2jserver.service.core.logging;
 import org.w3c.dom.Node;
 
 import com.l2jserver.service.ServiceConfiguration;
+import com.l2jserver.service.core.logging.RingBufferAppender.OverflowPolicy;
 import com.l2jserver.service.configuration.XMLConfigurationService.ConfigurationXPath;
 
 /**
@@ -39,4 +40,55 @@ public interface LoggingServiceConfiguration extends ServiceConfiguration {
 	@ConfigurationPropertySetter
 	@ConfigurationXPath(".")
 	void setLoggersNode(Node loggersNode);
+
+	/**
+	 * @return whether log events are written asynchronously, by a dedicated
+	 *         thread
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "false")
+	@ConfigurationXPath("async/@enabled")
+	boolean isAsync();
+
+	/**
+	 * @param async
+	 *            whether log events are written asynchronously, by a dedicated
+	 *            thread
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("async/@enabled")
+	void setAsync(boolean async);
+
+	/**
+	 * @return the maximum amount of log events waiting to be written, if
+	 *         asynchronous
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "8192")
+	@ConfigurationXPath("async/@buffer-size")
+	int getAsyncBufferSize();
+
+	/**
+	 * @param size
+	 *            the maximum amount of log events waiting to be written, if
+	 *            asynchronous
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("async/@buffer-size")
+	void setAsyncBufferSize(int size);
+
+	/**
+	 * @return what to do when an event is logged but the asynchronous buffer is
+	 *         full
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "DISCARD")
+	@ConfigurationXPath("async/@overflow")
+	OverflowPolicy getAsyncOverflowPolicy();
+
+	/**
+	 * @param policy
+	 *            what to do when an event is logged but the asynchronous
+	 *            buffer is full
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("async/@overflow")
+	void setAsyncOverflowPolicy(OverflowPolicy policy);
 }
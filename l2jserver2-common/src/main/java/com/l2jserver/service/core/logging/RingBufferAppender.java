@@ -0,0 +1,290 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.logging;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Appender that queues events into a bounded ring buffer and writes them to
+ * another {@link Appender} in a dedicated thread, so that threads logging never
+ * wait for the console or disk (unless the buffer is full and the
+ * {@link OverflowPolicy} is {@link OverflowPolicy#BLOCK BLOCK}).
+ * <p>
+ * Discarded events are counted and reported, once the buffer has room again,
+ * as a single warning. Events logged once the appender is closed are
+ * discarded.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class RingBufferAppender extends AppenderSkeleton {
+	/**
+	 * What to do when an event is logged but the buffer is full
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Waits until the writer thread makes room for the event
+		 */
+		BLOCK,
+		/**
+		 * Discards the new event
+		 */
+		DISCARD,
+		/**
+		 * Discards the oldest event in the buffer to make room for the new one
+		 */
+		DISCARD_OLDEST;
+	}
+
+	/**
+	 * The maximum amount of events written at once
+	 */
+	private static final int BATCH_SIZE = 256;
+	/**
+	 * How long, in milliseconds, a blocked logging thread waits for room in
+	 * the buffer before checking whether the appender was closed
+	 */
+	private static final long BLOCK_TIMEOUT = 100;
+
+	/**
+	 * The appender events are written to
+	 */
+	private final Appender appender;
+	/**
+	 * The event buffer
+	 */
+	private final BlockingQueue<LoggingEvent> buffer;
+	/**
+	 * The overflow policy
+	 */
+	private final OverflowPolicy overflowPolicy;
+	/**
+	 * The amount of events discarded since last reported
+	 */
+	private final AtomicLong discarded = new AtomicLong();
+	/**
+	 * The writer thread
+	 */
+	private final Thread writer;
+	/**
+	 * Guards {@link #closed}: logging threads hold the read lock while
+	 * checking it and adding an event to the buffer, {@link #close()} takes
+	 * the write lock to set it, so that no event can be added after the buffer
+	 * was drained for the last time
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * @param appender
+	 *            the appender events are written to
+	 * @param bufferSize
+	 *            the maximum amount of events waiting to be written
+	 * @param overflowPolicy
+	 *            what to do when an event is logged but the buffer is full
+	 */
+	public RingBufferAppender(Appender appender, int bufferSize,
+			OverflowPolicy overflowPolicy) {
+		this.appender = appender;
+		this.buffer = new ArrayBlockingQueue<LoggingEvent>(bufferSize);
+		this.overflowPolicy = overflowPolicy;
+		this.writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				write();
+			}
+		}, "log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Unlike {@link AppenderSkeleton#doAppend(LoggingEvent)}, this method is
+	 * not synchronized: logging threads only contend on the buffer.
+	 */
+	@Override
+	public void doAppend(LoggingEvent event) {
+		if (!isAsSevereAsThreshold(event.getLevel()))
+			return;
+		for (Filter filter = getFirstFilter(); filter != null; filter = filter
+				.getNext()) {
+			final int decision = filter.decide(event);
+			if (decision == Filter.DENY)
+				return;
+			if (decision == Filter.ACCEPT)
+				break;
+		}
+		append(event);
+	}
+
+	@Override
+	protected void append(LoggingEvent event) {
+		// values depending on the logging thread must be taken now
+		event.getThreadName();
+		event.getNDC();
+		event.getMDCCopy();
+		event.getRenderedMessage();
+
+		if (overflowPolicy == OverflowPolicy.BLOCK) {
+			try {
+				// the lock is released between attempts so that close() is
+				// never held back by a full buffer
+				while (!offer(event))
+					;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				discarded.incrementAndGet();
+			}
+			return;
+		}
+		lock.readLock().lock();
+		try {
+			if (closed) {
+				discarded.incrementAndGet();
+				return;
+			}
+			switch (overflowPolicy) {
+			case DISCARD:
+				if (!buffer.offer(event))
+					discarded.incrementAndGet();
+				break;
+			case DISCARD_OLDEST:
+				while (!buffer.offer(event)) {
+					if (buffer.poll() != null)
+						discarded.incrementAndGet();
+				}
+				break;
+			default:
+				break;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Waits up to {@link #BLOCK_TIMEOUT} for room in the buffer and adds the
+	 * event to it. If the appender is closed, the event is discarded.
+	 * 
+	 * @param event
+	 *            the event
+	 * @return <code>true</code> if the event was either added or discarded,
+	 *         <code>false</code> if the buffer is still full
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	private boolean offer(LoggingEvent event) throws InterruptedException {
+		lock.readLock().lock();
+		try {
+			if (closed) {
+				discarded.incrementAndGet();
+				return true;
+			}
+			return buffer.offer(event, BLOCK_TIMEOUT, TimeUnit.MILLISECONDS);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Writes events until the appender is closed
+	 */
+	private void write() {
+		final List<LoggingEvent> events = CollectionFactory.newList();
+		try {
+			while (true) {
+				events.add(buffer.take());
+				buffer.drainTo(events, BATCH_SIZE - 1);
+				write(events);
+				events.clear();
+			}
+		} catch (InterruptedException e) {
+			// closed
+		}
+	}
+
+	/**
+	 * Writes events to the appender, reporting discarded events first
+	 * 
+	 * @param events
+	 *            the events
+	 */
+	private void write(List<LoggingEvent> events) {
+		final long count = discarded.getAndSet(0);
+		if (count > 0)
+			appender.doAppend(new LoggingEvent(
+					RingBufferAppender.class.getName(), Logger
+							.getLogger(RingBufferAppender.class), Level.WARN,
+					count + " log events were discarded, buffer is full", null));
+		for (final LoggingEvent event : events) {
+			try {
+				appender.doAppend(event);
+			} catch (RuntimeException e) {
+				LogLog.error("Could not write log event", e);
+			}
+		}
+	}
+
+	/**
+	 * Stops the writer thread, writes all buffered events and closes the
+	 * appender events are written to. Once the write lock is taken, no
+	 * logging thread can add events anymore, so the final drain writes all of
+	 * them.
+	 */
+	@Override
+	public void close() {
+		lock.writeLock().lock();
+		try {
+			if (closed)
+				return;
+			closed = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		writer.interrupt();
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		final List<LoggingEvent> events = CollectionFactory.newList();
+		buffer.drainTo(events);
+		write(events);
+		appender.close();
+	}
+
+	@Override
+	public boolean requiresLayout() {
+		return false;
+	}
+}
@@ -37,6 +37,9 @@ import org.apache.log4j.helpers.LogLog;
  * 
  * Unfortunately, UNIX systems doesn't support file creation date, so we have to
  * use lastModified(), windows only solution is not good.
+ * <p>
+ * The old file is only moved into the backup directory while opening the new
+ * one, compression is done in background.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
@@ -84,13 +87,14 @@ public class TruncateToZipFileAppender extends FileAppender {
 	}
 
 	/**
-	 * This method creates archive with file instead of deleting it.
+	 * This method creates archive with file instead of deleting it. The file is
+	 * moved to the backup directory and compressed in background.
 	 * 
 	 * @param file
 	 *            file to truncate
 	 */
-	protected void truncate(File file) {
-		LogLog.debug("Compression of file: " + file.getAbsolutePath()
+	protected void truncate(final File file) {
+		LogLog.debug("Truncation of file: " + file.getAbsolutePath()
 				+ " started.");
 
 		// Linux systems doesn't provide file creation time, so we have to hope
@@ -113,52 +117,87 @@ public class TruncateToZipFileAppender extends FileAppender {
 			}
 			String date = df.format(new Date(file.lastModified()));
 
-			File zipFile = new File(backupRoot, file.getName() + "." + date
-					+ ".zip");
-
-			ZipOutputStream zos = null;
-			FileInputStream fis = null;
-			try {
-				zos = new ZipOutputStream(new FileOutputStream(zipFile));
-				ZipEntry entry = new ZipEntry(file.getName());
-				entry.setMethod(ZipEntry.DEFLATED);
-				entry.setCrc(FileUtils.checksumCRC32(file));
-				zos.putNextEntry(entry);
-				fis = FileUtils.openInputStream(file);
-
-				byte[] buffer = new byte[1024];
-				int readed;
-				while ((readed = fis.read(buffer)) != -1) {
-					zos.write(buffer, 0, readed);
-				}
+			final File zipFile = new File(backupRoot, file.getName() + "."
+					+ date + ".zip");
+			final File movedFile = new File(backupRoot, file.getName() + "."
+					+ date);
+			if (!file.renameTo(movedFile)) {
+				// cannot be moved (i.e. another file system), compress in place
+				compress(file, zipFile, file.getName());
+				return;
+			}
 
-			} catch (Exception e) {
-				throw new Error("Can't create zip file", e);
-			} finally {
-				if (zos != null) {
+			final Thread thread = new Thread("log-compression") {
+				@Override
+				public void run() {
 					try {
-						zos.close();
-					} catch (IOException e) {
-						// not critical error
-						LogLog.warn("Can't close zip file", e);
+						compress(movedFile, zipFile, file.getName());
+					} catch (Error e) {
+						LogLog.error("Can't compress old log file "
+								+ movedFile.getAbsolutePath(), e);
 					}
 				}
+			};
+			thread.start();
+		}
+	}
 
-				if (fis != null) {
-					try {
-						// not critical error
-						fis.close();
-					} catch (IOException e) {
-						LogLog.warn("Can't close zipped file", e);
-					}
+	/**
+	 * Compresses a file into a zip file and deletes it
+	 * 
+	 * @param file
+	 *            the file to compress
+	 * @param zipFile
+	 *            the zip file
+	 * @param name
+	 *            the entry name
+	 */
+	private void compress(File file, File zipFile, String name) {
+		LogLog.debug("Compression of file: " + file.getAbsolutePath()
+				+ " started.");
+
+		ZipOutputStream zos = null;
+		FileInputStream fis = null;
+		try {
+			zos = new ZipOutputStream(new FileOutputStream(zipFile));
+			ZipEntry entry = new ZipEntry(name);
+			entry.setMethod(ZipEntry.DEFLATED);
+			entry.setCrc(FileUtils.checksumCRC32(file));
+			zos.putNextEntry(entry);
+			fis = FileUtils.openInputStream(file);
+
+			byte[] buffer = new byte[1024];
+			int readed;
+			while ((readed = fis.read(buffer)) != -1) {
+				zos.write(buffer, 0, readed);
+			}
+
+		} catch (Exception e) {
+			throw new Error("Can't create zip file", e);
+		} finally {
+			if (zos != null) {
+				try {
+					zos.close();
+				} catch (IOException e) {
+					// not critical error
+					LogLog.warn("Can't close zip file", e);
 				}
 			}
 
-			if (!file.delete()) {
-				throw new Error("Can't delete old log file "
-						+ file.getAbsolutePath());
+			if (fis != null) {
+				try {
+					// not critical error
+					fis.close();
+				} catch (IOException e) {
+					LogLog.warn("Can't close zipped file", e);
+				}
 			}
 		}
+
+		if (!file.delete()) {
+			throw new Error("Can't delete old log file "
+					+ file.getAbsolutePath());
+		}
 	}
 
 	/**
@@ -0,0 +1,61 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Metric} that counts events, such as executed queries or received
+ * packets. Increments are a single atomic operation.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class Counter implements Metric {
+	/**
+	 * The count
+	 */
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * Increments the counter by one
+	 */
+	public void increment() {
+		count.incrementAndGet();
+	}
+
+	/**
+	 * Increments the counter
+	 * 
+	 * @param n
+	 *            the amount to increment
+	 */
+	public void add(long n) {
+		count.addAndGet(n);
+	}
+
+	/**
+	 * @return the current count
+	 */
+	public long get() {
+		return count.get();
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(get());
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link Metric} that records the distribution of durations, in
+ * nanoseconds. Recording is lock-free: values are counted in log-linear
+ * buckets (each power of two is split in {@value #SUB_BUCKETS} buckets), so
+ * percentiles are estimated with a relative error of at most 12.5%.
+ * <p>
+ * Use {@link #getSnapshot()} to read the distribution and
+ * {@link Snapshot#minus(Snapshot)} to obtain the distribution recorded between
+ * two snapshots.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class Histogram implements Metric {
+	/**
+	 * The amount of buckets for each power of two
+	 */
+	private static final int SUB_BUCKETS = 4;
+	/**
+	 * The amount of bits used to select the sub bucket
+	 */
+	private static final int SUB_BUCKET_BITS = 2;
+	/**
+	 * The total amount of buckets, enough for any positive long
+	 */
+	private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS)
+			* SUB_BUCKETS;
+
+	/**
+	 * The amount of values recorded in each bucket
+	 */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	/**
+	 * The sum of all values recorded
+	 */
+	private final AtomicLong sum = new AtomicLong();
+	/**
+	 * The maximum value recorded
+	 */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration
+	 * 
+	 * @param nanos
+	 *            the duration, in nanoseconds. Negative values are recorded as
+	 *            zero.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		buckets.incrementAndGet(bucket(nanos));
+		sum.addAndGet(nanos);
+		long current;
+		while (nanos > (current = max.get())) {
+			if (max.compareAndSet(current, nanos))
+				break;
+		}
+	}
+
+	/**
+	 * Records the time elapsed since <code>start</code>
+	 * 
+	 * @param start
+	 *            the start time, as returned by {@link System#nanoTime()}
+	 */
+	public void recordSince(long start) {
+		record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Takes a snapshot of the distribution. Values recorded while the snapshot
+	 * is being taken might be only partially visible in it.
+	 * 
+	 * @return the snapshot
+	 */
+	public Snapshot getSnapshot() {
+		final long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			count += counts[i];
+		}
+		return new Snapshot(counts, count, sum.get(), max.get());
+	}
+
+	/**
+	 * @param value
+	 *            the value
+	 * @return the index of the bucket the value is counted in
+	 */
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS))
+				& (SUB_BUCKETS - 1);
+		return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * @param bucket
+	 *            the bucket index
+	 * @return the smallest value counted in the bucket
+	 */
+	static long lowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+		final int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + sub) << shift;
+	}
+
+	/**
+	 * @param bucket
+	 *            the bucket index
+	 * @return the largest value counted in the bucket
+	 */
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+		return lowerBound(bucket) + (1L << shift) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return getSnapshot().toString();
+	}
+
+	/**
+	 * An immutable view of the distribution of a {@link Histogram}
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public static class Snapshot {
+		/**
+		 * The amount of values in each bucket
+		 */
+		private final long[] counts;
+		/**
+		 * The amount of values
+		 */
+		private final long count;
+		/**
+		 * The sum of all values
+		 */
+		private final long sum;
+		/**
+		 * The maximum value
+		 */
+		private final long max;
+
+		/**
+		 * @param counts
+		 *            the amount of values in each bucket
+		 * @param count
+		 *            the amount of values
+		 * @param sum
+		 *            the sum of all values
+		 * @param max
+		 *            the maximum value
+		 */
+		private Snapshot(long[] counts, long count, long sum, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		/**
+		 * @return the amount of values
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return the mean value, in nanoseconds
+		 */
+		public double getMean() {
+			if (count == 0)
+				return 0;
+			return (double) sum / count;
+		}
+
+		/**
+		 * @return the maximum value, in nanoseconds
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Estimates a percentile of the values
+		 * 
+		 * @param percentile
+		 *            the percentile, from 0 to 1
+		 * @return the estimated value, in nanoseconds
+		 */
+		public long getPercentile(double percentile) {
+			if (count == 0)
+				return 0;
+			final long rank = Math.max(1, (long) Math.ceil(percentile * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank)
+					// the middle of the bucket
+					return Math.min(max,
+							(lowerBound(i) + upperBound(i)) >>> 1);
+			}
+			return max;
+		}
+
+		/**
+		 * Computes the distribution of the values recorded after
+		 * <code>previous</code> was taken. The maximum of the returned
+		 * snapshot is an estimate, as the histogram only keeps its overall
+		 * maximum.
+		 * 
+		 * @param previous
+		 *            a previous snapshot of the same histogram
+		 * @return the distribution of the values recorded between both
+		 *         snapshots
+		 */
+		public Snapshot minus(Snapshot previous) {
+			final long[] delta = new long[counts.length];
+			long deltaMax = 0;
+			for (int i = 0; i < counts.length; i++) {
+				delta[i] = Math.max(0, counts[i] - previous.counts[i]);
+				if (delta[i] > 0)
+					deltaMax = Math.min(max, upperBound(i));
+			}
+			return new Snapshot(delta, Math.max(0, count - previous.count),
+					Math.max(0, sum - previous.sum), deltaMax);
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+					count, toMillis(getMean()), toMillis(getPercentile(0.5)),
+					toMillis(getPercentile(0.99)), toMillis(max));
+		}
+
+		/**
+		 * @param nanos
+		 *            the duration, in nanoseconds
+		 * @return the duration, in milliseconds
+		 */
+		public static double toMillis(double nanos) {
+			return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+		}
+	}
+}
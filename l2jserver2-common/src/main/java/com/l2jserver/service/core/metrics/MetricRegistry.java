@@ -0,0 +1,165 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.metrics;
+
+import java.util.Iterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Singleton;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * The registry of all {@link Metric metrics} of the server, by name. Names are
+ * dot separated, starting with the subsystem: <tt>threads.shared.queue</tt>,
+ * <tt>database.query</tt>...
+ * <p>
+ * The registry has no dependencies, so any service can inject it without
+ * depending on the {@link MetricsService}. Metrics are always recorded, the
+ * {@link MetricsService} only exposes them.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+@Singleton
+public class MetricRegistry {
+	/**
+	 * The metrics, by name
+	 */
+	private final ConcurrentMap<String, Metric> metrics = CollectionFactory
+			.newConcurrentMap();
+
+	/**
+	 * Returns the {@link Counter} registered with <code>name</code>, creating
+	 * it if needed. Callers should keep the returned instance instead of
+	 * looking it up on each event.
+	 * 
+	 * @param name
+	 *            the metric name
+	 * @return the counter
+	 * @throws IllegalArgumentException
+	 *             if another metric type is registered with the same name
+	 */
+	public Counter counter(String name) {
+		return getOrCreate(name, Counter.class);
+	}
+
+	/**
+	 * Returns the {@link Histogram} registered with <code>name</code>,
+	 * creating it if needed. Callers should keep the returned instance instead
+	 * of looking it up on each event.
+	 * 
+	 * @param name
+	 *            the metric name
+	 * @return the histogram
+	 * @throws IllegalArgumentException
+	 *             if another metric type is registered with the same name
+	 */
+	public Histogram histogram(String name) {
+		return getOrCreate(name, Histogram.class);
+	}
+
+	/**
+	 * Registers a {@link Gauge}, replacing any gauge registered with the same
+	 * name
+	 * 
+	 * @param name
+	 *            the metric name
+	 * @param gauge
+	 *            the gauge
+	 * @return the gauge
+	 * @throws IllegalArgumentException
+	 *             if another metric type is registered with the same name
+	 */
+	public Gauge gauge(String name, Gauge gauge) {
+		Preconditions.checkNotNull(name, "name");
+		Preconditions.checkNotNull(gauge, "gauge");
+		final Metric previous = metrics.put(name, gauge);
+		if (previous != null && !(previous instanceof Gauge)) {
+			metrics.put(name, previous);
+			throw new IllegalArgumentException(name + " is not a gauge");
+		}
+		return gauge;
+	}
+
+	/**
+	 * @param name
+	 *            the metric name
+	 * @return the metric registered with <code>name</code>, if any
+	 */
+	public Metric get(String name) {
+		return metrics.get(name);
+	}
+
+	/**
+	 * Removes a metric
+	 * 
+	 * @param name
+	 *            the metric name
+	 */
+	public void remove(String name) {
+		metrics.remove(name);
+	}
+
+	/**
+	 * Removes all metrics whose name starts with <code>prefix</code>
+	 * 
+	 * @param prefix
+	 *            the name prefix
+	 */
+	public void removeAll(String prefix) {
+		Preconditions.checkNotNull(prefix, "prefix");
+		final Iterator<String> names = metrics.keySet().iterator();
+		while (names.hasNext()) {
+			if (names.next().startsWith(prefix))
+				names.remove();
+		}
+	}
+
+	/**
+	 * @return a copy of all metrics, sorted by name
+	 */
+	public SortedMap<String, Metric> getMetrics() {
+		return new TreeMap<String, Metric>(metrics);
+	}
+
+	/**
+	 * @param name
+	 *            the metric name
+	 * @param type
+	 *            the metric type
+	 * @return the existing or newly created metric
+	 */
+	private <M extends Metric> M getOrCreate(String name, Class<M> type) {
+		Preconditions.checkNotNull(name, "name");
+		Metric metric = metrics.get(name);
+		if (metric == null) {
+			try {
+				metric = type.newInstance();
+			} catch (InstantiationException | IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+			final Metric previous = metrics.putIfAbsent(name, metric);
+			if (previous != null)
+				metric = previous;
+		}
+		Preconditions.checkArgument(type.isInstance(metric), "%s is not a %s",
+				name, type.getSimpleName());
+		return type.cast(metric);
+	}
+}
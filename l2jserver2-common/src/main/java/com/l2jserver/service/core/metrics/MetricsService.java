@@ -0,0 +1,41 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.metrics;
+
+import com.l2jserver.service.Service;
+
+/**
+ * This service exposes the metrics recorded in the {@link MetricRegistry}:
+ * over JMX and as periodic snapshots written to a rolling file.
+ * <p>
+ * Services record their metrics directly in the {@link MetricRegistry} and do
+ * not need to depend on this service.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public interface MetricsService extends Service {
+	/**
+	 * @return the registry exposed by this service
+	 */
+	MetricRegistry getRegistry();
+
+	/**
+	 * Writes a snapshot of all metrics to the snapshot file immediately. Does
+	 * nothing if snapshots are disabled.
+	 */
+	void snapshot();
+}
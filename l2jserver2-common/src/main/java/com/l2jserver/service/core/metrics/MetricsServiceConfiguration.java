@@ -0,0 +1,119 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.metrics;
+
+import com.l2jserver.service.ServiceConfiguration;
+import com.l2jserver.service.configuration.XMLConfigurationService.ConfigurationXPath;
+
+/**
+ * Configuration interface for {@link MetricsService}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public interface MetricsServiceConfiguration extends ServiceConfiguration {
+	/**
+	 * @return whether metrics are exposed over JMX
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "true")
+	@ConfigurationXPath("jmx/@enabled")
+	boolean isJMXEnabled();
+
+	/**
+	 * @param enabled
+	 *            whether metrics are exposed over JMX
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("jmx/@enabled")
+	void setJMXEnabled(boolean enabled);
+
+	/**
+	 * @return whether snapshots are periodically written to the snapshot file
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "true")
+	@ConfigurationXPath("snapshot/@enabled")
+	boolean isSnapshotEnabled();
+
+	/**
+	 * @param enabled
+	 *            whether snapshots are periodically written to the snapshot
+	 *            file
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("snapshot/@enabled")
+	void setSnapshotEnabled(boolean enabled);
+
+	/**
+	 * @return the snapshot file
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "log/metrics.log")
+	@ConfigurationXPath("snapshot/@file")
+	String getSnapshotFile();
+
+	/**
+	 * @param file
+	 *            the snapshot file
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("snapshot/@file")
+	void setSnapshotFile(String file);
+
+	/**
+	 * @return the interval between snapshots, in seconds
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "60")
+	@ConfigurationXPath("snapshot/@interval")
+	int getSnapshotInterval();
+
+	/**
+	 * @param interval
+	 *            the interval between snapshots, in seconds
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("snapshot/@interval")
+	void setSnapshotInterval(int interval);
+
+	/**
+	 * @return the size of the snapshot file before it is rolled over, such as
+	 *         <tt>10MB</tt>
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "10MB")
+	@ConfigurationXPath("snapshot/@max-size")
+	String getSnapshotMaxSize();
+
+	/**
+	 * @param size
+	 *            the size of the snapshot file before it is rolled over
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("snapshot/@max-size")
+	void setSnapshotMaxSize(String size);
+
+	/**
+	 * @return the amount of rolled over snapshot files kept
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "5")
+	@ConfigurationXPath("snapshot/@backups")
+	int getSnapshotBackups();
+
+	/**
+	 * @param backups
+	 *            the amount of rolled over snapshot files kept
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("snapshot/@backups")
+	void setSnapshotBackups(int backups);
+}
@@ -0,0 +1,327 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.RollingFileAppender;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.l2jserver.service.AbstractConfigurableService;
+import com.l2jserver.service.AbstractService.Depends;
+import com.l2jserver.service.ServiceStartException;
+import com.l2jserver.service.ServiceStopException;
+import com.l2jserver.service.core.logging.LoggingService;
+import com.l2jserver.service.core.metrics.Histogram.Snapshot;
+import com.l2jserver.service.core.threading.ScheduledAsyncFuture;
+import com.l2jserver.service.core.threading.ThreadService;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * The default {@link MetricsService} implementation. Metrics are registered in
+ * the platform MBean server as the attributes of
+ * <tt>com.l2jserver:type=Metrics</tt>, histograms as a set of attributes
+ * (<tt>count</tt>, <tt>mean</tt>, <tt>p50</tt>, <tt>p99</tt> and <tt>max</tt>,
+ * in milliseconds). Snapshots are written by a Log4J {@link RollingFileAppender}
+ * , with histograms reporting only the values recorded since the previous
+ * snapshot.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+@Depends({ LoggingService.class, ThreadService.class })
+public class MetricsServiceImpl extends
+		AbstractConfigurableService<MetricsServiceConfiguration> implements
+		MetricsService {
+	/**
+	 * The logger
+	 */
+	private final org.slf4j.Logger log = LoggerFactory.getLogger(this
+			.getClass());
+
+	/**
+	 * The JMX object name
+	 */
+	public static final String OBJECT_NAME = "com.l2jserver:type=Metrics";
+	/**
+	 * The Log4J logger name used to write snapshots
+	 */
+	private static final String SNAPSHOT_LOGGER = "metrics";
+
+	/**
+	 * The metric registry
+	 */
+	private final MetricRegistry registry;
+	/**
+	 * The thread service
+	 */
+	private final ThreadService threadService;
+
+	/**
+	 * The registered MBean name, if registered
+	 */
+	private ObjectName objectName;
+	/**
+	 * The logger snapshots are written to
+	 */
+	private Logger snapshotLogger;
+	/**
+	 * The task writing snapshots
+	 */
+	private ScheduledAsyncFuture snapshotTask;
+	/**
+	 * The histogram snapshots written on the previous snapshot
+	 */
+	private Map<String, Snapshot> previous;
+
+	/**
+	 * @param registry
+	 *            the metric registry
+	 * @param threadService
+	 *            the thread service
+	 */
+	@Inject
+	public MetricsServiceImpl(MetricRegistry registry,
+			ThreadService threadService) {
+		super(MetricsServiceConfiguration.class);
+		this.registry = registry;
+		this.threadService = threadService;
+	}
+
+	@Override
+	protected void doStart() throws ServiceStartException {
+		if (config.isJMXEnabled()) {
+			try {
+				objectName = new ObjectName(OBJECT_NAME);
+				ManagementFactory.getPlatformMBeanServer().registerMBean(
+						new MetricsMBean(), objectName);
+			} catch (JMException e) {
+				// another server in the same VM, the service can still write
+				// snapshots
+				log.warn("Metrics could not be registered in JMX", e);
+				objectName = null;
+			}
+		}
+		if (config.isSnapshotEnabled()) {
+			final RollingFileAppender appender;
+			try {
+				appender = new RollingFileAppender(new PatternLayout(
+						"%d{ISO8601} %m%n"), config.getSnapshotFile());
+			} catch (IOException e) {
+				throw new ServiceStartException(e);
+			}
+			appender.setMaxFileSize(config.getSnapshotMaxSize());
+			appender.setMaxBackupIndex(config.getSnapshotBackups());
+
+			snapshotLogger = Logger.getLogger(SNAPSHOT_LOGGER);
+			snapshotLogger.removeAllAppenders();
+			// not affected by the levels configured in the logging service
+			snapshotLogger.setLevel(Level.INFO);
+			snapshotLogger.setAdditivity(false);
+			snapshotLogger.addAppender(appender);
+
+			previous = CollectionFactory.newMap();
+			final int interval = config.getSnapshotInterval();
+			snapshotTask = threadService.async(interval, TimeUnit.SECONDS,
+					interval, new Runnable() {
+						@Override
+						public void run() {
+							snapshot();
+						}
+					});
+		}
+	}
+
+	@Override
+	public MetricRegistry getRegistry() {
+		return registry;
+	}
+
+	@Override
+	public synchronized void snapshot() {
+		if (snapshotLogger == null)
+			return;
+		final Map<String, Snapshot> current = CollectionFactory.newMap();
+		final StringBuilder builder = new StringBuilder("snapshot");
+		for (final Entry<String, Metric> entry : registry.getMetrics()
+				.entrySet()) {
+			final String name = entry.getKey();
+			final Metric metric = entry.getValue();
+			builder.append(System.lineSeparator()).append('\t').append(name)
+					.append(' ');
+			if (metric instanceof Histogram) {
+				final Snapshot snapshot = ((Histogram) metric).getSnapshot();
+				current.put(name, snapshot);
+				final Snapshot last = previous.get(name);
+				builder.append(last == null ? snapshot : snapshot.minus(last));
+			} else {
+				builder.append(value(metric));
+			}
+		}
+		previous = current;
+		snapshotLogger.info(builder);
+	}
+
+	@Override
+	protected void doStop() throws ServiceStopException {
+		if (snapshotTask != null) {
+			snapshotTask.cancel(false);
+			snapshotTask = null;
+		}
+		if (snapshotLogger != null) {
+			snapshot();
+			snapshotLogger.removeAllAppenders();
+			snapshotLogger = null;
+			previous = null;
+		}
+		if (objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+						objectName);
+			} catch (JMException e) {
+				log.warn("Metrics could not be unregistered from JMX", e);
+			}
+			objectName = null;
+		}
+	}
+
+	/**
+	 * @param metric
+	 *            the {@link Counter} or {@link Gauge}
+	 * @return the current value
+	 */
+	private static long value(Metric metric) {
+		if (metric instanceof Counter)
+			return ((Counter) metric).get();
+		if (metric instanceof Gauge)
+			return ((Gauge) metric).getValue();
+		throw new IllegalArgumentException("Unsupported metric: " + metric);
+	}
+
+	/**
+	 * Exposes the {@link MetricRegistry} as a {@link DynamicMBean}. The
+	 * attribute list is rebuilt on each request, as metrics can be registered
+	 * at any time.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private class MetricsMBean implements DynamicMBean {
+		@Override
+		public Object getAttribute(String attribute)
+				throws AttributeNotFoundException {
+			final Metric metric = registry.get(attribute);
+			if (metric instanceof Counter || metric instanceof Gauge)
+				return value(metric);
+
+			final int separator = attribute.lastIndexOf('.');
+			if (separator < 0)
+				throw new AttributeNotFoundException(attribute);
+			final Metric histogram = registry.get(attribute.substring(0,
+					separator));
+			if (!(histogram instanceof Histogram))
+				throw new AttributeNotFoundException(attribute);
+			final Snapshot snapshot = ((Histogram) histogram).getSnapshot();
+			switch (attribute.substring(separator + 1)) {
+			case "count":
+				return (double) snapshot.getCount();
+			case "mean":
+				return Snapshot.toMillis(snapshot.getMean());
+			case "p50":
+				return Snapshot.toMillis(snapshot.getPercentile(0.5));
+			case "p99":
+				return Snapshot.toMillis(snapshot.getPercentile(0.99));
+			case "max":
+				return Snapshot.toMillis(snapshot.getMax());
+			default:
+				throw new AttributeNotFoundException(attribute);
+			}
+		}
+
+		@Override
+		public AttributeList getAttributes(String[] attributes) {
+			final AttributeList list = new AttributeList();
+			for (final String attribute : attributes) {
+				try {
+					list.add(new Attribute(attribute, getAttribute(attribute)));
+				} catch (AttributeNotFoundException e) {
+					// skipped, as defined by DynamicMBean
+				}
+			}
+			return list;
+		}
+
+		@Override
+		public void setAttribute(Attribute attribute)
+				throws AttributeNotFoundException {
+			throw new AttributeNotFoundException("Metrics are read-only");
+		}
+
+		@Override
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+
+		@Override
+		public Object invoke(String actionName, Object[] params,
+				String[] signature) {
+			throw new UnsupportedOperationException(actionName);
+		}
+
+		@Override
+		public MBeanInfo getMBeanInfo() {
+			final List<MBeanAttributeInfo> attributes = CollectionFactory
+					.newList();
+			for (final Entry<String, Metric> entry : registry.getMetrics()
+					.entrySet()) {
+				final String name = entry.getKey();
+				if (entry.getValue() instanceof Histogram) {
+					for (final String stat : new String[] { "count", "mean",
+							"p50", "p99", "max" }) {
+						attributes.add(new MBeanAttributeInfo(name + "." + stat,
+								Double.class.getName(), name + " " + stat,
+								true, false, false));
+					}
+				} else {
+					attributes.add(new MBeanAttributeInfo(name, Long.class
+							.getName(), name, true, false, false));
+				}
+			}
+			return new MBeanInfo(MetricsServiceImpl.class.getName(),
+					"l2jserver2 metrics",
+					attributes.toArray(new MBeanAttributeInfo[attributes
+							.size()]), null, new MBeanOperationInfo[0], null);
+		}
+	}
+}
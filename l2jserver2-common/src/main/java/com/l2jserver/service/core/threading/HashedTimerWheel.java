@@ -0,0 +1,251 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.threading;
+
+import java.util.Collection;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A hashed timer wheel: elements are placed in one of <tt>slots</tt> buckets
+ * according to the tick in which they expire, each tick covering
+ * <tt>resolution</tt> time units. Adding and removing an element are constant
+ * time operations, and {@link #expire(long, Collection)} only visits the
+ * buckets of the elapsed ticks. Elements expiring more than one revolution
+ * ahead share the bucket with earlier elements and are skipped until their
+ * tick comes.
+ * <p>
+ * Times are given by the caller, in any unit, as long as the same unit is
+ * used for the resolution, delays and current times. Elements never expire
+ * before their time, but can expire up to one tick late.
+ * <p>
+ * This class is not thread-safe, callers must synchronize access to it.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ * @param <E>
+ *            the element type
+ * @see TimerWheel
+ */
+public class HashedTimerWheel<E> {
+	/**
+	 * The duration of a tick
+	 */
+	private final long resolution;
+	/**
+	 * The first timeout of each slot
+	 */
+	private final Timeout<E>[] wheel;
+	/**
+	 * The mask of the slot index, <tt>wheel.length - 1</tt>
+	 */
+	private final int mask;
+
+	/**
+	 * The last tick processed
+	 */
+	private long tick;
+	/**
+	 * The amount of pending timeouts
+	 */
+	private int size;
+
+	/**
+	 * @param resolution
+	 *            the duration of a tick
+	 * @param slots
+	 *            the amount of slots in the wheel, must be a power of two
+	 * @param now
+	 *            the current time
+	 */
+	@SuppressWarnings("unchecked")
+	public HashedTimerWheel(long resolution, int slots, long now) {
+		Preconditions.checkArgument(resolution > 0, "resolution <= 0");
+		Preconditions.checkArgument(slots > 0 && Integer.bitCount(slots) == 1,
+				"slots must be a power of two");
+		this.resolution = resolution;
+		this.wheel = new Timeout[slots];
+		this.mask = slots - 1;
+		this.tick = now / resolution;
+	}
+
+	/**
+	 * Adds an element to the wheel
+	 * 
+	 * @param element
+	 *            the element
+	 * @param now
+	 *            the current time
+	 * @param delay
+	 *            the time until the element expires
+	 * @return the timeout, used to remove the element before it expires
+	 */
+	public Timeout<E> add(E element, long now, long delay) {
+		Preconditions.checkNotNull(element, "element");
+		// rounded up, elements never expire before their time
+		final long deadline = Math.max(tick + 1,
+				(now + Math.max(0, delay) + resolution - 1) / resolution);
+		final Timeout<E> timeout = new Timeout<E>(element, deadline);
+		final int slot = (int) (deadline & mask);
+		timeout.next = wheel[slot];
+		if (timeout.next != null)
+			timeout.next.previous = timeout;
+		wheel[slot] = timeout;
+		size++;
+		return timeout;
+	}
+
+	/**
+	 * Removes an element before it expires
+	 * 
+	 * @param timeout
+	 *            the timeout returned by {@link #add(Object, long, long)}
+	 * @return <code>true</code> if the timeout was pending and has been
+	 *         removed, <code>false</code> if it already expired or was removed
+	 */
+	public boolean remove(Timeout<E> timeout) {
+		if (!timeout.pending)
+			return false;
+		if (timeout.previous != null)
+			timeout.previous.next = timeout.next;
+		else
+			wheel[(int) (timeout.deadline & mask)] = timeout.next;
+		if (timeout.next != null)
+			timeout.next.previous = timeout.previous;
+		timeout.previous = null;
+		timeout.next = null;
+		timeout.pending = false;
+		size--;
+		return true;
+	}
+
+	/**
+	 * Removes all elements whose time has passed
+	 * 
+	 * @param now
+	 *            the current time
+	 * @param expired
+	 *            the collection the expired elements are added to
+	 * @return the amount of expired elements
+	 */
+	public int expire(long now, Collection<? super E> expired) {
+		final long target = now / resolution;
+		int count = 0;
+		// after a full revolution, every slot has been visited
+		final long ticks = Math.min(target - tick, wheel.length);
+		for (long i = 1; i <= ticks; i++) {
+			Timeout<E> timeout = wheel[(int) ((tick + i) & mask)];
+			while (timeout != null) {
+				final Timeout<E> next = timeout.next;
+				if (timeout.deadline <= target) {
+					remove(timeout);
+					expired.add(timeout.element);
+					count++;
+				}
+				timeout = next;
+			}
+		}
+		if (target > tick)
+			tick = target;
+		return count;
+	}
+
+	/**
+	 * @return the amount of pending elements
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all pending elements
+	 * 
+	 * @param removed
+	 *            the collection the removed elements are added to, can be
+	 *            <code>null</code>
+	 */
+	public void clear(Collection<? super E> removed) {
+		for (int i = 0; i < wheel.length; i++) {
+			Timeout<E> timeout = wheel[i];
+			while (timeout != null) {
+				final Timeout<E> next = timeout.next;
+				timeout.pending = false;
+				timeout.previous = null;
+				timeout.next = null;
+				if (removed != null)
+					removed.add(timeout.element);
+				timeout = next;
+			}
+			wheel[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * An element pending in the wheel
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 * @param <E>
+	 *            the element type
+	 */
+	public static final class Timeout<E> {
+		/**
+		 * The element
+		 */
+		private final E element;
+		/**
+		 * The tick in which the element expires
+		 */
+		private final long deadline;
+		/**
+		 * Whether the element is still in the wheel
+		 */
+		private boolean pending = true;
+		/**
+		 * The previous timeout in the slot
+		 */
+		private Timeout<E> previous;
+		/**
+		 * The next timeout in the slot
+		 */
+		private Timeout<E> next;
+
+		/**
+		 * @param element
+		 *            the element
+		 * @param deadline
+		 *            the tick in which the element expires
+		 */
+		private Timeout(E element, long deadline) {
+			this.element = element;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * @return the element
+		 */
+		public E getElement() {
+			return element;
+		}
+
+		/**
+		 * @return <code>true</code> if the element is still in the wheel
+		 */
+		public boolean isPending() {
+			return pending;
+		}
+	}
+}
@@ -51,7 +51,8 @@ public interface ThreadPool {
 	<T> AsyncFuture<T> async(long delay, TimeUnit unit, Task<T> task);
 
 	/**
-	 * Executes an asynchronous tasks at an scheduled time.
+	 * Executes an asynchronous tasks at an scheduled time. An exception thrown
+	 * by the task is logged and the task keeps repeating.
 	 * 
 	 * @param delay
 	 *            the initial delay to wait before the task is executed
@@ -64,7 +64,8 @@ public interface ThreadService extends Service {
 	 * resources in scheduled thread pool are limited and tasks should be
 	 * performed fast.</b>
 	 * <p>
-	 * Tasks scheduled here will go to an default shared thread pool.
+	 * Tasks scheduled here will go to an default shared thread pool. An
+	 * exception thrown by the task is logged and the task keeps repeating.
 	 * 
 	 * @param delay
 	 *            the initial delay to wait before the task is executed
@@ -79,6 +80,27 @@ public interface ThreadService extends Service {
 	ScheduledAsyncFuture async(long delay, TimeUnit unit, long repeat,
 			Runnable task);
 
+	/**
+	 * Executes an asynchronous task at an scheduled time, using the shared
+	 * {@link TimerWheel}. Scheduling and cancelling the task are constant time
+	 * operations, but the task can be executed up to one tick late. This is
+	 * the preferred method for large amounts of short lived timers, such as
+	 * respawns and decays.
+	 * <p>
+	 * The task is executed in the timer thread and should be performed fast.
+	 * 
+	 * @param <T>
+	 *            the task return type
+	 * @param delay
+	 *            the delay to wait before the task is executed
+	 * @param unit
+	 *            the time unit of delay
+	 * @param task
+	 *            the task
+	 * @return the {@link AsyncFuture} notified once the task has completed
+	 */
+	<T> AsyncFuture<T> schedule(long delay, TimeUnit unit, Task<T> task);
+
 	/**
 	 * Creates a new thread pool with {@link ThreadPoolPriority#NORMAL normal}
 	 * priority and that can be increased up to {@link Integer#MAX_VALUE} active
@@ -154,4 +176,28 @@ public interface ThreadService extends Service {
 	 *            the thread pool to be disposed
 	 */
 	void dispose(ThreadPool pool);
+
+	/**
+	 * Creates a new {@link TimerWheel}, with its own timer thread. The timer
+	 * thread only collects the expired tasks: they are run by a thread pool
+	 * shared by all timer wheels.
+	 * 
+	 * @param name
+	 *            the timer name
+	 * @param resolution
+	 *            the duration of a tick
+	 * @param unit
+	 *            the {@link TimeUnit} for <code>resolution</code>
+	 * @return the new timer wheel
+	 */
+	TimerWheel createTimerWheel(String name, long resolution, TimeUnit unit);
+
+	/**
+	 * Disposes an given timer wheel. Pending tasks are cancelled and the
+	 * timer will no longer be usable.
+	 * 
+	 * @param timer
+	 *            the timer wheel to be disposed
+	 */
+	void dispose(TimerWheel timer);
 }
@@ -0,0 +1,74 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.threading;
+
+import com.l2jserver.service.ServiceConfiguration;
+import com.l2jserver.service.configuration.XMLConfigurationService.ConfigurationXPath;
+
+/**
+ * Configuration interface for {@link ThreadService}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public interface ThreadServiceConfiguration extends ServiceConfiguration {
+	/**
+	 * @return the tick duration of the shared timer wheel, in milliseconds
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "100")
+	@ConfigurationXPath("timer/@resolution")
+	long getTimerResolution();
+
+	/**
+	 * @param resolution
+	 *            the tick duration of the shared timer wheel, in milliseconds
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("timer/@resolution")
+	void setTimerResolution(long resolution);
+
+	/**
+	 * @return the amount of slots in timer wheels, a power of two
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "512")
+	@ConfigurationXPath("timer/@slots")
+	int getTimerSlots();
+
+	/**
+	 * @param slots
+	 *            the amount of slots in timer wheels, a power of two
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("timer/@slots")
+	void setTimerSlots(int slots);
+
+	/**
+	 * @return the amount of threads running expired timer tasks (0 for one
+	 *         thread per processor)
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "0")
+	@ConfigurationXPath("timer/@threads")
+	int getTimerThreadCount();
+
+	/**
+	 * @param threads
+	 *            the amount of threads running expired timer tasks (0 for one
+	 *            thread per processor)
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("timer/@threads")
+	void setTimerThreadCount(int threads);
+}
@@ -23,6 +23,8 @@ import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
@@ -34,9 +36,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
-import com.l2jserver.service.AbstractService;
+import com.google.inject.Inject;
+import com.l2jserver.service.AbstractConfigurableService;
 import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
+import com.l2jserver.service.core.metrics.Gauge;
+import com.l2jserver.service.core.metrics.MetricRegistry;
+import com.l2jserver.service.core.threading.HashedTimerWheel.Timeout;
 import com.l2jserver.util.factory.CollectionFactory;
 
 /**
@@ -44,22 +50,47 @@ import com.l2jserver.util.factory.CollectionFactory;
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
-public class ThreadServiceImpl extends AbstractService implements ThreadService {
+public class ThreadServiceImpl extends
+		AbstractConfigurableService<ThreadServiceConfiguration> implements
+		ThreadService {
 	/**
 	 * The logger
 	 */
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+	/**
+	 * The metric registry
+	 */
+	private final MetricRegistry metrics;
+
 	/**
 	 * The public shared thread pool
 	 */
 	private ThreadPool pool;
+	/**
+	 * The public shared timer wheel
+	 */
+	private TimerWheel timer;
+	/**
+	 * The thread pool running expired tasks of all timer wheels
+	 */
+	private ThreadPoolImpl timerTasks;
 
 	/**
 	 * The list of active thread pools
 	 */
 	private Map<String, ThreadPoolImpl> threadPools;
 
+	/**
+	 * @param metrics
+	 *            the metric registry
+	 */
+	@Inject
+	public ThreadServiceImpl(MetricRegistry metrics) {
+		super(ThreadServiceConfiguration.class);
+		this.metrics = metrics;
+	}
+
 	@Override
 	protected void doStart() throws ServiceStartException {
 		threadPools = CollectionFactory.newMap();
@@ -74,6 +105,13 @@ public class ThreadServiceImpl extends AbstractService implements ThreadService
 				}
 			}
 		});
+		int timerThreads = config.getTimerThreadCount();
+		if (timerThreads <= 0)
+			timerThreads = Runtime.getRuntime().availableProcessors();
+		timerTasks = (ThreadPoolImpl) createThreadPool("timer-tasks",
+				timerThreads);
+		timer = createTimerWheel("shared", config.getTimerResolution(),
+				TimeUnit.MILLISECONDS);
 		// scheduler = Executors.newScheduledThreadPool(10);
 		// async = Executors.newCachedThreadPool();
 	}
@@ -92,8 +130,9 @@ public class ThreadServiceImpl extends AbstractService implements ThreadService
 		Preconditions.checkNotNull(unit, "unit");
 		Preconditions.checkNotNull(callable, "callable");
 
-		log.debug("Scheduling async task in {}ms: {}", unit.toMillis(delay),
-				callable);
+		if (log.isDebugEnabled())
+			log.debug("Scheduling async task in {}ms: {}",
+					unit.toMillis(delay), callable);
 		return pool.async(delay, unit, callable);
 	}
 
@@ -105,12 +144,25 @@ public class ThreadServiceImpl extends AbstractService implements ThreadService
 		Preconditions.checkNotNull(unit, "unit");
 		Preconditions.checkNotNull(task, "task");
 
-		log.debug("Scheduling repeating async task in {}ms each {}ms: {}",
-				new Object[] { unit.toMillis(delay), unit.toMillis(repeat),
-						task });
+		if (log.isDebugEnabled())
+			log.debug("Scheduling repeating async task in {}ms each {}ms: {}",
+					new Object[] { unit.toMillis(delay),
+							unit.toMillis(repeat), task });
 		return pool.async(delay, unit, repeat, task);
 	}
 
+	@Override
+	public <T> AsyncFuture<T> schedule(long delay, TimeUnit unit, Task<T> task) {
+		Preconditions.checkArgument(delay >= 0, "delay < 0");
+		Preconditions.checkNotNull(unit, "unit");
+		Preconditions.checkNotNull(task, "task");
+
+		if (log.isDebugEnabled())
+			log.debug("Scheduling timer task in {}ms: {}",
+					unit.toMillis(delay), task);
+		return timer.async(delay, unit, task);
+	}
+
 	@Override
 	public ThreadPool createThreadPool(final String name, final int threads,
 			final long threadTimeout, final TimeUnit threadTimeoutUnit,
@@ -138,6 +190,31 @@ public class ThreadServiceImpl extends AbstractService implements ThreadService
 
 		final ThreadPoolImpl pool = new ThreadPoolImpl(name, executor);
 		threadPools.put(name, pool);
+
+		metrics.gauge("threads." + name + ".active", new Gauge() {
+			@Override
+			public long getValue() {
+				return executor.getActiveCount();
+			}
+		});
+		metrics.gauge("threads." + name + ".size", new Gauge() {
+			@Override
+			public long getValue() {
+				return executor.getPoolSize();
+			}
+		});
+		metrics.gauge("threads." + name + ".queue", new Gauge() {
+			@Override
+			public long getValue() {
+				return executor.getQueue().size();
+			}
+		});
+		metrics.gauge("threads." + name + ".completed", new Gauge() {
+			@Override
+			public long getValue() {
+				return executor.getCompletedTaskCount();
+			}
+		});
 		return pool;
 	}
 
@@ -166,14 +243,68 @@ public class ThreadServiceImpl extends AbstractService implements ThreadService
 		if (pool instanceof ThreadPoolImpl) {
 			((ThreadPoolImpl) pool).executor.shutdown();
 			threadPools.remove(((ThreadPoolImpl) pool).name);
+			metrics.removeAll("threads." + ((ThreadPoolImpl) pool).name + ".");
 			return;
 		}
 		throw new UnsupportedOperationException(
 				"The given ThreadPool is not supported by this service");
 	}
 
+	@Override
+	public TimerWheel createTimerWheel(final String name, long resolution,
+			TimeUnit unit) {
+		Preconditions.checkArgument(resolution > 0, "resolution <= 0");
+		Preconditions.checkNotNull(unit, "unit");
+		log.debug("Creating new TimerWheel {}; resolution: {}ms", name,
+				unit.toMillis(resolution));
+
+		final TimerWheelImpl timer = new TimerWheelImpl(name,
+				unit.toNanos(resolution), config.getTimerSlots());
+		timer.tick = timer.pool.async(resolution, unit, resolution,
+				new Runnable() {
+					@Override
+					public void run() {
+						timer.tick();
+					}
+				});
+		metrics.gauge("timers." + name + ".pending", new Gauge() {
+			@Override
+			public long getValue() {
+				return timer.getPending();
+			}
+		});
+		return timer;
+	}
+
+	@Override
+	public void dispose(TimerWheel timer) {
+		log.debug("Disposing TimerWheel {}", timer);
+		if (timer instanceof TimerWheelImpl) {
+			final TimerWheelImpl impl = (TimerWheelImpl) timer;
+			impl.tick.cancel(false);
+			dispose(impl.pool);
+			metrics.removeAll("timers." + impl.name + ".");
+
+			final List<TimerFutureImpl<?>> pending = CollectionFactory
+					.newList();
+			synchronized (impl.wheel) {
+				impl.wheel.clear(pending);
+			}
+			for (final TimerFutureImpl<?> future : pending) {
+				future.task.cancel(false);
+			}
+			return;
+		}
+		throw new UnsupportedOperationException(
+				"The given TimerWheel is not supported by this service");
+	}
+
 	@Override
 	protected void doStop() throws ServiceStopException {
+		dispose(timer);
+		timer = null;
+		dispose(timerTasks);
+		timerTasks = null;
 		dispose(pool);
 		pool = null;
 		threadPools = null;
@@ -192,9 +323,10 @@ public class ThreadServiceImpl extends AbstractService implements ThreadService
 		 */
 		private final Future<T> future;
 		/**
-		 * List of all active listeners
+		 * List of all active listeners, only allocated once the first listener
+		 * is added
 		 */
-		private List<AsyncListener<T>> listeners = CollectionFactory.newList();
+		private List<AsyncListener<T>> listeners;
 
 		/**
 		 * Creates a new instance
@@ -276,19 +408,28 @@ public class ThreadServiceImpl extends AbstractService implements ThreadService
 		}
 
 		@Override
-		public void addListener(AsyncListener<T> listener) {
+		public synchronized void addListener(AsyncListener<T> listener) {
+			if (listeners == null)
+				listeners = CollectionFactory.newList();
 			listeners.add(listener);
 		}
 
 		@Override
-		public void removeListener(AsyncListener<T> listener) {
-			listeners.remove(listener);
+		public synchronized void removeListener(AsyncListener<T> listener) {
+			if (listeners != null)
+				listeners.remove(listener);
 		}
 
 		/**
 		 * Notify all listeners that the task has been completed
 		 */
 		private void notifyListeners() {
+			final List<AsyncListener<T>> listeners;
+			synchronized (this) {
+				listeners = this.listeners;
+			}
+			if (listeners == null)
+				return;
 			for (final AsyncListener<T> listener : listeners) {
 				T object = null;
 				try {
@@ -359,6 +500,158 @@ public class ThreadServiceImpl extends AbstractService implements ThreadService
 
 	}
 
+	/**
+	 * Future implementation for tasks scheduled in a {@link TimerWheelImpl}.
+	 * Listeners are notified by the timer task pool thread, once the task has
+	 * been executed.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 * @param <T>
+	 *            the return type
+	 */
+	private class TimerFutureImpl<T> extends AsyncFutureImpl<T> implements
+			Runnable {
+		/**
+		 * The task, executed by the timer task pool
+		 */
+		private final FutureTask<T> task;
+		/**
+		 * The timer wheel
+		 */
+		private final TimerWheelImpl timer;
+		/**
+		 * The timeout in the wheel, guarded by the wheel lock
+		 */
+		private Timeout<TimerFutureImpl<?>> timeout;
+
+		/**
+		 * @param task
+		 *            the task
+		 * @param timer
+		 *            the timer wheel
+		 */
+		private TimerFutureImpl(FutureTask<T> task, TimerWheelImpl timer) {
+			super(task);
+			this.task = task;
+			this.timer = timer;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			synchronized (timer.wheel) {
+				timer.wheel.remove(timeout);
+			}
+			return super.cancel(mayInterruptIfRunning);
+		}
+
+		/**
+		 * Executes the task and notifies all listeners
+		 */
+		@Override
+		public void run() {
+			try {
+				task.run();
+				super.notifyListeners();
+			} catch (Throwable e) {
+				log.error("Error notifying timer task listeners", e);
+			}
+		}
+	}
+
+	/**
+	 * Timer wheel implementation, ticked by a single threaded pool. Expired
+	 * tasks are handed to the timer task pool, so that a slow task does not
+	 * delay the ticks nor the other timers.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private class TimerWheelImpl implements TimerWheel {
+		/**
+		 * This timer name
+		 */
+		private final String name;
+		/**
+		 * The thread pool executing the ticks
+		 */
+		private final ThreadPool pool;
+		/**
+		 * The wheel, in nanoseconds relative to {@link #origin}. All accesses
+		 * must be synchronized on the wheel.
+		 */
+		private final HashedTimerWheel<TimerFutureImpl<?>> wheel;
+		/**
+		 * The time this timer has been created, in nanoseconds
+		 */
+		private final long origin = System.nanoTime();
+		/**
+		 * The repeating tick task
+		 */
+		private ScheduledAsyncFuture tick;
+
+		/**
+		 * @param name
+		 *            the timer name
+		 * @param resolution
+		 *            the duration of a tick, in nanoseconds
+		 * @param slots
+		 *            the amount of slots in the wheel
+		 */
+		public TimerWheelImpl(String name, long resolution, int slots) {
+			this.name = name;
+			this.pool = createThreadPool("timer-" + name, 1,
+					ThreadPoolPriority.HIGH);
+			this.wheel = new HashedTimerWheel<TimerFutureImpl<?>>(resolution,
+					slots, 0);
+		}
+
+		@Override
+		public <T> AsyncFuture<T> async(long delay, TimeUnit unit, Task<T> task) {
+			final TimerFutureImpl<T> future = new TimerFutureImpl<T>(
+					new FutureTask<T>(task), this);
+			synchronized (wheel) {
+				future.timeout = wheel.add(future, System.nanoTime() - origin,
+						unit.toNanos(delay));
+			}
+			return future;
+		}
+
+		/**
+		 * Submits all tasks whose time has passed to the timer task pool
+		 */
+		private void tick() {
+			final List<TimerFutureImpl<?>> expired = CollectionFactory
+					.newList();
+			synchronized (wheel) {
+				wheel.expire(System.nanoTime() - origin, expired);
+			}
+			for (final TimerFutureImpl<?> future : expired) {
+				try {
+					timerTasks.executor.execute(future);
+				} catch (RejectedExecutionException e) {
+					// the service is stopping
+					future.task.cancel(false);
+				}
+			}
+		}
+
+		@Override
+		public int getPending() {
+			synchronized (wheel) {
+				return wheel.size();
+			}
+		}
+
+		@Override
+		public void dispose() {
+			ThreadServiceImpl.this.dispose(this);
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return pool.isDisposed();
+		}
+	}
+
 	/**
 	 * Thread pool implementation
 	 * 
@@ -408,13 +701,24 @@ public class ThreadServiceImpl extends AbstractService implements ThreadService
 
 		@Override
 		public ScheduledAsyncFuture async(long delay, TimeUnit unit,
-				long repeat, Runnable task) {
+				long repeat, final Runnable task) {
 			if (log.isDebugEnabled())
 				log.debug(
 						"Task {} scheduled every {} {} to {}, starting in {}",
 						new Object[] { task, repeat, unit, name, delay });
 			return new ScheduledAsyncFutureImpl(executor.scheduleAtFixedRate(
-					task, delay, repeat, unit));
+					new Runnable() {
+						@Override
+						public void run() {
+							try {
+								task.run();
+							} catch (Throwable t) {
+								// an exception would cancel the repeating task
+								log.error("Exception in repeating task "
+										+ task + " of " + name, t);
+							}
+						}
+					}, delay, repeat, unit));
 		}
 
 		@Override
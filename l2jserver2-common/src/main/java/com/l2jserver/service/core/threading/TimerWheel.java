@@ -0,0 +1,63 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.threading;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timer backed by a {@link HashedTimerWheel}. Scheduling and cancelling a
+ * task are constant time operations, independently of the amount of pending
+ * tasks, at the cost of a coarser precision: tasks run up to one tick late.
+ * <p>
+ * Expired tasks are executed in the timer thread and should be performed
+ * fast. Long running tasks should be submitted to a {@link ThreadPool}.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ * @see ThreadService#createTimerWheel(String, long, TimeUnit)
+ */
+public interface TimerWheel {
+	/**
+	 * Executes an task once its delay has passed. Cancelling the returned
+	 * future removes the task from the wheel.
+	 * 
+	 * @param <T>
+	 *            the task return type
+	 * @param delay
+	 *            the delay to wait before the task is executed
+	 * @param unit
+	 *            the time unit of delay
+	 * @param task
+	 *            the task
+	 * @return the {@link AsyncFuture} notified once the task has completed
+	 */
+	<T> AsyncFuture<T> async(long delay, TimeUnit unit, Task<T> task);
+
+	/**
+	 * @return the amount of tasks waiting in the wheel
+	 */
+	int getPending();
+
+	/**
+	 * Disposes this timer, pending tasks are discarded
+	 */
+	void dispose();
+
+	/**
+	 * @return true if this timer is disposed
+	 */
+	boolean isDisposed();
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.database;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.l2jserver.util.factory.CollectionFactory;
+import com.l2jserver.util.transformer.TransformException;
+import com.l2jserver.util.transformer.Transformer;
+import com.l2jserver.util.transformer.TransformerFactory;
+import com.mysema.query.sql.RelationalPath;
+import com.mysema.query.types.Path;
+
+/**
+ * Reads an CSV file to be imported into an table. The first line is the
+ * header, naming one table column per field. Every other line is an row, with
+ * values already converted to the column Java type. Empty fields are read as
+ * <code>null</code>.
+ * <p>
+ * Unlike {@link com.l2jserver.util.CSVUtils CSVUtils}, rows are read one at a
+ * time and any problem (unknown columns, wrong field counts or unparseable
+ * values) is reported as an {@link IOException} naming the file and line.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class CSVImportReader implements Closeable {
+	/**
+	 * The CSV file
+	 */
+	private final java.nio.file.Path path;
+	/**
+	 * The file reader
+	 */
+	private final BufferedReader reader;
+	/**
+	 * The table columns, in the same order as the CSV fields
+	 */
+	private final List<Path<?>> columns;
+	/**
+	 * The transformers for each column
+	 */
+	private final Transformer<?>[] transformers;
+	/**
+	 * The current line number
+	 */
+	private int line = 1;
+
+	/**
+	 * Opens the file and reads its header
+	 * 
+	 * @param path
+	 *            the CSV file
+	 * @param entity
+	 *            the table
+	 * @throws IOException
+	 *             if the file could not be read or the header names a column
+	 *             that does not exist in <code>entity</code>
+	 */
+	public CSVImportReader(java.nio.file.Path path, RelationalPath<?> entity)
+			throws IOException {
+		this.path = path;
+		this.reader = Files.newBufferedReader(path, Charset.defaultCharset());
+		try {
+			final String header = reader.readLine();
+			if (header == null)
+				throw new IOException(path + " is empty");
+
+			final Map<String, Path<?>> names = CollectionFactory.newMap();
+			for (final Path<?> column : entity.getColumns()) {
+				names.put(column.getMetadata().getExpression().toString(),
+						column);
+			}
+			final String[] fields = header.split(",");
+			final List<Path<?>> columns = CollectionFactory.newList();
+			transformers = new Transformer<?>[fields.length];
+			for (int i = 0; i < fields.length; i++) {
+				final Path<?> column = names.get(fields[i].trim());
+				if (column == null)
+					throw new IOException(path + ": column " + fields[i]
+							+ " does not exist in " + entity.getTableName());
+				transformers[i] = TransformerFactory.getTransfromer(column
+						.getType());
+				if (transformers[i] == null)
+					throw new IOException(path + ": column " + fields[i]
+							+ " type " + column.getType()
+							+ " cannot be imported");
+				columns.add(column);
+			}
+			this.columns = Collections.unmodifiableList(columns);
+		} catch (IOException | RuntimeException e) {
+			reader.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the next row into <code>values</code>
+	 * 
+	 * @param values
+	 *            the array that receives the row values, one per column
+	 * @return <code>false</code> if the end of the file has been reached
+	 * @throws IOException
+	 *             if the file could not be read or the row is invalid
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public boolean next(Object[] values) throws IOException {
+		String row;
+		do {
+			row = reader.readLine();
+			if (row == null)
+				return false;
+			line++;
+		} while (row.isEmpty());
+
+		final String[] fields = row.split(",", -1);
+		if (fields.length != columns.size())
+			throw new IOException(path + ":" + line + ": expected "
+					+ columns.size() + " fields, found " + fields.length);
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i].isEmpty()) {
+				values[i] = null;
+				continue;
+			}
+			try {
+				values[i] = ((Transformer) transformers[i]).untransform(columns
+						.get(i).getType(), fields[i]);
+			} catch (TransformException | IllegalArgumentException e) {
+				throw new IOException(path + ":" + line + ": invalid value "
+						+ fields[i] + " for column "
+						+ columns.get(i).getMetadata().getExpression(), e);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the table columns, in the same order as the CSV fields
+	 */
+	public List<Path<?>> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return the CSV file
+	 */
+	public java.nio.file.Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @return the number of the last line read
+	 */
+	public int getLine() {
+		return line;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
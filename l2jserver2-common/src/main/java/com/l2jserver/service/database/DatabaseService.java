@@ -95,6 +95,32 @@ public interface DatabaseService extends Service {
 		int perform();
 	}
 
+	/**
+	 * Receives objects from an streaming select, one at a time, while the
+	 * underlying result is still being read. Objects are not accumulated by the
+	 * query, so memory usage depends only on what the callback retains.
+	 * <p>
+	 * The callback is invoked in the thread executing the query and, for JDBC
+	 * implementations, while the database connection is still in use: it
+	 * should not execute other queries.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 * 
+	 * @param <O>
+	 *            the object type
+	 */
+	public interface SelectCallback<O> {
+		/**
+		 * Called once for each object selected
+		 * 
+		 * @param object
+		 *            the object
+		 * @return <code>true</code> to continue reading, <code>false</code>
+		 *         to stop the query
+		 */
+		boolean select(O object);
+	}
+
 	/**
 	 * Imports an static data file into the database. File must be an CSV file
 	 * with the first row as column names.
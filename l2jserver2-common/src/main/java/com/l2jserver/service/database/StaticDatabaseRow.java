@@ -43,8 +43,7 @@ public class StaticDatabaseRow implements DatabaseRow {
 
 	@Override
 	public <T> T get(Path<T> path) {
-		final String value = data.get(path.getMetadata().getExpression()
-				.toString());
+		final String value = value(path);
 		@SuppressWarnings("unchecked")
 		Transformer<T> transformer = (Transformer<T>) TransformerFactory
 				.getTransfromer(path.getType());
@@ -56,4 +55,31 @@ public class StaticDatabaseRow implements DatabaseRow {
 		// TODO Auto-generated method stub
 		return false;
 	}
+
+	@Override
+	public int getInt(Path<? extends Number> path) {
+		final String value = value(path);
+		return (value != null ? Integer.parseInt(value) : 0);
+	}
+
+	@Override
+	public long getLong(Path<? extends Number> path) {
+		final String value = value(path);
+		return (value != null ? Long.parseLong(value) : 0);
+	}
+
+	@Override
+	public double getDouble(Path<? extends Number> path) {
+		final String value = value(path);
+		return (value != null ? Double.parseDouble(value) : 0);
+	}
+
+	/**
+	 * @param path
+	 *            the path
+	 * @return the raw value for the given {@link Path}
+	 */
+	private String value(Path<?> path) {
+		return data.get(path.getMetadata().getExpression().toString());
+	}
 }
@@ -41,4 +41,34 @@ public interface DatabaseRow {
 	 * @return <code>true</code> if the path has a <code>null</code> value
 	 */
 	<T> boolean isNull(Path<T> path);
+
+	/**
+	 * Reads an numeric column as an <tt>int</tt>, without boxing it
+	 * 
+	 * @param path
+	 *            the path
+	 * @return the value associated in the row for the given {@link Path}.
+	 *         <code>0</code> if <code>null</code>.
+	 */
+	int getInt(Path<? extends Number> path);
+
+	/**
+	 * Reads an numeric column as an <tt>long</tt>, without boxing it
+	 * 
+	 * @param path
+	 *            the path
+	 * @return the value associated in the row for the given {@link Path}.
+	 *         <code>0</code> if <code>null</code>.
+	 */
+	long getLong(Path<? extends Number> path);
+
+	/**
+	 * Reads an numeric column as an <tt>double</tt>, without boxing it
+	 * 
+	 * @param path
+	 *            the path
+	 * @return the value associated in the row for the given {@link Path}.
+	 *         <code>0</code> if <code>null</code>.
+	 */
+	double getDouble(Path<? extends Number> path);
 }
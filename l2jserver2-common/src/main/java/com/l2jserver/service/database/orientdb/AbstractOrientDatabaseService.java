@@ -20,8 +20,6 @@ import java.io.IOException;
 import java.sql.Date;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
@@ -44,16 +42,16 @@ import com.l2jserver.service.core.threading.AbstractTask;
 import com.l2jserver.service.core.threading.AsyncFuture;
 import com.l2jserver.service.core.threading.ScheduledAsyncFuture;
 import com.l2jserver.service.core.threading.ThreadService;
+import com.l2jserver.service.database.CSVImportReader;
 import com.l2jserver.service.database.DAOResolver;
 import com.l2jserver.service.database.DataAccessObject;
 import com.l2jserver.service.database.DatabaseException;
 import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 import com.l2jserver.service.database.dao.DatabaseRow;
 import com.l2jserver.service.database.dao.InsertMapper;
 import com.l2jserver.service.database.dao.SelectMapper;
 import com.l2jserver.service.database.dao.UpdateMapper;
-import com.l2jserver.util.CSVUtils;
-import com.l2jserver.util.CSVUtils.CSVMapProcessor;
 import com.l2jserver.util.ClassUtils;
 import com.l2jserver.util.QPathUtils;
 import com.l2jserver.util.factory.CollectionFactory;
@@ -61,6 +59,7 @@ import com.mysema.query.sql.ForeignKey;
 import com.mysema.query.sql.RelationalPath;
 import com.mysema.query.sql.RelationalPathBase;
 import com.mysema.query.types.Path;
+import com.orientechnologies.orient.core.command.OCommandResultListener;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentPool;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.intent.OIntentMassiveInsert;
@@ -69,6 +68,7 @@ import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
 import com.orientechnologies.orient.core.metadata.schema.OProperty;
 import com.orientechnologies.orient.core.metadata.schema.OSchema;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.query.nativ.ONativeAsynchQuery;
 import com.orientechnologies.orient.core.query.nativ.ONativeSynchQuery;
 import com.orientechnologies.orient.core.query.nativ.OQueryContextNative;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -97,6 +97,11 @@ import com.orientechnologies.orient.core.tx.OTransaction;
 public abstract class AbstractOrientDatabaseService extends
 		AbstractConfigurableService<OrientDatabaseConfiguration> implements
 		DatabaseService {
+	/**
+	 * The amount of rows between each import progress report
+	 */
+	private static final int IMPORT_PROGRESS_INTERVAL = 10000;
+
 	/**
 	 * The logger
 	 */
@@ -264,30 +269,36 @@ public abstract class AbstractOrientDatabaseService extends
 				.acquire(config.getUrl(), config.getUsername(),
 						config.getPassword());
 		log.info("Importing {} to {}", path, entity);
+		final long start = System.currentTimeMillis();
 
-		try {
-			database.begin(OTransaction.TXTYPE.OPTIMISTIC);
-			CSVUtils.parseCSV(path, new CSVMapProcessor<Object>() {
-				@Override
-				public Object process(Map<String, String> map) {
-					final ODocument document = new ODocument(entity
-							.getTableName());
-					for (final Entry<String, String> entry : map.entrySet()) {
-						document.field(entry.getKey(), entry.getValue());
-					}
-					database.save(document);
-					return null;
+		// massive inserts are not transactional, but are much faster
+		database.declareIntent(new OIntentMassiveInsert());
+		try (final CSVImportReader reader = new CSVImportReader(path, entity)) {
+			final List<Path<?>> columns = reader.getColumns();
+			final String[] names = new String[columns.size()];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = columns.get(i).getMetadata().getExpression()
+						.toString();
+			}
+			final Object[] values = new Object[names.length];
+			final ODocument document = new ODocument();
+			long rows = 0;
+			while (reader.next(values)) {
+				document.reset();
+				document.setClassName(entity.getTableName());
+				for (int i = 0; i < names.length; i++) {
+					document.field(names[i], values[i]);
 				}
-			});
-			database.commit();
-		} catch (IOException | RuntimeException e) {
-			database.rollback();
-			throw e;
-		} catch (Exception e) {
-			database.rollback();
-			throw new DatabaseException(e);
+				database.save(document);
+				if (++rows % IMPORT_PROGRESS_INTERVAL == 0)
+					log.info("{} rows from {} imported into {}", new Object[] {
+							rows, path, entity.getTableName() });
+			}
+			log.info("Imported {} rows into {} in {}ms",
+					new Object[] { rows, entity.getTableName(),
+							System.currentTimeMillis() - start });
 		} finally {
-			transaction.set(null);
+			database.declareIntent(null);
 			database.close();
 		}
 	}
@@ -861,8 +872,7 @@ public abstract class AbstractOrientDatabaseService extends
 		}
 
 		@Override
-		public final R query(ODatabaseDocumentTx database,
-				DatabaseService service) {
+		public R query(ODatabaseDocumentTx database, DatabaseService service) {
 			List<ODocument> documents = database
 					.query(new ONativeSynchQuery<OQueryContextNative>(database,
 							entity.getTableName(), new OQueryContextNative()) {
@@ -870,15 +880,26 @@ public abstract class AbstractOrientDatabaseService extends
 
 						@Override
 						public boolean filter(OQueryContextNative record) {
-							record = query(record, entity);
-							if (record == null)
-								return true;
-							return record.go();
+							return AbstractSelectQuery.this.filter(record);
 						};
 					});
 			return perform(documents, service);
 		}
 
+		/**
+		 * Applies the query filter to an record
+		 * 
+		 * @param record
+		 *            the document record
+		 * @return true if the record matches the query
+		 */
+		protected boolean filter(OQueryContextNative record) {
+			record = query(record, entity);
+			if (record == null)
+				return true;
+			return record.go();
+		}
+
 		/**
 		 * Performs the OrientDB document filtering. If all results are wanted,
 		 * <code>null</code> should be returned.
@@ -942,6 +963,26 @@ public abstract class AbstractOrientDatabaseService extends
 				database.updateCache(((Model<?>) instance).getID(),
 						(Model<?>) instance);
 		}
+
+		/**
+		 * Returns the cached instance for the <code>row</code> or, if none is
+		 * cached, maps it into a new instance and caches it.
+		 * 
+		 * @param row
+		 *            the row
+		 * @param service
+		 *            the database service
+		 * @return the object instance (can be <code>null</code>)
+		 */
+		protected O select(DatabaseRow row, DatabaseService service) {
+			O object = lookupCache(row, service);
+			if (object == null) {
+				object = mapper.select(entity, row);
+				updateCache(object, service);
+				updateDesire(object, ObjectDesire.INSERT);
+			}
+			return object;
+		}
 	}
 
 	/**
@@ -978,14 +1019,7 @@ public abstract class AbstractOrientDatabaseService extends
 					: null);
 			if (document == null)
 				return null;
-			final DocumentDatabaseRow row = new DocumentDatabaseRow(document);
-			O object = lookupCache(row, service);
-			if (object == null) {
-				object = mapper.select(entity, row);
-				updateCache(object, service);
-				updateDesire(object, ObjectDesire.INSERT);
-			}
-			return object;
+			return select(new DocumentDatabaseRow(document), service);
 		}
 	}
 
@@ -1023,12 +1057,7 @@ public abstract class AbstractOrientDatabaseService extends
 			final DocumentDatabaseRow row = new DocumentDatabaseRow();
 			for (final ODocument document : documents) {
 				row.setDocument(document);
-				O object = lookupCache(row, service);
-				if (object == null) {
-					object = mapper.select(entity, row);
-					updateCache(object, service);
-					updateDesire(object, ObjectDesire.INSERT);
-				}
+				final O object = select(row, service);
 				if (object != null)
 					results.add(object);
 			}
@@ -1036,6 +1065,93 @@ public abstract class AbstractOrientDatabaseService extends
 		}
 	}
 
+	/**
+	 * An query implementation designed for streaming several objects from the
+	 * database. Documents are handed to the {@link SelectCallback} as the
+	 * query browses the cluster, instead of being collected in a list first.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 * 
+	 * @param <O>
+	 *            the object type
+	 * @param <RI>
+	 *            the raw ID type
+	 * @param <I>
+	 *            the ID type
+	 * @param <E>
+	 *            the query entity type
+	 */
+	public static abstract class SelectStreamQuery<O, RI, I extends ID<? super RI>, E extends RelationalPathBase<RI>>
+			extends AbstractSelectQuery<Integer, O, RI, I, E> {
+		/**
+		 * The callback that receives the selected objects
+		 */
+		private final SelectCallback<O> callback;
+
+		/**
+		 * @param entity
+		 *            the entity
+		 * @param mapper
+		 *            the mapper
+		 * @param callback
+		 *            the callback that receives the selected objects
+		 */
+		public SelectStreamQuery(E entity, SelectMapper<O, RI, I, E> mapper,
+				SelectCallback<O> callback) {
+			super(entity, mapper);
+			Preconditions.checkNotNull(callback, "callback");
+			this.callback = callback;
+		}
+
+		/**
+		 * Returns the amount of objects handed to the callback
+		 */
+		@Override
+		public final Integer query(ODatabaseDocumentTx database,
+				final DatabaseService service) {
+			final DocumentDatabaseRow row = new DocumentDatabaseRow();
+			final int[] count = new int[1];
+			database.query(new ONativeAsynchQuery<OQueryContextNative>(
+					database, entity.getTableName(), new OQueryContextNative(),
+					new OCommandResultListener() {
+						@Override
+						public boolean result(Object document) {
+							row.setDocument((ODocument) document);
+							final O object = select(row, service);
+							if (object == null)
+								return true;
+							count[0]++;
+							return callback.select(object);
+						}
+					}) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public boolean filter(OQueryContextNative record) {
+					return SelectStreamQuery.this.filter(record);
+				};
+			});
+			return count[0];
+		}
+
+		@Override
+		protected final Integer perform(List<ODocument> documents,
+				DatabaseService service) {
+			final DocumentDatabaseRow row = new DocumentDatabaseRow();
+			int count = 0;
+			for (final ODocument document : documents) {
+				row.setDocument(document);
+				final O object = select(row, service);
+				if (object == null)
+					continue;
+				count++;
+				if (!callback.select(object))
+					break;
+			}
+			return count;
+		}
+	}
+
 	/**
 	 * An query implementation designed to count objects in the database
 	 * 
@@ -56,6 +56,24 @@ public class DocumentDatabaseRow implements DatabaseRow, WritableDatabaseRow {
 		return get(path) == null;
 	}
 
+	@Override
+	public int getInt(Path<? extends Number> path) {
+		final Number value = get(path);
+		return (value != null ? value.intValue() : 0);
+	}
+
+	@Override
+	public long getLong(Path<? extends Number> path) {
+		final Number value = get(path);
+		return (value != null ? value.longValue() : 0);
+	}
+
+	@Override
+	public double getDouble(Path<? extends Number> path) {
+		final Number value = get(path);
+		return (value != null ? value.doubleValue() : 0);
+	}
+
 	@Override
 	public <T> WritableDatabaseRow set(Path<T> path, T value) {
 		document.field(path.getMetadata().getExpression().toString(), value);
@@ -18,12 +18,11 @@ package com.l2jserver.service.database.sql;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
@@ -48,6 +47,10 @@ import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
 import com.l2jserver.service.cache.Cache;
 import com.l2jserver.service.cache.CacheService;
+import com.l2jserver.service.core.metrics.Counter;
+import com.l2jserver.service.core.metrics.Gauge;
+import com.l2jserver.service.core.metrics.Histogram;
+import com.l2jserver.service.core.metrics.MetricRegistry;
 import com.l2jserver.service.core.threading.AbstractTask;
 import com.l2jserver.service.core.threading.AsyncFuture;
 import com.l2jserver.service.core.threading.ScheduledAsyncFuture;
@@ -57,6 +60,7 @@ import com.l2jserver.service.database.DAOResolver;
 import com.l2jserver.service.database.DataAccessObject;
 import com.l2jserver.service.database.DatabaseException;
 import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 import com.l2jserver.service.database.dao.DatabaseRow;
 import com.l2jserver.service.database.dao.InsertMapper;
 import com.l2jserver.service.database.dao.SelectMapper;
@@ -64,17 +68,13 @@ import com.l2jserver.service.database.dao.UpdateMapper;
 import com.l2jserver.service.database.ddl.QueryFactory;
 import com.l2jserver.service.database.ddl.TableFactory;
 import com.l2jserver.service.database.ddl.struct.Table;
-import com.l2jserver.util.CSVUtils;
-import com.l2jserver.util.CSVUtils.CSVMapProcessor;
-import com.l2jserver.util.QPathUtils;
 import com.l2jserver.util.factory.CollectionFactory;
 import com.mysema.query.sql.AbstractSQLQuery;
+import com.mysema.query.sql.Configuration;
 import com.mysema.query.sql.RelationalPath;
 import com.mysema.query.sql.RelationalPathBase;
 import com.mysema.query.sql.SQLQueryFactory;
-import com.mysema.query.sql.dml.Mapper;
 import com.mysema.query.sql.dml.SQLDeleteClause;
-import com.mysema.query.sql.dml.SQLInsertClause;
 import com.mysema.query.sql.dml.SQLUpdateClause;
 import com.mysema.query.sql.types.Type;
 import com.mysema.query.types.Path;
@@ -88,9 +88,9 @@ import com.mysema.query.types.Path;
  * If you wish to implement a new {@link DataAccessObject} you should try not
  * use {@link Query} object directly because it only provides low level access
  * to the JDBC architecture. Instead, you could use an specialized class, like
- * {@link InsertQuery}, {@link SelectListQuery} or {@link SelectSingleQuery}. If
- * you do need low level access, feel free to use the {@link Query} class
- * directly.
+ * {@link InsertQuery}, {@link SelectListQuery}, {@link SelectStreamQuery} or
+ * {@link SelectSingleQuery}. If you do need low level access, feel free to
+ * use the {@link Query} class directly.
  * 
  * <h2>The {@link SelectMapper} object</h2>
  * 
@@ -124,6 +124,18 @@ public abstract class AbstractSQLDatabaseService extends
 	 * The {@link DAOResolver} instance
 	 */
 	private final DAOResolver daoResolver;
+	/**
+	 * The metric registry
+	 */
+	private final MetricRegistry metrics;
+	/**
+	 * The execution time of queries, including the connection acquisition
+	 */
+	private final Histogram queryLatency;
+	/**
+	 * The amount of queries that failed
+	 */
+	private final Counter queryErrors;
 
 	/**
 	 * The database engine instance (provides drivers and other factories
@@ -176,19 +188,24 @@ public abstract class AbstractSQLDatabaseService extends
 	 *            the vfs service
 	 * @param daoResolver
 	 *            the {@link DataAccessObject DAO} resolver
+	 * @param metrics
+	 *            the metric registry
 	 * @param types
 	 *            the SQL mapping types
 	 */
 	@Inject
 	public AbstractSQLDatabaseService(CacheService cacheService,
 			ThreadService threadService, VFSService vfsService,
-			DAOResolver daoResolver, Type<?>... types) {
+			DAOResolver daoResolver, MetricRegistry metrics, Type<?>... types) {
 		super(JDBCDatabaseConfiguration.class);
 		this.cacheService = cacheService;
 		this.threadService = threadService;
 		this.vfsService = vfsService;
 		this.daoResolver = daoResolver;
+		this.metrics = metrics;
 		this.sqlTypes = types;
+		this.queryLatency = metrics.histogram("database.query");
+		this.queryErrors = metrics.counter("database.query.errors");
 	}
 
 	@Override
@@ -217,6 +234,21 @@ public abstract class AbstractSQLDatabaseService extends
 				true);
 		dataSource = new PoolingDataSource(connectionPool);
 
+		metrics.gauge("database.connections.active", new Gauge() {
+			@Override
+			public long getValue() {
+				final GenericObjectPool<Connection> pool = connectionPool;
+				return pool == null ? 0 : pool.getNumActive();
+			}
+		});
+		metrics.gauge("database.connections.idle", new Gauge() {
+			@Override
+			public long getValue() {
+				final GenericObjectPool<Connection> pool = connectionPool;
+				return pool == null ? 0 : pool.getNumIdle();
+			}
+		});
+
 		if (config.isAutomaticSchemaUpdateEnabled()) {
 			updateSchemas();
 		}
@@ -282,51 +314,26 @@ public abstract class AbstractSQLDatabaseService extends
 	@Override
 	public <M extends Model<?>, T extends RelationalPathBase<?>> void importData(
 			final java.nio.file.Path path, final T entity) throws IOException {
-		final Connection conn;
-		try {
-			conn = dataSource.getConnection();
-		} catch (SQLException e) {
-			return;
-		}
 		log.info("Importing {} to {}", path, entity);
-		try {
+		final long start = System.currentTimeMillis();
+		try (final Connection conn = dataSource.getConnection()) {
 			conn.setAutoCommit(false);
-			CSVUtils.parseCSV(path, new CSVMapProcessor<Long>() {
-				@Override
-				public Long process(final Map<String, String> map) {
-					SQLInsertClause insert = engine.createSQLQueryFactory(conn)
-							.insert(entity);
-					insert.populate(map, new Mapper<Map<String, String>>() {
-						@Override
-						public Map<Path<?>, Object> createMap(
-								RelationalPath<?> relationalPath,
-								Map<String, String> map) {
-							final Map<Path<?>, Object> values = CollectionFactory
-									.newMap();
-							for (final Entry<String, String> entry : map
-									.entrySet()) {
-								final Path<?> path = QPathUtils.getPath(entity,
-										entry.getKey());
-								values.put(path, entry.getValue());
-							}
-							return values;
-						}
-					});
-					return insert.execute();
-				}
-			});
-			conn.commit();
-		} catch (SQLException e) {
 			try {
+				final long rows = new SQLBulkImporter(engine).importData(conn,
+						path, entity);
+				conn.commit();
+				log.info("Imported {} rows into {} in {}ms", new Object[] {
+						rows, entity.getTableName(),
+						System.currentTimeMillis() - start });
+			} catch (IOException | SQLException | RuntimeException e) {
 				conn.rollback();
-			} catch (SQLException e1) {
-			}
-		} finally {
-			try {
+				throw e;
+			} finally {
 				conn.setAutoCommit(true);
-				conn.close();
-			} catch (SQLException e) {
 			}
+		} catch (SQLException e) {
+			throw new DatabaseException("Could not import " + path + " into "
+					+ entity.getTableName(), e);
 		}
 	}
 
@@ -424,6 +431,7 @@ public abstract class AbstractSQLDatabaseService extends
 	 */
 	public <T> T query(Query<T> query) throws DatabaseException {
 		Preconditions.checkNotNull(query, "query");
+		final long start = System.nanoTime();
 		try {
 			Connection conn = transaction.get();
 			if (conn == null) {
@@ -441,8 +449,11 @@ public abstract class AbstractSQLDatabaseService extends
 				conn.close();
 			}
 		} catch (Throwable e) {
+			queryErrors.increment();
 			log.error("Could not open database connection", e);
 			throw new DatabaseException(e);
+		} finally {
+			queryLatency.recordSince(start);
 		}
 	}
 
@@ -482,6 +493,7 @@ public abstract class AbstractSQLDatabaseService extends
 		autoSaveFuture = null;
 		cacheService.dispose(objectCache);
 		objectCache = null;
+		metrics.removeAll("database.connections.");
 
 		try {
 			if (connectionPool != null)
@@ -967,6 +979,26 @@ public abstract class AbstractSQLDatabaseService extends
 				database.updateCache(((Model<?>) instance).getID(),
 						(Model<?>) instance);
 		}
+
+		/**
+		 * Returns the cached instance for the <code>row</code> or, if none is
+		 * cached, maps it into a new instance and caches it.
+		 * 
+		 * @param row
+		 *            the row
+		 * @param database
+		 *            the database service
+		 * @return the object instance (can be <code>null</code>)
+		 */
+		protected O select(DatabaseRow row, DatabaseService database) {
+			O object = lookupCache(row, database);
+			if (object == null) {
+				object = mapper.select(entity, row);
+				updateCache(object, database);
+				updateDesire(object, ObjectDesire.INSERT);
+			}
+			return object;
+		}
 	}
 
 	/**
@@ -1001,16 +1033,8 @@ public abstract class AbstractSQLDatabaseService extends
 				DatabaseService database) {
 			final List<Object[]> results = select.limit(1).list(entity.all());
 			if (results.size() == 1) {
-				final DatabaseRow row = new SQLDatabaseRow(results.get(0),
-						entity);
-				O object = lookupCache(row, database);
-				if (object == null) {
-					object = mapper.select(entity,
-							new SQLDatabaseRow(results.get(0), entity));
-					updateCache(object, database);
-					updateDesire(object, ObjectDesire.INSERT);
-				}
-				return object;
+				return select(new SQLDatabaseRow(results.get(0), entity),
+						database);
 			} else {
 				return null;
 			}
@@ -1053,12 +1077,7 @@ public abstract class AbstractSQLDatabaseService extends
 			for (final Object[] data : results) {
 				row.setRow(data);
 
-				O object = lookupCache(row, database);
-				if (object == null) {
-					object = mapper.select(entity, row);
-					updateCache(object, database);
-					updateDesire(object, ObjectDesire.INSERT);
-				}
+				final O object = select(row, database);
 				if (object != null)
 					objects.add(object);
 			}
@@ -1066,6 +1085,126 @@ public abstract class AbstractSQLDatabaseService extends
 		}
 	}
 
+	/**
+	 * An query implementation designed for streaming several objects from the
+	 * database. Rows are read from the {@link ResultSet} as objects are handed
+	 * to the {@link SelectCallback}, so neither the raw rows nor the objects
+	 * are ever held in a list. Use this when selecting very large tables, like
+	 * loading every NPC at startup.
+	 * <p>
+	 * The fetch size is a hint to the JDBC driver on how many rows should be
+	 * transferred at once. H2 and Derby honor it directly. MySQL only streams
+	 * results if <tt>useCursorFetch=true</tt> is set on the connection URL,
+	 * otherwise the driver still buffers the whole result (objects are,
+	 * however, still created one at a time).
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 * 
+	 * @param <O>
+	 *            the object type
+	 * @param <RI>
+	 *            the raw ID type
+	 * @param <I>
+	 *            the ID type
+	 * @param <E>
+	 *            the query entity type
+	 */
+	public static abstract class SelectStreamQuery<O, RI, I extends ID<? super RI>, E extends RelationalPathBase<RI>>
+			extends AbstractSelectQuery<Integer, O, RI, I, E> {
+		/**
+		 * The default fetch size
+		 */
+		public static final int DEFAULT_FETCH_SIZE = 500;
+
+		/**
+		 * The callback that receives the selected objects
+		 */
+		private final SelectCallback<O> callback;
+		/**
+		 * The JDBC fetch size
+		 */
+		private final int fetchSize;
+
+		/**
+		 * @param entity
+		 *            the entity
+		 * @param mapper
+		 *            the mapper
+		 * @param callback
+		 *            the callback that receives the selected objects
+		 * @param fetchSize
+		 *            the JDBC fetch size
+		 */
+		public SelectStreamQuery(E entity, SelectMapper<O, RI, I, E> mapper,
+				SelectCallback<O> callback, int fetchSize) {
+			super(entity, mapper);
+			Preconditions.checkNotNull(callback, "callback");
+			Preconditions.checkArgument(fetchSize > 0, "fetchSize <= 0");
+			this.callback = callback;
+			this.fetchSize = fetchSize;
+		}
+
+		/**
+		 * Creates a new query with the {@link #DEFAULT_FETCH_SIZE default
+		 * fetch size}.
+		 * 
+		 * @param entity
+		 *            the entity
+		 * @param mapper
+		 *            the mapper
+		 * @param callback
+		 *            the callback that receives the selected objects
+		 */
+		public SelectStreamQuery(E entity, SelectMapper<O, RI, I, E> mapper,
+				SelectCallback<O> callback) {
+			this(entity, mapper, callback, DEFAULT_FETCH_SIZE);
+		}
+
+		/**
+		 * Returns the amount of objects handed to the callback
+		 */
+		@Override
+		protected final Integer perform(AbstractSQLQuery<?> select,
+				DatabaseService database) {
+			final Configuration configuration = ((AbstractSQLDatabaseService) database).engine
+					.getConfiguration();
+			final List<Path<?>> columns = entity.getColumns();
+			final Object[] data = new Object[columns.size()];
+			final SQLDatabaseRow row = new SQLDatabaseRow(entity);
+
+			final ResultSet rs = select.getResults(entity.all());
+			try {
+				rs.setFetchSize(fetchSize);
+				int count = 0;
+				while (rs.next()) {
+					for (int i = 0; i < data.length; i++) {
+						final Path<?> column = columns.get(i);
+						data[i] = configuration.get(rs, column, i + 1,
+								column.getType());
+					}
+					row.setRow(data);
+
+					final O object = select(row, database);
+					if (object == null)
+						continue;
+					count++;
+					if (!callback.select(object))
+						break;
+				}
+				return count;
+			} catch (SQLException e) {
+				throw new DatabaseException(e);
+			} finally {
+				try {
+					// also closes the result set
+					rs.getStatement().close();
+				} catch (SQLException e) {
+					throw new DatabaseException(e);
+				}
+			}
+		}
+	}
+
 	/**
 	 * An query implementation designed to count objects in the database
 	 * 
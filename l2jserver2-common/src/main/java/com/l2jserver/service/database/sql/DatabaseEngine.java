@@ -16,14 +16,20 @@
  */
 package com.l2jserver.service.database.sql;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.Driver;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 import com.l2jserver.service.database.ddl.QueryTemplate;
 import com.mysema.query.sql.AbstractSQLQuery;
+import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.RelationalPath;
 import com.mysema.query.sql.SQLQueryFactory;
 import com.mysema.query.sql.types.Type;
+import com.mysema.query.types.Path;
 
 /**
  * @author <a href="http://www.rogiel.com">Rogiel</a>
@@ -50,6 +56,35 @@ public interface DatabaseEngine {
 	 */
 	void registerType(Type<?> type);
 
+	/**
+	 * @return the querydsl {@link Configuration}, used to read and convert
+	 *         values from raw {@link ResultSet ResultSets}
+	 */
+	Configuration getConfiguration();
+
+	/**
+	 * Imports an CSV file into the <code>entity</code> table using the engine
+	 * native bulk loading facility. The first line of the file is an header
+	 * and is not imported.
+	 * 
+	 * @param conn
+	 *            the connection
+	 * @param file
+	 *            the CSV file, in the default file system
+	 * @param entity
+	 *            the table
+	 * @param columns
+	 *            the columns, in the same order as the CSV fields
+	 * @return the amount of rows imported
+	 * @throws IOException
+	 *             if the file could not be read
+	 * @throws SQLException
+	 *             if the import failed
+	 */
+	long importCSV(Connection conn, java.nio.file.Path file,
+			RelationalPath<?> entity, List<Path<?>> columns)
+			throws IOException, SQLException;
+
 	/**
 	 * @return the {@link QueryTemplate} used to create and alter tables
 	 */
@@ -16,9 +16,18 @@
  */
 package com.l2jserver.service.database.sql;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.Driver;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
 
 import javax.inject.Provider;
 
@@ -28,9 +37,11 @@ import com.l2jserver.service.database.ddl.QueryTemplate;
 import com.l2jserver.service.database.ddl.template.DerbyTemplate;
 import com.mysema.query.sql.AbstractSQLQuery;
 import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.RelationalPath;
 import com.mysema.query.sql.SQLQueryFactory;
 import com.mysema.query.sql.SQLQueryFactoryImpl;
 import com.mysema.query.sql.types.Type;
+import com.mysema.query.types.Path;
 
 /**
  * This database provider gives access to MySQL5 databases
@@ -64,6 +75,78 @@ public class DerbyDatabaseEngine implements DatabaseEngine {
 		configuration.register(type);
 	}
 
+	@Override
+	public Configuration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Imports the file with <tt>SYSCS_UTIL.SYSCS_IMPORT_DATA</tt>, the
+	 * variant of <tt>SYSCS_IMPORT_TABLE</tt> that takes a column list. Derby
+	 * cannot skip the header line, so the rows are copied to a temporary file
+	 * first.
+	 */
+	@Override
+	public long importCSV(Connection conn, java.nio.file.Path file,
+			RelationalPath<?> entity, List<Path<?>> columns)
+			throws IOException, SQLException {
+		final java.nio.file.Path data = Files.createTempFile("import", ".csv");
+		try {
+			try (final BufferedReader reader = Files.newBufferedReader(file,
+					Charset.defaultCharset());
+					final BufferedWriter writer = Files.newBufferedWriter(
+							data, Charset.defaultCharset())) {
+				// skip the header
+				reader.readLine();
+				String line;
+				while ((line = reader.readLine()) != null) {
+					writer.write(line);
+					writer.newLine();
+				}
+			}
+
+			// Derby quotes the column names itself
+			final StringBuilder columnList = new StringBuilder();
+			for (final Path<?> column : columns) {
+				if (columnList.length() > 0)
+					columnList.append(',');
+				columnList.append(column.getMetadata().getExpression()
+						.toString());
+			}
+			final long before = count(conn, entity);
+			try (final CallableStatement st = conn
+					.prepareCall("CALL SYSCS_UTIL.SYSCS_IMPORT_DATA(NULL, ?, ?, NULL, ?, ',', NULL, ?, 0)")) {
+				st.setString(1, entity.getTableName());
+				st.setString(2, columnList.toString());
+				st.setString(3, data.toAbsolutePath().toString());
+				st.setString(4, Charset.defaultCharset().name());
+				st.execute();
+			}
+			return count(conn, entity) - before;
+		} finally {
+			Files.deleteIfExists(data);
+		}
+	}
+
+	/**
+	 * @param conn
+	 *            the connection
+	 * @param entity
+	 *            the table
+	 * @return the amount of rows in the table
+	 * @throws SQLException
+	 *             if the query failed
+	 */
+	private long count(Connection conn, RelationalPath<?> entity)
+			throws SQLException {
+		try (final Statement st = conn.createStatement();
+				final ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM "
+						+ template.quoteIdentifier(entity.getTableName()))) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
 	@Override
 	public QueryTemplate getTemplate() {
 		return template;
@@ -16,8 +16,11 @@
  */
 package com.l2jserver.service.database.sql;
 
+import java.nio.charset.Charset;
 import java.sql.Connection;
+import java.sql.Statement;
 import java.sql.SQLException;
+import java.util.List;
 
 import javax.inject.Provider;
 
@@ -27,9 +30,11 @@ import com.l2jserver.service.database.ddl.QueryTemplate;
 import com.l2jserver.service.database.ddl.template.H2Template;
 import com.mysema.query.sql.AbstractSQLQuery;
 import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.RelationalPath;
 import com.mysema.query.sql.SQLQueryFactory;
 import com.mysema.query.sql.SQLQueryFactoryImpl;
 import com.mysema.query.sql.types.Type;
+import com.mysema.query.types.Path;
 
 /**
  * This database provider gives access to MySQL5 databases
@@ -63,6 +68,40 @@ public class H2DatabaseEngine implements DatabaseEngine {
 		configuration.register(type);
 	}
 
+	@Override
+	public Configuration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Imports the file with <tt>CSVREAD</tt>, which reads the header and
+	 * returns the remaining rows as a table. H2 resolves the function columns
+	 * while parsing, so its arguments must be literals.
+	 */
+	@Override
+	public long importCSV(Connection conn, java.nio.file.Path file,
+			RelationalPath<?> entity, List<Path<?>> columns)
+			throws SQLException {
+		try (final Statement st = conn.createStatement()) {
+			return st.executeUpdate("INSERT INTO "
+					+ template.quoteIdentifier(entity.getTableName()) + " "
+					+ SQLBulkImporter.getColumnList(template, columns)
+					+ " SELECT * FROM CSVREAD("
+					+ literal(file.toAbsolutePath().toString()) + ", NULL, "
+					+ literal("charset=" + Charset.defaultCharset().name())
+					+ ")");
+		}
+	}
+
+	/**
+	 * @param value
+	 *            the string value
+	 * @return the value as an quoted SQL string literal
+	 */
+	private static String literal(String value) {
+		return "'" + value.replace("'", "''") + "'";
+	}
+
 	@Override
 	public QueryTemplate getTemplate() {
 		return template;
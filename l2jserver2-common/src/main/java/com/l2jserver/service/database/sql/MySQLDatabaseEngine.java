@@ -16,9 +16,16 @@
  */
 package com.l2jserver.service.database.sql;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
 
 import javax.inject.Provider;
 
@@ -26,9 +33,11 @@ import com.l2jserver.service.database.ddl.QueryTemplate;
 import com.l2jserver.service.database.ddl.template.MySQLTemplate;
 import com.mysema.query.sql.AbstractSQLQuery;
 import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.RelationalPath;
 import com.mysema.query.sql.SQLQueryFactory;
 import com.mysema.query.sql.mysql.MySQLQueryFactory;
 import com.mysema.query.sql.types.Type;
+import com.mysema.query.types.Path;
 
 /**
  * This database provider gives access to MySQL5 databases
@@ -61,6 +70,96 @@ public class MySQLDatabaseEngine implements DatabaseEngine {
 		configuration.register(type);
 	}
 
+	@Override
+	public Configuration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Imports the file with <tt>LOAD DATA LOCAL INFILE</tt>, so the file is
+	 * read by the driver even if the MySQL server runs in another machine.
+	 * Requires <tt>local_infile</tt> to be enabled in the server.
+	 * <p>
+	 * <tt>LOAD DATA</tt> would store empty fields as <tt>''</tt> or
+	 * <tt>0</tt>, so fields are read into user variables and empty ones are
+	 * set to <tt>NULL</tt>, as done by the batched import.
+	 */
+	@Override
+	public long importCSV(Connection conn, java.nio.file.Path file,
+			RelationalPath<?> entity, List<Path<?>> columns)
+			throws SQLException {
+		final String name = file.toAbsolutePath().toString()
+				.replace('\\', '/').replace("'", "\\'");
+		final StringBuilder variables = new StringBuilder();
+		final StringBuilder assignments = new StringBuilder();
+		for (int i = 0; i < columns.size(); i++) {
+			if (i > 0) {
+				variables.append(", ");
+				assignments.append(", ");
+			}
+			variables.append("@c").append(i);
+			assignments
+					.append(template.quoteIdentifier(columns.get(i)
+							.getMetadata().getExpression().toString()))
+					.append(" = NULLIF(@c").append(i).append(", '')");
+		}
+		final String terminator;
+		try {
+			terminator = isCRLF(file) ? "\\r\\n" : "\\n";
+		} catch (IOException e) {
+			throw new SQLException("Could not read " + file, e);
+		}
+		try (final Statement st = conn.createStatement()) {
+			return st.executeUpdate("LOAD DATA LOCAL INFILE '" + name
+					+ "' INTO TABLE "
+					+ template.quoteIdentifier(entity.getTableName())
+					+ " CHARACTER SET '"
+					+ getCharacterSet(Charset.defaultCharset())
+					+ "' FIELDS TERMINATED BY ',' LINES TERMINATED BY '"
+					+ terminator + "' IGNORE 1 LINES (" + variables
+					+ ") SET " + assignments);
+		}
+	}
+
+	/**
+	 * @param file
+	 *            the file
+	 * @return <code>true</code> if the first line of the file ends with
+	 *         <tt>CRLF</tt>
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	private static boolean isCRLF(java.nio.file.Path file) throws IOException {
+		try (final InputStream in = new BufferedInputStream(
+				Files.newInputStream(file))) {
+			int previous = -1;
+			int c;
+			while ((c = in.read()) != -1) {
+				if (c == '\n')
+					return previous == '\r';
+				previous = c;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * @param charset
+	 *            the Java charset
+	 * @return the MySQL character set name
+	 */
+	private static String getCharacterSet(Charset charset) {
+		switch (charset.name()) {
+		case "UTF-8":
+			return "utf8";
+		case "ISO-8859-1":
+		case "windows-1252":
+			return "latin1";
+		default:
+			return "binary";
+		}
+	}
+
 	@Override
 	public QueryTemplate getTemplate() {
 		return template;
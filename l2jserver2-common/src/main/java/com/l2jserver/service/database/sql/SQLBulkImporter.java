@@ -0,0 +1,306 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.database.sql;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.l2jserver.service.database.CSVImportReader;
+import com.l2jserver.service.database.ddl.QueryTemplate;
+import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.RelationalPath;
+import com.mysema.query.types.Path;
+
+/**
+ * Imports CSV files into JDBC databases. The {@link DatabaseEngine} native
+ * bulk loading facility is tried first (see
+ * {@link DatabaseEngine#importCSV(Connection, java.nio.file.Path, RelationalPath, List)}
+ * ) and, if it fails, rows are inserted through an batched prepared statement,
+ * with values converted to the column types while reading the file.
+ * <p>
+ * The importer does not commit the connection; that is up to the caller. If
+ * the native import fails, the connection is rolled back before falling back.
+ * Native imports are not always transactional (Derby commits inside its
+ * import procedure and MySQL MyISAM tables ignore rollbacks), so the fallback
+ * is only taken if the failed import left the table row count unchanged.
+ * Otherwise the failure is reported, because inserting the file again would
+ * duplicate the rows already imported.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class SQLBulkImporter {
+	/**
+	 * The logger
+	 */
+	private static final Logger log = LoggerFactory
+			.getLogger(SQLBulkImporter.class);
+
+	/**
+	 * The amount of rows sent to the database in each batch
+	 */
+	public static final int BATCH_SIZE = 1000;
+	/**
+	 * The amount of rows between each progress report
+	 */
+	public static final int PROGRESS_INTERVAL = 10000;
+
+	/**
+	 * The database engine
+	 */
+	private final DatabaseEngine engine;
+
+	/**
+	 * @param engine
+	 *            the database engine
+	 */
+	public SQLBulkImporter(DatabaseEngine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Imports the CSV file into <code>entity</code>, using the native import if
+	 * possible.
+	 * 
+	 * @param conn
+	 *            the connection, with auto commit disabled
+	 * @param path
+	 *            the CSV file
+	 * @param entity
+	 *            the table
+	 * @return the amount of rows imported
+	 * @throws IOException
+	 *             if the file could not be read or is invalid
+	 * @throws SQLException
+	 *             if the rows could not be inserted
+	 */
+	public long importData(Connection conn, java.nio.file.Path path,
+			RelationalPath<?> entity) throws IOException, SQLException {
+		final List<Path<?>> columns;
+		// validates the header before trying anything
+		try (final CSVImportReader reader = new CSVImportReader(path, entity)) {
+			columns = reader.getColumns();
+		}
+		final long existing = count(conn, entity);
+		try {
+			return importNative(conn, path, entity, columns);
+		} catch (SQLException e) {
+			conn.rollback();
+			if (count(conn, entity) != existing)
+				throw new SQLException("Native import of " + path
+						+ " failed after inserting rows into "
+						+ entity.getTableName(), e);
+			log.warn("Native import of " + path
+					+ " failed, falling back to batched inserts", e);
+		}
+		return importBatched(conn, path, entity);
+	}
+
+	/**
+	 * @param conn
+	 *            the connection
+	 * @param entity
+	 *            the table
+	 * @return the amount of rows in the table
+	 * @throws SQLException
+	 *             if the rows could not be counted
+	 */
+	private long count(Connection conn, RelationalPath<?> entity)
+			throws SQLException {
+		try (final Statement st = conn.createStatement();
+				final ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM "
+						+ engine.getTemplate().quoteIdentifier(
+								entity.getTableName()))) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	/**
+	 * Imports the CSV file using the {@link DatabaseEngine} native import. If
+	 * the file is not in the default file system (i.e. is inside an zip
+	 * file), it is copied to a temporary file first.
+	 * 
+	 * @param conn
+	 *            the connection
+	 * @param path
+	 *            the CSV file
+	 * @param entity
+	 *            the table
+	 * @param columns
+	 *            the columns, in the same order as the CSV fields
+	 * @return the amount of rows imported
+	 * @throws IOException
+	 *             if the file could not be copied
+	 * @throws SQLException
+	 *             if the native import failed
+	 */
+	public long importNative(Connection conn, java.nio.file.Path path,
+			RelationalPath<?> entity, List<Path<?>> columns)
+			throws IOException, SQLException {
+		if (path.getFileSystem() == FileSystems.getDefault())
+			return engine.importCSV(conn, path, entity, columns);
+		final java.nio.file.Path file = Files.createTempFile("import", ".csv");
+		try {
+			Files.copy(path, file, StandardCopyOption.REPLACE_EXISTING);
+			return engine.importCSV(conn, file, entity, columns);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * Imports the CSV file using batched inserts, reporting progress every
+	 * {@link #PROGRESS_INTERVAL} rows.
+	 * 
+	 * @param conn
+	 *            the connection
+	 * @param path
+	 *            the CSV file
+	 * @param entity
+	 *            the table
+	 * @return the amount of rows imported
+	 * @throws IOException
+	 *             if the file could not be read or is invalid
+	 * @throws SQLException
+	 *             if the rows could not be inserted
+	 */
+	public long importBatched(Connection conn, java.nio.file.Path path,
+			RelationalPath<?> entity) throws IOException, SQLException {
+		final Configuration configuration = engine.getConfiguration();
+		try (final CSVImportReader reader = new CSVImportReader(path, entity)) {
+			final List<Path<?>> columns = reader.getColumns();
+			final int[] types = new int[columns.size()];
+			final StringBuilder values = new StringBuilder();
+			for (int i = 0; i < types.length; i++) {
+				types[i] = getSQLType(columns.get(i).getType());
+				values.append(i == 0 ? "?" : ", ?");
+			}
+			final String sql = "INSERT INTO "
+					+ engine.getTemplate().quoteIdentifier(
+							entity.getTableName()) + " "
+					+ getColumnList(engine.getTemplate(), columns)
+					+ " VALUES (" + values + ")";
+
+			try (final PreparedStatement st = conn.prepareStatement(sql)) {
+				final Object[] row = new Object[columns.size()];
+				long rows = 0;
+				int batch = 0;
+				while (reader.next(row)) {
+					for (int i = 0; i < row.length; i++) {
+						if (row[i] == null)
+							st.setNull(i + 1, types[i]);
+						else
+							configuration.set(st, columns.get(i), i + 1,
+									row[i]);
+					}
+					st.addBatch();
+					rows++;
+					if (++batch == BATCH_SIZE) {
+						executeBatch(st, reader);
+						batch = 0;
+					}
+					if (rows % PROGRESS_INTERVAL == 0)
+						log.info("{} rows from {} imported into {}",
+								new Object[] { rows, path,
+										entity.getTableName() });
+				}
+				if (batch > 0)
+					executeBatch(st, reader);
+				return rows;
+			}
+		}
+	}
+
+	/**
+	 * Executes the statement batch, adding the file and line to the exception
+	 * message, if any.
+	 * 
+	 * @param st
+	 *            the statement
+	 * @param reader
+	 *            the CSV reader
+	 * @throws SQLException
+	 *             if the batch failed
+	 */
+	private void executeBatch(PreparedStatement st, CSVImportReader reader)
+			throws SQLException {
+		try {
+			st.executeBatch();
+		} catch (BatchUpdateException e) {
+			throw new SQLException(reader.getPath()
+					+ ": batch ending at line " + reader.getLine()
+					+ " failed", e);
+		}
+	}
+
+	/**
+	 * Creates the column list used by insert and import statements, in the
+	 * form <code>(a, b, c)</code>
+	 * 
+	 * @param template
+	 *            the query template, used to quote the names
+	 * @param columns
+	 *            the columns
+	 * @return the column list
+	 */
+	public static String getColumnList(QueryTemplate template,
+			List<Path<?>> columns) {
+		final StringBuilder builder = new StringBuilder("(");
+		for (final Path<?> column : columns) {
+			if (builder.length() > 1)
+				builder.append(", ");
+			builder.append(template.quoteIdentifier(column.getMetadata()
+					.getExpression().toString()));
+		}
+		return builder.append(")").toString();
+	}
+
+	/**
+	 * @param type
+	 *            the column Java type
+	 * @return the {@link Types SQL type} used to bind <code>null</code>
+	 *         values
+	 */
+	private static int getSQLType(Class<?> type) {
+		if (type == Integer.class)
+			return Types.INTEGER;
+		else if (type == Long.class)
+			return Types.BIGINT;
+		else if (type == Double.class)
+			return Types.DOUBLE;
+		else if (type == Float.class)
+			return Types.REAL;
+		else if (type == Short.class || type == Byte.class)
+			return Types.SMALLINT;
+		else if (type == Boolean.class)
+			return Types.BOOLEAN;
+		return Types.VARCHAR;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.database.sql;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import com.l2jserver.util.factory.CollectionFactory;
+import com.mysema.query.sql.RelationalPathBase;
+import com.mysema.query.types.Path;
+
+/**
+ * Maps the columns of an entity to their position in the rows selected with
+ * {@link RelationalPathBase#all()}. Indexes are computed once per entity and
+ * shared by all rows.
+ * <p>
+ * Mappers normally read rows with the column paths of the same entity
+ * instance the query was made with, those are resolved by identity. Paths
+ * from another, equal, entity instance are resolved by equality.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class SQLColumnIndex {
+	/**
+	 * The indexes already computed
+	 */
+	private static final ConcurrentMap<RelationalPathBase<?>, SQLColumnIndex> indexes = CollectionFactory
+			.newConcurrentMap();
+
+	/**
+	 * The entity
+	 */
+	private final RelationalPathBase<?> entity;
+	/**
+	 * The column positions, by path identity
+	 */
+	private final Map<Path<?>, Integer> identity = new IdentityHashMap<>();
+	/**
+	 * The column positions, by path equality
+	 */
+	private final Map<Path<?>, Integer> equality = CollectionFactory.newMap();
+
+	/**
+	 * @param entity
+	 *            the entity
+	 */
+	private SQLColumnIndex(RelationalPathBase<?> entity) {
+		this.entity = entity;
+		final List<Path<?>> columns = entity.getColumns();
+		for (int i = 0; i < columns.size(); i++) {
+			identity.put(columns.get(i), i);
+			equality.put(columns.get(i), i);
+		}
+	}
+
+	/**
+	 * @param entity
+	 *            the entity
+	 * @return the column index for <tt>entity</tt>
+	 */
+	public static SQLColumnIndex get(RelationalPathBase<?> entity) {
+		SQLColumnIndex index = indexes.get(entity);
+		if (index == null) {
+			final SQLColumnIndex created = new SQLColumnIndex(entity);
+			index = indexes.putIfAbsent(entity, created);
+			if (index == null)
+				index = created;
+		}
+		return index;
+	}
+
+	/**
+	 * @param path
+	 *            the column path
+	 * @return the column position in the row
+	 * @throws IllegalArgumentException
+	 *             if <tt>path</tt> is not a column of the entity
+	 */
+	public int indexOf(Path<?> path) {
+		Integer index = identity.get(path);
+		if (index == null) {
+			index = equality.get(path);
+			if (index == null)
+				throw new IllegalArgumentException(path
+						+ " is not a column of " + entity);
+		}
+		return index;
+	}
+}
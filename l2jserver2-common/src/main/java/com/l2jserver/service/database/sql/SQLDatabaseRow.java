@@ -16,15 +16,15 @@
  */
 package com.l2jserver.service.database.sql;
 
-import java.util.List;
-
 import com.l2jserver.service.database.dao.DatabaseRow;
 import com.mysema.query.sql.RelationalPathBase;
 import com.mysema.query.types.Path;
 
 /**
- * @author <a href="http://www.rogiel.com">Rogiel</a>
+ * {@link DatabaseRow} for rows selected with {@link RelationalPathBase#all()}.
+ * Columns are located through the entity {@link SQLColumnIndex}.
  * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
 public class SQLDatabaseRow implements DatabaseRow {
 	/**
@@ -33,9 +33,9 @@ public class SQLDatabaseRow implements DatabaseRow {
 	@SuppressWarnings("unused")
 	private final RelationalPathBase<?> entity;
 	/**
-	 * The cached list of paths
+	 * The entity column index
 	 */
-	private final List<Path<?>> paths;
+	private final SQLColumnIndex index;
 	/**
 	 * The database data row
 	 */
@@ -50,7 +50,7 @@ public class SQLDatabaseRow implements DatabaseRow {
 	public SQLDatabaseRow(Object[] row, RelationalPathBase<?> entity) {
 		this.row = row;
 		this.entity = entity;
-		paths = entity.getColumns();
+		this.index = SQLColumnIndex.get(entity);
 	}
 
 	/**
@@ -59,7 +59,7 @@ public class SQLDatabaseRow implements DatabaseRow {
 	 */
 	public SQLDatabaseRow(RelationalPathBase<?> entity) {
 		this.entity = entity;
-		paths = entity.getColumns();
+		this.index = SQLColumnIndex.get(entity);
 	}
 
 	@Override
@@ -74,13 +74,31 @@ public class SQLDatabaseRow implements DatabaseRow {
 		return row[indexOf(path)] == null;
 	}
 
+	@Override
+	public int getInt(Path<? extends Number> path) {
+		final Number value = (Number) row[indexOf(path)];
+		return (value != null ? value.intValue() : 0);
+	}
+
+	@Override
+	public long getLong(Path<? extends Number> path) {
+		final Number value = (Number) row[indexOf(path)];
+		return (value != null ? value.longValue() : 0);
+	}
+
+	@Override
+	public double getDouble(Path<? extends Number> path) {
+		final Number value = (Number) row[indexOf(path)];
+		return (value != null ? value.doubleValue() : 0);
+	}
+
 	/**
 	 * @param path
 	 *            the path
 	 * @return the index of <code>path</code>
 	 */
 	private int indexOf(Path<?> path) {
-		return paths.indexOf(path);
+		return index.indexOf(path);
 	}
 
 	/**
@@ -0,0 +1,98 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.util;
+
+import org.slf4j.Logger;
+
+/**
+ * Guarded logging methods for hot code paths. SLF4J only has overloads up to
+ * two arguments: logging with more arguments allocates the argument array on
+ * every call, even if the level is disabled. These methods check the level
+ * before creating the array.
+ * <p>
+ * Primitive arguments are still boxed by the caller. In that case, check
+ * {@link Logger#isDebugEnabled()} before logging.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class LogUtils {
+	/**
+	 * Logs a message at debug level, if enabled
+	 * 
+	 * @param log
+	 *            the logger
+	 * @param format
+	 *            the message format
+	 * @param arg1
+	 *            the first argument
+	 * @param arg2
+	 *            the second argument
+	 * @param arg3
+	 *            the third argument
+	 */
+	public static void debug(Logger log, String format, Object arg1,
+			Object arg2, Object arg3) {
+		if (log.isDebugEnabled())
+			log.debug(format, new Object[] { arg1, arg2, arg3 });
+	}
+
+	/**
+	 * Logs a message at debug level, if enabled
+	 * 
+	 * @param log
+	 *            the logger
+	 * @param format
+	 *            the message format
+	 * @param arg1
+	 *            the first argument
+	 * @param arg2
+	 *            the second argument
+	 * @param arg3
+	 *            the third argument
+	 * @param arg4
+	 *            the fourth argument
+	 */
+	public static void debug(Logger log, String format, Object arg1,
+			Object arg2, Object arg3, Object arg4) {
+		if (log.isDebugEnabled())
+			log.debug(format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+
+	/**
+	 * Logs a message at debug level, if enabled
+	 * 
+	 * @param log
+	 *            the logger
+	 * @param format
+	 *            the message format
+	 * @param arg1
+	 *            the first argument
+	 * @param arg2
+	 *            the second argument
+	 * @param arg3
+	 *            the third argument
+	 * @param arg4
+	 *            the fourth argument
+	 * @param arg5
+	 *            the fifth argument
+	 */
+	public static void debug(Logger log, String format, Object arg1,
+			Object arg2, Object arg3, Object arg4, Object arg5) {
+		if (log.isDebugEnabled())
+			log.debug(format, new Object[] { arg1, arg2, arg3, arg4, arg5 });
+	}
+}
@@ -18,13 +18,16 @@ package com.l2jserver.util.factory;
 
 import java.lang.ref.ReferenceQueue;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import javolution.util.FastList;
 import javolution.util.FastMap;
@@ -58,6 +61,17 @@ public class CollectionFactory {
 		return new FastSet<T>();
 	}
 
+	/**
+	 * Creates a new concurrent set of type <tt>T</tt>
+	 * 
+	 * @param <T>
+	 *            the type
+	 * @return the created set
+	 */
+	public static final <T> Set<T> newConcurrentSet() {
+		return Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>());
+	}
+
 	/**
 	 * Creates a new concurrent queue of type <tt>T</tt>
 	 * 
@@ -105,6 +119,19 @@ public class CollectionFactory {
 		return new FastMap<K, V>();
 	}
 
+	/**
+	 * Creates a new concurrent map.
+	 * 
+	 * @param <K>
+	 *            the key type
+	 * @param <V>
+	 *            the value type
+	 * @return the new map
+	 */
+	public static final <K, V> ConcurrentMap<K, V> newConcurrentMap() {
+		return new ConcurrentHashMap<K, V>();
+	}
+
 	/**
 	 * Creates a new weak map.
 	 * 
@@ -18,6 +18,11 @@ package com.l2jserver.model.id.allocator;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -74,6 +79,33 @@ public class BitSetIDAllocatorTest {
 		assertFalse(id2 == id3);
 	}
 
+	/**
+	 * Tests that IDs next to an allocated one can still be restored and that
+	 * IDs in the word of a dead thread are reused
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the thread
+	 */
+	@Test
+	public void testRestoreAfterAllocate() throws InterruptedException {
+		final int id1 = allocator.allocate();
+		allocator.allocate(id1 + 1);
+		assertEquals(2, allocator.getAllocatedIDs());
+
+		final Thread thread = new Thread() {
+			@Override
+			public void run() {
+				allocator.allocate();
+			}
+		};
+		thread.start();
+		thread.join();
+		assertEquals(3, allocator.getAllocatedIDs());
+		// the dead thread word was not fully used
+		assertEquals(id1 + 2, allocator.allocate());
+		allocator.allocate(id1 + 5);
+	}
+
 	/**
 	 * Tests allocation of several ids
 	 */
@@ -111,4 +143,97 @@ public class BitSetIDAllocatorTest {
 	public void testReleaseUnalloc() {
 		allocator.release(IDAllocator.FIRST_ID);
 	}
+
+	/**
+	 * Tests restoring several IDs at once
+	 */
+	@Test
+	public void testAllocateBulk() {
+		final int[] ids = new int[1000];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = IDAllocator.FIRST_ID + (i * 7919) % 5000;
+		}
+		allocator.allocate(ids);
+		assertEquals(1000, allocator.getAllocatedIDs());
+		allocator.release(ids[500]);
+		assertEquals(999, allocator.getAllocatedIDs());
+	}
+
+	/**
+	 * Tests that a failed bulk restore leaves no ID allocated
+	 */
+	@Test
+	public void testAllocateBulkAlreadyAllocated() {
+		allocator.allocate(IDAllocator.FIRST_ID + 900);
+		final int[] ids = new int[1000];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = IDAllocator.FIRST_ID + i;
+		}
+		try {
+			allocator.allocate(ids);
+		} catch (IDAllocatorException e) {
+			assertEquals(1, allocator.getAllocatedIDs());
+			// all other IDs are free again
+			allocator.allocate(IDAllocator.FIRST_ID);
+			allocator.allocate(IDAllocator.FIRST_ID + 899);
+			allocator.allocate(IDAllocator.FIRST_ID + 999);
+			return;
+		}
+		throw new AssertionError("IDAllocatorException not thrown");
+	}
+
+	/**
+	 * Tests that clearing the allocator starts over from the first ID
+	 */
+	@Test
+	public void testClear() {
+		allocator.allocate();
+		allocator.allocate();
+		allocator.clear();
+		assertEquals(0, allocator.getAllocatedIDs());
+		assertEquals(IDAllocator.FIRST_ID, allocator.allocate());
+	}
+
+	/**
+	 * Tests that IDs are never handed out twice, with several threads
+	 * allocating and releasing IDs concurrently
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the threads
+	 */
+	@Test
+	public void testConcurrentAllocateRelease() throws InterruptedException {
+		final Map<Integer, Thread> owners = new ConcurrentHashMap<Integer, Thread>();
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						final int[] live = new int[256];
+						for (int i = 0; i < 50000; i++) {
+							final int slot = i % live.length;
+							if (live[slot] != 0) {
+								owners.remove(live[slot]);
+								allocator.release(live[slot]);
+							}
+							live[slot] = allocator.allocate();
+							if (owners.put(live[slot], this) != null)
+								throw new AssertionError("ID " + live[slot]
+										+ " allocated twice");
+						}
+					} catch (Throwable e) {
+						error.compareAndSet(null, e);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(error.get());
+		assertEquals(threads.length * 256, allocator.getAllocatedIDs());
+	}
 }
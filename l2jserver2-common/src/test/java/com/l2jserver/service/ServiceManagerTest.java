@@ -0,0 +1,216 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Singleton;
+import com.l2jserver.service.AbstractService.Depends;
+import com.l2jserver.service.configuration.ConfigurationService;
+import com.l2jserver.service.configuration.XMLConfigurationService;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Tests for {@link ServiceManager}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ServiceManagerTest {
+	/**
+	 * The order in which services were started or stopped
+	 */
+	private static final List<Class<?>> events = Collections
+			.synchronizedList(CollectionFactory.<Class<?>> newList());
+	/**
+	 * Released once both {@link ServiceB} and {@link ServiceC} are starting
+	 */
+	private static CountDownLatch concurrent;
+
+	/**
+	 * The service manager
+	 */
+	private final ServiceManager manager = new ServiceManager();
+
+	/**
+	 * Preparation for tests
+	 * 
+	 * @throws ServiceStartException
+	 */
+	@Before
+	public void tearUp() throws ServiceStartException {
+		events.clear();
+		concurrent = new CountDownLatch(2);
+		manager.init(Guice.createInjector(new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(ServiceManager.class).toInstance(manager);
+				bind(ConfigurationService.class).to(
+						XMLConfigurationService.class).in(Singleton.class);
+			}
+		}));
+	}
+
+	/**
+	 * Tests that dependencies are started first and that independent
+	 * services are started concurrently
+	 * 
+	 * @throws ServiceStartException
+	 */
+	@Test
+	public void testStartConcurrently() throws ServiceStartException {
+		manager.start(ServiceD.class);
+
+		assertTrue(manager.get(ServiceD.class).isStarted());
+		assertEquals(4, events.size());
+		assertEquals(ServiceA.class, events.get(0));
+		assertEquals(ServiceD.class, events.get(3));
+	}
+
+	/**
+	 * Tests that dependency cycles are detected before any service is started
+	 */
+	@Test
+	public void testCycle() {
+		try {
+			manager.start(ServiceE.class);
+			fail("Cycle not detected");
+		} catch (ServiceStartException e) {
+		}
+		assertTrue(events.isEmpty());
+		assertFalse(manager.get(ServiceE.class).isStarted());
+		assertFalse(manager.get(ServiceF.class).isStarted());
+	}
+
+	/**
+	 * Tests that dependents are stopped before their dependencies
+	 * 
+	 * @throws ServiceException
+	 */
+	@Test
+	public void testStop() throws ServiceException {
+		manager.start(ServiceD.class);
+		events.clear();
+
+		manager.stop(ServiceA.class);
+
+		assertTrue(manager.get(ServiceA.class).isStopped());
+		assertTrue(manager.get(ServiceD.class).isStopped());
+		assertEquals(4, events.size());
+		assertEquals(ServiceD.class, events.get(0));
+		assertEquals(ServiceA.class, events.get(3));
+	}
+
+	/**
+	 * Base class for test services
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public static abstract class TestService extends AbstractService {
+		@Override
+		protected void doStart() throws ServiceStartException {
+			events.add(getClass());
+		}
+
+		@Override
+		protected void doStop() throws ServiceStopException {
+			events.add(getClass());
+		}
+	}
+
+	/**
+	 * Service without dependencies
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	@Singleton
+	public static class ServiceA extends TestService {
+	}
+
+	/**
+	 * Service that waits for {@link ServiceC} to start concurrently
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	@Singleton
+	@Depends(ServiceA.class)
+	public static class ServiceB extends TestService {
+		@Override
+		protected void doStart() throws ServiceStartException {
+			super.doStart();
+			concurrent.countDown();
+			try {
+				if (!concurrent.await(10, TimeUnit.SECONDS))
+					throw new ServiceStartException("Not started concurrently");
+			} catch (InterruptedException e) {
+				throw new ServiceStartException(e);
+			}
+		}
+	}
+
+	/**
+	 * Service that waits for {@link ServiceB} to start concurrently
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	@Singleton
+	@Depends(ServiceA.class)
+	public static class ServiceC extends ServiceB {
+	}
+
+	/**
+	 * Service depending on both {@link ServiceB} and {@link ServiceC}
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	@Singleton
+	@Depends({ ServiceB.class, ServiceC.class })
+	public static class ServiceD extends TestService {
+	}
+
+	/**
+	 * Service depending on {@link ServiceF}
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	@Singleton
+	@Depends(ServiceF.class)
+	public static class ServiceE extends TestService {
+	}
+
+	/**
+	 * Service depending on {@link ServiceE}
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	@Singleton
+	@Depends(ServiceE.class)
+	public static class ServiceF extends TestService {
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.logging;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.Assert;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+
+import com.l2jserver.service.core.logging.RingBufferAppender.OverflowPolicy;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Tests for {@link RingBufferAppender}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class RingBufferAppenderTest {
+	/**
+	 * The logger used to create events
+	 */
+	private final Logger logger = Logger
+			.getLogger(RingBufferAppenderTest.class);
+
+	/**
+	 * Tests that all events are written, in order, when blocking
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted
+	 */
+	@Test
+	public void testBlock() throws InterruptedException {
+		final CollectingAppender target = new CollectingAppender(null);
+		final RingBufferAppender appender = new RingBufferAppender(target, 16,
+				OverflowPolicy.BLOCK);
+		for (int i = 0; i < 1000; i++) {
+			appender.doAppend(event("message " + i));
+		}
+		appender.close();
+
+		Assert.assertTrue(target.isClosed());
+		Assert.assertEquals(1000, target.events.size());
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertEquals("message " + i, target.events.get(i)
+					.getRenderedMessage());
+		}
+	}
+
+	/**
+	 * Tests that a thread blocked on a full buffer is released when the
+	 * appender is closed
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted
+	 */
+	@Test
+	public void testBlockClose() throws InterruptedException {
+		// the writer blocks on the first event until interrupted by close
+		final CountDownLatch latch = new CountDownLatch(1);
+		final CollectingAppender target = new CollectingAppender(latch);
+		final RingBufferAppender appender = new RingBufferAppender(target, 1,
+				OverflowPolicy.BLOCK);
+		// the writer holds at most two events (the batch it took before
+		// blocking) and the buffer one, so the fourth event must block
+		final Thread thread = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 4; i++) {
+					appender.doAppend(event("message " + i));
+				}
+			}
+		};
+		thread.start();
+		while (thread.getState() != Thread.State.TIMED_WAITING) {
+			Assert.assertTrue(thread.isAlive());
+			Thread.sleep(10);
+		}
+		// close also writes the remaining events, blocking on the latch
+		final Thread closer = new Thread() {
+			@Override
+			public void run() {
+				appender.close();
+			}
+		};
+		closer.start();
+
+		thread.join(2000);
+		Assert.assertFalse(thread.isAlive());
+		latch.countDown();
+		closer.join();
+	}
+
+	/**
+	 * Tests that discarded events are reported
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted
+	 */
+	@Test
+	public void testDiscard() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final CollectingAppender target = new CollectingAppender(latch);
+		final RingBufferAppender appender = new RingBufferAppender(target, 16,
+				OverflowPolicy.DISCARD);
+		for (int i = 0; i < 100; i++) {
+			appender.doAppend(event("message " + i));
+		}
+		latch.countDown();
+		appender.close();
+
+		// every event is either written or reported as discarded
+		int written = 0;
+		int discarded = 0;
+		for (final LoggingEvent event : target.events) {
+			if (event.getLevel() == Level.WARN)
+				discarded += Integer.parseInt(event.getRenderedMessage()
+						.split(" ")[0]);
+			else
+				written++;
+		}
+		// the writer took at most a batch (one event and a full buffer)
+		// before blocking, and the buffer was filled again afterwards
+		Assert.assertTrue(written <= 16 + 1 + 16);
+		Assert.assertEquals(100, written + discarded);
+	}
+
+	/**
+	 * @param message
+	 *            the message
+	 * @return a new event
+	 */
+	private LoggingEvent event(String message) {
+		return new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+				message, null);
+	}
+
+	/**
+	 * Appender that stores events, optionally waiting on a latch before
+	 * accepting the first one
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class CollectingAppender extends AppenderSkeleton {
+		/**
+		 * The appended events
+		 */
+		private final List<LoggingEvent> events = CollectionFactory.newList();
+		/**
+		 * The latch, if any
+		 */
+		private final CountDownLatch latch;
+
+		/**
+		 * @param latch
+		 *            the latch, if any
+		 */
+		public CollectingAppender(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		protected void append(LoggingEvent event) {
+			if (latch != null) {
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			events.add(event);
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+		/**
+		 * @return whether the appender is closed
+		 */
+		public boolean isClosed() {
+			return closed;
+		}
+
+		@Override
+		public boolean requiresLayout() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.metrics;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.l2jserver.service.core.metrics.Histogram.Snapshot;
+
+/**
+ * Tests for {@link Histogram} and {@link MetricRegistry}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class HistogramTest {
+	/**
+	 * Tests that bucket bounds cover every value
+	 */
+	@Test
+	public void testBuckets() {
+		for (long value : new long[] { 0, 1, 3, 4, 5, 7, 8, 1000, 123456789,
+				Long.MAX_VALUE }) {
+			final int bucket = Histogram.bucket(value);
+			Assert.assertTrue(Histogram.lowerBound(bucket) <= value);
+			Assert.assertTrue(Histogram.upperBound(bucket) >= value);
+		}
+		Assert.assertEquals(Histogram.upperBound(10) + 1,
+				Histogram.lowerBound(11));
+	}
+
+	/**
+	 * Tests the percentile estimates and interval snapshots
+	 */
+	@Test
+	public void testSnapshot() {
+		final Histogram histogram = new Histogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000);
+		}
+		final Snapshot first = histogram.getSnapshot();
+		Assert.assertEquals(1000, first.getCount());
+		Assert.assertEquals(500500.0, first.getMean());
+		Assert.assertEquals(1000000, first.getMax());
+		assertNear(500000, first.getPercentile(0.5));
+		assertNear(990000, first.getPercentile(0.99));
+
+		histogram.record(5000000);
+		final Snapshot delta = histogram.getSnapshot().minus(first);
+		Assert.assertEquals(1, delta.getCount());
+		Assert.assertEquals(5000000.0, delta.getMean());
+		assertNear(5000000, delta.getPercentile(0.5));
+		assertNear(5000000, delta.getMax());
+	}
+
+	/**
+	 * Tests that metrics are created once and types are not mixed
+	 */
+	@Test
+	public void testRegistry() {
+		final MetricRegistry registry = new MetricRegistry();
+		Assert.assertSame(registry.counter("a.b"), registry.counter("a.b"));
+		try {
+			registry.histogram("a.b");
+			Assert.fail("a.b is a counter");
+		} catch (IllegalArgumentException e) {
+		}
+		registry.histogram("a.c");
+		registry.histogram("b.a");
+		registry.removeAll("a.");
+		Assert.assertEquals(1, registry.getMetrics().size());
+	}
+
+	/**
+	 * Asserts that an estimate is within the histogram precision
+	 * 
+	 * @param expected
+	 *            the exact value
+	 * @param actual
+	 *            the estimate
+	 */
+	private static void assertNear(long expected, long actual) {
+		Assert.assertTrue(actual + " is not near " + expected,
+				Math.abs(actual - expected) <= expected / 8);
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.core.threading;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.l2jserver.service.core.threading.HashedTimerWheel.Timeout;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Tests for {@link HashedTimerWheel}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class HashedTimerWheelTest {
+	/**
+	 * The duration of a tick
+	 */
+	private static final long RESOLUTION = 10;
+	/**
+	 * The amount of slots, a revolution takes <tt>SLOTS * RESOLUTION</tt>
+	 */
+	private static final int SLOTS = 8;
+
+	/**
+	 * Tests that elements more than one revolution ahead are skipped until
+	 * their tick comes, while sharing the slot with an earlier element
+	 */
+	@Test
+	public void testMultipleRevolutions() {
+		final HashedTimerWheel<String> wheel = new HashedTimerWheel<String>(
+				RESOLUTION, SLOTS, 0);
+		// ticks 50 and 2, both on slot 2
+		wheel.add("late", 0, 500);
+		wheel.add("early", 0, 20);
+
+		final List<String> expired = CollectionFactory.newList();
+		for (long now = RESOLUTION; now < 500; now += RESOLUTION) {
+			wheel.expire(now, expired);
+			if (now < 20)
+				Assert.assertTrue(expired.isEmpty());
+			else
+				Assert.assertEquals(1, expired.size());
+		}
+		Assert.assertEquals("early", expired.get(0));
+		Assert.assertEquals(1, wheel.size());
+
+		Assert.assertEquals(1, wheel.expire(500, expired));
+		Assert.assertEquals("late", expired.get(1));
+		Assert.assertEquals(0, wheel.size());
+	}
+
+	/**
+	 * Tests removing the first timeout of a slot
+	 */
+	@Test
+	public void testRemoveHead() {
+		testRemove(0);
+	}
+
+	/**
+	 * Tests removing a timeout in the middle of a slot
+	 */
+	@Test
+	public void testRemoveMiddle() {
+		testRemove(1);
+	}
+
+	/**
+	 * Tests removing the last timeout of a slot
+	 */
+	@Test
+	public void testRemoveTail() {
+		testRemove(2);
+	}
+
+	/**
+	 * Adds three elements to the same slot, removes one of them and checks
+	 * that the other two still expire
+	 * 
+	 * @param position
+	 *            the position of the removed timeout in the slot, 0 being the
+	 *            head
+	 */
+	private void testRemove(int position) {
+		final HashedTimerWheel<Integer> wheel = new HashedTimerWheel<Integer>(
+				RESOLUTION, SLOTS, 0);
+		// ticks 1, 9 and 17, all on slot 1. Timeouts are added at the head
+		// of the slot, so the last one added is the first in the slot.
+		final List<Timeout<Integer>> timeouts = CollectionFactory.newList();
+		for (int i = 0; i < 3; i++) {
+			timeouts.add(0, wheel.add(i, 0, RESOLUTION + i * SLOTS
+					* RESOLUTION));
+		}
+		final Timeout<Integer> removed = timeouts.get(position);
+
+		Assert.assertTrue(wheel.remove(removed));
+		Assert.assertFalse(removed.isPending());
+		Assert.assertEquals(2, wheel.size());
+		Assert.assertFalse(wheel.remove(removed));
+		Assert.assertEquals(2, wheel.size());
+
+		final List<Integer> expired = CollectionFactory.newList();
+		final long end = 3 * SLOTS * RESOLUTION;
+		for (long now = RESOLUTION; now <= end; now += RESOLUTION) {
+			wheel.expire(now, expired);
+		}
+		Assert.assertEquals(2, expired.size());
+		Assert.assertFalse(expired.contains(removed.getElement()));
+		for (final Timeout<Integer> timeout : timeouts) {
+			Assert.assertFalse(timeout.isPending());
+			Assert.assertFalse(wheel.remove(timeout));
+		}
+		Assert.assertEquals(0, wheel.size());
+	}
+
+	/**
+	 * Tests that a single expire call catches up after a stall longer than a
+	 * revolution, without expiring later elements
+	 */
+	@Test
+	public void testCatchUpAfterStall() {
+		final HashedTimerWheel<Integer> wheel = new HashedTimerWheel<Integer>(
+				RESOLUTION, SLOTS, 0);
+		// spread over three revolutions
+		for (int i = 1; i <= 3 * SLOTS; i++) {
+			wheel.add(i, 0, i * RESOLUTION);
+		}
+		final Timeout<Integer> pending = wheel.add(-1, 0, 1000);
+
+		final List<Integer> expired = CollectionFactory.newList();
+		Assert.assertEquals(3 * SLOTS, wheel.expire(5 * SLOTS * RESOLUTION,
+				expired));
+		Assert.assertEquals(3 * SLOTS, expired.size());
+		for (int i = 1; i <= 3 * SLOTS; i++) {
+			Assert.assertTrue(expired.contains(i));
+		}
+		Assert.assertTrue(pending.isPending());
+		Assert.assertEquals(1, wheel.size());
+
+		// elements added after the stall are placed from the current tick
+		wheel.add(-2, 5 * SLOTS * RESOLUTION, RESOLUTION);
+		expired.clear();
+		Assert.assertEquals(1, wheel.expire(5 * SLOTS * RESOLUTION
+				+ RESOLUTION, expired));
+		Assert.assertEquals(Integer.valueOf(-2), expired.get(0));
+
+		Assert.assertEquals(1, wheel.expire(1000, expired));
+		Assert.assertFalse(pending.isPending());
+		Assert.assertEquals(0, wheel.size());
+	}
+
+	/**
+	 * Tests, with random delays and unaligned times, that elements never
+	 * expire before their time and at most one tick after it
+	 */
+	@Test
+	public void testNeverBeforeDeadline() {
+		final Random random = new Random(0);
+		final HashedTimerWheel<Integer> wheel = new HashedTimerWheel<Integer>(
+				RESOLUTION, SLOTS, 3);
+		final Map<Integer, Long> deadlines = CollectionFactory.newMap();
+		final List<Integer> expired = CollectionFactory.newList();
+		int elements = 0;
+		for (long now = 3; now < 5000; now++) {
+			if (now < 4000 && random.nextInt(3) == 0) {
+				final long delay = random.nextInt(4 * SLOTS
+						* (int) RESOLUTION);
+				wheel.add(elements, now, delay);
+				deadlines.put(elements++, now + delay);
+			}
+			expired.clear();
+			wheel.expire(now, expired);
+			for (final Integer element : expired) {
+				final long deadline = deadlines.remove(element);
+				Assert.assertTrue(now >= deadline);
+				Assert.assertTrue(now <= deadline + RESOLUTION);
+			}
+		}
+		Assert.assertTrue(elements > 1000);
+		Assert.assertTrue(deadlines.isEmpty());
+		Assert.assertEquals(0, wheel.size());
+	}
+}
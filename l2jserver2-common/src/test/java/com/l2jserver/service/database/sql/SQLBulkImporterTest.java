@@ -0,0 +1,308 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.database.sql;
+
+import static com.mysema.query.types.PathMetadataFactory.forVariable;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.l2jserver.service.database.CSVImportReader;
+import com.l2jserver.service.database.ddl.QueryFactory;
+import com.l2jserver.service.database.ddl.TableFactory;
+import com.l2jserver.service.database.ddl.annotation.ColumnNullable;
+import com.l2jserver.service.database.ddl.annotation.ColumnSize;
+import com.mysema.query.sql.PrimaryKey;
+import com.mysema.query.sql.RelationalPath;
+import com.mysema.query.sql.RelationalPathBase;
+import com.mysema.query.types.Path;
+import com.mysema.query.types.path.NumberPath;
+import com.mysema.query.types.path.StringPath;
+
+/**
+ * Tests for {@link SQLBulkImporter}, using the H2 and Derby embedded engines
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class SQLBulkImporterTest {
+	/**
+	 * The test entity
+	 */
+	private static final QImportTest e = new QImportTest();
+	/**
+	 * The columns, in the CSV file order
+	 */
+	private static final List<Path<?>> COLUMNS = Arrays.<Path<?>> asList(
+			e.id, e.value, e.name);
+
+	/**
+	 * Keeps the Derby log out of the module directory
+	 */
+	@BeforeClass
+	public static void setUpDerby() {
+		System.setProperty("derby.stream.error.file", "target/derby.log");
+	}
+
+	/**
+	 * Tests the H2 native import (<tt>CSVREAD</tt>)
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	@Test
+	public void testH2Native() throws Exception {
+		final DatabaseEngine engine = new H2DatabaseEngine();
+		try (final Connection conn = connect(engine, "jdbc:h2:mem:import")) {
+			final java.nio.file.Path file = csv("id,value,name", "1,1.5,first",
+					"2,2.5,second", "3,,third");
+			Assert.assertEquals(3, new SQLBulkImporter(engine).importNative(
+					conn, file, e, COLUMNS));
+			assertImported(conn, engine);
+		}
+	}
+
+	/**
+	 * Tests the Derby native import (<tt>SYSCS_IMPORT_DATA</tt>)
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	@Test
+	public void testDerbyNative() throws Exception {
+		final DatabaseEngine engine = new DerbyDatabaseEngine();
+		try (final Connection conn = connect(engine,
+				"jdbc:derby:memory:import;create=true")) {
+			final java.nio.file.Path file = csv("id,value,name", "1,1.5,first",
+					"2,2.5,second", "3,,third");
+			Assert.assertEquals(3, new SQLBulkImporter(engine).importNative(
+					conn, file, e, COLUMNS));
+			assertImported(conn, engine);
+		}
+	}
+
+	/**
+	 * Tests the batched import, with columns in a different order than the
+	 * table
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	@Test
+	public void testBatched() throws Exception {
+		final DatabaseEngine engine = new H2DatabaseEngine();
+		try (final Connection conn = connect(engine, "jdbc:h2:mem:batched")) {
+			final java.nio.file.Path file = csv("name,id,value", "first,1,1.5",
+					"second,2,2.5", "third,3,");
+			Assert.assertEquals(3, new SQLBulkImporter(engine).importBatched(
+					conn, file, e));
+			assertImported(conn, engine);
+		}
+	}
+
+	/**
+	 * Tests that invalid files are reported instead of silently ignored
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	@Test
+	public void testInvalid() throws Exception {
+		final DatabaseEngine engine = new H2DatabaseEngine();
+		try (final Connection conn = connect(engine, "jdbc:h2:mem:invalid")) {
+			try {
+				new SQLBulkImporter(engine).importData(conn,
+						csv("id,unknown", "1,2"), e);
+				Assert.fail("unknown column not reported");
+			} catch (IOException ex) {
+				Assert.assertTrue(ex.getMessage().contains("unknown"));
+			}
+			try {
+				new SQLBulkImporter(engine).importBatched(conn,
+						csv("id,value,name", "1,1.5,first", "x,2.5,second"),
+						e);
+				Assert.fail("invalid value not reported");
+			} catch (IOException ex) {
+				Assert.assertTrue(ex.getMessage().contains(":3:"));
+			}
+		}
+	}
+
+	/**
+	 * Tests that a native import failing after committing some rows is
+	 * reported instead of falling back to batched inserts, which would
+	 * duplicate those rows
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	@Test
+	public void testPartialNative() throws Exception {
+		final DatabaseEngine engine = new H2DatabaseEngine() {
+			@Override
+			public long importCSV(Connection conn, java.nio.file.Path file,
+					RelationalPath<?> entity, List<Path<?>> columns)
+					throws SQLException {
+				super.importCSV(conn, file, entity, columns);
+				// like Derby, commits before failing
+				conn.commit();
+				throw new SQLException("failed after commit");
+			}
+		};
+		try (final Connection conn = connect(engine, "jdbc:h2:mem:partial")) {
+			conn.setAutoCommit(false);
+			try {
+				new SQLBulkImporter(engine).importData(conn,
+						csv("id,value,name", "1,1.5,first", "2,2.5,second",
+								"3,,third"), e);
+				Assert.fail("partial native import not reported");
+			} catch (SQLException ex) {
+				Assert.assertEquals("failed after commit", ex.getCause()
+						.getMessage());
+			}
+			assertImported(conn, engine);
+		}
+	}
+
+	/**
+	 * Opens an connection and creates the test table
+	 * 
+	 * @param engine
+	 *            the database engine
+	 * @param url
+	 *            the JDBC url
+	 * @return the connection
+	 * @throws SQLException
+	 *             if any database error occur
+	 */
+	private static Connection connect(DatabaseEngine engine, String url)
+			throws SQLException {
+		final Connection conn = engine.newDriver().connect(url,
+				new Properties());
+		try (final Statement st = conn.createStatement()) {
+			st.execute(QueryFactory.createTableQuery(
+					TableFactory.createTable(e), engine.getTemplate()));
+		}
+		return conn;
+	}
+
+	/**
+	 * Checks the imported rows
+	 * 
+	 * @param conn
+	 *            the connection
+	 * @param engine
+	 *            the database engine
+	 * @throws SQLException
+	 *             if any database error occur
+	 */
+	private static void assertImported(Connection conn, DatabaseEngine engine)
+			throws SQLException {
+		try (final Statement st = conn.createStatement();
+				final ResultSet rs = st.executeQuery("SELECT "
+						+ SQLBulkImporter.getColumnList(engine.getTemplate(),
+								COLUMNS)
+								.replaceAll("[()]", "")
+						+ " FROM "
+						+ engine.getTemplate().quoteIdentifier(
+								e.getTableName()) + " ORDER BY 1")) {
+			Assert.assertTrue(rs.next());
+			Assert.assertEquals(1, rs.getInt(1));
+			Assert.assertEquals(1.5, rs.getDouble(2));
+			Assert.assertEquals("first", rs.getString(3));
+			Assert.assertTrue(rs.next());
+			Assert.assertEquals(2, rs.getInt(1));
+			Assert.assertTrue(rs.next());
+			Assert.assertEquals(3, rs.getInt(1));
+			rs.getDouble(2);
+			Assert.assertTrue(rs.wasNull());
+			Assert.assertEquals("third", rs.getString(3));
+			Assert.assertFalse(rs.next());
+		}
+	}
+
+	/**
+	 * Writes an temporary CSV file
+	 * 
+	 * @param lines
+	 *            the file lines
+	 * @return the file
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	private static java.nio.file.Path csv(String... lines) throws IOException {
+		final java.nio.file.Path file = Files.createTempFile("import", ".csv");
+		file.toFile().deleteOnExit();
+		Files.write(file, Arrays.asList(lines), Charset.defaultCharset());
+		return file;
+	}
+
+	/**
+	 * The test table, with columns declared in a different order than the
+	 * CSV files. Read by {@link CSVImportReader}.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public static class QImportTest extends RelationalPathBase<Integer> {
+		/**
+		 * The Java Serialization UID
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Column: <code>id</code>
+		 */
+		@ColumnSize(10)
+		public final NumberPath<Integer> id = createNumber("id", Integer.class);
+		/**
+		 * Column: <code>name</code>
+		 */
+		@ColumnSize(32)
+		public final StringPath name = createString("name");
+		/**
+		 * Column: <code>value</code>
+		 */
+		@ColumnNullable
+		public final NumberPath<Double> value = createNumber("value",
+				Double.class);
+
+		/**
+		 * The entity primary key
+		 */
+		public final PrimaryKey<Integer> primary = createPrimaryKey(id);
+
+		/**
+		 * Creates a new instance
+		 */
+		public QImportTest() {
+			super(Integer.class, forVariable("import_test"), "null",
+					"import_test");
+		}
+	}
+}
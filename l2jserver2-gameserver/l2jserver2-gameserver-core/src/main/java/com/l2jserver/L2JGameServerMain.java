@@ -34,11 +34,13 @@ import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
 import com.l2jserver.service.cache.CacheService;
 import com.l2jserver.service.configuration.ConfigurationService;
+import com.l2jserver.service.core.metrics.MetricsService;
 import com.l2jserver.service.database.DatabaseService;
 import com.l2jserver.service.game.character.CharacterService;
 import com.l2jserver.service.game.character.ShortcutService;
 import com.l2jserver.service.game.chat.ChatService;
 import com.l2jserver.service.game.item.ItemService;
+import com.l2jserver.service.game.map.MapService;
 import com.l2jserver.service.game.map.pathing.PathingService;
 import com.l2jserver.service.game.npc.NPCService;
 import com.l2jserver.service.game.scripting.ScriptingService;
@@ -55,17 +57,19 @@ import com.l2jserver.service.network.keygen.BlowfishKeygenService;
  */
 public class L2JGameServerMain {
 	/**
-	 * List of start services
+	 * List of start services, by category. Categories are started in order and
+	 * stopped in the reverse order.
 	 */
-	private static final Class<?>[][] SERVICES = {
+	public static final Class<?>[][] SERVICES = {
 			// core services
-			{ CacheService.class, ConfigurationService.class,
-					DatabaseService.class, WorldIDService.class,
-					ScriptingService.class, TemplateService.class },
+			{ MetricsService.class, CacheService.class,
+					ConfigurationService.class, DatabaseService.class,
+					WorldIDService.class, ScriptingService.class,
+					TemplateService.class },
 			// game services
 			{ ChatService.class, NPCService.class, ItemService.class,
 					CharacterService.class, ShortcutService.class,
-					PathingService.class },
+					MapService.class, PathingService.class },
 			// network services - should be started at last!
 			{ BlowfishKeygenService.class, GameGuardService.class,
 					NetworkService.class } };
@@ -107,21 +111,18 @@ public class L2JGameServerMain {
 		}
 
 		try {
+			// services inside the same category are started concurrently
 			for (final Class<?>[] category : SERVICES) {
-				for (final Class<?> service : category) {
-					serviceManager.start((Class<? extends Service>) service);
-				}
+				serviceManager.start((Class<? extends Service>[]) category);
 			}
 			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
 				@Override
 				public void run() {
-					for (final Class<?>[] category : SERVICES) {
-						for (final Class<?> service : category) {
-							try {
-								serviceManager
-										.stop((Class<? extends Service>) service);
-							} catch (ServiceStopException e) {
-							}
+					for (int i = SERVICES.length - 1; i >= 0; i--) {
+						try {
+							serviceManager
+									.stop((Class<? extends Service>[]) SERVICES[i]);
+						} catch (ServiceStopException e) {
 						}
 					}
 				}
@@ -55,18 +55,36 @@ public abstract class AI<T extends Actor> {
 	}
 
 	/**
-	 * Executes an AI tick
+	 * Executes an AI tick. At most one desire is handled on each tick.
 	 */
-	protected void tick() {
+	public void tick() {
 		Desire desire = desireQueue.poll();
+		if (desire == null)
+			return;
 		handleDesire(desire);
 	}
 
 	/**
-	 * Handles the given desire
+	 * Handles the given desire. Desires that are not yet fulfilled must be
+	 * added back to the {@link #desireQueue} in order to be handled again on
+	 * the next tick.
 	 * 
 	 * @param desire
 	 *            the desire
 	 */
 	protected abstract void handleDesire(Desire desire);
+
+	/**
+	 * @return the desire queue for this AI
+	 */
+	public DesireQueue getDesireQueue() {
+		return desireQueue;
+	}
+
+	/**
+	 * @return the actor controlled by this AI
+	 */
+	public T getActor() {
+		return actor;
+	}
 }
@@ -37,7 +37,7 @@ public final class AttackDesire extends AbstractDesire {
 	 * @param desirePower
 	 *            initial attack power
 	 */
-	protected AttackDesire(Actor target, int desirePower) {
+	public AttackDesire(Actor target, int desirePower) {
 		super(desirePower);
 		this.target = target;
 	}
@@ -1,31 +1,41 @@
 /*
- * This file is part of l2jserver <l2jserver.com>.
+ * This file is part of l2jserver2 <l2jserver2.com>.
  *
- * l2jserver is free software: you can redistribute it and/or modify
+ * l2jserver2 is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
  * the Free Software Foundation, either version 3 of the License, or
  * (at your option) any later version.
  *
- * l2jserver is distributed in the hope that it will be useful,
+ * l2jserver2 is distributed in the hope that it will be useful,
  * but WITHOUT ANY WARRANTY; without even the implied warranty of
  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
  * GNU General Public License for more details.
  *
  * You should have received a copy of the GNU General Public License
- * along with l2jserver.  If not, see <http://www.gnu.org/licenses/>.
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
  */
 package com.l2jserver.game.ai.desires;
 
-import java.util.ConcurrentModificationException;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.PriorityQueue;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
 
 import com.l2jserver.util.factory.CollectionFactory;
 
 /**
- * This class represents desire queue, it's thread-safe. Desires can be added
- * and removed. If desire is added - previous desires will be checked, if same
- * desire found then desire previous one will be removed from the queue
+ * This class represents desire queue. Desires can be added and removed. If
+ * desire is added - previous desires will be checked, if same desire found
+ * then desire previous one will be merged into the new one.
+ * <p>
+ * Desires are kept in a binary heap indexed by desire, so that merging,
+ * removing and re-prioritizing a desire is O(log n). The queue is designed
+ * for a single owner thread, the AI tick that handles the actor desires:
+ * {@link #addDesire(Desire)} and {@link #clear()} can be called from any
+ * thread and are lock-free; they are only applied to the heap once the owner
+ * thread calls any other method. {@link #isEmpty()} can be called from any
+ * thread, but it is only exact on the owner thread.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  * @see com.l2jserver.game.ai.desires.Desire
@@ -33,9 +43,29 @@ import com.l2jserver.util.factory.CollectionFactory;
  */
 public class DesireQueue {
 	/**
-	 * Prioritized Queue of desires, lazy initialization.
+	 * Marker added to the {@link #pending} queue by {@link #clear()}
 	 */
-	protected PriorityQueue<Desire> queue;
+	private static final Desire CLEAR = new AbstractDesire(0) {
+	};
+
+	/**
+	 * Desires (and {@link #CLEAR} markers) not yet applied to the heap. Written
+	 * by any thread, drained by the owner thread.
+	 */
+	private final Queue<Desire> pending = CollectionFactory
+			.newConcurrentQueue();
+	/**
+	 * The heap of desires, most powerful first. Lazy initialization.
+	 */
+	private Desire[] heap;
+	/**
+	 * The position of each desire in the {@link #heap}. Lazy initialization.
+	 */
+	private Map<Desire, Integer> index;
+	/**
+	 * The amount of desires in the {@link #heap}
+	 */
+	private volatile int size;
 
 	/**
 	 * Returns first element of this queue not removing it. Returns null if
@@ -43,8 +73,9 @@ public class DesireQueue {
 	 * 
 	 * @return first element or null
 	 */
-	public synchronized Desire peek() {
-		return queue != null ? queue.peek() : null;
+	public Desire peek() {
+		drain();
+		return size > 0 ? heap[0] : null;
 	}
 
 	/**
@@ -53,62 +84,48 @@ public class DesireQueue {
 	 * 
 	 * @return first element from the desires list or null.
 	 */
-	public synchronized Desire poll() {
-		if (queue != null) {
-			return queue.poll();
-		}
-
-		return null;
+	public Desire poll() {
+		drain();
+		if (size == 0)
+			return null;
+		final Desire desire = heap[0];
+		removeAt(0);
+		return desire;
 	}
 
 	/**
-	 * Adds desire to the queue.
-	 * <p/>
+	 * Adds desire to the queue. Can be called from any thread.
 	 * <p/>
 	 * When adding object this method checks first for the same object by
 	 * {@link AbstractDesire#equals(Object)}, if such object found, next actions
 	 * will be done:<br>
 	 * <br>
-	 * 1). Remove old desire instance from the list.<br>
-	 * 2). Check if those desires are same instances by "==".<br>
-	 * 3). If they are not the same instances, add desire power from old
-	 * instance to new instance, if they are - do nothing.<br>
-	 * <br>
-	 * After all add new desire instance to the list.
+	 * 1). Check if those desires are same instances by "==".<br>
+	 * 2). If they are not the same instances, add desire power from old
+	 * instance to new instance and replace the old instance with the new one.
+	 * If they are - only update its priority.<br>
 	 * 
 	 * @param desire
 	 *            desire instance to add
 	 */
-	public synchronized void addDesire(Desire desire) {
-		// Lazy initialization of desire queue
-		if (queue == null) {
-			queue = CollectionFactory.newPriorityQueue();
-		}
-
-		// Iterate over the list to find similar desires
-		Iterator<Desire> iterator = queue.iterator();
-		while (iterator.hasNext()) {
-			Desire iterated = iterator.next();
-
-			// Find similar desires by #equals method, they can be different
-			// instances.
-			if (desire.equals(iterated)) {
-				// Remove the old desire from the list
-				iterator.remove();
-
-				// If current desire instance was not at the list - increase
-				// it's power by the value of another instance power
-				// and after that add it to the list
-				if (desire != iterated) {
-					desire.increaseDesirePower(iterated.getDesirePower());
-				}
+	public void addDesire(Desire desire) {
+		pending.add(desire);
+	}
 
-				// Break iteration, desire list can't contain two same desires
-				break;
-			}
-		}
-		// finally add desire to the list
-		queue.add(desire);
+	/**
+	 * Re-prioritizes the desire after its power has been changed.
+	 * 
+	 * @param desire
+	 *            the desire whose power has changed
+	 * @return true if the desire is in the queue
+	 */
+	public boolean updateDesire(Desire desire) {
+		drain();
+		final Integer i = (index != null ? index.get(desire) : null);
+		if (i == null)
+			return false;
+		sift(i);
+		return true;
 	}
 
 	/**
@@ -119,45 +136,42 @@ public class DesireQueue {
 	 *            what desire to remove
 	 * @return result of desire removal
 	 */
-	public synchronized boolean removeDesire(Desire desire) {
-		return queue != null && queue.remove(desire);
+	public boolean removeDesire(Desire desire) {
+		drain();
+		final Integer i = (index != null ? index.get(desire) : null);
+		if (i == null)
+			return false;
+		removeAt(i);
+		return true;
 	}
 
 	/**
 	 * Iterates over desires, you have to provide iteration handler and
 	 * optionally filters.<br>
 	 * <br>
-	 * Handlers and filters can't call following methods:
-	 * <ul>
-	 * <li>{@link #addDesire(Desire)}</li>
-	 * <li>{@link #poll()}</li>
-	 * <li>{@link #removeDesire(Desire)}</li>
-	 * </ul>
-	 * <p/>
-	 * However, method {@link #clear() can be called}.
+	 * Desires are iterated over a snapshot of the queue, in no particular
+	 * order. Handlers can remove the iterated desire with
+	 * {@link Iterator#remove()} or call {@link #clear()}.
 	 * 
 	 * @param handler
 	 *            DesireIterationhandler that will be called on the iteration
 	 * @param filters
 	 *            optional filters that will prevent passing unneeded desires to
 	 *            the handler
-	 * @throws java.util.ConcurrentModificationException
-	 *             only if called handler or filter modified this queue
 	 * @see com.l2jserver.game.ai.desires.DesireIteratorFilter
 	 * @see com.l2jserver.game.ai.desires.DesireIteratorFilter#isOk(Desire)
 	 * @see com.l2jserver.game.ai.desires.DesireIteratorHandler
 	 * @see com.l2jserver.game.ai.desires.DesireIteratorHandler#next(Desire ,
 	 *      java.util.Iterator)
 	 */
-	public synchronized void iterateDesires(DesireIteratorHandler handler,
-			DesireIteratorFilter... filters)
-			throws ConcurrentModificationException {
-
-		if (queue == null) {
+	public void iterateDesires(DesireIteratorHandler handler,
+			DesireIteratorFilter... filters) {
+		drain();
+		if (size == 0)
 			return;
-		}
 
-		Iterator<Desire> iterator = queue.iterator();
+		final Iterator<Desire> iterator = new SnapshotIterator(Arrays.copyOf(
+				heap, size));
 		outer: while (iterator.hasNext()) {
 			Desire desire = iterator.next();
 
@@ -181,8 +195,9 @@ public class DesireQueue {
 	 *            what desire to search
 	 * @return true if there is equal desire, false in other case.
 	 */
-	public synchronized boolean contains(Desire desire) {
-		return queue.contains(desire);
+	public boolean contains(Desire desire) {
+		drain();
+		return index != null && index.containsKey(desire);
 	}
 
 	/**
@@ -190,17 +205,15 @@ public class DesireQueue {
 	 * 
 	 * @return true if this NPC has no any desires added
 	 */
-	public synchronized boolean isEmpty() {
-		return queue == null || queue.isEmpty();
+	public boolean isEmpty() {
+		return size == 0 && pending.isEmpty();
 	}
 
 	/**
-	 * Clears all desires
+	 * Clears all desires. Can be called from any thread.
 	 */
-	public synchronized void clear() {
-		if (queue != null) {
-			queue.clear();
-		}
+	public void clear() {
+		pending.add(CLEAR);
 	}
 
 	/**
@@ -208,7 +221,188 @@ public class DesireQueue {
 	 * 
 	 * @return size of remaining desires
 	 */
-	public synchronized int size() {
-		return queue == null ? 0 : queue.size();
+	public int size() {
+		drain();
+		return size;
+	}
+
+	/**
+	 * Applies all pending desires to the heap
+	 */
+	private void drain() {
+		Desire desire;
+		while ((desire = pending.poll()) != null) {
+			if (desire == CLEAR) {
+				if (size > 0) {
+					Arrays.fill(heap, 0, size, null);
+					index.clear();
+					size = 0;
+				}
+			} else {
+				merge(desire);
+			}
+		}
+	}
+
+	/**
+	 * Inserts the desire in the heap, merging with an equal desire if any
+	 * 
+	 * @param desire
+	 *            the desire
+	 */
+	private void merge(Desire desire) {
+		// lazy initialization of desire queue
+		if (heap == null) {
+			heap = new Desire[4];
+			index = CollectionFactory.newMap();
+		}
+
+		final Integer i = index.get(desire);
+		if (i != null) {
+			final Desire existing = heap[i];
+			if (existing != desire) {
+				// a map keeps the old key instance, replace it
+				desire.increaseDesirePower(existing.getDesirePower());
+				index.remove(existing);
+				heap[i] = desire;
+				index.put(desire, i);
+			}
+			sift(i);
+			return;
+		}
+
+		if (size == heap.length)
+			heap = Arrays.copyOf(heap, size * 2);
+		heap[size] = desire;
+		index.put(desire, size);
+		size++;
+		siftUp(size - 1);
+	}
+
+	/**
+	 * Removes the desire at the given heap position
+	 * 
+	 * @param i
+	 *            the heap position
+	 */
+	private void removeAt(int i) {
+		final int last = size - 1;
+		index.remove(heap[i]);
+		if (i != last) {
+			heap[i] = heap[last];
+			index.put(heap[i], i);
+		}
+		heap[last] = null;
+		size = last;
+		if (i != last)
+			sift(i);
+	}
+
+	/**
+	 * Moves the desire at the given heap position to its place
+	 * 
+	 * @param i
+	 *            the heap position
+	 */
+	private void sift(int i) {
+		if (siftUp(i) == i)
+			siftDown(i);
+	}
+
+	/**
+	 * @param i
+	 *            the heap position
+	 * @return the new heap position
+	 */
+	private int siftUp(int i) {
+		final Desire desire = heap[i];
+		while (i > 0) {
+			final int parent = (i - 1) >>> 1;
+			if (desire.compareTo(heap[parent]) >= 0)
+				break;
+			move(heap[parent], i);
+			i = parent;
+		}
+		move(desire, i);
+		return i;
+	}
+
+	/**
+	 * @param i
+	 *            the heap position
+	 * @return the new heap position
+	 */
+	private int siftDown(int i) {
+		final Desire desire = heap[i];
+		final int half = size >>> 1;
+		while (i < half) {
+			int child = (i << 1) + 1;
+			final int right = child + 1;
+			if (right < size && heap[right].compareTo(heap[child]) < 0)
+				child = right;
+			if (desire.compareTo(heap[child]) <= 0)
+				break;
+			move(heap[child], i);
+			i = child;
+		}
+		move(desire, i);
+		return i;
+	}
+
+	/**
+	 * Places the desire at the given heap position
+	 * 
+	 * @param desire
+	 *            the desire
+	 * @param i
+	 *            the heap position
+	 */
+	private void move(Desire desire, int i) {
+		heap[i] = desire;
+		index.put(desire, i);
+	}
+
+	/**
+	 * Iterates over a snapshot of the heap. {@link #remove()} removes the
+	 * desire from the queue.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private class SnapshotIterator implements Iterator<Desire> {
+		/**
+		 * The desires snapshot
+		 */
+		private final Desire[] desires;
+		/**
+		 * The next desire position
+		 */
+		private int next;
+
+		/**
+		 * @param desires
+		 *            the desires snapshot
+		 */
+		public SnapshotIterator(Desire[] desires) {
+			this.desires = desires;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < desires.length;
+		}
+
+		@Override
+		public Desire next() {
+			if (next >= desires.length)
+				throw new NoSuchElementException();
+			return desires[next++];
+		}
+
+		@Override
+		public void remove() {
+			if (next == 0)
+				throw new IllegalStateException();
+			removeDesire(desires[next - 1]);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -38,7 +38,7 @@ public final class MoveDesire extends AbstractDesire {
 	 * @param desirePower
 	 *            initial attack power
 	 */
-	protected MoveDesire(Point3D point, int desirePower) {
+	public MoveDesire(Point3D point, int desirePower) {
 		super(desirePower);
 		this.point = point;
 	}
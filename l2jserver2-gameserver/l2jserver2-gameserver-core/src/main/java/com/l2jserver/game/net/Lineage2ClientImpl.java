@@ -23,6 +23,7 @@ import com.l2jserver.game.net.codec.Lineage2Decrypter;
 import com.l2jserver.game.net.codec.Lineage2Encrypter;
 import com.l2jserver.game.net.codec.Lineage2PacketReader;
 import com.l2jserver.game.net.codec.Lineage2PacketWriter;
+import com.l2jserver.game.net.handler.Lineage2OutboundBatcher;
 import com.l2jserver.game.net.packet.server.SM_ACTION_FAILED;
 import com.l2jserver.game.net.packet.server.SM_CHAR_INVENTORY;
 import com.l2jserver.game.net.packet.server.SM_CHAR_INVENTORY_UPDATE;
@@ -59,6 +60,11 @@ public class Lineage2ClientImpl implements Lineage2Client {
 	 * The connection channel
 	 */
 	private final Channel channel;
+	/**
+	 * The lock held while writing packets, so packets are encrypted in the
+	 * same order they reach the socket
+	 */
+	private final Object writeLock = new Object();
 	/**
 	 * The character object
 	 */
@@ -226,7 +232,16 @@ public class Lineage2ClientImpl implements Lineage2Client {
 	 *         has been written.
 	 */
 	public ChannelFuture write(ServerPacket packet) {
-		return channel.write(packet);
+		synchronized (writeLock) {
+			return channel.write(packet);
+		}
+	}
+
+	@Override
+	public void flush() {
+		final Lineage2OutboundBatcher batcher = getOutboundBatcher();
+		if (batcher != null)
+			batcher.flush();
 	}
 
 	/**
@@ -250,7 +265,7 @@ public class Lineage2ClientImpl implements Lineage2Client {
 	 *         has been written.
 	 */
 	public ChannelFuture sendSystemMessage(SystemMessage message) {
-		return write(new SM_SYSTEM_MESSAGE(message));
+		return write(SM_SYSTEM_MESSAGE.getSharedInstance(message));
 	}
 
 	/**
@@ -268,6 +283,8 @@ public class Lineage2ClientImpl implements Lineage2Client {
 	 */
 	public ChannelFuture sendSystemMessage(SystemMessage message,
 			Object... args) {
+		if (args.length == 0)
+			return sendSystemMessage(message);
 		final SM_SYSTEM_MESSAGE packet = new SM_SYSTEM_MESSAGE(message);
 		for (final Object obj : args) {
 			if (obj instanceof String)
@@ -276,8 +293,10 @@ public class Lineage2ClientImpl implements Lineage2Client {
 				packet.addItem((ItemTemplate) obj);
 			else if (obj instanceof Item)
 				packet.addItem((Item) obj);
+			else if (obj instanceof Long)
+				packet.addItemCount((Long) obj);
 			else if (obj instanceof Number)
-				packet.addNumber((Integer) obj);
+				packet.addNumber(((Number) obj).intValue());
 			else if (obj instanceof Skill)
 				packet.addSkill((Skill) obj);
 			else if (obj instanceof Fort)
@@ -288,6 +307,22 @@ public class Lineage2ClientImpl implements Lineage2Client {
 		return write(packet);
 	}
 
+	/**
+	 * Sends a {@link SystemMessage} with a single number argument to this
+	 * client
+	 * 
+	 * @param message
+	 *            the {@link SystemMessage}
+	 * @param number
+	 *            the number argument
+	 * @return the {@link ChannelFuture} that will be notified once the packet
+	 *         has been written.
+	 * @see SM_SYSTEM_MESSAGE#withNumber(SystemMessage, int)
+	 */
+	public ChannelFuture sendSystemMessage(SystemMessage message, int number) {
+		return write(SM_SYSTEM_MESSAGE.withNumber(message, number));
+	}
+
 	/**
 	 * Sends a {@link SM_ACTION_FAILED} to the client.
 	 * <p>
@@ -427,6 +462,15 @@ public class Lineage2ClientImpl implements Lineage2Client {
 				Lineage2PacketReader.HANDLER_NAME);
 	}
 
+	/**
+	 * @return the client {@link Lineage2OutboundBatcher}, if batching is
+	 *         enabled
+	 */
+	public Lineage2OutboundBatcher getOutboundBatcher() {
+		return (Lineage2OutboundBatcher) channel.getPipeline().get(
+				Lineage2OutboundBatcher.HANDLER_NAME);
+	}
+
 	/**
 	 * @return the client {@link Lineage2PacketWriter}
 	 */
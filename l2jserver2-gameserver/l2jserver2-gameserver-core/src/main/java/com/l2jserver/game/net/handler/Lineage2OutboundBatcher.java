@@ -0,0 +1,162 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.game.net.handler;
+
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelDownstreamHandler;
+
+import com.l2jserver.game.net.codec.Lineage2Encrypter;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Collects the packets written to a connection and sends them to the socket as
+ * a single write. This handler must be the first on the pipeline, so it
+ * receives packets already encoded, encrypted and framed: encryption still
+ * happens once per packet and in the order the packets were written.
+ * <p>
+ * Pending packets are sent when {@link #flush()} is called, when they reach
+ * the configured size or before the channel is closed. Until the
+ * {@link Lineage2Encrypter} is enabled, packets are sent immediately so the
+ * handshake is not delayed.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class Lineage2OutboundBatcher extends SimpleChannelDownstreamHandler {
+	/**
+	 * The handler name
+	 */
+	public static final String HANDLER_NAME = "outbound.batcher";
+
+	/**
+	 * The amount of pending bytes that causes an immediate flush
+	 */
+	private final int maxSize;
+
+	/**
+	 * The handler context, set on the first write
+	 */
+	private ChannelHandlerContext ctx;
+	/**
+	 * The connection encrypter. Batching starts once it is enabled.
+	 */
+	private Lineage2Encrypter encrypter;
+	/**
+	 * The pending write events
+	 */
+	private List<MessageEvent> pending = CollectionFactory.newList();
+	/**
+	 * The amount of pending bytes
+	 */
+	private int pendingSize;
+
+	/**
+	 * @param maxSize
+	 *            the amount of pending bytes that causes an immediate flush
+	 */
+	public Lineage2OutboundBatcher(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public void writeRequested(ChannelHandlerContext ctx, MessageEvent e)
+			throws Exception {
+		if (!(e.getMessage() instanceof ChannelBuffer)) {
+			super.writeRequested(ctx, e);
+			return;
+		}
+		synchronized (this) {
+			if (this.ctx == null) {
+				this.ctx = ctx;
+				this.encrypter = ctx.getPipeline().get(Lineage2Encrypter.class);
+			}
+			if (encrypter != null && !encrypter.isEnabled()) {
+				flush();
+				ctx.sendDownstream(e);
+				return;
+			}
+			pending.add(e);
+			pendingSize += ((ChannelBuffer) e.getMessage()).readableBytes();
+			if (pendingSize >= maxSize)
+				flush();
+		}
+	}
+
+	@Override
+	public void disconnectRequested(ChannelHandlerContext ctx,
+			ChannelStateEvent e) throws Exception {
+		flush();
+		super.disconnectRequested(ctx, e);
+	}
+
+	@Override
+	public void closeRequested(ChannelHandlerContext ctx, ChannelStateEvent e)
+			throws Exception {
+		flush();
+		super.closeRequested(ctx, e);
+	}
+
+	/**
+	 * Sends all pending packets in a single write. Does nothing if there are
+	 * no pending packets.
+	 */
+	public synchronized void flush() {
+		if (pending.isEmpty())
+			return;
+		final List<MessageEvent> events = pending;
+		pending = CollectionFactory.newList();
+		pendingSize = 0;
+
+		if (events.size() == 1) {
+			ctx.sendDownstream(events.get(0));
+			return;
+		}
+		final ChannelBuffer[] buffers = new ChannelBuffer[events.size()];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = (ChannelBuffer) events.get(i).getMessage();
+		}
+		final ChannelFuture future = Channels.future(ctx.getChannel());
+		future.addListener(new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future)
+					throws Exception {
+				for (final MessageEvent event : events) {
+					if (future.isSuccess())
+						event.getFuture().setSuccess();
+					else
+						event.getFuture().setFailure(future.getCause());
+				}
+			}
+		});
+		Channels.write(ctx, future, ChannelBuffers.wrappedBuffer(buffers));
+	}
+
+	/**
+	 * @return the amount of pending bytes
+	 */
+	public synchronized int getPendingSize() {
+		return pendingSize;
+	}
+}
@@ -30,6 +30,7 @@ import com.l2jserver.game.net.Lineage2ClientImpl;
 import com.l2jserver.service.network.AbstractNettyNetworkService;
 import com.l2jserver.service.network.model.Lineage2Client;
 import com.l2jserver.service.network.model.packet.ClientPacket;
+import com.l2jserver.service.network.model.packet.ServerPacket;
 import com.l2jserver.util.html.markup.HtmlTemplate;
 import com.l2jserver.util.html.markup.MarkupTag;
 
@@ -86,13 +87,19 @@ public class Lineage2PacketHandler extends SimpleChannelHandler {
 		if (!(msg instanceof ClientPacket))
 			return;
 		final ClientPacket packet = (ClientPacket) msg;
+		final long start = System.nanoTime();
 		packet.process(connection);
+		// send the responses together
+		connection.flush();
+		nettyNetworkService.packetReceived(packet, System.nanoTime() - start);
 		super.messageReceived(ctx, e);
 	}
 
 	@Override
 	public void writeRequested(ChannelHandlerContext ctx, MessageEvent e)
 			throws Exception {
+		if (e.getMessage() instanceof ServerPacket)
+			nettyNetworkService.packetSent((ServerPacket) e.getMessage());
 		super.writeRequested(ctx, e);
 	}
 
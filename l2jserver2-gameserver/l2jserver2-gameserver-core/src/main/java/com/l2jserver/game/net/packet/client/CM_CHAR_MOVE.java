@@ -26,6 +26,7 @@ import com.l2jserver.model.world.L2Character;
 import com.l2jserver.service.game.character.CharacterService;
 import com.l2jserver.service.network.model.Lineage2Client;
 import com.l2jserver.service.network.model.packet.AbstractClientPacket;
+import com.l2jserver.util.LogUtils;
 import com.l2jserver.util.geometry.Coordinate;
 
 /**
@@ -143,8 +144,8 @@ public class CM_CHAR_MOVE extends AbstractClientPacket {
 			return;
 		}
 		final L2Character character = conn.getCharacter();
-		log.debug("Character {} is moving from {} to {}", new Object[] {
-				character, origin, target });
+		LogUtils.debug(log, "Character {} is moving from {} to {}",
+				character, origin, target);
 		charService.move(character, target);
 	}
 }
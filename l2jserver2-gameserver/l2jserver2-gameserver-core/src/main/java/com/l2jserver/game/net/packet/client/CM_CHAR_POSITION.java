@@ -22,7 +22,6 @@ import com.google.inject.Inject;
 import com.l2jserver.service.game.character.CharacterService;
 import com.l2jserver.service.network.model.Lineage2Client;
 import com.l2jserver.service.network.model.packet.AbstractClientPacket;
-import com.l2jserver.util.geometry.Point3D;
 
 /**
  * This packet validates the character position.
@@ -42,9 +41,21 @@ public class CM_CHAR_POSITION extends AbstractClientPacket {
 	private final CharacterService charService;
 
 	/**
-	 * The current position point
+	 * The current position x coord
 	 */
-	private Point3D point;
+	private int x;
+	/**
+	 * The current position y coord
+	 */
+	private int y;
+	/**
+	 * The current position z coord
+	 */
+	private int z;
+	/**
+	 * The current heading
+	 */
+	private int heading;
 	/**
 	 * Extra data -> vehicle id
 	 */
@@ -62,13 +73,15 @@ public class CM_CHAR_POSITION extends AbstractClientPacket {
 
 	@Override
 	public void read(Lineage2Client conn, ChannelBuffer buffer) {
-		point = Point3D.fromXYZA(buffer.readInt(), buffer.readInt(),
-				buffer.readInt(), buffer.readInt());
+		x = buffer.readInt();
+		y = buffer.readInt();
+		z = buffer.readInt();
+		heading = buffer.readInt();
 		extra = buffer.readInt();
 	}
 
 	@Override
 	public void process(final Lineage2Client conn) {
-		charService.receivedValidation(conn.getCharacter(), point);
+		charService.receivedValidation(conn.getCharacter(), x, y, z, heading);
 	}
 }
@@ -22,6 +22,7 @@ import org.jboss.netty.buffer.ChannelBuffer;
 import com.l2jserver.service.network.model.Lineage2Client;
 import com.l2jserver.service.network.model.packet.AbstractServerPacket;
 import com.l2jserver.util.BufferUtils;
+import com.l2jserver.util.html.CompiledHtml;
 import com.l2jserver.util.html.markup.HtmlTemplate;
 
 /**
@@ -37,9 +38,17 @@ public class SM_COMMUNITY_HTML extends AbstractServerPacket {
 	public static final int OPCODE = 0x7b;
 
 	/**
-	 * The HTML contents
+	 * The HTML contents, <code>null</code> if compiled
 	 */
 	private final String html;
+	/**
+	 * The compiled HTML contents
+	 */
+	private final CompiledHtml compiledHtml;
+	/**
+	 * The compiled HTML variable values
+	 */
+	private final String[] values;
 
 	/**
 	 * @param html
@@ -48,6 +57,8 @@ public class SM_COMMUNITY_HTML extends AbstractServerPacket {
 	public SM_COMMUNITY_HTML(String html) {
 		super(OPCODE);
 		this.html = html;
+		this.compiledHtml = null;
+		this.values = null;
 	}
 
 	/**
@@ -57,6 +68,8 @@ public class SM_COMMUNITY_HTML extends AbstractServerPacket {
 	public SM_COMMUNITY_HTML(Html html) {
 		super(OPCODE);
 		this.html = html.toHtml();
+		this.compiledHtml = null;
+		this.values = null;
 	}
 
 	/**
@@ -66,11 +79,29 @@ public class SM_COMMUNITY_HTML extends AbstractServerPacket {
 	public SM_COMMUNITY_HTML(HtmlTemplate template) {
 		super(OPCODE);
 		this.html = template.toHtmlString();
+		this.compiledHtml = null;
+		this.values = null;
+	}
+
+	/**
+	 * @param html
+	 *            the compiled html
+	 * @param values
+	 *            the html variable values
+	 */
+	public SM_COMMUNITY_HTML(CompiledHtml html, String... values) {
+		super(OPCODE);
+		this.html = null;
+		this.compiledHtml = html;
+		this.values = values;
 	}
 
 	@Override
 	public void write(Lineage2Client conn, ChannelBuffer buffer) {
 		buffer.writeByte(0x01); // display or hide
-		BufferUtils.writeString(buffer, html);
+		if (compiledHtml != null)
+			compiledHtml.write(buffer, values);
+		else
+			BufferUtils.writeString(buffer, html);
 	}
 }
@@ -23,6 +23,7 @@ import com.l2jserver.model.world.NPC;
 import com.l2jserver.service.network.model.Lineage2Client;
 import com.l2jserver.service.network.model.packet.AbstractServerPacket;
 import com.l2jserver.util.BufferUtils;
+import com.l2jserver.util.html.CompiledHtml;
 import com.l2jserver.util.html.markup.HtmlTemplate;
 
 /**
@@ -41,9 +42,17 @@ public class SM_HTML extends AbstractServerPacket {
 	 */
 	private final NPC npc;
 	/**
-	 * The HTML contents
+	 * The HTML contents, <code>null</code> if compiled
 	 */
 	private final String html;
+	/**
+	 * The compiled HTML contents
+	 */
+	private final CompiledHtml compiledHtml;
+	/**
+	 * The compiled HTML variable values
+	 */
+	private final String[] values;
 
 	/**
 	 * @param npc
@@ -55,6 +64,8 @@ public class SM_HTML extends AbstractServerPacket {
 		super(OPCODE);
 		this.npc = npc;
 		this.html = html;
+		this.compiledHtml = null;
+		this.values = null;
 	}
 
 	/**
@@ -67,6 +78,8 @@ public class SM_HTML extends AbstractServerPacket {
 		super(OPCODE);
 		this.npc = npc;
 		this.html = html.toHtml();
+		this.compiledHtml = null;
+		this.values = null;
 	}
 
 	/**
@@ -79,6 +92,24 @@ public class SM_HTML extends AbstractServerPacket {
 		super(OPCODE);
 		this.npc = npc;
 		this.html = template.toHtmlString();
+		this.compiledHtml = null;
+		this.values = null;
+	}
+
+	/**
+	 * @param npc
+	 *            the npc instance
+	 * @param html
+	 *            the compiled html
+	 * @param values
+	 *            the html variable values
+	 */
+	public SM_HTML(NPC npc, CompiledHtml html, String... values) {
+		super(OPCODE);
+		this.npc = npc;
+		this.html = null;
+		this.compiledHtml = html;
+		this.values = values;
 	}
 
 	/**
@@ -108,7 +139,10 @@ public class SM_HTML extends AbstractServerPacket {
 	@Override
 	public void write(Lineage2Client conn, ChannelBuffer buffer) {
 		buffer.writeInt((npc != null ? npc.getID().getID() : 0x01));
-		BufferUtils.writeString(buffer, html);
+		if (compiledHtml != null)
+			compiledHtml.write(buffer, values);
+		else
+			BufferUtils.writeString(buffer, html);
 		buffer.writeInt(0x00); // item id
 	}
 }
@@ -16,9 +16,10 @@
  */
 package com.l2jserver.game.net.packet.server;
 
-import java.util.List;
+import java.nio.ByteOrder;
 
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 
 import com.l2jserver.model.game.Castle;
 import com.l2jserver.model.game.Fort;
@@ -32,8 +33,9 @@ import com.l2jserver.model.world.NPC;
 import com.l2jserver.service.network.model.Lineage2Client;
 import com.l2jserver.service.network.model.SystemMessage;
 import com.l2jserver.service.network.model.packet.AbstractServerPacket;
+import com.l2jserver.service.network.model.packet.PreEncodedServerPacket;
+import com.l2jserver.service.network.model.packet.ServerPacket;
 import com.l2jserver.util.BufferUtils;
-import com.l2jserver.util.factory.CollectionFactory;
 
 /**
  * This packet sends an System Message to the client. Most messages appear in
@@ -47,15 +49,26 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 */
 	public static final int OPCODE = 0x64;
 
+	/**
+	 * The pre-encoded packets for messages sent without parameters, indexed by
+	 * {@link SystemMessage#ordinal()}
+	 */
+	private static final PreEncodedServerPacket[] SHARED = new PreEncodedServerPacket[SystemMessage
+			.values().length];
+
 	/**
 	 * The System message id
 	 */
-	private int id;
+	private final int id;
+	/**
+	 * The number of parameters
+	 */
+	private int count;
 	/**
-	 * The system message parameters
+	 * The parameters, already encoded in the packet format. Only allocated
+	 * once the first parameter is added.
 	 */
-	private List<SystemMessagePacketParameter> params = CollectionFactory
-			.newList();
+	private ChannelBuffer params;
 
 	/**
 	 * System message parameter IDs
@@ -113,14 +126,6 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 		 * Text parameter
 		 */
 		public static final byte TYPE_TEXT = 0;
-
-		/**
-		 * @param conn
-		 *            the connection
-		 * @param buffer
-		 *            the buffer
-		 */
-		void write(Lineage2Client conn, ChannelBuffer buffer);
 	}
 
 	/**
@@ -137,10 +142,76 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	@Override
 	public void write(Lineage2Client conn, ChannelBuffer buffer) {
 		buffer.writeInt(id);
-		buffer.writeInt(params.size());
-		for (final SystemMessagePacketParameter param : params) {
-			param.write(conn, buffer);
+		buffer.writeInt(count);
+		if (params != null)
+			buffer.writeBytes(params, params.readerIndex(),
+					params.readableBytes());
+	}
+
+	/**
+	 * Starts a new parameter: the parameter type is written and the count
+	 * incremented.
+	 * 
+	 * @param type
+	 *            the parameter type
+	 * @return the buffer in which the parameter value must be written
+	 */
+	private ChannelBuffer parameter(int type) {
+		if (params == null)
+			params = ChannelBuffers.dynamicBuffer(ByteOrder.LITTLE_ENDIAN, 16);
+		params.writeInt(type);
+		count++;
+		return params;
+	}
+
+	/**
+	 * Returns the shared, pre-encoded, packet for an {@link SystemMessage}
+	 * without parameters. The same instance is returned on every call and can
+	 * be sent to any number of clients.
+	 * 
+	 * @param message
+	 *            the {@link SystemMessage}
+	 * @return the pre-encoded packet
+	 */
+	public static ServerPacket getSharedInstance(SystemMessage message) {
+		PreEncodedServerPacket packet = SHARED[message.ordinal()];
+		if (packet == null) {
+			// concurrent callers might encode the message twice, which is
+			// harmless as both encodings are identical
+			packet = new PreEncodedServerPacket(new SM_SYSTEM_MESSAGE(message));
+			SHARED[message.ordinal()] = packet;
 		}
+		return packet;
+	}
+
+	/**
+	 * Creates a packet for an {@link SystemMessage} with a single number
+	 * parameter, such as {@link SystemMessage#YOU_DID_S1_DMG}. The returned
+	 * packet writes the number directly into the output buffer and carries no
+	 * state other than the message id and the number.
+	 * 
+	 * @param message
+	 *            the {@link SystemMessage}
+	 * @param number
+	 *            the number
+	 * @return the packet
+	 */
+	public static ServerPacket withNumber(final SystemMessage message,
+			final int number) {
+		return new ServerPacket() {
+			@Override
+			public void write(Lineage2Client conn, ChannelBuffer buffer) {
+				buffer.writeInt(message.id);
+				buffer.writeInt(1);
+				buffer.writeInt(SystemMessagePacketParameter.TYPE_NUMBER);
+				buffer.writeInt(number);
+			}
+
+			@Override
+			public int getOpcode() {
+				return OPCODE;
+			}
+		};
 	}
 
 	/**
@@ -151,13 +222,9 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 * @return this instance
 	 */
 	public final SM_SYSTEM_MESSAGE addString(final String text) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_TEXT);
-				BufferUtils.writeString(buffer, text);
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_TEXT);
+		BufferUtils.writeString(buffer, text);
 		return this;
 	}
 
@@ -173,13 +240,9 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 * @return the {@link SM_SYSTEM_MESSAGE} instance
 	 */
 	public final SM_SYSTEM_MESSAGE addFort(final Fort fort) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_CASTLE_NAME);
-				buffer.writeInt(fort.getID().getID());
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_CASTLE_NAME);
+		buffer.writeInt(fort.getID().getID());
 		return this;
 	}
 
@@ -191,13 +254,9 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 * @return this instance
 	 */
 	public final SM_SYSTEM_MESSAGE addNumber(final int number) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_NUMBER);
-				buffer.writeInt(number);
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_NUMBER);
+		buffer.writeInt(number);
 		return this;
 	}
 
@@ -209,13 +268,9 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 * @return this instance
 	 */
 	public final SM_SYSTEM_MESSAGE addItemCount(final long number) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_ITEM_NUMBER);
-				buffer.writeLong(number);
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_ITEM_NUMBER);
+		buffer.writeLong(number);
 		return this;
 	}
 
@@ -244,13 +299,9 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 * @return this instance
 	 */
 	public final SM_SYSTEM_MESSAGE addItem(final ItemTemplate item) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_ITEM_NAME);
-				buffer.writeInt(item.getID().getID());
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_ITEM_NAME);
+		buffer.writeInt(item.getID().getID());
 		return this;
 	}
 
@@ -279,15 +330,11 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 */
 	public final SM_SYSTEM_MESSAGE addZoneName(final int x, final int y,
 			final int z) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_ZONE_NAME);
-				buffer.writeInt(x);
-				buffer.writeInt(y);
-				buffer.writeInt(z);
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_ZONE_NAME);
+		buffer.writeInt(x);
+		buffer.writeInt(y);
+		buffer.writeInt(z);
 		return this;
 	}
 
@@ -300,14 +347,10 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 */
 	public final SM_SYSTEM_MESSAGE addSkill(final SkillTemplate skill,
 			final int level) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_SKILL_NAME);
-				buffer.writeInt(skill.getID().getID());
-				buffer.writeInt(level);
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_SKILL_NAME);
+		buffer.writeInt(skill.getID().getID());
+		buffer.writeInt(level);
 		return this;
 	}
 
@@ -328,13 +371,9 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 * @return the {@link SM_SYSTEM_MESSAGE} instance
 	 */
 	public final SM_SYSTEM_MESSAGE addElemntal(final int type) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_ELEMENT_NAME);
-				buffer.writeInt(type);
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_ELEMENT_NAME);
+		buffer.writeInt(type);
 		return this;
 	}
 
@@ -346,13 +385,9 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 * @return the {@link SM_SYSTEM_MESSAGE} instance
 	 */
 	public final SM_SYSTEM_MESSAGE addSystemString(final int type) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_SYSTEM_STRING);
-				buffer.writeInt(type);
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_SYSTEM_STRING);
+		buffer.writeInt(type);
 		return this;
 	}
 
@@ -364,13 +399,9 @@ public class SM_SYSTEM_MESSAGE extends AbstractServerPacket {
 	 * @return the {@link SM_SYSTEM_MESSAGE} instance
 	 */
 	public final SM_SYSTEM_MESSAGE addInstanceName(final int type) {
-		params.add(new SystemMessagePacketParameter() {
-			@Override
-			public void write(Lineage2Client conn, ChannelBuffer buffer) {
-				buffer.writeInt(TYPE_INSTANCE_NAME);
-				buffer.writeInt(type);
-			}
-		});
+		final ChannelBuffer buffer = parameter(
+				SystemMessagePacketParameter.TYPE_INSTANCE_NAME);
+		buffer.writeInt(type);
 		return this;
 	}
 }
@@ -22,6 +22,7 @@ import com.l2jserver.model.id.object.ItemID;
 import com.l2jserver.model.world.Item;
 import com.l2jserver.model.world.L2Character;
 import com.l2jserver.service.database.DataAccessObject;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 
 /**
  * The {@link ItemDAO} is can load and save {@link Character character
@@ -45,4 +46,14 @@ public interface ItemDAO extends DataAccessObject<Item, ItemID> {
 	 * @return an {@link List} of all items on the ground
 	 */
 	List<Item> selectDroppedItems();
+
+	/**
+	 * Streams the items dropped on the ground to the <code>callback</code>, as
+	 * they are read from the database
+	 * 
+	 * @param callback
+	 *            the callback that receives each item
+	 * @return the amount of items on the ground
+	 */
+	int selectDroppedItems(SelectCallback<Item> callback);
 }
@@ -23,6 +23,7 @@ import com.l2jserver.model.id.object.NPCID;
 import com.l2jserver.model.id.template.NPCTemplateID;
 import com.l2jserver.model.world.NPC;
 import com.l2jserver.service.database.DataAccessObject;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 
 /**
  * The {@link NPCDAO} is can load and save {@link NPC NPC instances}.
@@ -37,6 +38,16 @@ public interface NPCDAO extends DataAccessObject<NPC, NPCID> {
 	 */
 	Collection<NPC> loadAll();
 
+	/**
+	 * Streams all {@link NPC} instances to the <code>callback</code>, as they
+	 * are read from the database
+	 * 
+	 * @param callback
+	 *            the callback that receives each NPC instance
+	 * @return the amount of NPC instances loaded
+	 */
+	int loadAll(SelectCallback<NPC> callback);
+
 	/**
 	 * Select an {@link NPC} by its template.
 	 * 
@@ -114,7 +114,7 @@ public class Skill extends AbstractModel<SkillID> {
 	 * @return the skillTemplateID
 	 */
 	public SkillTemplateID getTemplateID() {
-		return id.getID2();
+		return templateID;
 	}
 
 	/**
@@ -36,6 +36,12 @@ import com.l2jserver.model.world.WorldObject;
  */
 public abstract class ObjectID<T extends WorldObject> extends
 		AbstractModelID<Integer, T> {
+	/**
+	 * The raw id, unboxed: there is one {@link ObjectID} for every object in
+	 * the world
+	 */
+	private final int objectId;
+
 	/**
 	 * Creates a new instance
 	 * 
@@ -43,7 +49,23 @@ public abstract class ObjectID<T extends WorldObject> extends
 	 *            the raw id
 	 */
 	protected ObjectID(@Assisted int id) {
-		super(id);
+		super();
+		this.objectId = id;
+	}
+
+	@Override
+	public Integer getID() {
+		return objectId;
+	}
+
+	/**
+	 * Returns the raw id without boxing it. Prefer this over {@link #getID()}
+	 * on hot paths, such as hash table probes.
+	 * 
+	 * @return the raw id
+	 */
+	public int intValue() {
+		return objectId;
 	}
 
 	/**
@@ -59,7 +81,7 @@ public abstract class ObjectID<T extends WorldObject> extends
 		int result = 1;
 		// this way we generate an unique hash code for all ObjectID and another
 		// ID with same id number will still generate another hash code.
-		result = prime * result + id.hashCode() + ObjectID.class.hashCode();
+		result = prime * result + intValue() + ObjectID.class.hashCode();
 		return result;
 	}
 
@@ -73,12 +95,6 @@ public abstract class ObjectID<T extends WorldObject> extends
 		// accept all subclasses of ObjectID is a requirement
 		if (!(obj instanceof ObjectID))
 			return false;
-		@SuppressWarnings("rawtypes")
-		ObjectID other = (ObjectID) obj;
-		if (other.id != null)
-			return false;
-		if (!id.equals(other.id))
-			return false;
-		return true;
+		return intValue() == ((ObjectID<?>) obj).intValue();
 	}
 }
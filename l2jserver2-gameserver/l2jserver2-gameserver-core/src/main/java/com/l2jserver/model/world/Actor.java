@@ -101,9 +101,9 @@ public abstract class Actor extends PositionableObject {
 	// protected final ActorEffectContainer effects = new
 	// ActorEffectContainer(this);
 	/**
-	 * The skills learned by this actor
+	 * The skills learned by this actor. Created on first use.
 	 */
-	protected final ActorSkillContainer skills = new ActorSkillContainer(this);
+	private volatile ActorSkillContainer skills;
 
 	/**
 	 * @param templateID
@@ -282,6 +282,14 @@ public abstract class Actor extends PositionableObject {
 	 * @return the actor skills
 	 */
 	public ActorSkillContainer getSkills() {
+		ActorSkillContainer skills = this.skills;
+		if (skills == null) {
+			synchronized (this) {
+				skills = this.skills;
+				if (skills == null)
+					this.skills = skills = new ActorSkillContainer(this);
+			}
+		}
 		return skills;
 	}
 
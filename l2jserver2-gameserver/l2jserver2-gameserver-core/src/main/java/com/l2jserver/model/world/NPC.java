@@ -35,11 +35,17 @@ public class NPC extends Actor {
 	 * The {@link NPC} respawn interval
 	 */
 	private long respawnInterval;
+	/**
+	 * The time this {@link NPC} is scheduled to respawn, in milliseconds since
+	 * the epoch, or 0 if no respawn is pending
+	 */
+	private long nextRespawn;
 
 	/**
-	 * This NPC stats
+	 * This NPC stats. Created on first use, since most NPCs are never
+	 * involved in a fight.
 	 */
-	private final NPCStats stats = new NPCStats(this);
+	private volatile NPCStats stats;
 
 	/**
 	 * Creates a new instance
@@ -67,8 +73,34 @@ public class NPC extends Actor {
 		this.respawnInterval = respawnInterval;
 	}
 
+	/**
+	 * @return the time this NPC is scheduled to respawn, in milliseconds since
+	 *         the epoch, or 0 if no respawn is pending
+	 */
+	public long getNextRespawn() {
+		return nextRespawn;
+	}
+
+	/**
+	 * @param nextRespawn
+	 *            the time this NPC is scheduled to respawn, in milliseconds
+	 *            since the epoch, or 0 if no respawn is pending
+	 */
+	public void setNextRespawn(long nextRespawn) {
+		desireUpdate();
+		this.nextRespawn = nextRespawn;
+	}
+
 	@Override
 	public NPCStats getStats() {
+		NPCStats stats = this.stats;
+		if (stats == null) {
+			synchronized (this) {
+				stats = this.stats;
+				if (stats == null)
+					this.stats = stats = new NPCStats(this);
+			}
+		}
 		return stats;
 	}
 
@@ -22,44 +22,223 @@ import com.l2jserver.util.geometry.Point3D;
 /**
  * This is an abstract object that objects that can be placed in world should
  * extend.
+ * <p>
+ * The position is stored as primitive fields, {@link Point3D} and
+ * {@link Coordinate} objects are only created when requested. Hot paths, such
+ * as position validation and range checks, should use the primitive methods,
+ * which do not allocate.
+ * <p>
+ * Writers are serialized and increment {@link #version} before and after
+ * updating the fields, so it is odd while an update is in progress. Readers
+ * that need more than one axis retry until they have read the same even
+ * version before and after reading the fields, and so always see a
+ * consistent position.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
 public abstract class PositionableObject extends AbstractObject {
 	/**
-	 * The point this object is currently in
+	 * The position version, odd while the position is being updated
 	 */
-	private Point3D point;
+	private volatile int version;
+	/**
+	 * Whether this object has a position at all
+	 */
+	private volatile boolean positioned;
+	/**
+	 * The x axis of the point this object is currently in
+	 */
+	private volatile int x;
+	/**
+	 * The y axis of the point this object is currently in
+	 */
+	private volatile int y;
+	/**
+	 * The z axis of the point this object is currently in
+	 */
+	private volatile int z;
+	/**
+	 * The angle of the point this object is currently in
+	 */
+	private volatile double angle;
 
 	/**
 	 * @return the coordinate point
 	 */
 	public Point3D getPoint() {
-		return point;
+		while (true) {
+			final int version = beginRead();
+			final boolean positioned = this.positioned;
+			final int x = this.x, y = this.y, z = this.z;
+			final double angle = this.angle;
+			if (this.version == version)
+				return (positioned ? new Point3D(x, y, z, angle) : null);
+		}
 	}
 
 	/**
 	 * @param point
 	 *            the coordinate point to set
 	 */
-	public void setPoint(Point3D point) {
+	public synchronized void setPoint(Point3D point) {
 		desireUpdate();
-		this.point = point;
+		version++;
+		if (point == null) {
+			positioned = false;
+		} else {
+			positioned = true;
+			x = point.getX();
+			y = point.getY();
+			z = point.getZ();
+			angle = point.getAngle();
+		}
+		version++;
 	}
 
 	/**
 	 * @return the position coodinate
 	 */
 	public Coordinate getPosition() {
-		return point.getCoordinate();
+		while (true) {
+			final int version = beginRead();
+			final boolean positioned = this.positioned;
+			final int x = this.x, y = this.y, z = this.z;
+			if (this.version == version)
+				return (positioned ? Coordinate.fromXYZ(x, y, z) : null);
+		}
 	}
 
 	/**
 	 * @param coord
 	 *            sets the current position
 	 */
-	public void setPosition(Coordinate coord) {
+	public synchronized void setPosition(Coordinate coord) {
+		setPosition(coord.getX(), coord.getY(), coord.getZ(),
+				(positioned ? angle : 0));
+	}
+
+	/**
+	 * Updates the position in place, without allocating any object
+	 * 
+	 * @param x
+	 *            the x axis
+	 * @param y
+	 *            the y axis
+	 * @param z
+	 *            the z axis
+	 * @param angle
+	 *            the angle
+	 */
+	public synchronized void setPosition(int x, int y, int z, double angle) {
 		desireUpdate();
-		this.point = new Point3D(coord, (point != null ? point.getAngle() : 0));
+		version++;
+		this.positioned = true;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.angle = angle;
+		version++;
+	}
+
+	/**
+	 * @return <code>true</code> if this object has a position
+	 */
+	public boolean isPositioned() {
+		return positioned;
+	}
+
+	/**
+	 * @return the x axis of the current position. Use {@link #getPoint()} if
+	 *         all axis must be from the same update.
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * @return the y axis of the current position. Use {@link #getPoint()} if
+	 *         all axis must be from the same update.
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * @return the z axis of the current position. Use {@link #getPoint()} if
+	 *         all axis must be from the same update.
+	 */
+	public int getZ() {
+		return z;
+	}
+
+	/**
+	 * @return the angle of the current position
+	 */
+	public double getAngle() {
+		return angle;
+	}
+
+	/**
+	 * @return the position version, incremented twice on every update
+	 */
+	public int getPositionVersion() {
+		return version;
+	}
+
+	/**
+	 * Checks if this object is within <code>range</code> of the given point,
+	 * in each axis
+	 * 
+	 * @param x
+	 *            the x axis
+	 * @param y
+	 *            the y axis
+	 * @param z
+	 *            the z axis
+	 * @param range
+	 *            the range
+	 * @return <code>true</code> if this object is positioned and in range
+	 */
+	public boolean isInRange(int x, int y, int z, double range) {
+		while (true) {
+			final int version = beginRead();
+			final boolean positioned = this.positioned;
+			final int dx = Math.abs(this.x - x);
+			final int dy = Math.abs(this.y - y);
+			final int dz = Math.abs(this.z - z);
+			if (this.version == version)
+				return positioned && dx <= range && dy <= range
+						&& dz <= range;
+		}
+	}
+
+	/**
+	 * Checks if this object and <code>other</code> are within
+	 * <code>range</code> of each other, in each axis
+	 * 
+	 * @param other
+	 *            the other object
+	 * @param range
+	 *            the range
+	 * @return <code>true</code> if both objects are positioned and in range
+	 */
+	public boolean isInRange(PositionableObject other, double range) {
+		while (true) {
+			final int version = beginRead();
+			final boolean positioned = this.positioned;
+			final int x = this.x, y = this.y, z = this.z;
+			if (this.version == version)
+				return positioned && other.isInRange(x, y, z, range);
+		}
+	}
+
+	/**
+	 * @return the current version, once no update is in progress
+	 */
+	private int beginRead() {
+		int version;
+		while (((version = this.version) & 1) != 0)
+			Thread.yield();
+		return version;
 	}
 }
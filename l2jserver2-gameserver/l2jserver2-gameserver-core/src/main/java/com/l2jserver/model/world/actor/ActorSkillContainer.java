@@ -16,18 +16,29 @@
  */
 package com.l2jserver.model.world.actor;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import com.l2jserver.model.game.Skill;
 import com.l2jserver.model.id.template.SkillTemplateID;
+import com.l2jserver.model.template.SkillTemplate;
 import com.l2jserver.model.world.Actor;
 import com.l2jserver.util.factory.CollectionFactory;
 
 /**
  * The Skill container will manage all learned skills by an actor. This class
  * can also create the {@link Skill} object if an actor is learning a new skill.
+ * <p>
+ * Skills are indexed by their template id, so lookups are done in constant
+ * time regardless of how many skills the actor knows. The container is
+ * copy-on-write: every change publishes a new immutable {@link Snapshot} and
+ * readers, such as packet encoders or the stat calculator, never need to lock.
+ * Changes are expected to be rare (skills are learned, not cast), so the copy
+ * cost is paid only when a skill is learned or forgotten.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
@@ -37,9 +48,9 @@ public class ActorSkillContainer implements Iterable<Skill> {
 	 */
 	private final Actor actor;
 	/**
-	 * The learned skill list
+	 * The current learned skills. Replaced as a whole on every change.
 	 */
-	private List<Skill> skills = CollectionFactory.newList();
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
 
 	/**
 	 * Creates a new instance
@@ -59,26 +70,125 @@ public class ActorSkillContainer implements Iterable<Skill> {
 	 * @return return the learned skill or null if does not learned skill
 	 */
 	public Skill hasSkill(SkillTemplateID skillTemplate) {
-		for (final Skill skill : this.skills) {
-			if (skill.getTemplateID().equals(skillTemplate))
-				return skill;
-		}
-		return null;
+		return snapshot.get(skillTemplate.getID());
+	}
+
+	/**
+	 * Test is the actor knows the given <tt>skillTemplate</tt> at, at least,
+	 * the given <tt>level</tt>
+	 * 
+	 * @param skillTemplate
+	 *            the skill
+	 * @param level
+	 *            the minimum skill level
+	 * @return return the learned skill or null if does not learned skill or
+	 *         its level is lower than <tt>level</tt>
+	 */
+	public Skill hasSkill(SkillTemplateID skillTemplate, int level) {
+		final Skill skill = snapshot.get(skillTemplate.getID());
+		if (skill == null || skill.getLevel() < level)
+			return null;
+		return skill;
+	}
+
+	/**
+	 * @param id
+	 *            the skill template id
+	 * @return the learned skill or null if does not learned skill
+	 */
+	public Skill getSkill(int id) {
+		return snapshot.get(id);
+	}
+
+	/**
+	 * @param skillTemplate
+	 *            the skill
+	 * @return the learned skill level or <tt>0</tt> if does not learned skill
+	 */
+	public int getLevel(SkillTemplateID skillTemplate) {
+		final Skill skill = snapshot.get(skillTemplate.getID());
+		if (skill == null)
+			return 0;
+		return skill.getLevel();
 	}
 
 	/**
-	 * Load all skills in the {@link Collection} to this container
+	 * Adds an skill to this container. If the actor already knows an skill
+	 * with the same template, it is replaced.
+	 * 
+	 * @param skill
+	 *            the skill
+	 */
+	public synchronized void add(Skill skill) {
+		final Map<Integer, Skill> skills = snapshot.toMap();
+		skills.put(skill.getTemplateID().getID(), skill);
+		snapshot = new Snapshot(skills.values());
+	}
+
+	/**
+	 * Removes an skill from this container
+	 * 
+	 * @param skillTemplate
+	 *            the skill
+	 * @return the removed skill or null if does not learned skill
+	 */
+	public synchronized Skill remove(SkillTemplateID skillTemplate) {
+		if (snapshot.get(skillTemplate.getID()) == null)
+			return null;
+		final Map<Integer, Skill> skills = snapshot.toMap();
+		final Skill skill = skills.remove(skillTemplate.getID());
+		snapshot = new Snapshot(skills.values());
+		return skill;
+	}
+
+	/**
+	 * Load all skills in the {@link Collection} to this container. If the
+	 * same skill template is present more than once (or is already known),
+	 * only the highest level is kept.
 	 * 
 	 * @param skills
 	 *            the skill collection
 	 */
-	public void load(Collection<Skill> skills) {
-		this.skills.addAll(skills);
+	public synchronized void load(Collection<Skill> skills) {
+		final Map<Integer, Skill> map = snapshot.toMap();
+		for (final Skill skill : skills) {
+			final Integer id = skill.getTemplateID().getID();
+			final Skill known = map.get(id);
+			if (known == null || known.getLevel() < skill.getLevel())
+				map.put(id, skill);
+		}
+		snapshot = new Snapshot(map.values());
+	}
+
+	/**
+	 * @return the learned passive skills, precomputed every time the
+	 *         container changes
+	 */
+	public List<Skill> getPassives() {
+		return snapshot.getPassives();
+	}
+
+	/**
+	 * Returns the current skills. The returned snapshot is immutable and will
+	 * not reflect skills learned or forgotten afterwards, making it safe to be
+	 * iterated by concurrent readers.
+	 * 
+	 * @return the current skill snapshot
+	 */
+	public Snapshot snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @return the number of learned skills
+	 */
+	public int size() {
+		return snapshot.size();
 	}
 
 	@Override
 	public Iterator<Skill> iterator() {
-		return skills.iterator();
+		return snapshot.iterator();
 	}
 
 	/**
@@ -87,4 +197,139 @@ public class ActorSkillContainer implements Iterable<Skill> {
 	public Actor getActor() {
 		return actor;
 	}
+
+	/**
+	 * An immutable view of the skills learned by an actor, at a given moment.
+	 * Skills are stored in an open-addressing table keyed by the skill
+	 * template id, using linear probing and kept at most half full.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	public static final class Snapshot implements Iterable<Skill> {
+		/**
+		 * The empty snapshot
+		 */
+		private static final Snapshot EMPTY = new Snapshot(
+				Collections.<Skill> emptyList());
+
+		/**
+		 * The template ids, indexed by hash. Only meaningful where
+		 * {@link #table} is not null.
+		 */
+		private final int[] keys;
+		/**
+		 * The skills, indexed by hash
+		 */
+		private final Skill[] table;
+		/**
+		 * The skills, in the order they were learned
+		 */
+		private final List<Skill> skills;
+		/**
+		 * The passive skills, in the order they were learned
+		 */
+		private final List<Skill> passives;
+
+		/**
+		 * @param skills
+		 *            the skills. Template ids must be unique.
+		 */
+		private Snapshot(Collection<Skill> skills) {
+			final int capacity = Integer.highestOneBit(Math.max(
+					skills.size() * 2 - 1, 1)) << 1;
+			this.keys = new int[capacity];
+			this.table = new Skill[capacity];
+
+			final Skill[] all = new Skill[skills.size()];
+			final List<Skill> passives = CollectionFactory.newList();
+			int i = 0;
+			for (final Skill skill : skills) {
+				final int id = skill.getTemplateID().getID();
+				int index = index(id);
+				while (table[index] != null)
+					index = (index + 1) & (capacity - 1);
+				keys[index] = id;
+				table[index] = skill;
+				all[i++] = skill;
+				if (isPassive(skill))
+					passives.add(skill);
+			}
+			this.skills = Collections.unmodifiableList(Arrays.asList(all));
+			this.passives = Collections.unmodifiableList(passives);
+		}
+
+		/**
+		 * @param id
+		 *            the skill template id
+		 * @return the skill or null if not present
+		 */
+		public Skill get(int id) {
+			int index = index(id);
+			Skill skill;
+			while ((skill = table[index]) != null) {
+				if (keys[index] == id)
+					return skill;
+				index = (index + 1) & (table.length - 1);
+			}
+			return null;
+		}
+
+		/**
+		 * @return all skills, in the order they were learned
+		 */
+		public List<Skill> getSkills() {
+			return skills;
+		}
+
+		/**
+		 * @return the passive skills, in the order they were learned
+		 */
+		public List<Skill> getPassives() {
+			return passives;
+		}
+
+		/**
+		 * @return the number of skills
+		 */
+		public int size() {
+			return skills.size();
+		}
+
+		@Override
+		public Iterator<Skill> iterator() {
+			return skills.iterator();
+		}
+
+		/**
+		 * @return a new, mutable, map with all skills keyed by template id
+		 */
+		private Map<Integer, Skill> toMap() {
+			final Map<Integer, Skill> map = CollectionFactory.newMap();
+			for (final Skill skill : skills) {
+				map.put(skill.getTemplateID().getID(), skill);
+			}
+			return map;
+		}
+
+		/**
+		 * @param id
+		 *            the skill template id
+		 * @return the first table index for the given id
+		 */
+		private int index(int id) {
+			// skill ids are mostly sequential: spread them over the table
+			final int hash = id * 0x9E3779B9;
+			return (hash ^ (hash >>> 16)) & (table.length - 1);
+		}
+
+		/**
+		 * @param skill
+		 *            the skill
+		 * @return true if the skill template is passive
+		 */
+		private static boolean isPassive(Skill skill) {
+			final SkillTemplate template = skill.getTemplate();
+			return template != null && template.isPassive();
+		}
+	}
 }
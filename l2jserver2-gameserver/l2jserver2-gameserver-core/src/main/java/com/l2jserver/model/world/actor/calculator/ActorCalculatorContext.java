@@ -16,6 +16,9 @@
  */
 package com.l2jserver.model.world.actor.calculator;
 
+import java.util.List;
+
+import com.l2jserver.model.game.Skill;
 import com.l2jserver.model.world.Actor;
 import com.l2jserver.util.calculator.CalculatorContext;
 
@@ -28,6 +31,10 @@ public class ActorCalculatorContext extends CalculatorContext {
 	 * The character instance
 	 */
 	public final Actor actor;
+	/**
+	 * The actor passive skills. Read only once per calculation.
+	 */
+	private List<Skill> passives;
 
 	/**
 	 * @param actor
@@ -36,4 +43,18 @@ public class ActorCalculatorContext extends CalculatorContext {
 	public ActorCalculatorContext(Actor actor) {
 		this.actor = actor;
 	}
+
+	/**
+	 * Returns the actor passive skills, as precomputed by the actor
+	 * {@link com.l2jserver.model.world.actor.ActorSkillContainer
+	 * ActorSkillContainer}. Formulas should use this instead of iterating over
+	 * all learned skills.
+	 * 
+	 * @return the actor passive skills
+	 */
+	public List<Skill> getPassives() {
+		if (passives == null)
+			passives = actor.getSkills().getPassives();
+		return passives;
+	}
 }
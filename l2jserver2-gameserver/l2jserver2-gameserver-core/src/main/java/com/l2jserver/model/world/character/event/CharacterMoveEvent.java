@@ -24,7 +24,9 @@ import com.l2jserver.model.world.WorldObject;
 import com.l2jserver.util.geometry.Point3D;
 
 /**
- * Event triggered once a character moves
+ * Event triggered once a character moves. The event carries the old position
+ * and the movement deltas as primitives, the new position is the old one
+ * plus the deltas.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
@@ -34,28 +36,128 @@ public class CharacterMoveEvent implements CharacterEvent {
 	 */
 	private final L2Character character;
 	/**
-	 * The old point of the character
+	 * The old x axis
 	 */
-	private final Point3D point;
+	private final int x;
+	/**
+	 * The old y axis
+	 */
+	private final int y;
+	/**
+	 * The old z axis
+	 */
+	private final int z;
+	/**
+	 * The old angle
+	 */
+	private final double angle;
+	/**
+	 * The x axis delta
+	 */
+	private final int dx;
+	/**
+	 * The y axis delta
+	 */
+	private final int dy;
+	/**
+	 * The z axis delta
+	 */
+	private final int dz;
 
 	/**
 	 * Creates a new instance
 	 * 
 	 * @param character
 	 *            the character
+	 * @param x
+	 *            the x axis before moving
+	 * @param y
+	 *            the y axis before moving
+	 * @param z
+	 *            the z axis before moving
+	 * @param angle
+	 *            the angle before moving
+	 * @param dx
+	 *            the x axis delta
+	 * @param dy
+	 *            the y axis delta
+	 * @param dz
+	 *            the z axis delta
+	 */
+	public CharacterMoveEvent(L2Character character, int x, int y, int z,
+			double angle, int dx, int dy, int dz) {
+		this.character = character;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.angle = angle;
+		this.dx = dx;
+		this.dy = dy;
+		this.dz = dz;
+	}
+
+	/**
+	 * Creates a new instance. The deltas are calculated from the current
+	 * character position.
+	 * 
+	 * @param character
+	 *            the character
 	 * @param point
 	 *            the character point before moving
 	 */
 	public CharacterMoveEvent(L2Character character, Point3D point) {
-		this.character = character;
-		this.point = point;
+		this(character, point.getX(), point.getY(), point.getZ(), point
+				.getAngle(), character.getX() - point.getX(), character
+				.getY() - point.getY(), character.getZ() - point.getZ());
 	}
 
 	/**
 	 * @return the old point
 	 */
 	public Point3D getPoint() {
-		return point;
+		return new Point3D(x, y, z, angle);
+	}
+
+	/**
+	 * @return the old x axis
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * @return the old y axis
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * @return the old z axis
+	 */
+	public int getZ() {
+		return z;
+	}
+
+	/**
+	 * @return the x axis delta
+	 */
+	public int getDeltaX() {
+		return dx;
+	}
+
+	/**
+	 * @return the y axis delta
+	 */
+	public int getDeltaY() {
+		return dy;
+	}
+
+	/**
+	 * @return the z axis delta
+	 */
+	public int getDeltaZ() {
+		return dz;
 	}
 
 	@Override
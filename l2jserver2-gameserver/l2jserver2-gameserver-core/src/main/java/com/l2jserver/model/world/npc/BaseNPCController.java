@@ -17,19 +17,17 @@
 package com.l2jserver.model.world.npc;
 
 import java.util.Arrays;
-import java.util.List;
 
 import org.htmlparser.Parser;
 import org.htmlparser.util.ParserException;
 
 import com.google.inject.Inject;
-import com.l2jserver.model.template.NPCTemplate;
-import com.l2jserver.model.template.NPCTemplate.Talk.Chat;
 import com.l2jserver.model.world.L2Character;
 import com.l2jserver.model.world.NPC;
 import com.l2jserver.service.game.character.CharacterService;
 import com.l2jserver.service.game.npc.NPCService;
 import com.l2jserver.util.exception.L2Exception;
+import com.l2jserver.util.html.CompiledHtml;
 import com.l2jserver.util.html.markup.HtmlTemplate;
 import com.l2jserver.util.html.markup.MarkupTag;
 
@@ -123,10 +121,10 @@ public abstract class BaseNPCController implements NPCController {
 		if (args.length >= 1) {
 			id = args[0];
 		}
-		final String html = getHTML(npc, id);
+		final CompiledHtml html = npcService.getChat(npc.getTemplate(), id);
 		if (html == null)
 			return false;
-		npcService.talk(npc, character, html);
+		npcService.talk(npc, character, html, npc.getID().getID().toString());
 		return true;
 	}
 
@@ -138,25 +136,14 @@ public abstract class BaseNPCController implements NPCController {
 	 * @param id
 	 *            the html message id
 	 * @return the html code
+	 * @see NPCService#getChat(com.l2jserver.model.template.NPCTemplate,
+	 *      String)
 	 */
 	protected String getHTML(NPC npc, String id) {
-		final NPCTemplate template = npc.getTemplate();
-		// id correction - on l2j default chat is also "0".
-		if ("0".equals(id) || id == null) // avoid NullPointerException
-			id = template.getTalk().getDefault();
-		final List<Chat> chats = template.getTalk().getChat();
-		String html = null;
-		for (final Chat chat : chats) {
-			if (chat.getId().equals(id)) {
-				html = chat.getValue();
-				break;
-			}
-		}
+		final CompiledHtml html = npcService.getChat(npc.getTemplate(), id);
 		if (html == null)
 			return null;
-
-		// TODO use an decent template engine
-		return html.replaceAll("%objectId%", npc.getID().getID().toString());
+		return html.toString(npc.getID().getID().toString());
 	}
 
 	/**
@@ -20,6 +20,7 @@ import com.l2jserver.model.id.ObjectID;
 import com.l2jserver.model.world.L2Character;
 import com.l2jserver.model.world.NPC;
 import com.l2jserver.model.world.WorldObject;
+import com.l2jserver.util.html.CompiledHtml;
 
 /**
  * Event dispatched once a {@link NPC} has died.
@@ -36,9 +37,17 @@ public class NPCTalkEvent implements NPCEvent {
 	 */
 	private final L2Character character;
 	/**
-	 * The html message
+	 * The html message, <code>null</code> if compiled
 	 */
 	private final String html;
+	/**
+	 * The compiled html message, if any
+	 */
+	private final CompiledHtml compiledHtml;
+	/**
+	 * The compiled html variable values
+	 */
+	private final String[] values;
 
 	/**
 	 * @param npc
@@ -52,6 +61,27 @@ public class NPCTalkEvent implements NPCEvent {
 		this.npc = npc;
 		this.character = character;
 		this.html = html;
+		this.compiledHtml = null;
+		this.values = null;
+	}
+
+	/**
+	 * @param npc
+	 *            the {@link NPC} that is talking to the player
+	 * @param character
+	 *            the {@link L2Character} talking to the {@link NPC}
+	 * @param html
+	 *            the compiled message html content
+	 * @param values
+	 *            the html variable values
+	 */
+	public NPCTalkEvent(NPC npc, L2Character character, CompiledHtml html,
+			String... values) {
+		this.npc = npc;
+		this.character = character;
+		this.html = null;
+		this.compiledHtml = html;
+		this.values = values;
 	}
 
 	/**
@@ -62,12 +92,28 @@ public class NPCTalkEvent implements NPCEvent {
 	}
 
 	/**
-	 * @return the html
+	 * @return the html, rendered from the compiled html if needed
 	 */
 	public String getHtml() {
+		if (html == null)
+			return compiledHtml.toString(values);
 		return html;
 	}
 
+	/**
+	 * @return the compiled html, <code>null</code> if the html is not compiled
+	 */
+	public CompiledHtml getCompiledHtml() {
+		return compiledHtml;
+	}
+
+	/**
+	 * @return the compiled html variable values
+	 */
+	public String[] getValues() {
+		return values;
+	}
+
 	@Override
 	public WorldObject getObject() {
 		return npc;
@@ -32,6 +32,7 @@ import com.l2jserver.service.AbstractService.Depends;
 import com.l2jserver.service.cache.CacheService;
 import com.l2jserver.service.configuration.ConfigurationService;
 import com.l2jserver.service.core.logging.LoggingService;
+import com.l2jserver.service.core.metrics.MetricRegistry;
 import com.l2jserver.service.core.threading.ThreadService;
 import com.l2jserver.service.core.vfs.VFSService;
 import com.l2jserver.service.database.model.QActorSkill;
@@ -84,16 +85,19 @@ public class GameServerJDBCDatabaseService extends AbstractSQLDatabaseService
 	 *            the vfs service
 	 * @param daoResolver
 	 *            the {@link DataAccessObject DAO} resolver
+	 * @param metrics
+	 *            the metric registry
 	 */
 	@Inject
 	public GameServerJDBCDatabaseService(CacheService cacheService,
 			ThreadService threadService, VFSService vfsService,
-			DAOResolver daoResolver) {
+			DAOResolver daoResolver, MetricRegistry metrics) {
 		super(
 				cacheService,
 				threadService,
 				vfsService,
 				daoResolver,
+				metrics,
 				new EnumByNameType<CharacterRace>(CharacterRace.class),
 				new EnumByNameType<CharacterClass>(CharacterClass.class),
 				new EnumByNameType<ActorSex>(ActorSex.class),
@@ -27,6 +27,7 @@ import com.l2jserver.model.world.Item;
 import com.l2jserver.model.world.L2Character;
 import com.l2jserver.model.world.character.CharacterInventory.ItemLocation;
 import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 import com.l2jserver.service.database.mapper.ItemMapper;
 import com.l2jserver.service.database.model.QItem;
 import com.l2jserver.service.database.orientdb.AbstractOrientDBDAO;
@@ -34,6 +35,7 @@ import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.Del
 import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.InsertQuery;
 import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.SelectListQuery;
 import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.SelectSingleQuery;
+import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.SelectStreamQuery;
 import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.UpdateQuery;
 import com.orientechnologies.orient.core.query.nativ.OQueryContextNative;
 
@@ -96,7 +98,21 @@ public class OrientDBItemDAO extends AbstractOrientDBDAO<Item, ItemID>
 					@Override
 					protected OQueryContextNative query(
 							OQueryContextNative record, QItem e) {
-						return record.field(name(e.itemId)).eq(
+						return record.field(name(e.location)).eq(
+								ItemLocation.GROUND);
+					}
+				});
+	}
+
+	@Override
+	public int selectDroppedItems(SelectCallback<Item> callback) {
+		return database
+				.query(new SelectStreamQuery<Item, Integer, ItemID, QItem>(
+						QItem.item, mapper, callback) {
+					@Override
+					protected OQueryContextNative query(
+							OQueryContextNative record, QItem e) {
+						return record.field(name(e.location)).eq(
 								ItemLocation.GROUND);
 					}
 				});
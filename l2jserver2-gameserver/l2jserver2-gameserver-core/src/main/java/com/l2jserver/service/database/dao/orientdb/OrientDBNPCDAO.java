@@ -27,6 +27,7 @@ import com.l2jserver.model.id.object.NPCID;
 import com.l2jserver.model.id.template.NPCTemplateID;
 import com.l2jserver.model.world.NPC;
 import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 import com.l2jserver.service.database.mapper.NPCMapper;
 import com.l2jserver.service.database.model.QNPC;
 import com.l2jserver.service.database.orientdb.AbstractOrientDBDAO;
@@ -34,6 +35,7 @@ import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.Del
 import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.InsertQuery;
 import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.SelectListQuery;
 import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.SelectSingleQuery;
+import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.SelectStreamQuery;
 import com.l2jserver.service.database.orientdb.AbstractOrientDatabaseService.UpdateQuery;
 import com.orientechnologies.orient.core.query.nativ.OQueryContextNative;
 
@@ -85,6 +87,18 @@ public class OrientDBNPCDAO extends AbstractOrientDBDAO<NPC, NPCID> implements
 		});
 	}
 
+	@Override
+	public int loadAll(SelectCallback<NPC> callback) {
+		return database.query(new SelectStreamQuery<NPC, Integer, NPCID, QNPC>(
+				QNPC.npc, mapper, callback) {
+			@Override
+			protected OQueryContextNative query(OQueryContextNative record,
+					QNPC e) {
+				return null;
+			}
+		});
+	}
+
 	@Override
 	public List<NPC> selectByTemplate(final NPCTemplateID templateID) {
 		return database.query(new SelectListQuery<NPC, Integer, NPCID, QNPC>(
@@ -27,6 +27,7 @@ import com.l2jserver.model.world.Item;
 import com.l2jserver.model.world.L2Character;
 import com.l2jserver.model.world.character.CharacterInventory.ItemLocation;
 import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 import com.l2jserver.service.database.mapper.ItemMapper;
 import com.l2jserver.service.database.model.QItem;
 import com.l2jserver.service.database.sql.AbstractSQLDAO;
@@ -34,6 +35,7 @@ import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.DeleteQuery
 import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.InsertQuery;
 import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.SelectListQuery;
 import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.SelectSingleQuery;
+import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.SelectStreamQuery;
 import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.UpdateQuery;
 import com.mysema.query.sql.AbstractSQLQuery;
 import com.mysema.query.sql.dml.SQLDeleteClause;
@@ -98,6 +100,18 @@ public class SQLItemDAO extends AbstractSQLDAO<Item, ItemID> implements ItemDAO
 				});
 	}
 
+	@Override
+	public int selectDroppedItems(SelectCallback<Item> callback) {
+		return database
+				.query(new SelectStreamQuery<Item, Integer, ItemID, QItem>(
+						QItem.item, mapper, callback) {
+					@Override
+					protected void query(AbstractSQLQuery<?> q, QItem e) {
+						q.where(e.location.eq(ItemLocation.GROUND));
+					}
+				});
+	}
+
 	@Override
 	public Collection<ItemID> selectIDs() {
 		return database
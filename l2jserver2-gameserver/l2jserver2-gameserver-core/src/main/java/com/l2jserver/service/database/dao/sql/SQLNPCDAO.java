@@ -27,6 +27,7 @@ import com.l2jserver.model.id.object.NPCID;
 import com.l2jserver.model.id.template.NPCTemplateID;
 import com.l2jserver.model.world.NPC;
 import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 import com.l2jserver.service.database.mapper.NPCMapper;
 import com.l2jserver.service.database.model.QNPC;
 import com.l2jserver.service.database.sql.AbstractSQLDAO;
@@ -34,6 +35,7 @@ import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.DeleteQuery
 import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.InsertQuery;
 import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.SelectListQuery;
 import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.SelectSingleQuery;
+import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.SelectStreamQuery;
 import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.UpdateQuery;
 import com.mysema.query.sql.AbstractSQLQuery;
 import com.mysema.query.sql.dml.SQLDeleteClause;
@@ -83,6 +85,16 @@ public class SQLNPCDAO extends AbstractSQLDAO<NPC, NPCID> implements NPCDAO {
 		});
 	}
 
+	@Override
+	public int loadAll(SelectCallback<NPC> callback) {
+		return database.query(new SelectStreamQuery<NPC, Integer, NPCID, QNPC>(
+				QNPC.npc, mapper, callback) {
+			@Override
+			protected void query(AbstractSQLQuery<?> q, QNPC e) {
+			}
+		});
+	}
+
 	@Override
 	public List<NPC> selectByTemplate(final NPCTemplateID templateID) {
 		return database.query(new SelectListQuery<NPC, Integer, NPCID, QNPC>(
@@ -108,12 +108,12 @@ public class ItemMapper extends AbstractMapper<Item, Integer, ItemID, QItem> {
 		if (!row.isNull(e.paperdoll))
 			item.setPaperdoll(row.get(e.paperdoll));
 
-		item.setCount(row.get(e.count));
+		item.setCount(row.getLong(e.count));
 
 		if (!row.isNull(e.coordX) && !row.isNull(e.coordY)
 				&& !row.isNull(e.coordZ))
-			item.setPosition(Coordinate.fromXYZ(row.get(e.coordX),
-					row.get(e.coordY), row.get(e.coordZ)));
+			item.setPosition(Coordinate.fromXYZ(row.getInt(e.coordX),
+					row.getInt(e.coordY), row.getInt(e.coordZ)));
 
 		return item;
 	}
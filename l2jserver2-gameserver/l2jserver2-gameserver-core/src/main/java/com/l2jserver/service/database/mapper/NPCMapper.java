@@ -16,6 +16,8 @@
  */
 package com.l2jserver.service.database.mapper;
 
+import java.util.Date;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -91,16 +93,19 @@ public class NPCMapper extends AbstractMapper<NPC, Integer, NPCID, QNPC> {
 		npc.setID(id);
 
 		if (!row.isNull(e.hp))
-			npc.setHP(row.get(e.hp));
+			npc.setHP(row.getDouble(e.hp));
 		if (!row.isNull(e.mp))
-			npc.setMP(row.get(e.mp));
+			npc.setMP(row.getDouble(e.mp));
 
 		if (!row.isNull(e.pointX) && !row.isNull(e.pointY)
 				&& !row.isNull(e.pointZ) && !row.isNull(e.pointAngle))
-			npc.setPoint(Point3D.fromXYZA(row.get(e.pointX), row.get(e.pointY),
-					row.get(e.pointZ), row.get(e.pointAngle)));
+			npc.setPoint(Point3D.fromXYZA(row.getInt(e.pointX),
+					row.getInt(e.pointY), row.getInt(e.pointZ),
+					row.getDouble(e.pointAngle)));
 
-		npc.setRespawnInterval(row.get(e.respawnTime));
+		npc.setRespawnInterval(row.getLong(e.respawnTime));
+		if (!row.isNull(e.nextRespawn))
+			npc.setNextRespawn(row.get(e.nextRespawn).getTime());
 
 		return npc;
 	}
@@ -129,7 +134,10 @@ public class NPCMapper extends AbstractMapper<NPC, Integer, NPCID, QNPC> {
 						(object.getPoint() != null ? object.getPoint()
 								.getAngle() : null))
 
-				.set(e.respawnTime, object.getRespawnInterval());
+				.set(e.respawnTime, object.getRespawnInterval())
+				.set(e.nextRespawn,
+						(object.getNextRespawn() != 0 ? new Date(object
+								.getNextRespawn()) : null));
 	}
 
 	@Override
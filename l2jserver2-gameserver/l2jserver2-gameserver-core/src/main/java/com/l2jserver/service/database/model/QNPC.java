@@ -2,10 +2,14 @@ package com.l2jserver.service.database.model;
 
 import static com.mysema.query.types.PathMetadataFactory.forVariable;
 
+import java.util.Date;
+
+import com.l2jserver.service.database.ddl.annotation.ColumnNullable;
 import com.l2jserver.service.database.ddl.annotation.ColumnSize;
 import com.mysema.query.sql.PrimaryKey;
 import com.mysema.query.types.Path;
 import com.mysema.query.types.PathMetadata;
+import com.mysema.query.types.path.DateTimePath;
 import com.mysema.query.types.path.NumberPath;
 
 /**
@@ -76,6 +80,12 @@ public class QNPC extends com.mysema.query.sql.RelationalPathBase<Integer> {
 	@ColumnSize(8)
 	public final NumberPath<Long> respawnTime = createNumber("respawn_time",
 			Long.class);
+	/**
+	 * Column: <code>next_respawn</code>
+	 */
+	@ColumnNullable
+	public final DateTimePath<Date> nextRespawn = createDateTime(
+			"next_respawn", Date.class);
 
 	/**
 	 * The entity primary key
@@ -16,16 +16,28 @@
  */
 package com.l2jserver.service.game.ai;
 
+import com.l2jserver.game.ai.AI;
+import com.l2jserver.game.ai.desires.Desire;
 import com.l2jserver.model.world.Actor;
 import com.l2jserver.service.Service;
 import com.l2jserver.util.geometry.Coordinate;
 
 /**
- * This service executes AI operations
+ * This service executes AI operations. Each {@link Actor} with pending
+ * {@link Desire desires} has an {@link AI} that is ticked at a fixed rate, as
+ * long as there is a player close enough to observe it.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
 public interface AIService extends Service {
+	/**
+	 * The upper bounds (inclusive, in milliseconds) of each bucket of the tick
+	 * duration histogram. An extra bucket holds ticks that took longer than
+	 * the last bound.
+	 */
+	public static final long[] TICK_HISTOGRAM_BOUNDS = { 1, 2, 5, 10, 20, 50,
+			100, 200, 500 };
+
 	/**
 	 * Walks the given <tt>actor</tt> to <tt>coordinate</tt>
 	 * 
@@ -35,4 +47,41 @@ public interface AIService extends Service {
 	 *            the coordinate
 	 */
 	void walk(Actor actor, Coordinate coordinate);
+
+	/**
+	 * Adds an <tt>desire</tt> to the <tt>actor</tt> AI. The desire will be
+	 * handled on the next ticks.
+	 * 
+	 * @param actor
+	 *            the actor
+	 * @param desire
+	 *            the desire
+	 */
+	void desire(Actor actor, Desire desire);
+
+	/**
+	 * Removes all desires from the given <tt>actor</tt> AI.
+	 * 
+	 * @param actor
+	 *            the actor
+	 */
+	void clear(Actor actor);
+
+	/**
+	 * @return the amount of AIs that have been ticked on the last tick
+	 */
+	int getActiveAICount();
+
+	/**
+	 * @return the amount of AIs that have pending desires, including sleeping
+	 *         ones
+	 */
+	int getAICount();
+
+	/**
+	 * @return the tick duration histogram. Each element is the amount of ticks
+	 *         whose duration falls in the {@link #TICK_HISTOGRAM_BOUNDS
+	 *         bucket} with the same index.
+	 */
+	long[] getTickHistogram();
 }
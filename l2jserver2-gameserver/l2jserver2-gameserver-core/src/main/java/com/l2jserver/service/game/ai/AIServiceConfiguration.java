@@ -0,0 +1,73 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.ai;
+
+import com.l2jserver.service.ServiceConfiguration;
+import com.l2jserver.service.configuration.XMLConfigurationService.ConfigurationXPath;
+
+/**
+ * Configuration interface for {@link AIService}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public interface AIServiceConfiguration extends ServiceConfiguration {
+	/**
+	 * @return the interval between AI ticks, in milliseconds
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "200")
+	@ConfigurationXPath("tick/@interval")
+	int getTickInterval();
+
+	/**
+	 * @param interval
+	 *            the interval between AI ticks, in milliseconds
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("tick/@interval")
+	void setTickInterval(int interval);
+
+	/**
+	 * @return the number of threads to use (0 for automatic detection)
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "0")
+	@ConfigurationXPath("tick/@threads")
+	int getTickThreadCount();
+
+	/**
+	 * @param threads
+	 *            the number of threads to use (0 for automatic detection)
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("tick/@threads")
+	void setTickThreadCount(int threads);
+
+	/**
+	 * @return the maximum amount of AIs ticked on a single tick. Regions that
+	 *         did not fit are ticked first on the next tick.
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "20000")
+	@ConfigurationXPath("tick/@max-actors")
+	int getMaxActorsPerTick();
+
+	/**
+	 * @param max
+	 *            the maximum amount of AIs ticked on a single tick
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("tick/@max-actors")
+	void setMaxActorsPerTick(int max);
+}
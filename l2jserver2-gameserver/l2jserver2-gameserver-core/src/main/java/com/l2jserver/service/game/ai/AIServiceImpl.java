@@ -16,56 +16,164 @@
  */
 package com.l2jserver.service.game.ai;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
+import com.l2jserver.game.ai.AI;
+import com.l2jserver.game.ai.desires.AttackDesire;
+import com.l2jserver.game.ai.desires.Desire;
+import com.l2jserver.game.ai.desires.MoveDesire;
 import com.l2jserver.model.world.Actor;
-import com.l2jserver.service.AbstractService;
+import com.l2jserver.model.world.Actor.ActorState;
+import com.l2jserver.model.world.actor.event.ActorDieEvent;
+import com.l2jserver.model.world.actor.event.ActorUnspawnEvent;
+import com.l2jserver.service.AbstractConfigurableService;
 import com.l2jserver.service.AbstractService.Depends;
 import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
+import com.l2jserver.service.core.threading.AbstractTask;
+import com.l2jserver.service.core.threading.AsyncFuture;
+import com.l2jserver.service.core.threading.ScheduledAsyncFuture;
+import com.l2jserver.service.core.threading.ThreadPool;
 import com.l2jserver.service.core.threading.ThreadService;
-import com.l2jserver.service.game.template.TemplateService;
+import com.l2jserver.service.game.AttackService;
+import com.l2jserver.service.game.world.WorldRegions;
 import com.l2jserver.service.game.world.WorldService;
+import com.l2jserver.service.game.world.event.WorldEvent;
 import com.l2jserver.service.game.world.event.WorldEventDispatcherService;
-import com.l2jserver.service.network.NetworkService;
+import com.l2jserver.service.game.world.event.WorldListener;
+import com.l2jserver.util.factory.CollectionFactory;
 import com.l2jserver.util.geometry.Coordinate;
+import com.l2jserver.util.geometry.Point3D;
 
 /**
  * Default implementation for {@link AIService}.
+ * <p>
+ * AIs are ticked at a fixed rate by a pool of threads. AIs are bucketed by
+ * world region and only regions that have a player in them, or in any of the
+ * neighbor regions, are ticked. AIs in any other region are sleeping and keep
+ * their desires until a player comes close. Every region is ticked by a
+ * single thread, so each AI is only ever ticked by one thread at a time.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
-@Depends({ WorldService.class, TemplateService.class, ThreadService.class,
-		NetworkService.class })
-public class AIServiceImpl extends AbstractService implements AIService {
+@Depends({ WorldService.class, ThreadService.class, AttackService.class })
+public class AIServiceImpl extends
+		AbstractConfigurableService<AIServiceConfiguration> implements
+		AIService {
 	/**
-	 * The logger
+	 * The desire power for walk desires
 	 */
-	@SuppressWarnings("unused")
-	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private static final int WALK_DESIRE_POWER = 100;
+	/**
+	 * The distance in which an actor can hit its target
+	 */
+	private static final int ATTACK_RANGE = 80;
+	/**
+	 * The interval in which AI statistics are logged
+	 */
+	private static final long STATISTICS_INTERVAL = TimeUnit.MINUTES
+			.toMillis(5);
 
 	/**
 	 * The {@link WorldService}
 	 */
-	@SuppressWarnings("unused")
 	private final WorldService worldService;
 	/**
 	 * The {@link WorldService} event dispatcher
 	 */
-	@SuppressWarnings("unused")
 	private final WorldEventDispatcherService eventDispatcher;
 	/**
 	 * The {@link ThreadService}
 	 */
-	@SuppressWarnings("unused")
 	private final ThreadService threadService;
 	/**
-	 * The {@link NetworkService}
+	 * The {@link AttackService}
+	 */
+	private final AttackService attackService;
+
+	/**
+	 * The AIs for every actor that has received an desire
+	 */
+	private final ConcurrentMap<Actor, ActorAI> ais = CollectionFactory
+			.newConcurrentMap();
+	/**
+	 * The AIs with pending desires, bucketed by region
+	 */
+	private final ConcurrentMap<Long, Set<ActorAI>> regions = CollectionFactory
+			.newConcurrentMap();
+	/**
+	 * The world regions. Only regions observed by a player are ticked.
+	 */
+	private final WorldRegions worldRegions = new WorldRegions();
+	/**
+	 * The amount of AIs with pending desires
+	 */
+	private final AtomicInteger scheduled = new AtomicInteger();
+	/**
+	 * The tick duration histogram
 	 */
-	@SuppressWarnings("unused")
-	private final NetworkService networkService;
+	private final AtomicLongArray histogram = new AtomicLongArray(
+			TICK_HISTOGRAM_BOUNDS.length + 1);
+	/**
+	 * The amount of AIs ticked on the last tick
+	 */
+	private volatile int active;
+
+	/**
+	 * The AI thread pool
+	 */
+	private ThreadPool pool;
+	/**
+	 * The amount of threads in the {@link #pool}
+	 */
+	private int threads;
+	/**
+	 * The tick task future
+	 */
+	private ScheduledAsyncFuture tickFuture;
+	/**
+	 * The current tick number. Only accessed by the tick thread.
+	 */
+	private long tick;
+	/**
+	 * The {@link System#nanoTime()} of the last tick. Only accessed by the
+	 * tick thread.
+	 */
+	private long lastTick;
+	/**
+	 * The {@link System#currentTimeMillis()} statistics were last logged. Only
+	 * accessed by the tick thread.
+	 */
+	private long lastStatistics;
+	/**
+	 * The index of the first region ticked on the next tick. Regions that did
+	 * not fit in the last tick budget are ticked first. Only accessed by the
+	 * tick thread.
+	 */
+	private int regionOffset;
+
+	/**
+	 * Tracks observers and removes the AI of unspawned or dead actors
+	 */
+	private final WorldListener listener = new WorldListener() {
+		@Override
+		public boolean dispatch(WorldEvent e) {
+			worldRegions.dispatch(e);
+			if (e instanceof ActorUnspawnEvent) {
+				remove(((ActorUnspawnEvent) e).getActor());
+			} else if (e instanceof ActorDieEvent) {
+				remove(((ActorDieEvent) e).getActor());
+			}
+			return true;
+		}
+	};
 
 	/**
 	 * @param worldService
@@ -74,31 +182,462 @@ public class AIServiceImpl extends AbstractService implements AIService {
 	 *            the world service event dispatcher
 	 * @param threadService
 	 *            the thread service
-	 * @param networkService
-	 *            the network service
+	 * @param attackService
+	 *            the attack service
 	 */
 	@Inject
 	public AIServiceImpl(WorldService worldService,
 			WorldEventDispatcherService eventDispatcher,
-			ThreadService threadService, NetworkService networkService) {
+			ThreadService threadService, AttackService attackService) {
+		super(AIServiceConfiguration.class);
 		this.worldService = worldService;
 		this.eventDispatcher = eventDispatcher;
 		this.threadService = threadService;
-		this.networkService = networkService;
+		this.attackService = attackService;
 	}
 
 	@Override
 	protected void doStart() throws ServiceStartException {
+		threads = config.getTickThreadCount();
+		if (threads <= 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		final int interval = config.getTickInterval();
 
+		eventDispatcher.addListener(listener);
+		pool = threadService.createThreadPool("ai", threads);
+		lastTick = System.nanoTime();
+		lastStatistics = System.currentTimeMillis();
+		tickFuture = pool.async(interval, TimeUnit.MILLISECONDS, interval,
+				new Runnable() {
+					@Override
+					public void run() {
+						tick();
+					}
+				});
+	}
+
+	/**
+	 * Executes an tick. Regions observed by players are split among the pool
+	 * threads; this thread ticks one of the batches itself and waits for the
+	 * others.
+	 */
+	private void tick() {
+		final long start = System.nanoTime();
+		final long elapsed = Math.min(
+				TimeUnit.NANOSECONDS.toMillis(start - lastTick),
+				2 * config.getTickInterval());
+		lastTick = start;
+		tick++;
+
+		// wake up every region near an player
+		final Set<Long> awake = worldRegions.observed();
+
+		// collect regions with pending desires, respecting the tick budget
+		final List<Set<ActorAI>> awakeRegions = CollectionFactory.newList();
+		for (final Long key : awake) {
+			final Set<ActorAI> region = regions.get(key);
+			if (region != null && !region.isEmpty())
+				awakeRegions.add(region);
+		}
+		final List<List<Set<ActorAI>>> batches = CollectionFactory.newList();
+		for (int i = 0; i < threads; i++) {
+			batches.add(CollectionFactory.<Set<ActorAI>> newList());
+		}
+		final int max = config.getMaxActorsPerTick();
+		int budget = 0;
+		int n = 0;
+		for (; n < awakeRegions.size() && budget < max; n++) {
+			final Set<ActorAI> region = awakeRegions.get((regionOffset + n)
+					% awakeRegions.size());
+			batches.get(n % threads).add(region);
+			budget += region.size();
+		}
+		// kept below the region count, so it never overflows
+		if (!awakeRegions.isEmpty())
+			regionOffset = (regionOffset + n) % awakeRegions.size();
+
+		final AtomicInteger ticked = new AtomicInteger();
+		final List<AsyncFuture<Integer>> futures = CollectionFactory.newList();
+		for (int i = 1; i < threads; i++) {
+			final List<Set<ActorAI>> batch = batches.get(i);
+			if (batch.isEmpty())
+				continue;
+			futures.add(pool.async(new AbstractTask<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					return tick(batch, elapsed, ticked);
+				}
+			}));
+		}
+		tick(batches.get(0), elapsed, ticked);
+		for (final AsyncFuture<Integer> future : futures) {
+			future.awaitUninterruptibly();
+		}
+		active = ticked.get();
+
+		final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+				- start);
+		int bucket = 0;
+		while (bucket < TICK_HISTOGRAM_BOUNDS.length
+				&& duration > TICK_HISTOGRAM_BOUNDS[bucket])
+			bucket++;
+		histogram.incrementAndGet(bucket);
+
+		if (System.currentTimeMillis() - lastStatistics >= STATISTICS_INTERVAL) {
+			lastStatistics = System.currentTimeMillis();
+			logStatistics();
+		}
+	}
+
+	/**
+	 * Ticks all AIs in the given regions
+	 * 
+	 * @param batch
+	 *            the regions
+	 * @param elapsed
+	 *            the time elapsed since the last tick, in milliseconds
+	 * @param ticked
+	 *            the counter of ticked AIs
+	 * @return the amount of AIs ticked
+	 */
+	private int tick(List<Set<ActorAI>> batch, long elapsed,
+			AtomicInteger ticked) {
+		int count = 0;
+		for (final Set<ActorAI> region : batch) {
+			for (final ActorAI ai : region) {
+				// an AI might have moved into a region ticked later
+				synchronized (ai) {
+					if (ai.tick == tick)
+						continue;
+					ai.tick = tick;
+				}
+				count++;
+				try {
+					ai.tick(elapsed);
+				} catch (Throwable t) {
+					logger.warn("Exception while ticking AI for "
+							+ ai.getActor(), t);
+					ai.getDesireQueue().clear();
+				}
+				relocate(ai, region);
+			}
+		}
+		ticked.addAndGet(count);
+		return count;
+	}
+
+	/**
+	 * Moves the AI to the region its actor is in, or removes it from the
+	 * regions if it has no more pending desires.
+	 * 
+	 * @param ai
+	 *            the AI
+	 * @param region
+	 *            the region the AI is currently in
+	 */
+	private void relocate(ActorAI ai, Set<ActorAI> region) {
+		synchronized (ai) {
+			if (!ai.scheduled)
+				return;
+			if (ai.getDesireQueue().isEmpty()) {
+				region.remove(ai);
+				ai.scheduled = false;
+				scheduled.decrementAndGet();
+				return;
+			}
+			final long key = WorldRegions.key(ai.getActor());
+			if (key == ai.region)
+				return;
+			region.remove(ai);
+			ai.region = key;
+			region(key).add(ai);
+		}
 	}
 
 	@Override
 	public void walk(Actor actor, Coordinate coordinate) {
+		Preconditions.checkNotNull(actor, "actor");
+		Preconditions.checkNotNull(coordinate, "coordinate");
+		final Point3D point = actor.getPoint();
+		desire(actor,
+				new MoveDesire(new Point3D(coordinate, (point != null ? point
+						.getAngle() : 0)), WALK_DESIRE_POWER));
+	}
+
+	@Override
+	public void desire(Actor actor, Desire desire) {
+		Preconditions.checkNotNull(actor, "actor");
+		Preconditions.checkNotNull(desire, "desire");
+		logger.debug("{} desires {}", actor, desire);
+
+		ActorAI ai = ais.get(actor);
+		if (ai == null) {
+			final ActorAI created = new ActorAI(actor);
+			ai = ais.putIfAbsent(actor, created);
+			if (ai == null)
+				ai = created;
+		}
+		synchronized (ai) {
+			ai.getDesireQueue().addDesire(desire);
+			if (ai.scheduled)
+				return;
+			ai.scheduled = true;
+			ai.region = WorldRegions.key(actor);
+			region(ai.region).add(ai);
+			scheduled.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void clear(Actor actor) {
+		Preconditions.checkNotNull(actor, "actor");
+		final ActorAI ai = ais.get(actor);
+		if (ai != null)
+			unschedule(ai);
+	}
+
+	/**
+	 * Removes the AI for the given actor
+	 * 
+	 * @param actor
+	 *            the actor
+	 */
+	private void remove(Actor actor) {
+		final ActorAI ai = ais.remove(actor);
+		if (ai != null)
+			unschedule(ai);
+	}
+
+	/**
+	 * Clears all the AI desires and removes it from its region
+	 * 
+	 * @param ai
+	 *            the AI
+	 */
+	private void unschedule(ActorAI ai) {
+		synchronized (ai) {
+			ai.getDesireQueue().clear();
+			if (!ai.scheduled)
+				return;
+			region(ai.region).remove(ai);
+			ai.scheduled = false;
+			scheduled.decrementAndGet();
+		}
+	}
+
+	@Override
+	public int getActiveAICount() {
+		return active;
+	}
 
+	@Override
+	public int getAICount() {
+		return scheduled.get();
+	}
+
+	@Override
+	public long[] getTickHistogram() {
+		final long[] values = new long[histogram.length()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = histogram.get(i);
+		}
+		return values;
+	}
+
+	/**
+	 * Logs the amount of AIs and the tick duration histogram
+	 */
+	private void logStatistics() {
+		final StringBuilder builder = new StringBuilder();
+		final long[] values = getTickHistogram();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0)
+				builder.append(", ");
+			if (i < TICK_HISTOGRAM_BOUNDS.length)
+				builder.append("<=").append(TICK_HISTOGRAM_BOUNDS[i]);
+			else
+				builder.append(">")
+						.append(TICK_HISTOGRAM_BOUNDS[i - 1]);
+			builder.append("ms: ").append(values[i]);
+		}
+		logger.info(
+				"{} active AIs ({} with pending desires, {} observers). Tick durations: {}",
+				new Object[] { active, scheduled.get(), worldRegions.getObserverCount(),
+						builder });
+	}
+
+	/**
+	 * @param key
+	 *            the region key
+	 * @return the region. Created if it does not exist yet.
+	 */
+	private Set<ActorAI> region(long key) {
+		Set<ActorAI> region = regions.get(key);
+		if (region == null) {
+			final Set<ActorAI> created = CollectionFactory.newConcurrentSet();
+			region = regions.putIfAbsent(key, created);
+			if (region == null)
+				region = created;
+		}
+		return region;
 	}
 
 	@Override
 	protected void doStop() throws ServiceStopException {
+		tickFuture.cancel(false);
+		threadService.dispose(pool);
+		eventDispatcher.removeListener(listener);
+		logStatistics();
+
+		ais.clear();
+		regions.clear();
+		worldRegions.clear();
+		scheduled.set(0);
+		pool = null;
+		tickFuture = null;
+	}
+
+	/**
+	 * The default AI. Handles {@link MoveDesire} and {@link AttackDesire}.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private class ActorAI extends AI<Actor> {
+		/**
+		 * The tick in which this AI has been last ticked
+		 */
+		private long tick = -1;
+		/**
+		 * The key of the region this AI is bucketed in
+		 */
+		private long region;
+		/**
+		 * Whether this AI is bucketed in a region
+		 */
+		private boolean scheduled;
+		/**
+		 * The time elapsed since the last tick, in milliseconds
+		 */
+		private long elapsed;
+		/**
+		 * The {@link System#currentTimeMillis()} in which the next attack can
+		 * be made
+		 */
+		private long nextAttack;
+
+		/**
+		 * @param actor
+		 *            the actor
+		 */
+		public ActorAI(Actor actor) {
+			super(actor);
+			this.eventDispatcher = AIServiceImpl.this.eventDispatcher;
+		}
+
+		/**
+		 * Executes an tick
+		 * 
+		 * @param elapsed
+		 *            the time elapsed since the last tick, in milliseconds
+		 */
+		public void tick(long elapsed) {
+			this.elapsed = elapsed;
+			tick();
+		}
+
+		@Override
+		protected void handleDesire(Desire desire) {
+			if (actor.isDead()) {
+				desireQueue.clear();
+				return;
+			}
+			if (desire instanceof MoveDesire) {
+				if (!move(((MoveDesire) desire).getTarget(), 0))
+					desireQueue.addDesire(desire);
+			} else if (desire instanceof AttackDesire) {
+				if (!attack(((AttackDesire) desire).getTarget()))
+					desireQueue.addDesire(desire);
+			} else {
+				logger.debug("{} cannot handle desire {}", actor, desire);
+			}
+		}
+
+		/**
+		 * Moves the actor towards <tt>target</tt>, as far as it can walk
+		 * during this tick.
+		 * 
+		 * @param target
+		 *            the target point
+		 * @param range
+		 *            the distance from <tt>target</tt> the actor should stop
+		 * @return true if the actor is in range of <tt>target</tt>
+		 */
+		private boolean move(Point3D target, int range) {
+			final Point3D point = actor.getPoint();
+			if (point == null)
+				return true;
+			final double distance = point.getDistance(target);
+			if (distance <= range) {
+				if (actor.isMoving())
+					actor.setState(null);
+				return true;
+			}
+			if (!actor.isIdle() && !actor.isMoving())
+				// busy, try again on the next tick
+				return false;
+
+			final double step = actor.getStats().getRunSpeed() * elapsed
+					/ 1000.0;
+			if (step >= distance - range) {
+				if (range == 0) {
+					actor.setPoint(target);
+				} else {
+					final double ratio = (distance - range) / distance;
+					actor.setPoint(Point3D.fromXYZA(
+							point.getX()
+									+ (int) ((target.getX() - point.getX()) * ratio),
+							point.getY()
+									+ (int) ((target.getY() - point.getY()) * ratio),
+							point.getZ()
+									+ (int) ((target.getZ() - point.getZ()) * ratio),
+							point.getAngle()));
+				}
+				actor.setState(null);
+				return true;
+			}
+			final double ratio = step / distance;
+			actor.setState(ActorState.MOVING);
+			actor.setPoint(Point3D.fromXYZA(
+					point.getX()
+							+ (int) ((target.getX() - point.getX()) * ratio),
+					point.getY()
+							+ (int) ((target.getY() - point.getY()) * ratio),
+					point.getZ()
+							+ (int) ((target.getZ() - point.getZ()) * ratio),
+					point.getAngle()));
+			return false;
+		}
 
+		/**
+		 * Attacks <tt>target</tt>, walking towards it if not in range.
+		 * 
+		 * @param target
+		 *            the target
+		 * @return true if the attack is over (the target is dead or gone)
+		 */
+		private boolean attack(Actor target) {
+			if (target.isDead() || target.getPoint() == null
+					|| !worldService.contains(target))
+				return true;
+			if (!move(target.getPoint(), ATTACK_RANGE))
+				return false;
+			final long now = System.currentTimeMillis();
+			if (now >= nextAttack) {
+				attackService.attack(actor, target);
+				nextAttack = now + 500000
+						/ Math.max(1, actor.getStats().getPhysicalAttackSpeed());
+			}
+			return false;
+		}
 	}
 }
@@ -232,6 +232,25 @@ public interface CharacterService extends Service {
 	 */
 	void receivedValidation(L2Character character, Point3D point);
 
+	/**
+	 * Called when received the validation of the position of an character.
+	 * Unlike {@link #receivedValidation(L2Character, Point3D)}, this does not
+	 * require a {@link Point3D} to be allocated for every movement packet.
+	 * 
+	 * @param character
+	 *            the character
+	 * @param x
+	 *            the validated x axis
+	 * @param y
+	 *            the validated y axis
+	 * @param z
+	 *            the validated z axis
+	 * @param angle
+	 *            the validated angle
+	 */
+	void receivedValidation(L2Character character, int x, int y, int z,
+			double angle);
+
 	/**
 	 * Set the character to walking mode
 	 * 
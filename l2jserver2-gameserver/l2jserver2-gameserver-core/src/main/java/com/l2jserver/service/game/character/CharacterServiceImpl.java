@@ -441,26 +441,41 @@ public class CharacterServiceImpl extends
 
 	@Override
 	public void receivedValidation(L2Character character, Point3D point) {
-		Preconditions.checkNotNull(character, "character");
 		Preconditions.checkNotNull(point, "point");
+		receivedValidation(character, point.getX(), point.getY(),
+				point.getZ(), point.getAngle());
+	}
+
+	@Override
+	public void receivedValidation(L2Character character, int x, int y,
+			int z, double angle) {
+		Preconditions.checkNotNull(character, "character");
 		if (character.isTeleporting())
 			// ignore while teleporting, for some reason the client sends a
 			// validation just before teleport packet
 			return;
 
-		log.debug("{} client is validating its position to {}", character,
-				point);
-
-		final Point3D old = character.getPoint();
-		character.setPoint(point);
+		if (log.isDebugEnabled())
+			log.debug("{} client is validating its position to {}",
+					character, Point3D.fromXYZA(x, y, z, angle));
+
+		// only the client connection thread updates the character position
+		// from validations, so the old position cannot change in between
+		final int oldX = character.getX();
+		final int oldY = character.getY();
+		final int oldZ = character.getZ();
+		final double oldAngle = character.getAngle();
+		character.setPosition(x, y, z, angle);
 		// BroadcastService will catch this event and update the knownlist
-		eventDispatcher.dispatch(new CharacterMoveEvent(character, old));
+		eventDispatcher.dispatch(new CharacterMoveEvent(character, oldX, oldY,
+				oldZ, oldAngle, x - oldX, y - oldY, z - oldZ));
 
 		// target location is null if picking an item right after logging in and
 		// has not moved the char.
-		if (character.getTargetLocation() != null) {
-			if (point.getCoordinate().equals(
-					character.getTargetLocation().getCoordinate())) {
+		final Point3D target = character.getTargetLocation();
+		if (target != null) {
+			if (x == target.getX() && y == target.getY()
+					&& z == target.getZ()) {
 				character.setState(null);
 				character.setTargetLocation(null);
 				// TODO dispatch stop event
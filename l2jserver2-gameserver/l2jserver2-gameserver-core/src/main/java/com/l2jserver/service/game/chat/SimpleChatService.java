@@ -37,6 +37,7 @@ import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
 import com.l2jserver.service.database.DataAccessObject;
 import com.l2jserver.service.game.region.Region;
+import com.l2jserver.util.LogUtils;
 import com.l2jserver.util.factory.CollectionFactory;
 
 /**
@@ -128,8 +129,8 @@ public class SimpleChatService extends AbstractService implements ChatService {
 		Preconditions.checkNotNull(sender, "sender");
 		Preconditions.checkNotNull(message, "message");
 
-		log.debug("Sending message {} from {} to {}", new Object[] { message,
-				sender, chat });
+		LogUtils.debug(log, "Sending message {} from {} to {}", message,
+				sender, chat);
 
 		final ChatChannel channel;
 		switch (chat) {
@@ -0,0 +1,151 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.item;
+
+import java.util.List;
+import java.util.Map;
+
+import com.l2jserver.model.world.Item;
+import com.l2jserver.service.core.threading.HashedTimerWheel;
+import com.l2jserver.service.core.threading.HashedTimerWheel.Timeout;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Index of the {@link Item items} on the ground. Adding and removing an item
+ * are constant time operations.
+ * <p>
+ * Items can be given a decay time: they are placed in a
+ * {@link HashedTimerWheel} and {@link #expire(long)} collects all items whose
+ * time has passed.
+ * <p>
+ * All methods are synchronized on the index.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class GroundItemIndex {
+	/**
+	 * The decay wheel
+	 */
+	private final HashedTimerWheel<Item> wheel;
+	/**
+	 * The items, with their decay timeout. The timeout is <code>null</code>
+	 * for items that never decay.
+	 */
+	private final Map<Item, Timeout<Item>> entries = CollectionFactory
+			.newMap();
+
+	/**
+	 * @param resolution
+	 *            the duration of a tick, in milliseconds
+	 * @param slots
+	 *            the amount of slots in the wheel, must be a power of two
+	 * @param now
+	 *            the current time, in milliseconds
+	 */
+	public GroundItemIndex(long resolution, int slots, long now) {
+		this.wheel = new HashedTimerWheel<Item>(resolution, slots, now);
+	}
+
+	/**
+	 * Adds an item to the index, replacing its previous decay time if already
+	 * indexed
+	 * 
+	 * @param item
+	 *            the item
+	 * @param now
+	 *            the current time, in milliseconds
+	 * @param decay
+	 *            the time until the item decays, in milliseconds. If zero or
+	 *            less, the item never decays.
+	 */
+	public synchronized void add(Item item, long now, long decay) {
+		remove(item);
+		entries.put(item, decay > 0 ? wheel.add(item, now, decay) : null);
+	}
+
+	/**
+	 * Removes an item from the index
+	 * 
+	 * @param item
+	 *            the item
+	 * @return <code>true</code> if the item was indexed
+	 */
+	public synchronized boolean remove(Item item) {
+		if (!entries.containsKey(item))
+			return false;
+		final Timeout<Item> timeout = entries.remove(item);
+		if (timeout != null)
+			wheel.remove(timeout);
+		return true;
+	}
+
+	/**
+	 * @param item
+	 *            the item
+	 * @return <code>true</code> if the item is indexed
+	 */
+	public synchronized boolean contains(Item item) {
+		return entries.containsKey(item);
+	}
+
+	/**
+	 * Removes and returns all items whose decay time has passed
+	 * 
+	 * @param now
+	 *            the current time, in milliseconds
+	 * @return the decayed items, possibly empty
+	 */
+	public synchronized List<Item> expire(long now) {
+		final List<Item> expired = CollectionFactory.newList();
+		wheel.expire(now, expired);
+		for (final Item item : expired) {
+			entries.remove(item);
+		}
+		return expired;
+	}
+
+	/**
+	 * @return a copy of all items in the index
+	 */
+	public synchronized List<Item> getItems() {
+		final List<Item> items = CollectionFactory.newList();
+		items.addAll(entries.keySet());
+		return items;
+	}
+
+	/**
+	 * @return the amount of items in the index
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the amount of items in the index that will decay
+	 */
+	public synchronized int getDecaying() {
+		return wheel.size();
+	}
+
+	/**
+	 * Removes all items from the index
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		wheel.clear(null);
+	}
+}
@@ -44,6 +44,57 @@ public interface ItemServiceConfiguration extends ServiceConfiguration {
 	@ConfigurationXPath("drop/@persistent")
 	void setItemDropMode(ItemServiceDropMode mode);
 
+	/**
+	 * @return the time items persisted by the drop mode stay on the ground,
+	 *         in milliseconds. Zero or less if they never decay.
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "3600000")
+	@ConfigurationXPath("drop/decay/@persistent")
+	long getPersistentDecayTime();
+
+	/**
+	 * @param time
+	 *            the time items persisted by the drop mode stay on the ground,
+	 *            in milliseconds
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("drop/decay/@persistent")
+	void setPersistentDecayTime(long time);
+
+	/**
+	 * @return the time items not persisted by the drop mode stay on the
+	 *         ground, in milliseconds. Zero or less if they never decay.
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "180000")
+	@ConfigurationXPath("drop/decay/@transient")
+	long getTransientDecayTime();
+
+	/**
+	 * @param time
+	 *            the time items not persisted by the drop mode stay on the
+	 *            ground, in milliseconds
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("drop/decay/@transient")
+	void setTransientDecayTime(long time);
+
+	/**
+	 * @return the interval in which decayed items are removed, in
+	 *         milliseconds
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "1000")
+	@ConfigurationXPath("drop/decay/@resolution")
+	long getDecayResolution();
+
+	/**
+	 * @param resolution
+	 *            the interval in which decayed items are removed, in
+	 *            milliseconds
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("drop/decay/@resolution")
+	void setDecayResolution(long resolution);
+
 	/**
 	 * The drop modes available
 	 * 
@@ -18,6 +18,7 @@ package com.l2jserver.service.game.item;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
@@ -31,6 +32,7 @@ import com.l2jserver.model.world.Actor;
 import com.l2jserver.model.world.Item;
 import com.l2jserver.model.world.L2Character;
 import com.l2jserver.model.world.character.CharacterInventory.ItemLocation;
+import com.l2jserver.model.world.item.ItemDecayEvent;
 import com.l2jserver.model.world.item.ItemDropEvent;
 import com.l2jserver.model.world.item.ItemPickEvent;
 import com.l2jserver.service.AbstractConfigurableService;
@@ -38,7 +40,10 @@ import com.l2jserver.service.AbstractService.Depends;
 import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
 import com.l2jserver.service.core.threading.AsyncFuture;
+import com.l2jserver.service.core.threading.ScheduledAsyncFuture;
+import com.l2jserver.service.core.threading.ThreadService;
 import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 import com.l2jserver.service.game.character.CharacterAction;
 import com.l2jserver.service.game.character.CharacterInventoryItemDoesNotExistException;
 import com.l2jserver.service.game.character.CharacterInventoryItemExistsException;
@@ -50,12 +55,13 @@ import com.l2jserver.service.game.spawn.SpawnService;
 import com.l2jserver.service.game.world.WorldService;
 import com.l2jserver.service.game.world.event.WorldEventDispatcherService;
 import com.l2jserver.util.ArrayUtils;
+import com.l2jserver.util.factory.CollectionFactory;
 import com.l2jserver.util.geometry.Point3D;
 
 /**
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
-@Depends({ SpawnService.class, DatabaseService.class })
+@Depends({ SpawnService.class, DatabaseService.class, ThreadService.class })
 public class ItemServiceImpl extends
 		AbstractConfigurableService<ItemServiceConfiguration> implements
 		ItemService {
@@ -80,11 +86,24 @@ public class ItemServiceImpl extends
 	 * The {@link ItemID} provider
 	 */
 	private final ItemIDProvider itemIdProvider;
+	/**
+	 * The thread service
+	 */
+	private final ThreadService threadService;
+
+	/**
+	 * The amount of slots in the decay wheel
+	 */
+	private static final int DECAY_WHEEL_SLOTS = 512;
 
 	/**
-	 * All items on the ground persisted to the database
+	 * All items on the ground
+	 */
+	private GroundItemIndex items;
+	/**
+	 * The task removing decayed items
 	 */
-	private List<Item> items;
+	private ScheduledAsyncFuture decayTask;
 
 	/**
 	 * @param itemDao
@@ -97,33 +116,95 @@ public class ItemServiceImpl extends
 	 *            the character inventory service
 	 * @param itemIdProvider
 	 *            the {@link ItemID} provider
+	 * @param threadService
+	 *            the thread service
 	 */
 	@Inject
 	private ItemServiceImpl(ItemDAO itemDao, SpawnService spawnService,
 			WorldEventDispatcherService eventDispatcher,
 			CharacterInventoryService inventoryService,
-			ItemIDProvider itemIdProvider) {
+			ItemIDProvider itemIdProvider, ThreadService threadService) {
 		super(ItemServiceConfiguration.class);
 		this.itemDao = itemDao;
 		this.spawnService = spawnService;
 		this.eventDispatcher = eventDispatcher;
 		this.inventoryService = inventoryService;
 		this.itemIdProvider = itemIdProvider;
+		this.threadService = threadService;
 	}
 
 	@Override
 	protected void doStart() throws ServiceStartException {
 		logger.info("ItemService drop mode is {}", config.getItemDropMode());
-		items = itemDao.selectDroppedItems();
-		try {
-			for (final Item item : items) {
-				spawnService.spawn(item, null);
+		final long start = System.currentTimeMillis();
+		items = new GroundItemIndex(config.getDecayResolution(),
+				DECAY_WHEEL_SLOTS, start);
+		final ServiceStartException[] error = new ServiceStartException[1];
+		final int count = itemDao
+				.selectDroppedItems(new SelectCallback<Item>() {
+					@Override
+					public boolean select(Item item) {
+						try {
+							spawnService.bulkSpawn(item);
+							// the time on the ground is not persisted, loaded
+							// items start decaying again
+							items.add(item, start,
+									config.getPersistentDecayTime());
+							return true;
+						} catch (SpawnPointNotFoundServiceException
+								| AlreadySpawnedServiceException e) {
+							error[0] = new ServiceStartException(e);
+							return false;
+						}
+					}
+				});
+		if (error[0] != null)
+			throw error[0];
+		logger.info("Loaded {} items on the ground in {}ms", count,
+				System.currentTimeMillis() - start);
+
+		if (config.getPersistentDecayTime() > 0
+				|| config.getTransientDecayTime() > 0) {
+			final long resolution = config.getDecayResolution();
+			decayTask = threadService.async(resolution, TimeUnit.MILLISECONDS,
+					resolution, new Runnable() {
+						@Override
+						public void run() {
+							decay();
+						}
+					});
+		}
+	}
+
+	/**
+	 * Removes all items whose time on the ground has expired from the world.
+	 * Persisted items are deleted from the database in a single batch.
+	 */
+	private void decay() {
+		final List<Item> expired = items.expire(System.currentTimeMillis());
+		if (expired.isEmpty())
+			return;
+		final List<Item> delete = CollectionFactory.newList();
+		for (final Item item : expired) {
+			synchronized (item) {
+				// picked up after it expired, but before reaching this point
+				if (item.getLocation() != ItemLocation.GROUND)
+					continue;
+				item.setLocation(null);
+				try {
+					spawnService.unspawn(item);
+				} catch (NotSpawnedServiceException e) {
+					logger.debug("Decayed item {} was not spawned", item);
+				}
+				if (item.getObjectDesire() != ObjectDesire.TRANSIENT)
+					delete.add(item);
 			}
-		} catch (SpawnPointNotFoundServiceException e) {
-			throw new ServiceStartException(e);
-		} catch (AlreadySpawnedServiceException e) {
-			throw new ServiceStartException(e);
+			eventDispatcher.dispatch(new ItemDecayEvent(item));
 		}
+		if (!delete.isEmpty())
+			itemDao.deleteObjectsAsync(delete.toArray(new Item[delete.size()]));
+		logger.debug("{} items decayed, {} deleted from the database",
+				expired.size(), delete.size());
 	}
 
 	@Override
@@ -257,7 +338,7 @@ public class ItemServiceImpl extends
 			}
 
 			// character.getInventory().add(item);
-			this.items.remove(item);
+			this.items.remove(originalItem);
 
 			// removes transient state
 			if (item.equals(originalItem)
@@ -325,7 +406,9 @@ public class ItemServiceImpl extends
 					item.setObjectDesire(ObjectDesire.TRANSIENT);
 				}
 			}
-			items.add(item);
+			items.add(item, System.currentTimeMillis(),
+					persist ? config.getPersistentDecayTime() : config
+							.getTransientDecayTime());
 
 			return item;
 		}
@@ -342,12 +425,18 @@ public class ItemServiceImpl extends
 
 	@Override
 	protected void doStop() throws ServiceStopException {
+		if (decayTask != null) {
+			decayTask.cancel(false);
+			decayTask = null;
+		}
 		try {
-			for (final Item item : items) {
+			for (final Item item : items.getItems()) {
 				spawnService.unspawn(item);
 			}
 		} catch (NotSpawnedServiceException e) {
 			throw new ServiceStopException("Item is not spawned anymore", e);
+		} finally {
+			items.clear();
 		}
 	}
 }
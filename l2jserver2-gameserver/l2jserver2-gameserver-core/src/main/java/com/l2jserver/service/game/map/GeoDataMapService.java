@@ -16,11 +16,114 @@
  */
 package com.l2jserver.service.game.map;
 
-import com.l2jserver.service.AbstractService;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.google.inject.Inject;
+import com.l2jserver.model.world.PositionableObject;
+import com.l2jserver.service.AbstractConfigurableService;
+import com.l2jserver.service.AbstractService.Depends;
+import com.l2jserver.service.ServiceStartException;
+import com.l2jserver.service.ServiceStopException;
+import com.l2jserver.service.core.vfs.VFSService;
+import com.l2jserver.service.game.map.geodata.GeoData;
+import com.l2jserver.util.geometry.Coordinate;
+import com.l2jserver.util.geometry.Point3D;
 
 /**
+ * {@link MapService} implementation backed by L2J geodata files. Regions are
+ * only mapped into memory the first time they are queried.
+ * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
-public class GeoDataMapService extends AbstractService implements MapService {
+@Depends({ VFSService.class })
+public class GeoDataMapService extends
+		AbstractConfigurableService<GeoDataMapServiceConfiguration> implements
+		MapService {
+	/**
+	 * The {@link VFSService}
+	 */
+	private final VFSService vfsService;
+
+	/**
+	 * The world geodata
+	 */
+	private GeoData geodata;
+
+	/**
+	 * @param vfsService
+	 *            the vfs service
+	 */
+	@Inject
+	public GeoDataMapService(VFSService vfsService) {
+		super(GeoDataMapServiceConfiguration.class);
+		this.vfsService = vfsService;
+	}
+
+	@Override
+	protected void doStart() throws ServiceStartException {
+		Path directory = null;
+		if (config.isGeoDataEnabled()) {
+			directory = vfsService.resolveDataFile(config
+					.getGeoDataDirectory());
+			if (directory == null || !Files.isDirectory(directory)) {
+				logger.warn(
+						"Geodata directory {} not found, world will have no obstacles",
+						config.getGeoDataDirectory());
+				directory = null;
+			}
+		} else {
+			logger.info("Geodata is disabled, world will have no obstacles");
+		}
+		geodata = new GeoData(directory);
+	}
+
+	@Override
+	public boolean hasGeoData(int x, int y) {
+		return geodata.hasGeoData(GeoData.getGeoX(x), GeoData.getGeoY(y));
+	}
+
+	@Override
+	public int getHeight(int x, int y, int z) {
+		return geodata.getHeight(GeoData.getGeoX(x), GeoData.getGeoY(y), z);
+	}
+
+	@Override
+	public boolean canMoveTo(int x, int y, int z, int tx, int ty, int tz) {
+		return geodata.canMoveTo(x, y, z, tx, ty, tz);
+	}
+
+	@Override
+	public boolean canMoveTo(Coordinate from, Coordinate to) {
+		return geodata.canMoveTo(from.getX(), from.getY(), from.getZ(),
+				to.getX(), to.getY(), to.getZ());
+	}
+
+	@Override
+	public boolean canSeeTarget(int x, int y, int z, int tx, int ty, int tz) {
+		return geodata.canSeeTarget(x, y, z, tx, ty, tz);
+	}
+
+	@Override
+	public boolean canSeeTarget(PositionableObject object,
+			PositionableObject target) {
+		final Point3D point = object.getPoint();
+		final Point3D targetPoint = target.getPoint();
+		if (point == null || targetPoint == null)
+			return false;
+		return geodata.canSeeTarget(point.getX(), point.getY(), point.getZ(),
+				targetPoint.getX(), targetPoint.getY(), targetPoint.getZ());
+	}
+
+	@Override
+	public GeoData getGeoData() {
+		return geodata;
+	}
 
+	@Override
+	protected void doStop() throws ServiceStopException {
+		logger.info("{} geodata regions were loaded",
+				geodata.getLoadedRegionCount());
+		geodata = null;
+	}
 }
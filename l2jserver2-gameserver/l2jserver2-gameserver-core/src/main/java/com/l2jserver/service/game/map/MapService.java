@@ -16,7 +16,10 @@
  */
 package com.l2jserver.service.game.map;
 
+import com.l2jserver.model.world.PositionableObject;
 import com.l2jserver.service.Service;
+import com.l2jserver.service.game.map.geodata.GeoData;
+import com.l2jserver.util.geometry.Coordinate;
 
 /**
  * This service provides information about the world map
@@ -24,5 +27,93 @@ import com.l2jserver.service.Service;
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
 public interface MapService extends Service {
+	/**
+	 * @param x
+	 *            the world x
+	 * @param y
+	 *            the world y
+	 * @return true if there is map information for the given location
+	 */
+	boolean hasGeoData(int x, int y);
 
+	/**
+	 * Returns the ground height at the given location. If there are several
+	 * layers (e.g. a bridge), the one nearest to <tt>z</tt> is returned.
+	 * 
+	 * @param x
+	 *            the world x
+	 * @param y
+	 *            the world y
+	 * @param z
+	 *            the world z
+	 * @return the ground height. <tt>z</tt> if there is no map information.
+	 */
+	int getHeight(int x, int y, int z);
+
+	/**
+	 * Checks whether it is possible to walk in straight line between two
+	 * points
+	 * 
+	 * @param x
+	 *            the source world x
+	 * @param y
+	 *            the source world y
+	 * @param z
+	 *            the source world z
+	 * @param tx
+	 *            the target world x
+	 * @param ty
+	 *            the target world y
+	 * @param tz
+	 *            the target world z
+	 * @return true if the movement is possible
+	 */
+	boolean canMoveTo(int x, int y, int z, int tx, int ty, int tz);
+
+	/**
+	 * Checks whether it is possible to walk in straight line between two
+	 * points
+	 * 
+	 * @param from
+	 *            the source coordinate
+	 * @param to
+	 *            the target coordinate
+	 * @return true if the movement is possible
+	 */
+	boolean canMoveTo(Coordinate from, Coordinate to);
+
+	/**
+	 * Checks whether the line of sight between two points is free
+	 * 
+	 * @param x
+	 *            the source world x
+	 * @param y
+	 *            the source world y
+	 * @param z
+	 *            the source world z
+	 * @param tx
+	 *            the target world x
+	 * @param ty
+	 *            the target world y
+	 * @param tz
+	 *            the target world z
+	 * @return true if the target is visible from the source
+	 */
+	boolean canSeeTarget(int x, int y, int z, int tx, int ty, int tz);
+
+	/**
+	 * Checks whether <tt>target</tt> is visible from <tt>object</tt>
+	 * 
+	 * @param object
+	 *            the object looking
+	 * @param target
+	 *            the target
+	 * @return true if the target is visible
+	 */
+	boolean canSeeTarget(PositionableObject object, PositionableObject target);
+
+	/**
+	 * @return the world geodata, for cell level access
+	 */
+	GeoData getGeoData();
 }
@@ -16,39 +16,88 @@
  */
 package com.l2jserver.service.game.map;
 
-import com.l2jserver.util.geometry.Point;
-
 /**
- * Tiles are 2D only
+ * Tiles are 2D only. An tile is an single geodata cell: its position in the
+ * geodata grid, its height and the directions in which it is possible to move
+ * out of it (NSWE flags).
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
 public class Tile {
 	/**
-	 * The tile point
+	 * Flag set if it is possible to move east (increasing x)
+	 */
+	public static final int EAST = 1 << 0;
+	/**
+	 * Flag set if it is possible to move west (decreasing x)
+	 */
+	public static final int WEST = 1 << 1;
+	/**
+	 * Flag set if it is possible to move south (increasing y)
+	 */
+	public static final int SOUTH = 1 << 2;
+	/**
+	 * Flag set if it is possible to move north (decreasing y)
+	 */
+	public static final int NORTH = 1 << 3;
+	/**
+	 * All flags set. It is possible to move in any direction.
+	 */
+	public static final int ALL = EAST | WEST | SOUTH | NORTH;
+
+	/**
+	 * The tile geodata x
+	 */
+	private final int x;
+	/**
+	 * The tile geodata y
 	 */
-	private final Point point;
+	private final int y;
+	/**
+	 * The tile height
+	 */
+	private final short height;
 	/**
 	 * The tile flags
 	 */
 	private final byte flags;
 
 	/**
-	 * @param point
-	 *            the file point
+	 * @param x
+	 *            the tile geodata x
+	 * @param y
+	 *            the tile geodata y
+	 * @param height
+	 *            the tile height
 	 * @param flags
 	 *            the tile flags
 	 */
-	public Tile(Point point, byte flags) {
-		this.point = point;
+	public Tile(int x, int y, short height, byte flags) {
+		this.x = x;
+		this.y = y;
+		this.height = height;
 		this.flags = flags;
 	}
 
 	/**
-	 * @return the point
+	 * @return the tile geodata x
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * @return the tile geodata y
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * @return the tile height
 	 */
-	public Point getPoint() {
-		return point;
+	public short getHeight() {
+		return height;
 	}
 
 	/**
@@ -57,4 +106,14 @@ public class Tile {
 	public byte getFlags() {
 		return flags;
 	}
+
+	/**
+	 * @param direction
+	 *            the direction flag
+	 * @return true if it is possible to move out of this tile in the given
+	 *         direction
+	 */
+	public boolean canMove(int direction) {
+		return (flags & direction) == direction;
+	}
 }
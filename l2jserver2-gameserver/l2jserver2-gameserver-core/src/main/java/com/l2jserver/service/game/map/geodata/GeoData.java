@@ -0,0 +1,486 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.map.geodata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.l2jserver.service.game.map.Tile;
+
+/**
+ * The world geodata. Regions are loaded from <tt>{x}_{y}.l2j</tt> files in
+ * the geodata directory the first time they are queried; files in the default
+ * file system are memory mapped, any other are read into memory. Areas with
+ * no geodata file have no obstacles and all heights queried there are
+ * returned unchanged.
+ * <p>
+ * Once a region is loaded, queries do not allocate any memory and this class
+ * can be safely used by any amount of threads concurrently.
+ * <p>
+ * Coordinates in the geodata grid are called <i>geo coordinates</i>. Each geo
+ * coordinate unit is an {@link #CELL_SIZE 16 world units} cell.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class GeoData {
+	/**
+	 * The first region x
+	 */
+	public static final int REGION_X_MIN = 11;
+	/**
+	 * The last region x
+	 */
+	public static final int REGION_X_MAX = 26;
+	/**
+	 * The first region y
+	 */
+	public static final int REGION_Y_MIN = 10;
+	/**
+	 * The last region y
+	 */
+	public static final int REGION_Y_MAX = 26;
+	/**
+	 * The size of an region, in world units
+	 */
+	public static final int REGION_SIZE = 32768;
+	/**
+	 * The lowest world x covered by geodata
+	 */
+	public static final int WORLD_X_MIN = (REGION_X_MIN - 20) * REGION_SIZE;
+	/**
+	 * The lowest world y covered by geodata
+	 */
+	public static final int WORLD_Y_MIN = (REGION_Y_MIN - 18) * REGION_SIZE;
+	/**
+	 * The highest world x covered by geodata
+	 */
+	public static final int WORLD_X_MAX = (REGION_X_MAX - 19) * REGION_SIZE
+			- 1;
+	/**
+	 * The highest world y covered by geodata
+	 */
+	public static final int WORLD_Y_MAX = (REGION_Y_MAX - 17) * REGION_SIZE
+			- 1;
+	/**
+	 * The size of an cell, in world units
+	 */
+	public static final int CELL_SIZE = 16;
+	/**
+	 * The maximum height difference between two neighbor cells an actor can
+	 * climb
+	 */
+	public static final int MAX_CLIMB = 64;
+	/**
+	 * The height, above the ground, of the line of sight
+	 */
+	public static final int EYE_HEIGHT = 32;
+	/**
+	 * The height of walls (blocked NSWE directions) for line of sight checks
+	 */
+	public static final int WALL_HEIGHT = 64;
+
+	/**
+	 * The amount of regions in the x axis
+	 */
+	private static final int REGIONS_X = REGION_X_MAX - REGION_X_MIN + 1;
+	/**
+	 * The amount of regions in the y axis
+	 */
+	private static final int REGIONS_Y = REGION_Y_MAX - REGION_Y_MIN + 1;
+
+	/**
+	 * The logger
+	 */
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	/**
+	 * The directory containing the region files. If <tt>null</tt> no region
+	 * is ever loaded.
+	 */
+	private final Path directory;
+	/**
+	 * The regions, indexed by <tt>x * {@link #REGIONS_Y} + y</tt>.
+	 * <tt>null</tt> if the region has not been loaded yet and
+	 * {@link GeoDataRegion#EMPTY} if it does not have geodata.
+	 */
+	private final AtomicReferenceArray<GeoDataRegion> regions = new AtomicReferenceArray<>(
+			REGIONS_X * REGIONS_Y);
+
+	/**
+	 * @param directory
+	 *            the directory containing the region files. If
+	 *            <tt>null</tt>, there will be no geodata.
+	 */
+	public GeoData(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @param x
+	 *            the world x
+	 * @return the geo x
+	 */
+	public static int getGeoX(int x) {
+		return (x - WORLD_X_MIN) >> 4;
+	}
+
+	/**
+	 * @param y
+	 *            the world y
+	 * @return the geo y
+	 */
+	public static int getGeoY(int y) {
+		return (y - WORLD_Y_MIN) >> 4;
+	}
+
+	/**
+	 * @param geoX
+	 *            the geo x
+	 * @return the world x at the center of the cell
+	 */
+	public static int getWorldX(int geoX) {
+		return (geoX << 4) + WORLD_X_MIN + (CELL_SIZE >> 1);
+	}
+
+	/**
+	 * @param geoY
+	 *            the geo y
+	 * @return the world y at the center of the cell
+	 */
+	public static int getWorldY(int geoY) {
+		return (geoY << 4) + WORLD_Y_MIN + (CELL_SIZE >> 1);
+	}
+
+	/**
+	 * Returns the region for the given cell, loading it if needed
+	 * 
+	 * @param geoX
+	 *            the geo x
+	 * @param geoY
+	 *            the geo y
+	 * @return the region. {@link GeoDataRegion#EMPTY} if there is no
+	 *         geodata.
+	 */
+	private GeoDataRegion getRegion(int geoX, int geoY) {
+		final int rx = geoX >> 11;
+		final int ry = geoY >> 11;
+		if (geoX < 0 || geoY < 0 || rx >= REGIONS_X || ry >= REGIONS_Y)
+			return GeoDataRegion.EMPTY;
+		final int index = rx * REGIONS_Y + ry;
+		final GeoDataRegion region = regions.get(index);
+		if (region != null)
+			return region;
+		return load(index, rx + REGION_X_MIN, ry + REGION_Y_MIN);
+	}
+
+	/**
+	 * Loads an region
+	 * 
+	 * @param index
+	 *            the region index
+	 * @param rx
+	 *            the region x, as in the file name
+	 * @param ry
+	 *            the region y, as in the file name
+	 * @return the loaded region
+	 */
+	private synchronized GeoDataRegion load(int index, int rx, int ry) {
+		GeoDataRegion region = regions.get(index);
+		if (region != null)
+			return region;
+
+		region = GeoDataRegion.EMPTY;
+		if (directory != null) {
+			final Path file = directory.resolve(rx + "_" + ry + ".l2j");
+			if (Files.exists(file)) {
+				try {
+					region = new GeoDataRegion(map(file));
+					log.debug("Loaded geodata region {}_{} ({} bytes)",
+							new Object[] { rx, ry, region.getSize() });
+				} catch (IOException | IllegalArgumentException e) {
+					log.warn("Could not load geodata region " + rx + "_" + ry
+							+ ", region will have no geodata", e);
+				}
+			}
+		}
+		regions.set(index, region);
+		return region;
+	}
+
+	/**
+	 * @param file
+	 *            the region file
+	 * @return the region file data
+	 * @throws IOException
+	 *             if any error occur while reading the file
+	 */
+	private static ByteBuffer map(Path file) throws IOException {
+		if (file.getFileSystem() != FileSystems.getDefault())
+			return ByteBuffer.wrap(Files.readAllBytes(file)).order(
+					ByteOrder.LITTLE_ENDIAN);
+		try (final FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ)) {
+			return channel.map(MapMode.READ_ONLY, 0, channel.size()).order(
+					ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	/**
+	 * @param geoX
+	 *            the geo x
+	 * @param geoY
+	 *            the geo y
+	 * @param z
+	 *            the reference height
+	 * @return the cell height and NSWE flags, packed as
+	 *         <tt>height &lt;&lt; 4 | nswe</tt>
+	 */
+	private int getCell(int geoX, int geoY, int z) {
+		final GeoDataRegion region = getRegion(geoX, geoY);
+		if (region == GeoDataRegion.EMPTY)
+			return (z << 4) | Tile.ALL;
+		return region.getCell(geoX & (GeoDataRegion.CELLS - 1), geoY
+				& (GeoDataRegion.CELLS - 1), z);
+	}
+
+	/**
+	 * @param geoX
+	 *            the geo x
+	 * @param geoY
+	 *            the geo y
+	 * @return true if there is geodata for the given cell
+	 */
+	public boolean hasGeoData(int geoX, int geoY) {
+		return getRegion(geoX, geoY) != GeoDataRegion.EMPTY;
+	}
+
+	/**
+	 * @param geoX
+	 *            the geo x
+	 * @param geoY
+	 *            the geo y
+	 * @param z
+	 *            the reference height
+	 * @return the height of the cell layer nearest to <tt>z</tt>
+	 */
+	public int getHeight(int geoX, int geoY, int z) {
+		return getCell(geoX, geoY, z) >> 4;
+	}
+
+	/**
+	 * @param geoX
+	 *            the geo x
+	 * @param geoY
+	 *            the geo y
+	 * @param z
+	 *            the reference height
+	 * @return the NSWE flags of the cell layer nearest to <tt>z</tt>
+	 * @see Tile
+	 */
+	public int getNSWE(int geoX, int geoY, int z) {
+		return getCell(geoX, geoY, z) & Tile.ALL;
+	}
+
+	/**
+	 * Checks whether it is possible to move from an cell to one of its
+	 * neighbors. This does not check the height difference between them.
+	 * 
+	 * @param geoX
+	 *            the geo x
+	 * @param geoY
+	 *            the geo y
+	 * @param z
+	 *            the height
+	 * @param dx
+	 *            the x direction: -1, 0 or 1
+	 * @param dy
+	 *            the y direction: -1, 0 or 1
+	 * @return true if the movement is possible
+	 */
+	public boolean canStep(int geoX, int geoY, int z, int dx, int dy) {
+		final int direction = direction(dx, dy);
+		if ((getNSWE(geoX, geoY, z) & direction) != direction)
+			return false;
+		if (dx != 0 && dy != 0) {
+			// diagonal: the side cells must not block the way either
+			if ((getNSWE(geoX + dx, geoY, z) & direction(0, dy)) == 0)
+				return false;
+			if ((getNSWE(geoX, geoY + dy, z) & direction(dx, 0)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @param dx
+	 *            the x direction: -1, 0 or 1
+	 * @param dy
+	 *            the y direction: -1, 0 or 1
+	 * @return the NSWE flags needed to move in the given direction
+	 */
+	private static int direction(int dx, int dy) {
+		int direction = 0;
+		if (dx > 0)
+			direction |= Tile.EAST;
+		else if (dx < 0)
+			direction |= Tile.WEST;
+		if (dy > 0)
+			direction |= Tile.SOUTH;
+		else if (dy < 0)
+			direction |= Tile.NORTH;
+		return direction;
+	}
+
+	/**
+	 * Checks whether it is possible to walk in straight line between two
+	 * points
+	 * 
+	 * @param x
+	 *            the source world x
+	 * @param y
+	 *            the source world y
+	 * @param z
+	 *            the source world z
+	 * @param tx
+	 *            the target world x
+	 * @param ty
+	 *            the target world y
+	 * @param tz
+	 *            the target world z
+	 * @return true if the movement is possible
+	 */
+	public boolean canMoveTo(int x, int y, int z, int tx, int ty, int tz) {
+		int gx = getGeoX(x);
+		int gy = getGeoY(y);
+		final int tgx = getGeoX(tx);
+		final int tgy = getGeoY(ty);
+		int height = getHeight(gx, gy, z);
+
+		final int dx = Math.abs(tgx - gx);
+		final int dy = Math.abs(tgy - gy);
+		final int sx = Integer.signum(tgx - gx);
+		final int sy = Integer.signum(tgy - gy);
+		int error = dx - dy;
+		while (gx != tgx || gy != tgy) {
+			final int e2 = error << 1;
+			int stepX = 0;
+			int stepY = 0;
+			if (e2 > -dy) {
+				error -= dy;
+				stepX = sx;
+			}
+			if (e2 < dx) {
+				error += dx;
+				stepY = sy;
+			}
+			if (!canStep(gx, gy, height, stepX, stepY))
+				return false;
+			gx += stepX;
+			gy += stepY;
+			final int next = getHeight(gx, gy, height);
+			if (next - height > MAX_CLIMB)
+				return false;
+			height = next;
+		}
+		// must have arrived in the same layer as the target
+		return Math.abs(height - getHeight(tgx, tgy, tz)) <= MAX_CLIMB;
+	}
+
+	/**
+	 * Checks whether the line of sight between two points is free
+	 * 
+	 * @param x
+	 *            the source world x
+	 * @param y
+	 *            the source world y
+	 * @param z
+	 *            the source world z
+	 * @param tx
+	 *            the target world x
+	 * @param ty
+	 *            the target world y
+	 * @param tz
+	 *            the target world z
+	 * @return true if the target is visible from the source
+	 */
+	public boolean canSeeTarget(int x, int y, int z, int tx, int ty, int tz) {
+		int gx = getGeoX(x);
+		int gy = getGeoY(y);
+		final int tgx = getGeoX(tx);
+		final int tgy = getGeoY(ty);
+		final int dx = Math.abs(tgx - gx);
+		final int dy = Math.abs(tgy - gy);
+		final int steps = Math.max(dx, dy);
+		if (steps == 0)
+			return true;
+
+		final int sx = Integer.signum(tgx - gx);
+		final int sy = Integer.signum(tgy - gy);
+		final int eye = getHeight(gx, gy, z) + EYE_HEIGHT;
+		final int targetEye = getHeight(tgx, tgy, tz) + EYE_HEIGHT;
+		int height = eye - EYE_HEIGHT;
+		int error = dx - dy;
+		for (int step = 1; gx != tgx || gy != tgy; step++) {
+			final int e2 = error << 1;
+			int stepX = 0;
+			int stepY = 0;
+			if (e2 > -dy) {
+				error -= dy;
+				stepX = sx;
+			}
+			if (e2 < dx) {
+				error += dx;
+				stepY = sy;
+			}
+			final int line = eye + (targetEye - eye) * step / steps;
+			// a wall blocks the sight unless the line passes over it
+			if (line < height + WALL_HEIGHT
+					&& !canStep(gx, gy, height, stepX, stepY))
+				return false;
+			gx += stepX;
+			gy += stepY;
+			height = getHeight(gx, gy, line);
+			if (height > line)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the amount of regions loaded with geodata
+	 */
+	public int getLoadedRegionCount() {
+		int count = 0;
+		for (int i = 0; i < regions.length(); i++) {
+			final GeoDataRegion region = regions.get(i);
+			if (region != null && region != GeoDataRegion.EMPTY)
+				count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.map.geodata;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import com.l2jserver.service.game.map.Tile;
+
+/**
+ * An geodata region is an 32768x32768 world area, split in 256x256 blocks of
+ * 8x8 cells. Each cell is 16x16 world units. Blocks are stored in one of three
+ * formats:
+ * <ul>
+ * <li><b>flat</b>: a single height for all the block cells, movement allowed
+ * in every direction;</li>
+ * <li><b>complex</b>: a height and NSWE flags for each cell;</li>
+ * <li><b>multilayer</b>: any amount of height and NSWE layers for each cell
+ * (e.g. bridges, buildings with several floors).</li>
+ * </ul>
+ * Heights and flags are read directly from the region buffer, usually a
+ * read-only memory mapping of the region file. The only heap cost of a region
+ * is the block offset table.
+ * <p>
+ * Cell lookups return the height and the NSWE flags packed in a single
+ * <tt>int</tt>: <tt>height &lt;&lt; 4 | nswe</tt>.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class GeoDataRegion {
+	/**
+	 * The amount of blocks in each region axis
+	 */
+	public static final int BLOCKS = 256;
+	/**
+	 * The amount of cells in each block axis
+	 */
+	public static final int BLOCK_CELLS = 8;
+	/**
+	 * The amount of cells in each region axis
+	 */
+	public static final int CELLS = BLOCKS * BLOCK_CELLS;
+
+	/**
+	 * Flat block type
+	 */
+	private static final byte FLAT = 0;
+	/**
+	 * Complex block type
+	 */
+	private static final byte COMPLEX = 1;
+	/**
+	 * Multilayer block type
+	 */
+	private static final byte MULTILAYER = 2;
+
+	/**
+	 * Region without any geodata
+	 */
+	public static final GeoDataRegion EMPTY = new GeoDataRegion();
+
+	/**
+	 * The region data, little endian
+	 */
+	private final ByteBuffer buffer;
+	/**
+	 * The offset of each block in the {@link #buffer}, indexed by
+	 * <tt>blockX * 256 + blockY</tt>
+	 */
+	private final int[] offsets;
+
+	/**
+	 * Creates the {@link #EMPTY} region
+	 */
+	private GeoDataRegion() {
+		this.buffer = null;
+		this.offsets = null;
+	}
+
+	/**
+	 * Creates a new region, indexing all the blocks in the buffer
+	 * 
+	 * @param buffer
+	 *            the region data, little endian
+	 * @throws IllegalArgumentException
+	 *             if the region data is truncated or contains an unknown
+	 *             block type
+	 */
+	public GeoDataRegion(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.offsets = new int[BLOCKS * BLOCKS];
+
+		int offset = 0;
+		try {
+			for (int block = 0; block < offsets.length; block++) {
+				offsets[block] = offset;
+				switch (buffer.get(offset)) {
+				case FLAT:
+					offset += 1 + 2;
+					break;
+				case COMPLEX:
+					offset += 1 + BLOCK_CELLS * BLOCK_CELLS * 2;
+					break;
+				case MULTILAYER:
+					offset++;
+					for (int cell = 0; cell < BLOCK_CELLS * BLOCK_CELLS; cell++) {
+						offset += 1 + (buffer.get(offset) & 0xFF) * 2;
+					}
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown block type "
+							+ buffer.get(offset) + " at " + offset);
+				}
+			}
+			if (offset > buffer.limit())
+				throw new BufferUnderflowException();
+		} catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+			throw new IllegalArgumentException("Truncated geodata region", e);
+		}
+	}
+
+	/**
+	 * Returns the cell layer nearest to <tt>z</tt>
+	 * 
+	 * @param x
+	 *            the cell x, relative to the region
+	 * @param y
+	 *            the cell y, relative to the region
+	 * @param z
+	 *            the reference height
+	 * @return the cell height and NSWE flags, packed as
+	 *         <tt>height &lt;&lt; 4 | nswe</tt>
+	 */
+	public int getCell(int x, int y, int z) {
+		final int offset = offsets[(x >> 3) * BLOCKS + (y >> 3)];
+		final int cell = ((x & 7) << 3) + (y & 7);
+		switch (buffer.get(offset)) {
+		case FLAT:
+			return (buffer.getShort(offset + 1) << 4) | Tile.ALL;
+		case COMPLEX:
+			return unpack(buffer.getShort(offset + 1 + (cell << 1)));
+		default:
+			// multilayer: skip preceding cells, then pick the nearest layer
+			int position = offset + 1;
+			for (int i = 0; i < cell; i++) {
+				position += 1 + (buffer.get(position) & 0xFF) * 2;
+			}
+			final int layers = buffer.get(position++) & 0xFF;
+			if (layers == 0)
+				return (z << 4) | Tile.ALL;
+			int nearest = unpack(buffer.getShort(position));
+			int distance = Math.abs((nearest >> 4) - z);
+			for (int i = 1; i < layers; i++) {
+				final int layer = unpack(buffer.getShort(position + (i << 1)));
+				final int d = Math.abs((layer >> 4) - z);
+				if (d < distance) {
+					nearest = layer;
+					distance = d;
+				}
+			}
+			return nearest;
+		}
+	}
+
+	/**
+	 * @param value
+	 *            the stored cell value: height in the 12 upper bits (in
+	 *            half-units), NSWE in the 4 lower bits
+	 * @return the height and NSWE flags, packed as
+	 *         <tt>height &lt;&lt; 4 | nswe</tt>
+	 */
+	private static int unpack(short value) {
+		return ((((short) (value & 0xFFF0)) >> 1) << 4) | (value & 0x0F);
+	}
+
+	/**
+	 * @return the amount of bytes used by the region data
+	 */
+	public int getSize() {
+		return (buffer != null ? buffer.limit() : 0);
+	}
+}
@@ -0,0 +1,467 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.map.pathing;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.l2jserver.service.game.map.geodata.GeoData;
+import com.l2jserver.util.factory.CollectionFactory;
+import com.l2jserver.util.geometry.Point3D;
+
+/**
+ * A* search over the {@link GeoData} cell grid. Searches are bounded to a
+ * square window of {@link #radius} cells around the source and to
+ * {@link #maxIterations} expanded cells.
+ * <p>
+ * All search state is kept in primitive arrays that are allocated once per
+ * thread and reused by every search made on that thread: open and closed sets
+ * are generation stamped, so they never need to be cleared. The only objects
+ * allocated by a search are the resulting {@link Path} and its waypoints. This
+ * class can be used by any amount of threads concurrently.
+ * <p>
+ * The window is 2D: only one layer is tracked for each cell, the one reached
+ * first.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class AStarPathFinder {
+	/**
+	 * The cost of an straight step
+	 */
+	private static final int STRAIGHT_COST = 10;
+	/**
+	 * The cost of an diagonal step
+	 */
+	private static final int DIAGONAL_COST = 14;
+	/**
+	 * The x direction of each neighbor
+	 */
+	private static final int[] DX = { 1, -1, 0, 0, 1, 1, -1, -1 };
+	/**
+	 * The y direction of each neighbor
+	 */
+	private static final int[] DY = { 0, 0, 1, -1, 1, -1, 1, -1 };
+
+	/**
+	 * The geodata
+	 */
+	private final GeoData geodata;
+	/**
+	 * The search radius, in cells
+	 */
+	private final int radius;
+	/**
+	 * The maximum amount of cells expanded in a single search
+	 */
+	private final int maxIterations;
+	/**
+	 * The per-thread search state
+	 */
+	private final ThreadLocal<Search> searches = new ThreadLocal<Search>() {
+		@Override
+		protected Search initialValue() {
+			return new Search(radius * 2 + 1);
+		}
+	};
+
+	/**
+	 * @param geodata
+	 *            the geodata
+	 * @param radius
+	 *            the search radius, in cells
+	 * @param maxIterations
+	 *            the maximum amount of cells expanded in a single search
+	 */
+	public AStarPathFinder(GeoData geodata, int radius, int maxIterations) {
+		this.geodata = geodata;
+		this.radius = radius;
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Finds a path between two points
+	 * 
+	 * @param source
+	 *            the source point
+	 * @param target
+	 *            the target point
+	 * @return the path. <tt>null</tt> if the target is out of the search
+	 *         radius, unreachable or if the search was too long.
+	 */
+	public Path findPath(Point3D source, Point3D target) {
+		if (geodata.canMoveTo(source.getX(), source.getY(), source.getZ(),
+				target.getX(), target.getY(), target.getZ()))
+			return new WaypointPath(source, target);
+
+		final int sx = GeoData.getGeoX(source.getX());
+		final int sy = GeoData.getGeoY(source.getY());
+		final int tx = GeoData.getGeoX(target.getX());
+		final int ty = GeoData.getGeoY(target.getY());
+		if (Math.abs(tx - sx) > radius || Math.abs(ty - sy) > radius)
+			return null;
+
+		final Search search = searches.get();
+		final int length = search.search(sx, sy,
+				geodata.getHeight(sx, sy, source.getZ()), tx, ty,
+				geodata.getHeight(tx, ty, target.getZ()));
+		if (length < 0)
+			return null;
+		return smooth(search, length, source, target);
+	}
+
+	/**
+	 * Removes all the intermediate cells that can be skipped by walking in
+	 * straight line
+	 * 
+	 * @param search
+	 *            the search, containing the path cells
+	 * @param length
+	 *            the amount of cells in the path
+	 * @param source
+	 *            the source point
+	 * @param target
+	 *            the target point
+	 * @return the path
+	 */
+	private Path smooth(Search search, int length, Point3D source,
+			Point3D target) {
+		final List<Point3D> waypoints = CollectionFactory.newList();
+		int ax = source.getX();
+		int ay = source.getY();
+		int az = source.getZ();
+		for (int i = 1; i < length - 1; i++) {
+			final int next = search.path[i + 1];
+			if (geodata.canMoveTo(ax, ay, az, search.getWorldX(next),
+					search.getWorldY(next), search.height[next]))
+				continue;
+			final int cell = search.path[i];
+			ax = search.getWorldX(cell);
+			ay = search.getWorldY(cell);
+			az = search.height[cell];
+			waypoints.add(Point3D.fromXYZ(ax, ay, az));
+		}
+		waypoints.add(target);
+		return new WaypointPath(source, waypoints);
+	}
+
+	/**
+	 * The state of a search. Reused by all searches in the same thread.
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private class Search {
+		/**
+		 * The window size, in cells
+		 */
+		private final int size;
+		/**
+		 * The cost from the source to each cell
+		 */
+		private final int[] g;
+		/**
+		 * The estimated cost from the source to the target through each cell
+		 */
+		private final int[] f;
+		/**
+		 * The cell each cell was reached from
+		 */
+		private final int[] parent;
+		/**
+		 * The height of each cell
+		 */
+		private final int[] height;
+		/**
+		 * The generation in which each cell has been reached. Cells from older
+		 * generations have not been reached in the current search.
+		 */
+		private final int[] reached;
+		/**
+		 * The generation in which each cell has been closed
+		 */
+		private final int[] closed;
+		/**
+		 * The position of each open cell in the {@link #heap}
+		 */
+		private final int[] heapIndex;
+		/**
+		 * The open cells heap, ordered by {@link #f}
+		 */
+		private final int[] heap;
+		/**
+		 * The path cells, from source to target
+		 */
+		private final int[] path;
+		/**
+		 * The amount of cells in the {@link #heap}
+		 */
+		private int heapSize;
+		/**
+		 * The current generation
+		 */
+		private int generation;
+		/**
+		 * The geo x of the window origin
+		 */
+		private int originX;
+		/**
+		 * The geo y of the window origin
+		 */
+		private int originY;
+
+		/**
+		 * @param size
+		 *            the window size, in cells
+		 */
+		public Search(int size) {
+			this.size = size;
+			final int cells = size * size;
+			g = new int[cells];
+			f = new int[cells];
+			parent = new int[cells];
+			height = new int[cells];
+			reached = new int[cells];
+			closed = new int[cells];
+			heapIndex = new int[cells];
+			heap = new int[cells];
+			path = new int[cells];
+		}
+
+		/**
+		 * Searches a path between two cells
+		 * 
+		 * @param sx
+		 *            the source geo x
+		 * @param sy
+		 *            the source geo y
+		 * @param sz
+		 *            the source height
+		 * @param tx
+		 *            the target geo x
+		 * @param ty
+		 *            the target geo y
+		 * @param tz
+		 *            the target height
+		 * @return the amount of cells in the {@link #path}. -1 if no path has
+		 *         been found.
+		 */
+		public int search(int sx, int sy, int sz, int tx, int ty, int tz) {
+			if (++generation == Integer.MAX_VALUE) {
+				Arrays.fill(reached, 0);
+				Arrays.fill(closed, 0);
+				generation = 1;
+			}
+			originX = sx - radius;
+			originY = sy - radius;
+			heapSize = 0;
+
+			final int source = index(sx, sy);
+			final int target = index(tx, ty);
+			reached[source] = generation;
+			g[source] = 0;
+			f[source] = estimate(sx, sy, tx, ty);
+			parent[source] = -1;
+			height[source] = sz;
+			push(source);
+
+			int iterations = 0;
+			while (heapSize > 0) {
+				final int cell = pop();
+				if (cell == target
+						&& Math.abs(height[cell] - tz) <= GeoData.MAX_CLIMB)
+					return reconstruct(target);
+				if (++iterations > maxIterations)
+					return -1;
+				closed[cell] = generation;
+
+				final int x = cell / size;
+				final int y = cell - x * size;
+				final int gx = x + originX;
+				final int gy = y + originY;
+				final int z = height[cell];
+				for (int d = 0; d < DX.length; d++) {
+					final int nx = x + DX[d];
+					final int ny = y + DY[d];
+					if (nx < 0 || ny < 0 || nx >= size || ny >= size)
+						continue;
+					final int neighbor = nx * size + ny;
+					if (closed[neighbor] == generation)
+						continue;
+					if (!geodata.canStep(gx, gy, z, DX[d], DY[d]))
+						continue;
+					final int nz = geodata.getHeight(gx + DX[d], gy + DY[d], z);
+					if (nz - z > GeoData.MAX_CLIMB)
+						continue;
+
+					final int cost = g[cell]
+							+ (d < 4 ? STRAIGHT_COST : DIAGONAL_COST);
+					if (reached[neighbor] != generation) {
+						reached[neighbor] = generation;
+					} else if (cost >= g[neighbor]) {
+						continue;
+					} else {
+						// already open, with a higher cost
+						g[neighbor] = cost;
+						f[neighbor] = cost
+								+ estimate(nx + originX, ny + originY, tx, ty);
+						parent[neighbor] = cell;
+						height[neighbor] = nz;
+						siftUp(heapIndex[neighbor]);
+						continue;
+					}
+					g[neighbor] = cost;
+					f[neighbor] = cost
+							+ estimate(nx + originX, ny + originY, tx, ty);
+					parent[neighbor] = cell;
+					height[neighbor] = nz;
+					push(neighbor);
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Fills the {@link #path} from the source to the target
+		 * 
+		 * @param target
+		 *            the target cell
+		 * @return the amount of cells in the path
+		 */
+		private int reconstruct(int target) {
+			int length = 0;
+			for (int cell = target; cell != -1; cell = parent[cell]) {
+				path[length++] = cell;
+			}
+			for (int i = 0, j = length - 1; i < j; i++, j--) {
+				final int cell = path[i];
+				path[i] = path[j];
+				path[j] = cell;
+			}
+			return length;
+		}
+
+		/**
+		 * @param gx
+		 *            the geo x
+		 * @param gy
+		 *            the geo y
+		 * @return the cell index in the window
+		 */
+		private int index(int gx, int gy) {
+			return (gx - originX) * size + (gy - originY);
+		}
+
+		/**
+		 * @param cell
+		 *            the cell index in the window
+		 * @return the world x of the cell center
+		 */
+		public int getWorldX(int cell) {
+			return GeoData.getWorldX(cell / size + originX);
+		}
+
+		/**
+		 * @param cell
+		 *            the cell index in the window
+		 * @return the world y of the cell center
+		 */
+		public int getWorldY(int cell) {
+			return GeoData.getWorldY(cell % size + originY);
+		}
+
+		/**
+		 * @param x
+		 *            the geo x
+		 * @param y
+		 *            the geo y
+		 * @param tx
+		 *            the target geo x
+		 * @param ty
+		 *            the target geo y
+		 * @return the octile distance estimate
+		 */
+		private int estimate(int x, int y, int tx, int ty) {
+			final int dx = Math.abs(tx - x);
+			final int dy = Math.abs(ty - y);
+			return STRAIGHT_COST * Math.max(dx, dy)
+					+ (DIAGONAL_COST - STRAIGHT_COST) * Math.min(dx, dy);
+		}
+
+		/**
+		 * @param cell
+		 *            the cell to add to the open heap
+		 */
+		private void push(int cell) {
+			heap[heapSize] = cell;
+			heapIndex[cell] = heapSize;
+			siftUp(heapSize++);
+		}
+
+		/**
+		 * @return the open cell with the lowest {@link #f}
+		 */
+		private int pop() {
+			final int cell = heap[0];
+			final int last = heap[--heapSize];
+			if (heapSize > 0) {
+				heap[0] = last;
+				heapIndex[last] = 0;
+				siftDown(0);
+			}
+			return cell;
+		}
+
+		/**
+		 * @param i
+		 *            the heap position
+		 */
+		private void siftUp(int i) {
+			final int cell = heap[i];
+			while (i > 0) {
+				final int up = (i - 1) >>> 1;
+				if (f[heap[up]] <= f[cell])
+					break;
+				heap[i] = heap[up];
+				heapIndex[heap[i]] = i;
+				i = up;
+			}
+			heap[i] = cell;
+			heapIndex[cell] = i;
+		}
+
+		/**
+		 * @param i
+		 *            the heap position
+		 */
+		private void siftDown(int i) {
+			final int cell = heap[i];
+			final int half = heapSize >>> 1;
+			while (i < half) {
+				int child = (i << 1) + 1;
+				if (child + 1 < heapSize && f[heap[child + 1]] < f[heap[child]])
+					child++;
+				if (f[cell] <= f[heap[child]])
+					break;
+				heap[i] = heap[child];
+				heapIndex[heap[i]] = i;
+				i = child;
+			}
+			heap[i] = cell;
+			heapIndex[cell] = i;
+		}
+	}
+}
@@ -16,184 +16,164 @@
  */
 package com.l2jserver.service.game.map.pathing;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
+import com.google.inject.Inject;
 import com.l2jserver.model.world.PositionableObject;
-import com.l2jserver.service.AbstractService;
+import com.l2jserver.service.AbstractConfigurableService;
 import com.l2jserver.service.AbstractService.Depends;
-import com.l2jserver.service.game.character.CharacterService;
-import com.l2jserver.service.game.world.WorldService;
+import com.l2jserver.service.ServiceStartException;
+import com.l2jserver.service.ServiceStopException;
+import com.l2jserver.service.cache.Cache;
+import com.l2jserver.service.cache.CacheService;
+import com.l2jserver.service.game.map.MapService;
+import com.l2jserver.service.game.map.geodata.GeoData;
 import com.l2jserver.util.geometry.Point3D;
 
 /**
  * This {@link PathingService} implementation uses the A* algorithm to determine
- * the best path possible.
+ * the best path possible over the {@link MapService} geodata.
+ * <p>
+ * Found paths are cached by source and target cell, so that actors walking
+ * between the same cells (e.g. monsters chasing a player) do not search
+ * again. Cached paths keep the source and target of the first search. Since
+ * cells can have several layers (e.g. the floors of a building or a bridge
+ * and the ground under it), the height of the layer is part of the key.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
+ * @see AStarPathFinder
  */
-@Depends({ CharacterService.class, WorldService.class })
-public class AStarPathingService extends AbstractService implements
+@Depends({ MapService.class, CacheService.class })
+public class AStarPathingService extends
+		AbstractConfigurableService<AStarPathingServiceConfiguration> implements
 		PathingService {
 	/**
-	 * The logger
+	 * Cached in place of paths that could not be found
+	 */
+	private static final Path NO_PATH = new WaypointPath(null);
+
+	/**
+	 * The {@link MapService}
+	 */
+	private final MapService mapService;
+	/**
+	 * The {@link CacheService}
+	 */
+	private final CacheService cacheService;
+
+	/**
+	 * The geodata
 	 */
-	@SuppressWarnings("unused")
-	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private GeoData geodata;
+	/**
+	 * The path finder
+	 */
+	private AStarPathFinder finder;
+	/**
+	 * The path cache, keyed by source and target cell
+	 */
+	private Cache<PathKey, Path> cache;
+
+	/**
+	 * @param mapService
+	 *            the map service
+	 * @param cacheService
+	 *            the cache service
+	 */
+	@Inject
+	public AStarPathingService(MapService mapService, CacheService cacheService) {
+		super(AStarPathingServiceConfiguration.class);
+		this.mapService = mapService;
+		this.cacheService = cacheService;
+	}
+
+	@Override
+	protected void doStart() throws ServiceStartException {
+		geodata = mapService.getGeoData();
+		finder = new AStarPathFinder(geodata,
+				config.getSearchRadius(), config.getMaxIterations());
+		cache = cacheService.createCache("pathing", config.getCacheSize());
+	}
 
 	@Override
 	public Path findPath(PositionableObject object, Point3D point) {
-		return null;
+		final Point3D source = object.getPoint();
+		if (source == null)
+			return null;
+		final PathKey key = key(source, point);
+		final Path cached = cache.get(key);
+		if (cached != null)
+			return (cached != NO_PATH ? cached : null);
+
+		final Path path = finder.findPath(source, point);
+		cache.put(key, (path != null ? path : NO_PATH));
+		return path;
 	}
 
-	// public class Position {
-	// private double x;
-	//
-	// private double y;
-	// }
-	//
-	// public class Node {
-	//
-	// protected String id;
-	// }
-	//
-	// public class Edge {
-	//
-	// protected String from;
-	//
-	// protected String to;
-	//
-	// }
-	//
-	// public class Adjacency<N extends Node> {
-	// protected N node;
-	// protected Set<N> neighbors;
-	// }
-	//
-	// public class Graph<N extends Node, E extends Edge> {
-	//
-	// protected List<N> nodeList;
-	//
-	// protected List<E> edgeList;
-	//
-	// // Index for fast access
-	// private Map<String, Adjacency<N>> adjacency;
-	//
-	// // directed graph or not
-	// protected boolean diGraph;
-	// }
-	//
-	// public class NavNode extends Node {
-	// protected Position position;
-	// protected List<String> extraData;
-	// }
-	//
-	// public class NavEdge extends Edge {
-	// protected double cost;
-	// }
-	//
-	// public class NavGraph extends Graph<NavNode, NavEdge> {
-	//
-	// public void addConnection(String firstId, String secondId) {
-	// NavNode node1 = this.getNode(firstId);
-	// NavNode node2 = this.getNode(secondId);
-	// if (node1 != null && node2 != null) {
-	// double cost = this.calcManhattanDistance(node1, node2);
-	// NavEdge edge1 = new NavEdge(firstId, secondId, cost);
-	// NavEdge edge2 = new NavEdge(secondId, firstId, cost);
-	// this.addEdge(edge1);
-	// this.addEdge(edge2);
-	// }
-	// }
-	//
-	// public void removeConnection(String firstId, String secondId) {
-	// NavEdge edge1 = new NavEdge(firstId, secondId);
-	// NavEdge edge2 = new NavEdge(secondId, firstId);
-	// this.removeEdge(edge1);
-	// this.removeEdge(edge2);
-	// }
-	//
-	// public double calcManhattanDistance(NavNode a, NavNode b) {
-	// return abs(a.getPosition().getX() - b.getPosition().getX())
-	// + abs(a.getPosition().getY() - b.getPosition().getY());
-	// }
-	// }
-	//
-	// public class NavGraphLoader {
-	//
-	// public NavGraphData load(String filePath) {
-	// try {
-	// String json = this.readFileAsString(filePath);
-	// JSONReader reader = new JSONReader();
-	// Map map = (Map) reader.read(json);
-	// NavGraphData data = new NavGraphData();
-	// data.fromJSON(map);
-	//
-	// return data;
-	// } catch (IOException e) {
-	// throw new RuntimeException("Cannot read file " + filePath);
-	// }
-	// }
-	//
-	// String readFileAsString(String filePath) throws java.io.IOException {
-	// BufferedReader reader = new BufferedReader(new InputStreamReader(
-	// this.getClass().getResourceAsStream(filePath)));
-	// StringBuffer sb = new StringBuffer(4096);
-	//
-	// String line = reader.readLine();
-	// while (line != null) {
-	// sb.append(line);
-	// line = reader.readLine();
-	// }
-	//
-	// reader.close();
-	//
-	// return sb.toString();
-	// }
-	// }
-	//
-	// public class NavNodeData {
-	// private int min;
-	// private int max;
-	// private NavNode node;
-	//
-	// public NavNodeData() {
-	// }
-	//
-	// public NavNodeData(int min, int max, NavNode node) {
-	// this.min = min;
-	// this.max = max;
-	// this.node = node;
-	// }
-	//
-	// public int getMin() {
-	// return min;
-	// }
-	//
-	// public void setMin(int min) {
-	// this.min = min;
-	// }
-	//
-	// public int getMax() {
-	// return max;
-	// }
-	//
-	// public void setMax(int max) {
-	// this.max = max;
-	// }
-	//
-	// public NavNode getNode() {
-	// return node;
-	// }
-	//
-	// public void setNode(NavNode node) {
-	// this.node = node;
-	// }
-	// }
-	//
-	// public class MatrixPosition {
-	//
-	// private int row;
-	// private int column;
-	// }
+	/**
+	 * @param source
+	 *            the source point
+	 * @param target
+	 *            the target point
+	 * @return the cache key: source and target cells and layers
+	 */
+	private PathKey key(Point3D source, Point3D target) {
+		final int sx = GeoData.getGeoX(source.getX());
+		final int sy = GeoData.getGeoY(source.getY());
+		final int tx = GeoData.getGeoX(target.getX());
+		final int ty = GeoData.getGeoY(target.getY());
+		final int sz = geodata.getHeight(sx, sy, source.getZ());
+		final int tz = geodata.getHeight(tx, ty, target.getZ());
+		return new PathKey(((long) (sx & 0xFFFF) << 48)
+				| ((long) (sy & 0xFFFF) << 32) | ((long) (tx & 0xFFFF) << 16)
+				| (ty & 0xFFFF), ((sz & 0xFFFF) << 16) | (tz & 0xFFFF));
+	}
+
+	@Override
+	protected void doStop() throws ServiceStopException {
+		cacheService.dispose(cache);
+		cache = null;
+		finder = null;
+		geodata = null;
+	}
+
+	/**
+	 * The path cache key
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static final class PathKey {
+		/**
+		 * The source and target cells, 16 bits per coordinate
+		 */
+		private final long cells;
+		/**
+		 * The source and target layer heights, 16 bits each
+		 */
+		private final int layers;
+
+		/**
+		 * @param cells
+		 *            the source and target cells
+		 * @param layers
+		 *            the source and target layer heights
+		 */
+		private PathKey(long cells, int layers) {
+			this.cells = cells;
+			this.layers = layers;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (cells ^ (cells >>> 32)) * 31 + layers;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof PathKey))
+				return false;
+			final PathKey other = (PathKey) obj;
+			return cells == other.cells && layers == other.layers;
+		}
+	}
 }
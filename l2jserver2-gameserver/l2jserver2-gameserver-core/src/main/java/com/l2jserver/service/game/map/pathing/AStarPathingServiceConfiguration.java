@@ -0,0 +1,74 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.map.pathing;
+
+import com.l2jserver.service.ServiceConfiguration;
+import com.l2jserver.service.configuration.XMLConfigurationService.ConfigurationXPath;
+
+/**
+ * Configuration interface for {@link AStarPathingService}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public interface AStarPathingServiceConfiguration extends ServiceConfiguration {
+	/**
+	 * @return the maximum distance, in geodata cells, searched around the
+	 *         source
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "128")
+	@ConfigurationXPath("search/@radius")
+	int getSearchRadius();
+
+	/**
+	 * @param radius
+	 *            the maximum distance, in geodata cells, searched around the
+	 *            source
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("search/@radius")
+	void setSearchRadius(int radius);
+
+	/**
+	 * @return the maximum amount of cells expanded in a single search
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "10000")
+	@ConfigurationXPath("search/@max-iterations")
+	int getMaxIterations();
+
+	/**
+	 * @param iterations
+	 *            the maximum amount of cells expanded in a single search
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("search/@max-iterations")
+	void setMaxIterations(int iterations);
+
+	/**
+	 * @return the amount of paths kept in the path cache
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "4096")
+	@ConfigurationXPath("cache/@size")
+	int getCacheSize();
+
+	/**
+	 * @param size
+	 *            the amount of paths kept in the path cache
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("cache/@size")
+	void setCacheSize(int size);
+}
@@ -21,6 +21,7 @@ import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.WRITE;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -84,6 +85,10 @@ public class MapperPathingService extends AbstractService implements
 	 * The database channel, will remain open until service is stopped.
 	 */
 	private SeekableByteChannel channel;
+	/**
+	 * The coordinate struct, reused for every write to {@link #channel}
+	 */
+	private final CoordinateStruct struct = new CoordinateStruct();
 
 	/**
 	 * Creates a new instance
@@ -113,14 +118,18 @@ public class MapperPathingService extends AbstractService implements
 				CharacterMoveEvent.class) {
 			@Override
 			protected boolean dispatch(CharacterMoveEvent e) {
-				final Point3D point = e.getPoint();
-				final CoordinateStruct struct = CoordinateStruct
-						.fromCoordinate(point.getCoordinate());
-				try {
-					channel.write(struct.getByteBuffer());
-					// channel.force(true);
-				} catch (IOException e1) {
-					log.warn("Error writing pathing file!", e1);
+				synchronized (struct) {
+					struct.x.set(e.getX());
+					struct.y.set(e.getY());
+					struct.z.set(e.getZ());
+					final ByteBuffer buffer = struct.getByteBuffer();
+					buffer.clear();
+					try {
+						channel.write(buffer);
+						// channel.force(true);
+					} catch (IOException e1) {
+						log.warn("Error writing pathing file!", e1);
+					}
 				}
 				return true;
 			}
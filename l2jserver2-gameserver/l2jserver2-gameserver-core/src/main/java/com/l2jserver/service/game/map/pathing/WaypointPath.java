@@ -0,0 +1,52 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.map.pathing;
+
+import java.util.List;
+
+import com.l2jserver.util.geometry.Point3D;
+
+/**
+ * {@link Path} composed of straight line segments between waypoints
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class WaypointPath extends AbstractPath {
+	/**
+	 * Creates a new instance
+	 * 
+	 * @param source
+	 *            the source point
+	 * @param points
+	 *            the waypoints, the last one being the target
+	 */
+	public WaypointPath(Point3D source, Point3D... points) {
+		super(source, points);
+	}
+
+	/**
+	 * Creates a new instance
+	 * 
+	 * @param source
+	 *            the source point
+	 * @param points
+	 *            the waypoints, the last one being the target
+	 */
+	public WaypointPath(Point3D source, List<Point3D> points) {
+		super(source, points.toArray(new Point3D[points.size()]));
+	}
+}
@@ -22,11 +22,12 @@ import com.l2jserver.model.world.L2Character;
 import com.l2jserver.model.world.NPC;
 import com.l2jserver.model.world.npc.NPCController.NPCControllerException;
 import com.l2jserver.service.Service;
-import com.l2jserver.service.core.threading.AsyncFuture;
+import com.l2jserver.service.game.ai.AIService;
 import com.l2jserver.service.game.character.CannotSetTargetServiceException;
 import com.l2jserver.service.game.character.CharacterAction;
 import com.l2jserver.service.network.model.SystemMessage;
 import com.l2jserver.util.geometry.Point3D;
+import com.l2jserver.util.html.CompiledHtml;
 import com.l2jserver.util.html.markup.HtmlTemplate;
 
 /**
@@ -104,6 +105,36 @@ public interface NPCService extends Service {
 	 */
 	void talk(NPC npc, L2Character character, String html);
 
+	/**
+	 * Sends an compiled HTML message with the given <code>npc</code>
+	 * 
+	 * @param npc
+	 *            the {@link NPC} that is sending the message
+	 * @param character
+	 *            the {@link L2Character character} that is talking to the
+	 *            {@link NPC}
+	 * @param html
+	 *            the compiled html
+	 * @param values
+	 *            the html variable values
+	 */
+	void talk(NPC npc, L2Character character, CompiledHtml html,
+			String... values);
+
+	/**
+	 * Returns an chat page of the given template. Pages are parsed once and
+	 * cached by template and chat ID. The only page variable is
+	 * <tt>%objectId%</tt>, the talking NPC object ID.
+	 * 
+	 * @param template
+	 *            the {@link NPCTemplate}
+	 * @param id
+	 *            the chat ID, <code>null</code> or <tt>0</tt> for the default
+	 *            chat
+	 * @return the compiled chat page, <code>null</code> if not found
+	 */
+	CompiledHtml getChat(NPCTemplate template, String id);
+
 	/**
 	 * Kills the given <tt>npc</tt>. If "nobody" killed the NPC (i.e. died by
 	 * admin command), <tt>killer</tt> can be null.
@@ -116,15 +147,15 @@ public interface NPCService extends Service {
 	void die(NPC npc, Actor killer);
 
 	/**
-	 * Moves an given <tt>npc</tt> to an <tt>point</tt>
+	 * Moves an given <tt>npc</tt> to an <tt>point</tt>. The NPC walks towards
+	 * the point on every {@link AIService} tick until it arrives.
 	 * 
 	 * @param npc
 	 *            the NPC
 	 * @param point
 	 *            the destination point
-	 * @return the future informing once the NPC has been moved to that location
 	 */
-	AsyncFuture<Boolean> move(NPC npc, Point3D point);
+	void move(NPC npc, Point3D point);
 
 	/**
 	 * Attacks an given NPC, if possible.
@@ -17,7 +17,6 @@
 package com.l2jserver.service.game.npc;
 
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -28,8 +27,11 @@ import com.google.common.base.Preconditions;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.l2jserver.game.ai.desires.MoveDesire;
 import com.l2jserver.model.dao.NPCDAO;
+import com.l2jserver.model.id.template.NPCTemplateID;
 import com.l2jserver.model.template.NPCTemplate;
+import com.l2jserver.model.template.NPCTemplate.Talk.Chat;
 import com.l2jserver.model.world.Actor;
 import com.l2jserver.model.world.Actor.ActorState;
 import com.l2jserver.model.world.L2Character;
@@ -41,22 +43,25 @@ import com.l2jserver.model.world.npc.event.NPCTalkEvent;
 import com.l2jserver.service.AbstractService;
 import com.l2jserver.service.AbstractService.Depends;
 import com.l2jserver.service.ServiceStartException;
-import com.l2jserver.service.core.threading.AbstractTask;
-import com.l2jserver.service.core.threading.AsyncFuture;
 import com.l2jserver.service.core.threading.ThreadService;
 import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.database.DatabaseService.SelectCallback;
 import com.l2jserver.service.game.AttackService;
+import com.l2jserver.service.game.ai.AIService;
 import com.l2jserver.service.game.character.CannotSetTargetServiceException;
 import com.l2jserver.service.game.character.CharacterAction;
 import com.l2jserver.service.game.character.CharacterService;
 import com.l2jserver.service.game.spawn.AlreadySpawnedServiceException;
+import com.l2jserver.service.game.spawn.RespawnService;
 import com.l2jserver.service.game.spawn.SpawnPointNotFoundServiceException;
 import com.l2jserver.service.game.spawn.SpawnService;
 import com.l2jserver.service.game.world.WorldService;
 import com.l2jserver.service.game.world.event.WorldEventDispatcherService;
+import com.l2jserver.util.LogUtils;
 import com.l2jserver.util.exception.L2Exception;
 import com.l2jserver.util.factory.CollectionFactory;
 import com.l2jserver.util.geometry.Point3D;
+import com.l2jserver.util.html.CompiledHtml;
 import com.l2jserver.util.html.markup.HtmlTemplate;
 
 /**
@@ -64,9 +69,19 @@ import com.l2jserver.util.html.markup.HtmlTemplate;
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
-@Depends({ SpawnService.class, CharacterService.class, ThreadService.class,
-		AttackService.class, DatabaseService.class })
+@Depends({ SpawnService.class, RespawnService.class, CharacterService.class,
+		ThreadService.class, AttackService.class, AIService.class,
+		DatabaseService.class })
 public class NPCServiceImpl extends AbstractService implements NPCService {
+	/**
+	 * The desire power for NPC movements
+	 */
+	private static final int MOVE_DESIRE_POWER = 100;
+	/**
+	 * The time an NPC corpse is kept in the world, in milliseconds
+	 */
+	private static final long CORPSE_TIME = TimeUnit.SECONDS.toMillis(5);
+
 	/**
 	 * The logger
 	 */
@@ -76,6 +91,10 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 	 * The {@link SpawnService} used to spawn the {@link NPC} instances
 	 */
 	private final SpawnService spawnService;
+	/**
+	 * The {@link RespawnService} used to respawn dead {@link NPC} instances
+	 */
+	private final RespawnService respawnService;
 	/**
 	 * The {@link CharacterService}
 	 */
@@ -84,11 +103,16 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 	/**
 	 * The {@link ThreadService}
 	 */
+	@SuppressWarnings("unused")
 	private final ThreadService threadService;
 	/**
 	 * The {@link AttackService}
 	 */
 	private final AttackService attackService;
+	/**
+	 * The {@link AIService}
+	 */
+	private final AIService aiService;
 
 	/**
 	 * The {@link WorldService} event dispatcher
@@ -110,20 +134,26 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 	 */
 	private Map<Class<? extends NPCController>, NPCController> controllers = CollectionFactory
 			.newMap();
+
 	/**
-	 * List of all loaded NPCs
+	 * The compiled chat pages, by template and chat ID
 	 */
-	private Collection<NPC> npcs;
+	private final Map<NPCTemplateID, Map<String, CompiledHtml>> chats = CollectionFactory
+			.newConcurrentMap();
 
 	/**
 	 * @param spawnService
 	 *            the spawn service
+	 * @param respawnService
+	 *            the respawn service
 	 * @param characterService
 	 *            the character service
 	 * @param threadService
 	 *            the thread service
 	 * @param attackService
 	 *            the attack service
+	 * @param aiService
+	 *            the AI service
 	 * @param eventDispatcher
 	 *            the world service event dispatcher
 	 * @param npcDao
@@ -133,14 +163,17 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 	 */
 	@Inject
 	public NPCServiceImpl(SpawnService spawnService,
-			CharacterService characterService, ThreadService threadService,
-			AttackService attackService,
+			RespawnService respawnService, CharacterService characterService,
+			ThreadService threadService,
+			AttackService attackService, AIService aiService,
 			WorldEventDispatcherService eventDispatcher, NPCDAO npcDao,
 			Injector injector) {
 		this.spawnService = spawnService;
+		this.respawnService = respawnService;
 		this.characterService = characterService;
 		this.threadService = threadService;
 		this.attackService = attackService;
+		this.aiService = aiService;
 		this.eventDispatcher = eventDispatcher;
 		this.npcDao = npcDao;
 		this.injector = injector;
@@ -148,17 +181,36 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 
 	@Override
 	protected void doStart() throws ServiceStartException {
-		npcs = npcDao.loadAll();
-		try {
-			for (final NPC npc : npcs) {
-				spawnService.spawn(npc, null);
+		final long start = System.currentTimeMillis();
+		// NPCs are spawned as they are read, instead of loading all of them
+		// into a list first
+		final ServiceStartException[] error = new ServiceStartException[1];
+		final int count = npcDao.loadAll(new SelectCallback<NPC>() {
+			@Override
+			public boolean select(NPC npc) {
+				// NPCs that were dead when the server stopped keep their
+				// respawn time
+				final long remaining = npc.getNextRespawn() - start;
+				if (npc.getNextRespawn() != 0 && remaining > 0) {
+					respawnService.schedule(npc, 0, remaining,
+							TimeUnit.MILLISECONDS);
+					return true;
+				}
+				try {
+					spawnService.bulkSpawn(npc);
+					return true;
+				} catch (SpawnPointNotFoundServiceException
+						| AlreadySpawnedServiceException e) {
+					error[0] = new ServiceStartException(e);
+					return false;
+				}
 			}
-			log.info("Loaded {} NPC instances", npcs.size());
-		} catch (SpawnPointNotFoundServiceException e) {
-			throw new ServiceStartException(e);
-		} catch (AlreadySpawnedServiceException e) {
-			throw new ServiceStartException(e);
-		}
+		});
+		if (error[0] != null)
+			throw error[0];
+		log.info("Loaded {} NPC instances in {}ms, {} pending respawn",
+				new Object[] { count, System.currentTimeMillis() - start,
+						respawnService.getPending() });
 	}
 
 	@Override
@@ -169,8 +221,8 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 		Preconditions.checkNotNull(character, "character");
 		Preconditions.checkNotNull(action, "action");
 
-		log.debug("{} interacting with {} (action={})", new Object[] {
-				character, npc, action });
+		LogUtils.debug(log, "{} interacting with {} (action={})", character,
+				npc, action);
 
 		try {
 			final NPCController controller = getController(npc);
@@ -191,8 +243,9 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 		if (args == null)
 			args = new String[0];
 
-		log.debug("{} interacting with {} (args={})", new Object[] { character,
-				npc, Arrays.toString(args) });
+		if (log.isDebugEnabled())
+			log.debug("{} interacting with {} (args={})", new Object[] {
+					character, npc, Arrays.toString(args) });
 
 		try {
 			final NPCController controller = getController(npc);
@@ -218,6 +271,37 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 		eventDispatcher.dispatch(new NPCTalkEvent(npc, character, html));
 	}
 
+	@Override
+	public void talk(NPC npc, L2Character character, CompiledHtml html,
+			String... values) {
+		Preconditions.checkNotNull(npc, "npc");
+		Preconditions.checkNotNull(character, "character");
+		Preconditions.checkNotNull(html, "html");
+		eventDispatcher.dispatch(new NPCTalkEvent(npc, character, html,
+				values));
+	}
+
+	@Override
+	public CompiledHtml getChat(NPCTemplate template, String id) {
+		Preconditions.checkNotNull(template, "template");
+		if (template.getTalk() == null)
+			return null;
+		// id correction - on l2j default chat is also "0".
+		if ("0".equals(id) || id == null)
+			id = template.getTalk().getDefault();
+
+		Map<String, CompiledHtml> pages = chats.get(template.getID());
+		if (pages == null) {
+			pages = CollectionFactory.newMap();
+			for (final Chat chat : template.getTalk().getChat()) {
+				pages.put(chat.getId(), CompiledHtml.compile(chat.getValue(),
+						"%", "%", "objectId"));
+			}
+			chats.put(template.getID(), pages);
+		}
+		return pages.get(id);
+	}
+
 	@Override
 	public void die(NPC npc, Actor killer) {
 		Preconditions.checkNotNull(npc, "npc");
@@ -231,10 +315,9 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 		// dispatch die event
 		eventDispatcher.dispatch(new NPCDieEvent(npc, killer));
 
-		// schedule corpse removal -- npc will be kept in the world until then
-		spawnService.unspawn(npc, 5, TimeUnit.SECONDS);
-		// schedule an respawn
-		spawnService.spawn(npc, null, npc.getRespawnInterval(),
+		// schedule corpse removal and respawn -- npc will be kept in the world
+		// until the corpse is removed
+		respawnService.schedule(npc, CORPSE_TIME, npc.getRespawnInterval(),
 				TimeUnit.MILLISECONDS);
 
 		// reset hp and cp
@@ -243,29 +326,15 @@ public class NPCServiceImpl extends AbstractService implements NPCService {
 	}
 
 	@Override
-	public AsyncFuture<Boolean> move(final NPC npc, final Point3D point) {
+	public void move(NPC npc, Point3D point) {
+		Preconditions.checkNotNull(npc, "npc");
+		Preconditions.checkNotNull(point, "point");
 		if (!npc.isIdle())
 			// TODO throw an exception
-			return null;
-		npc.setState(ActorState.MOVING);
+			return;
 
 		log.debug("{} is moving to {}", npc, point);
-
-		// calculate walking time
-		final Point3D start = npc.getPoint();
-		final double distance = start.getDistance(point);
-		final double seconds = distance
-				/ npc.getTemplate().getInfo().getStats().getMove().getRun();
-		// TODO this is an dirty implementation!
-		return threadService.async((int) (seconds * 1000),
-				TimeUnit.MILLISECONDS, new AbstractTask<Boolean>() {
-					@Override
-					public Boolean call() throws Exception {
-						npc.setState(null);
-						npc.setPoint(point);
-						return false;
-					}
-				});
+		aiService.desire(npc, new MoveDesire(point, MOVE_DESIRE_POWER));
 	}
 
 	@Override
@@ -0,0 +1,88 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.scripting;
+
+/**
+ * Statistics of the compilation of an {@link ScriptContext}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class CompilationStatistics {
+	/**
+	 * The amount of source files in the context
+	 */
+	private final int sources;
+	/**
+	 * The amount of source files given to the compiler
+	 */
+	private final int compiledSources;
+	/**
+	 * The time taken to compile and load the context classes, in nanoseconds
+	 */
+	private final long time;
+
+	/**
+	 * @param sources
+	 *            the amount of source files in the context
+	 * @param compiledSources
+	 *            the amount of source files given to the compiler
+	 * @param time
+	 *            the time taken to compile and load the context classes, in
+	 *            nanoseconds
+	 */
+	public CompilationStatistics(int sources, int compiledSources, long time) {
+		this.sources = sources;
+		this.compiledSources = compiledSources;
+		this.time = time;
+	}
+
+	/**
+	 * @return the amount of source files in the context
+	 */
+	public int getSources() {
+		return sources;
+	}
+
+	/**
+	 * @return the amount of source files given to the compiler
+	 */
+	public int getCompiledSources() {
+		return compiledSources;
+	}
+
+	/**
+	 * @return the amount of source files whose classes were loaded from the
+	 *         class cache
+	 */
+	public int getCachedSources() {
+		return sources - compiledSources;
+	}
+
+	/**
+	 * @return the time taken to compile and load the context classes, in
+	 *         milliseconds
+	 */
+	public long getTime() {
+		return time / 1000000;
+	}
+
+	@Override
+	public String toString() {
+		return sources + " sources, " + compiledSources + " compiled, "
+				+ getCachedSources() + " from cache, in " + getTime() + " ms";
+	}
+}
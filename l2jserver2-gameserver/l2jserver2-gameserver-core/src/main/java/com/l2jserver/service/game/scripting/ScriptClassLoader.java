@@ -91,4 +91,24 @@ public abstract class ScriptClassLoader extends URLClassLoader {
 	 * @return unmodifiable set of class names that were compiled
 	 */
 	public abstract Set<String> getCompiledClasses();
+
+	/**
+	 * Returns the bytecode of a compiled class
+	 * 
+	 * @param className
+	 *            the class name
+	 * @return the class bytecode, <code>null</code> if the class was not
+	 *         compiled by this classloader
+	 */
+	public abstract byte[] getByteCode(String className);
+
+	/**
+	 * Returns the source file a class was compiled from
+	 * 
+	 * @param className
+	 *            the class name
+	 * @return the source file, <code>null</code> if unknown or if the class
+	 *         was not compiled by this classloader
+	 */
+	public abstract File getSourceFile(String className);
 }
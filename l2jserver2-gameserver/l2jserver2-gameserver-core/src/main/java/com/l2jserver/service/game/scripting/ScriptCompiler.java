@@ -17,6 +17,7 @@
 package com.l2jserver.service.game.scripting;
 
 import java.io.File;
+import java.util.Map;
 
 /**
  * This interface reperesents common functionality list that should be available
@@ -79,6 +80,28 @@ public interface ScriptCompiler {
 	 */
 	CompilationResult compile(Iterable<File> compilationUnits);
 
+	/**
+	 * Compiles list of files against classes compiled before. Those classes
+	 * are visible to the compiler and are loaded by the resulting classloader
+	 * as if they had been compiled along with the files.
+	 * 
+	 * @param compilationUnits
+	 *            list of files
+	 * @param compiledClasses
+	 *            the bytecode of the classes compiled before, by class name
+	 * @return {@link CompilationResult}
+	 */
+	CompilationResult compile(Iterable<File> compilationUnits,
+			Map<String, byte[]> compiledClasses);
+
+	/**
+	 * Returns the compiler version. Bytecode generated by different versions
+	 * is not reused.
+	 * 
+	 * @return the compiler version
+	 */
+	String getVersion();
+
 	/**
 	 * Returns array of supported file types. This files will be treated as
 	 * source files.
@@ -50,6 +50,15 @@ public interface ScriptContext {
 	 */
 	void reload();
 
+	/**
+	 * Compiles this context again and replaces its classes with the new ones.
+	 * Unlike {@link #reload()}, the current classes remain loaded (and in use)
+	 * while compiling and are only swapped once the new ones are ready. If
+	 * compilation fails, the current classes are kept. Child contexts are
+	 * recompiled against the new classes.
+	 */
+	void recompile();
+
 	/**
 	 * Returns the root directory for script engine. Only one script engine per
 	 * root directory is allowed.
@@ -154,6 +163,14 @@ public interface ScriptContext {
 	 */
 	ScriptClassLoader getClassLoader();
 
+	/**
+	 * Returns the statistics of the last compilation of this context
+	 * 
+	 * @return the compilation statistics, <code>null</code> if never
+	 *         initialized
+	 */
+	CompilationStatistics getCompilationStatistics();
+
 	/**
 	 * Tests if this ScriptContext is equal to another ScriptContext.
 	 * Comparation is done by comparing root files and parent contexts (if there
@@ -0,0 +1,90 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.scripting;
+
+import com.l2jserver.service.ServiceConfiguration;
+import com.l2jserver.service.configuration.XMLConfigurationService.ConfigurationXPath;
+
+/**
+ * Configuration interface for {@link ScriptingServiceImpl}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public interface ScriptingServiceConfiguration extends ServiceConfiguration {
+	/**
+	 * @return whether compiled script classes are cached on disk
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "true")
+	@ConfigurationXPath("cache/@enabled")
+	boolean isCacheEnabled();
+
+	/**
+	 * @param enabled
+	 *            whether compiled script classes are cached on disk
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("cache/@enabled")
+	void setCacheEnabled(boolean enabled);
+
+	/**
+	 * @return the directory where compiled script classes are cached
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "cache/scripts")
+	@ConfigurationXPath("cache/@directory")
+	String getCacheDirectory();
+
+	/**
+	 * @param directory
+	 *            the directory where compiled script classes are cached
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("cache/@directory")
+	void setCacheDirectory(String directory);
+
+	/**
+	 * @return whether script sources are watched and recompiled once changed
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "false")
+	@ConfigurationXPath("watch/@enabled")
+	boolean isWatchEnabled();
+
+	/**
+	 * @param enabled
+	 *            whether script sources are watched and recompiled once
+	 *            changed
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("watch/@enabled")
+	void setWatchEnabled(boolean enabled);
+
+	/**
+	 * @return the time without changes before a script context is recompiled,
+	 *         in milliseconds
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "500")
+	@ConfigurationXPath("watch/@delay")
+	long getWatchDelay();
+
+	/**
+	 * @param delay
+	 *            the time without changes before a script context is
+	 *            recompiled, in milliseconds
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("watch/@delay")
+	void setWatchDelay(long delay);
+}
@@ -17,6 +17,9 @@
 package com.l2jserver.service.game.scripting;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -32,24 +35,34 @@ import com.google.common.base.Preconditions;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
-import com.l2jserver.service.AbstractService;
+import com.l2jserver.service.AbstractConfigurableService;
 import com.l2jserver.service.AbstractService.Depends;
 import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
 import com.l2jserver.service.core.logging.LoggingService;
+import com.l2jserver.service.core.threading.ThreadPool;
+import com.l2jserver.service.core.threading.ThreadService;
+import com.l2jserver.service.game.scripting.impl.ScriptClassCache;
 import com.l2jserver.service.game.scripting.impl.ScriptContextImpl;
+import com.l2jserver.service.game.scripting.impl.ScriptContextWatcher;
 import com.l2jserver.service.game.scripting.scriptmanager.ScriptInfo;
 import com.l2jserver.service.game.scripting.scriptmanager.ScriptList;
 import com.l2jserver.util.factory.CollectionFactory;
 
 /**
- * This alternative {@link ScriptingService} uses an cache to speed up the
- * server startup at the cost of not being capable of recompiling templates.
+ * This {@link ScriptingService} compiles script contexts from their sources.
+ * Once started, compiled classes are cached on disk by {@link ScriptClassCache}
+ * and only sources that have changed (and the ones depending on them) are
+ * compiled again, on startup or on {@link #reload()}.
+ * <p>
+ * If enabled, a {@link ScriptContextWatcher} recompiles a context in background
+ * as soon as its sources change, swapping its classes once compiled.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
-@Depends(LoggingService.class)
-public class ScriptingServiceImpl extends AbstractService implements
+@Depends({ LoggingService.class, ThreadService.class })
+public class ScriptingServiceImpl extends
+		AbstractConfigurableService<ScriptingServiceConfiguration> implements
 		ScriptingService {
 	/**
 	 * Logger for script context
@@ -61,19 +74,43 @@ public class ScriptingServiceImpl extends AbstractService implements
 	 * The {@link Guice} {@link Injector}
 	 */
 	private final Injector injector;
+	/**
+	 * The {@link ThreadService}
+	 */
+	private final ThreadService threadService;
 
 	/**
 	 * Collection of script contexts
 	 */
 	private final Set<ScriptContext> contexts = CollectionFactory.newSet();
 
+	/**
+	 * The compiled class cache directory, <code>null</code> if caching is
+	 * disabled or the service is not started
+	 */
+	private Path cacheDirectory;
+
+	/**
+	 * The source watcher, <code>null</code> if watching is disabled or the
+	 * service is not started
+	 */
+	private ScriptContextWatcher watcher;
+	/**
+	 * The thread pool running the {@link #watcher}
+	 */
+	private ThreadPool watcherPool;
+
 	/**
 	 * @param injector
 	 *            the {@link Guice} {@link Injector}
+	 * @param threadService
+	 *            the {@link ThreadService}
 	 */
 	@Inject
-	public ScriptingServiceImpl(Injector injector) {
+	public ScriptingServiceImpl(Injector injector, ThreadService threadService) {
+		super(ScriptingServiceConfiguration.class);
 		this.injector = injector;
+		this.threadService = threadService;
 	}
 
 	@Override
@@ -81,6 +118,17 @@ public class ScriptingServiceImpl extends AbstractService implements
 		for (ScriptContext context : contexts) {
 			context.shutdown();
 		}
+		if (config.isCacheEnabled())
+			cacheDirectory = Paths.get(config.getCacheDirectory());
+		if (config.isWatchEnabled()) {
+			try {
+				watcher = new ScriptContextWatcher(config.getWatchDelay());
+			} catch (IOException e) {
+				throw new ServiceStartException(e);
+			}
+			watcherPool = threadService.createThreadPool("script-watcher", 1);
+			watcherPool.async(watcher);
+		}
 	}
 
 	/**
@@ -108,6 +156,8 @@ public class ScriptingServiceImpl extends AbstractService implements
 				this.contexts.add(context);
 				context.init();
 				contexts.add(context);
+				if (watcher != null)
+					watcher.watch(context);
 			}
 		}
 		return contexts;
@@ -175,6 +225,8 @@ public class ScriptingServiceImpl extends AbstractService implements
 			ctx = new ScriptContextImpl(injector, root, parent);
 			parent.addChildScriptContext(ctx);
 		}
+		if (cacheDirectory != null)
+			ctx.setClassCache(new ScriptClassCache(cacheDirectory, root));
 		return ctx;
 	}
 
@@ -191,5 +243,17 @@ public class ScriptingServiceImpl extends AbstractService implements
 			context.shutdown();
 		}
 		contexts.clear();
+		cacheDirectory = null;
+		if (watcher != null) {
+			try {
+				watcher.close();
+			} catch (IOException e) {
+				throw new ServiceStopException(e);
+			} finally {
+				threadService.dispose(watcherPool);
+				watcher = null;
+				watcherPool = null;
+			}
+		}
 	}
 }
@@ -52,6 +52,11 @@ public class BinaryClass implements JavaFileObject {
 	 */
 	private Class<?> definedClass;
 
+	/**
+	 * The source this class was compiled from, if known
+	 */
+	private URI source;
+
 	/**
 	 * Constructor that accepts class name as parameter
 	 * 
@@ -99,6 +104,15 @@ public class BinaryClass implements JavaFileObject {
 		return name + ".class";
 	}
 
+	/**
+	 * Returns the binary name of this class
+	 * 
+	 * @return the class name
+	 */
+	public String getClassName() {
+		return name;
+	}
+
 	/**
 	 * Creates new ByteArrayInputStream, it just wraps class binary data
 	 * 
@@ -206,6 +220,25 @@ public class BinaryClass implements JavaFileObject {
 		this.definedClass = definedClass;
 	}
 
+	/**
+	 * Returns the source this class was compiled from
+	 * 
+	 * @return the source URI, <code>null</code> if unknown
+	 */
+	public URI getSource() {
+		return source;
+	}
+
+	/**
+	 * Sets the source this class was compiled from
+	 * 
+	 * @param source
+	 *            the source URI
+	 */
+	public void setSource(URI source) {
+		this.source = source;
+	}
+
 	@Override
 	public Reader openReader(boolean ignoreEncodingErrors) throws IOException {
 		return new InputStreamReader(new ByteArrayInputStream(getBytes()));
@@ -0,0 +1,675 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.scripting.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.l2jserver.service.game.scripting.CompilationResult;
+import com.l2jserver.service.game.scripting.ScriptClassLoader;
+import com.l2jserver.service.game.scripting.ScriptCompiler;
+import com.l2jserver.service.game.scripting.ScriptContext;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Persistent cache of the classes compiled for an {@link ScriptContext}.
+ * <p>
+ * Classes are stored by the SHA-1 of their bytecode in an object directory
+ * shared by all contexts: identical classes are stored only once and stored
+ * objects are never modified. Each context has an index with the hash of every
+ * source file, the classes compiled from it and the other sources it depends
+ * on, as referenced by the class files constant pool. The index is only valid
+ * for the environment it was built in: the compiler version, the context
+ * libraries, the server class path and the sources of the parent context.
+ * <p>
+ * Only new sources, sources that have changed and the sources depending on
+ * them (or on removed sources) are given to the compiler, all other classes
+ * are read from the cache. Dependencies on inlined constants are not visible in
+ * class files and are not tracked.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ScriptClassCache {
+	/**
+	 * The logger
+	 */
+	private static final Logger log = LoggerFactory
+			.getLogger(ScriptClassCache.class);
+
+	/**
+	 * The index file format version
+	 */
+	private static final int VERSION = 1;
+	/**
+	 * The UTF-8 charset
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	/**
+	 * Matches class references in descriptors and signatures
+	 */
+	private static final Pattern REFERENCE = Pattern.compile("L([^;<>\\[]+)[;<]");
+
+	/**
+	 * The context root
+	 */
+	private final File root;
+	/**
+	 * The directory holding the classes, by bytecode hash
+	 */
+	private final Path objects;
+	/**
+	 * The context index file
+	 */
+	private final Path index;
+
+	/**
+	 * The environment of the indexed sources
+	 */
+	private String environment;
+	/**
+	 * The indexed sources, by path relative to the context root
+	 */
+	private Map<String, Source> sources;
+	/**
+	 * The hash of the environment and sources of the last compilation
+	 */
+	private String fingerprint;
+	/**
+	 * The amount of sources given to the compiler in the last compilation
+	 */
+	private int compiledSources;
+
+	/**
+	 * @param directory
+	 *            the cache directory
+	 * @param root
+	 *            the context root
+	 */
+	public ScriptClassCache(Path directory, File root) {
+		this.root = root.getAbsoluteFile();
+		this.objects = directory.resolve("objects");
+		this.index = directory.resolve("contexts").resolve(
+				hash(this.root.getPath().getBytes(UTF8)) + ".index");
+	}
+
+	/**
+	 * Compiles the context sources, reusing the cached classes of the sources
+	 * that have not changed
+	 * 
+	 * @param compiler
+	 *            the compiler
+	 * @param files
+	 *            the context source files
+	 * @param libraries
+	 *            the context libraries, can be <code>null</code>
+	 * @param parent
+	 *            the parent context fingerprint, <code>null</code> if there
+	 *            is no parent context
+	 * @return the compilation result
+	 * @throws IOException
+	 *             if any of the sources or libraries could not be read. The
+	 *             compiler is not used if thrown.
+	 * @see #getFingerprint()
+	 */
+	public synchronized CompilationResult compile(ScriptCompiler compiler,
+			Collection<File> files, Iterable<File> libraries, String parent)
+			throws IOException {
+		final String environment = environment(compiler, libraries, parent);
+		final Map<String, File> paths = new TreeMap<String, File>();
+		final Map<String, String> hashes = CollectionFactory.newMap();
+		for (final File file : files) {
+			final String path = relativize(file);
+			paths.put(path, file);
+			hashes.put(path, hash(Files.readAllBytes(file.toPath())));
+		}
+
+		if (sources == null)
+			load();
+		final Set<String> dirty = CollectionFactory.newSet();
+		if (sources == null || !environment.equals(this.environment)) {
+			dirty.addAll(paths.keySet());
+		} else {
+			final LinkedList<String> changed = new LinkedList<String>();
+			for (final String path : paths.keySet()) {
+				final Source source = sources.get(path);
+				if (source == null || !source.hash.equals(hashes.get(path)))
+					changed.add(path);
+			}
+			for (final String path : sources.keySet()) {
+				if (!paths.containsKey(path))
+					changed.add(path);
+			}
+			dirty.addAll(changed);
+			while (!changed.isEmpty()) {
+				final String path = changed.removeFirst();
+				for (final Entry<String, Source> entry : sources.entrySet()) {
+					if (entry.getValue().dependencies.contains(path)
+							&& dirty.add(entry.getKey()))
+						changed.add(entry.getKey());
+				}
+			}
+			dirty.retainAll(paths.keySet());
+		}
+
+		final Map<String, byte[]> cached = CollectionFactory.newMap();
+		for (final String path : paths.keySet()) {
+			if (dirty.contains(path))
+				continue;
+			final Map<String, byte[]> classes = CollectionFactory.newMap();
+			for (final Entry<String, String> entry : sources.get(path).classes
+					.entrySet()) {
+				final byte[] bytecode = readObject(entry.getValue());
+				if (bytecode == null)
+					break;
+				classes.put(entry.getKey(), bytecode);
+			}
+			if (classes.size() == sources.get(path).classes.size())
+				cached.putAll(classes);
+			else
+				dirty.add(path);
+		}
+
+		final List<File> units = CollectionFactory.newList();
+		for (final String path : dirty) {
+			units.add(paths.get(path));
+		}
+		final CompilationResult result = compiler.compile(units, cached);
+		compiledSources = dirty.size();
+		update(result.getClassLoader(), environment, paths.keySet(), hashes,
+				dirty, cached);
+		return result;
+	}
+
+	/**
+	 * Updates the index after an compilation
+	 * 
+	 * @param cl
+	 *            the compilation class loader
+	 * @param environment
+	 *            the compilation environment
+	 * @param paths
+	 *            the source paths, sorted
+	 * @param hashes
+	 *            the source hashes
+	 * @param dirty
+	 *            the paths of the sources that were compiled
+	 * @param cached
+	 *            the classes read from the cache
+	 */
+	private void update(ScriptClassLoader cl, String environment,
+			Set<String> paths, Map<String, String> hashes, Set<String> dirty,
+			Map<String, byte[]> cached) {
+		final Map<String, Source> updated = CollectionFactory.newMap();
+		final Map<String, String> owners = CollectionFactory.newMap();
+		for (final String path : paths) {
+			if (dirty.contains(path)) {
+				updated.put(path, new Source(hashes.get(path)));
+			} else {
+				final Source source = sources.get(path);
+				updated.put(path, source);
+				for (final String className : source.classes.keySet()) {
+					owners.put(className, path);
+				}
+			}
+		}
+
+		final Map<String, byte[]> compiled = CollectionFactory.newMap();
+		boolean complete = true;
+		for (final String className : cl.getCompiledClasses()) {
+			if (cached.containsKey(className))
+				continue;
+			final File file = cl.getSourceFile(className);
+			final String path = (file != null ? relativize(file) : null);
+			if (path == null || !dirty.contains(path)) {
+				complete = false;
+				continue;
+			}
+			final byte[] bytecode = cl.getByteCode(className);
+			try {
+				updated.get(path).classes.put(className, writeObject(bytecode));
+			} catch (IOException e) {
+				log.warn("Could not write class {} to the cache", className, e);
+				complete = false;
+			}
+			owners.put(className, path);
+			compiled.put(className, bytecode);
+		}
+		for (final Entry<String, byte[]> entry : compiled.entrySet()) {
+			final String path = owners.get(entry.getKey());
+			final Set<String> dependencies = updated.get(path).dependencies;
+			for (final String className : references(entry.getValue())) {
+				final String owner = owners.get(className);
+				if (owner != null && !owner.equals(path))
+					dependencies.add(owner);
+			}
+		}
+
+		this.environment = environment;
+		this.fingerprint = fingerprint(environment, paths, hashes);
+		if (!complete) {
+			// next compilation will compile everything again
+			log.warn("Could not cache all classes compiled in {}", root);
+			this.sources = null;
+			return;
+		}
+		this.sources = updated;
+		try {
+			save();
+		} catch (IOException e) {
+			log.warn("Could not write the script class index of {}", root, e);
+		}
+	}
+
+	/**
+	 * Returns an hash of the environment and sources of the last compilation.
+	 * Child contexts use it as part of their environment.
+	 * 
+	 * @return the fingerprint of the last compilation, <code>null</code> if
+	 *         never compiled
+	 */
+	public synchronized String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * @return the amount of sources given to the compiler in the last
+	 *         compilation
+	 */
+	public synchronized int getCompiledSources() {
+		return compiledSources;
+	}
+
+	/**
+	 * Removes the index of this context. Stored classes are kept, since they
+	 * might be used by other contexts.
+	 * 
+	 * @throws IOException
+	 *             if the index could not be deleted
+	 */
+	public synchronized void invalidate() throws IOException {
+		sources = null;
+		environment = null;
+		Files.deleteIfExists(index);
+	}
+
+	/**
+	 * Loads the index from disk. If the index does not exist or cannot be
+	 * read, {@link #sources} will be <code>null</code>.
+	 */
+	private void load() {
+		final Map<String, Source> sources = CollectionFactory.newMap();
+		try (final DataInputStream in = new DataInputStream(
+				Files.newInputStream(index))) {
+			if (in.readInt() != VERSION)
+				return;
+			final String environment = in.readUTF();
+			for (int i = in.readInt(); i > 0; i--) {
+				final String path = in.readUTF();
+				final Source source = new Source(in.readUTF());
+				for (int j = in.readInt(); j > 0; j--) {
+					source.classes.put(in.readUTF(), in.readUTF());
+				}
+				for (int j = in.readInt(); j > 0; j--) {
+					source.dependencies.add(in.readUTF());
+				}
+				sources.put(path, source);
+			}
+			this.environment = environment;
+			this.sources = sources;
+		} catch (NoSuchFileException e) {
+			return;
+		} catch (IOException e) {
+			log.warn("Could not read the script class index of {}", root, e);
+		}
+	}
+
+	/**
+	 * Writes the index to disk
+	 * 
+	 * @throws IOException
+	 *             if any error occur while writing the index
+	 */
+	private void save() throws IOException {
+		Files.createDirectories(index.getParent());
+		final Path temp = Files.createTempFile(index.getParent(), null, null);
+		try (final DataOutputStream out = new DataOutputStream(
+				Files.newOutputStream(temp))) {
+			out.writeInt(VERSION);
+			out.writeUTF(environment);
+			out.writeInt(sources.size());
+			for (final Entry<String, Source> entry : sources.entrySet()) {
+				final Source source = entry.getValue();
+				out.writeUTF(entry.getKey());
+				out.writeUTF(source.hash);
+				out.writeInt(source.classes.size());
+				for (final Entry<String, String> c : source.classes.entrySet()) {
+					out.writeUTF(c.getKey());
+					out.writeUTF(c.getValue());
+				}
+				out.writeInt(source.dependencies.size());
+				for (final String dependency : source.dependencies) {
+					out.writeUTF(dependency);
+				}
+			}
+		}
+		Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param hash
+	 *            the bytecode hash
+	 * @return the stored bytecode, <code>null</code> if not stored or
+	 *         unreadable
+	 */
+	private byte[] readObject(String hash) {
+		try {
+			final byte[] bytecode = Files.readAllBytes(objects.resolve(hash
+					+ ".class"));
+			if (hash(bytecode).equals(hash))
+				return bytecode;
+			log.warn("Cached script class {} is corrupt", hash);
+		} catch (NoSuchFileException e) {
+		} catch (IOException e) {
+			log.warn("Could not read cached script class {}", hash, e);
+		}
+		return null;
+	}
+
+	/**
+	 * Stores an bytecode, unless already stored
+	 * 
+	 * @param bytecode
+	 *            the bytecode
+	 * @return the bytecode hash
+	 * @throws IOException
+	 *             if the bytecode could not be written
+	 */
+	private String writeObject(byte[] bytecode) throws IOException {
+		final String hash = hash(bytecode);
+		final Path file = objects.resolve(hash + ".class");
+		if (Files.exists(file))
+			return hash;
+		Files.createDirectories(objects);
+		final Path temp = Files.createTempFile(objects, null, null);
+		try (final OutputStream out = Files.newOutputStream(temp)) {
+			out.write(bytecode);
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		return hash;
+	}
+
+	/**
+	 * @param file
+	 *            the source file
+	 * @return the file path, relative to the context root
+	 */
+	private String relativize(File file) {
+		return root.toPath().relativize(file.getAbsoluteFile().toPath())
+				.toString().replace(File.separatorChar, '/');
+	}
+
+	/**
+	 * Computes the hash of the compilation environment
+	 * 
+	 * @param compiler
+	 *            the compiler
+	 * @param libraries
+	 *            the context libraries
+	 * @param parent
+	 *            the parent context fingerprint
+	 * @return the environment hash
+	 * @throws IOException
+	 *             if any of the libraries could not be read
+	 */
+	private static String environment(ScriptCompiler compiler,
+			Iterable<File> libraries, String parent) throws IOException {
+		final StringBuilder environment = new StringBuilder();
+		environment.append(compiler.getClass().getName()).append('\n');
+		environment.append(compiler.getVersion()).append('\n');
+		environment.append(parent).append('\n');
+		if (libraries != null) {
+			for (final File library : libraries) {
+				environment.append(library.getPath()).append(':')
+						.append(hash(Files.readAllBytes(library.toPath())))
+						.append('\n');
+			}
+		}
+		// the server classes, scripts are compiled against them
+		for (final String entry : System.getProperty("java.class.path").split(
+				File.pathSeparator)) {
+			environment.append(entry).append(':')
+					.append(lastModified(new File(entry).toPath()))
+					.append('\n');
+		}
+		return hash(environment.toString().getBytes(UTF8));
+	}
+
+	/**
+	 * @param environment
+	 *            the environment hash
+	 * @param paths
+	 *            the source paths, sorted
+	 * @param hashes
+	 *            the source hashes
+	 * @return the hash of the environment and sources
+	 */
+	private static String fingerprint(String environment, Set<String> paths,
+			Map<String, String> hashes) {
+		final StringBuilder fingerprint = new StringBuilder(environment);
+		for (final String path : paths) {
+			fingerprint.append('\n').append(path).append(':')
+					.append(hashes.get(path));
+		}
+		return hash(fingerprint.toString().getBytes(UTF8));
+	}
+
+	/**
+	 * Returns the last modification time of a file or, for directories, of
+	 * the most recently modified file inside it
+	 * 
+	 * @param path
+	 *            the file or directory
+	 * @return the last modification time, 0 if it does not exist
+	 * @throws IOException
+	 *             if the directory could not be read
+	 */
+	private static long lastModified(Path path) throws IOException {
+		if (!Files.isDirectory(path))
+			return path.toFile().lastModified();
+		final long[] lastModified = new long[1];
+		Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file,
+					BasicFileAttributes attrs) throws IOException {
+				lastModified[0] = Math.max(lastModified[0], attrs
+						.lastModifiedTime().toMillis());
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return lastModified[0];
+	}
+
+	/**
+	 * Lists the classes referenced by an class file constant pool
+	 * 
+	 * @param bytecode
+	 *            the class file
+	 * @return the binary names of the referenced classes
+	 * @throws IllegalArgumentException
+	 *             if the class file is not valid
+	 */
+	static Set<String> references(byte[] bytecode) {
+		final Set<String> references = CollectionFactory.newSet();
+		try (final DataInputStream in = new DataInputStream(
+				new ByteArrayInputStream(bytecode))) {
+			if (in.readInt() != 0xCAFEBABE)
+				throw new IllegalArgumentException("Not an class file");
+			in.readUnsignedShort(); // minor version
+			in.readUnsignedShort(); // major version
+			final int count = in.readUnsignedShort();
+			final String[] strings = new String[count];
+			final int[] classes = new int[count];
+			int classCount = 0;
+			for (int i = 1; i < count; i++) {
+				final int tag = in.readUnsignedByte();
+				switch (tag) {
+				case 1: // Utf8
+					strings[i] = in.readUTF();
+					break;
+				case 7: // Class
+					classes[classCount++] = in.readUnsignedShort();
+					break;
+				case 8: // String
+				case 16: // MethodType
+					skip(in, 2);
+					break;
+				case 15: // MethodHandle
+					skip(in, 3);
+					break;
+				case 3: // Integer
+				case 4: // Float
+				case 9: // Fieldref
+				case 10: // Methodref
+				case 11: // InterfaceMethodref
+				case 12: // NameAndType
+				case 18: // InvokeDynamic
+					skip(in, 4);
+					break;
+				case 5: // Long
+				case 6: // Double
+					skip(in, 8);
+					i++;
+					break;
+				default:
+					throw new IllegalArgumentException(
+							"Unknown constant pool tag " + tag);
+				}
+			}
+			for (int i = 0; i < classCount; i++) {
+				final String name = strings[classes[i]];
+				if (name != null && name.charAt(0) != '[')
+					references.add(name.replace('/', '.'));
+			}
+			// descriptors and generic signatures
+			for (final String string : strings) {
+				if (string == null || string.indexOf(';') < 0)
+					continue;
+				final Matcher matcher = REFERENCE.matcher(string);
+				while (matcher.find()) {
+					references.add(matcher.group(1).replace('/', '.'));
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid class file", e);
+		}
+		return references;
+	}
+
+	/**
+	 * @param in
+	 *            the input stream
+	 * @param bytes
+	 *            the amount of bytes to skip
+	 * @throws IOException
+	 *             if the stream ended
+	 */
+	private static void skip(InputStream in, int bytes) throws IOException {
+		for (int i = 0; i < bytes; i++) {
+			if (in.read() < 0)
+				throw new IOException("Unexpected end of class file");
+		}
+	}
+
+	/**
+	 * @param data
+	 *            the data
+	 * @return the SHA-1 hash of <code>data</code>, in hexadecimal
+	 */
+	private static String hash(byte[] data) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		final byte[] hash = digest.digest(data);
+		final StringBuilder hex = new StringBuilder(hash.length * 2);
+		for (final byte b : hash) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * An indexed source file
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class Source {
+		/**
+		 * The source hash
+		 */
+		private final String hash;
+		/**
+		 * The classes compiled from the source: class name and bytecode hash
+		 */
+		private final Map<String, String> classes = CollectionFactory
+				.newMap();
+		/**
+		 * The paths of the other sources this source depends on
+		 */
+		private final Set<String> dependencies = CollectionFactory.newSet();
+
+		/**
+		 * @param hash
+		 *            the source hash
+		 */
+		private Source(String hash) {
+			this.hash = hash;
+		}
+	}
+}
@@ -17,7 +17,9 @@
 package com.l2jserver.service.game.scripting.impl;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
@@ -27,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.l2jserver.service.game.scripting.CompilationResult;
+import com.l2jserver.service.game.scripting.CompilationStatistics;
 import com.l2jserver.service.game.scripting.ScriptClassLoader;
 import com.l2jserver.service.game.scripting.ScriptCompiler;
 import com.l2jserver.service.game.scripting.ScriptContext;
@@ -68,9 +71,11 @@ public class ScriptContextImpl implements ScriptContext {
 	private final File root;
 
 	/**
-	 * Result of compilation of script context
+	 * Result of compilation of script context. Written with the context lock
+	 * held, but read without it by game threads, while {@link #recompile()}
+	 * swaps it from the watcher thread.
 	 */
-	private CompilationResult compilationResult;
+	private volatile CompilationResult compilationResult;
 
 	/**
 	 * List of child script contexts
@@ -87,6 +92,22 @@ public class ScriptContextImpl implements ScriptContext {
 	 */
 	private String compilerClassName;
 
+	/**
+	 * The compiled class cache, if any
+	 */
+	private ScriptClassCache classCache;
+
+	/**
+	 * Statistics of the last compilation
+	 */
+	private CompilationStatistics compilationStatistics;
+
+	/**
+	 * Serializes {@link #recompile()} calls, which do not hold the context lock
+	 * while compiling
+	 */
+	private final Object recompileLock = new Object();
+
 	/**
 	 * Creates new scriptcontext with given root file
 	 * 
@@ -140,6 +161,26 @@ public class ScriptContextImpl implements ScriptContext {
 			return;
 		}
 
+		compilationResult = compile();
+		getClassListener().postLoad(compilationResult.getCompiledClasses());
+
+		if (childScriptContexts != null) {
+			for (ScriptContext context : childScriptContexts) {
+				context.init();
+			}
+		}
+	}
+
+	/**
+	 * Compiles the context sources, without loading them. The compilation
+	 * statistics are updated.
+	 * 
+	 * @return the compilation result
+	 * @throws RuntimeException
+	 *             if compilation failed
+	 */
+	private CompilationResult compile() {
+		final long start = System.nanoTime();
 		ScriptCompiler scriptCompiler = instantiateCompiler();
 
 		Collection<File> files = FileUtils.listFiles(root,
@@ -151,15 +192,33 @@ public class ScriptContextImpl implements ScriptContext {
 		}
 
 		scriptCompiler.setLibraries(libraries);
-		compilationResult = scriptCompiler.compile(files);
-
-		getClassListener().postLoad(compilationResult.getCompiledClasses());
-
-		if (childScriptContexts != null) {
-			for (ScriptContext context : childScriptContexts) {
-				context.init();
+		int compiled = files.size();
+		// children can only be cached if their parent is
+		String parentFingerprint = null;
+		if (parentScriptContext instanceof ScriptContextImpl)
+			parentFingerprint = ((ScriptContextImpl) parentScriptContext)
+					.getClassCacheFingerprint();
+		CompilationResult result = null;
+		if (classCache != null
+				&& (parentScriptContext == null || parentFingerprint != null)) {
+			try {
+				result = classCache.compile(scriptCompiler, files, libraries,
+						parentFingerprint);
+				compiled = classCache.getCompiledSources();
+			} catch (IOException e) {
+				log.warn("Could not use the class cache for "
+						+ root.getAbsolutePath(), e);
 			}
 		}
+		if (result == null)
+			result = scriptCompiler.compile(files);
+		final CompilationStatistics statistics = new CompilationStatistics(
+				files.size(), compiled, System.nanoTime() - start);
+		synchronized (this) {
+			compilationStatistics = statistics;
+		}
+		log.info("Script context {}: {}", root, statistics);
+		return result;
 	}
 
 	@Override
@@ -187,6 +246,42 @@ public class ScriptContextImpl implements ScriptContext {
 		init();
 	}
 
+	@Override
+	public void recompile() {
+		synchronized (recompileLock) {
+			if (!isInitialized()) {
+				log.error("Recompile request on not initialized script context "
+						+ root.getAbsolutePath());
+				return;
+			}
+
+			// compile without holding the context lock: the current classes
+			// remain usable until the new ones are ready
+			final CompilationResult result;
+			try {
+				result = compile();
+			} catch (RuntimeException e) {
+				log.error("Could not recompile script context "
+						+ root.getAbsolutePath() + ", keeping current classes",
+						e);
+				return;
+			}
+
+			final List<ScriptContext> children = CollectionFactory.newList();
+			synchronized (this) {
+				getClassListener().preUnload(
+						compilationResult.getCompiledClasses());
+				compilationResult = result;
+				getClassListener().postLoad(result.getCompiledClasses());
+				if (childScriptContexts != null)
+					children.addAll(childScriptContexts);
+			}
+			for (ScriptContext child : children) {
+				child.recompile();
+			}
+		}
+	}
+
 	@Override
 	public File getRoot() {
 		return root;
@@ -276,10 +371,38 @@ public class ScriptContextImpl implements ScriptContext {
 	}
 
 	@Override
-	public synchronized ScriptClassLoader getClassLoader() {
+	public ScriptClassLoader getClassLoader() {
 		return compilationResult.getClassLoader();
 	}
 
+	@Override
+	public synchronized CompilationStatistics getCompilationStatistics() {
+		return compilationStatistics;
+	}
+
+	/**
+	 * Sets the cache used to store and reuse the classes compiled for this
+	 * context
+	 * 
+	 * @param classCache
+	 *            the class cache, <code>null</code> to always compile all
+	 *            sources
+	 */
+	public synchronized void setClassCache(ScriptClassCache classCache) {
+		this.classCache = classCache;
+	}
+
+	/**
+	 * @return the fingerprint of the last cached compilation,
+	 *         <code>null</code> if the context is not cached
+	 * @see ScriptClassCache#getFingerprint()
+	 */
+	private synchronized String getClassCacheFingerprint() {
+		if (classCache == null || compilationResult == null)
+			return null;
+		return classCache.getFingerprint();
+	}
+
 	/**
 	 * Creates new instance of ScriptCompiler that should be used with this
 	 * ScriptContext
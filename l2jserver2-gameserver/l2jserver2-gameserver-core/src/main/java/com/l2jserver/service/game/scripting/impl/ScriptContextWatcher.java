@@ -0,0 +1,276 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.scripting.impl;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.l2jserver.service.core.threading.AbstractTask;
+import com.l2jserver.service.game.scripting.ScriptContext;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Watches the root directories of script contexts and recompiles a context,
+ * with {@link ScriptContext#recompile()}, once its sources are changed. Only
+ * the changed context (and its children) are recompiled, other contexts are
+ * not touched.
+ * <p>
+ * Events are collected until no more changes are seen for the configured
+ * delay, so that saving several files (or an editor writing a file in several
+ * steps) triggers a single compilation. Compilation happens in the thread
+ * running this task, game threads keep using the current classes until the
+ * new ones are swapped in. The time from the first change to the swap is
+ * logged as the reload latency.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ScriptContextWatcher extends AbstractTask<Void> {
+	/**
+	 * The logger
+	 */
+	private static final Logger log = LoggerFactory
+			.getLogger(ScriptContextWatcher.class);
+
+	/**
+	 * The extension of source files. Changes to other files are ignored.
+	 */
+	private static final String SOURCE_EXTENSION = ".java";
+
+	/**
+	 * The watch service
+	 */
+	private final WatchService watchService;
+	/**
+	 * The time without changes before a context is recompiled, in milliseconds
+	 */
+	private final long delay;
+
+	/**
+	 * The directory watched by each key
+	 */
+	private final Map<WatchKey, Path> directories = CollectionFactory
+			.newConcurrentMap();
+	/**
+	 * The contexts by root directory
+	 */
+	private final Map<Path, ScriptContext> contexts = CollectionFactory
+			.newConcurrentMap();
+
+	/**
+	 * @param delay
+	 *            the time without changes before a context is recompiled, in
+	 *            milliseconds
+	 * @throws IOException
+	 *             if the watch service could not be created
+	 */
+	public ScriptContextWatcher(long delay) throws IOException {
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.delay = delay;
+	}
+
+	/**
+	 * Starts watching the context root directory and, recursively, its child
+	 * contexts.
+	 * 
+	 * @param context
+	 *            the context
+	 * @throws IOException
+	 *             if the directories could not be registered
+	 */
+	public void watch(ScriptContext context) throws IOException {
+		final Path root = context.getRoot().toPath().toAbsolutePath()
+				.normalize();
+		contexts.put(root, context);
+		register(root);
+		if (context.getChildScriptContexts() != null) {
+			for (ScriptContext child : context.getChildScriptContexts()) {
+				watch(child);
+			}
+		}
+	}
+
+	/**
+	 * Registers a directory and all its subdirectories
+	 * 
+	 * @param directory
+	 *            the directory
+	 * @throws IOException
+	 *             if the directories could not be registered
+	 */
+	private void register(Path directory) throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir,
+					BasicFileAttributes attrs) throws IOException {
+				if (!directories.containsValue(dir))
+					directories.put(dir.register(watchService, ENTRY_CREATE,
+							ENTRY_DELETE, ENTRY_MODIFY), dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	@Override
+	public Void call() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				final long start = System.nanoTime();
+				final Set<ScriptContext> changed = CollectionFactory.newSet();
+				do {
+					process(key, changed);
+					key = watchService.poll(delay, TimeUnit.MILLISECONDS);
+				} while (key != null);
+				recompile(changed, start);
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Processes the events of an key
+	 * 
+	 * @param key
+	 *            the watch key
+	 * @param changed
+	 *            the set of changed contexts
+	 */
+	private void process(WatchKey key, Set<ScriptContext> changed) {
+		final Path directory = directories.get(key);
+		for (final WatchEvent<?> event : key.pollEvents()) {
+			if (directory == null)
+				continue;
+			if (event.kind() == OVERFLOW) {
+				// some events were lost, assume the directory changed
+				add(changed, directory);
+				continue;
+			}
+			final Path path = directory.resolve((Path) event.context());
+			if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+				try {
+					register(path);
+				} catch (IOException e) {
+					log.warn("Could not watch script directory " + path, e);
+				}
+				add(changed, path);
+			} else if (path.toString().endsWith(SOURCE_EXTENSION)) {
+				add(changed, path);
+			}
+		}
+		if (!key.reset())
+			directories.remove(key);
+	}
+
+	/**
+	 * Adds the context owning the given path to the changed set. If contexts
+	 * are nested, the innermost one owns the path.
+	 * 
+	 * @param changed
+	 *            the set of changed contexts
+	 * @param path
+	 *            the changed path
+	 */
+	private void add(Set<ScriptContext> changed, Path path) {
+		Path owner = null;
+		for (final Path root : contexts.keySet()) {
+			if (path.startsWith(root)
+					&& (owner == null || root.getNameCount() > owner
+							.getNameCount()))
+				owner = root;
+		}
+		if (owner != null)
+			changed.add(contexts.get(owner));
+	}
+
+	/**
+	 * Recompiles the changed contexts. Contexts whose parent also changed are
+	 * recompiled along with it.
+	 * 
+	 * @param changed
+	 *            the changed contexts
+	 * @param start
+	 *            the time the first change was seen, as in
+	 *            {@link System#nanoTime()}
+	 */
+	private void recompile(Set<ScriptContext> changed, long start) {
+		for (final ScriptContext context : changed) {
+			if (hasChangedParent(context, changed))
+				continue;
+			try {
+				context.recompile();
+			} catch (RuntimeException e) {
+				log.error("Could not recompile script context "
+						+ context.getRoot(), e);
+				continue;
+			}
+			log.info("Script context {} reloaded {} ms after change: {}",
+					new Object[] { context.getRoot(),
+							(System.nanoTime() - start) / 1000000,
+							context.getCompilationStatistics() });
+		}
+	}
+
+	/**
+	 * @param context
+	 *            the context
+	 * @param changed
+	 *            the changed contexts
+	 * @return true if any ancestor of the context is in the changed set
+	 */
+	private static boolean hasChangedParent(ScriptContext context,
+			Set<ScriptContext> changed) {
+		ScriptContext parent = context.getParentScriptContext();
+		while (parent != null) {
+			if (changed.contains(parent))
+				return true;
+			parent = parent.getParentScriptContext();
+		}
+		return false;
+	}
+
+	/**
+	 * Stops watching. The task returns once the current compilation, if any,
+	 * completes.
+	 * 
+	 * @throws IOException
+	 *             if the watch service could not be closed
+	 */
+	public void close() throws IOException {
+		watchService.close();
+	}
+}
@@ -28,9 +28,9 @@ import javax.tools.DiagnosticListener;
 import javax.tools.FileObject;
 import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaCompiler;
-import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.JavaFileObject.Kind;
+import javax.tools.StandardJavaFileManager;
 import javax.tools.StandardLocation;
 
 import com.l2jserver.service.game.scripting.ScriptClassLoader;
@@ -41,11 +41,16 @@ import com.l2jserver.util.factory.CollectionFactory;
  * This class extends manages loaded classes. It is also responsible for
  * tricking compiler. Unfortunally compiler doen't work with classloaders, so we
  * have to pass class data manually for each compilation.
+ * <p>
+ * The eclipse compiler only reads classes from the locations of an
+ * {@link StandardJavaFileManager}, so this manager implements it by forwarding
+ * to the compiler standard manager.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
 public class EclipseCompilerClassFileManager extends
-		ForwardingJavaFileManager<JavaFileManager> {
+		ForwardingJavaFileManager<StandardJavaFileManager> implements
+		StandardJavaFileManager {
 
 	/**
 	 * This map contains classes compiled for this classloader
@@ -87,7 +92,7 @@ public class EclipseCompilerClassFileManager extends
 	 * @param kind
 	 *            not used
 	 * @param sibling
-	 *            not used
+	 *            the source file the class is compiled from, if any
 	 * @return JavaFileObject that will be uesd to store compiled class data
 	 * @throws IOException
 	 *             never thrown
@@ -95,7 +100,11 @@ public class EclipseCompilerClassFileManager extends
 	@Override
 	public JavaFileObject getJavaFileForOutput(Location location,
 			String className, Kind kind, FileObject sibling) throws IOException {
+		// the eclipse compiler uses the internal name (with slashes)
+		className = className.replace('/', '.');
 		BinaryClass co = new BinaryClass(className);
+		if (sibling != null)
+			co.setSource(sibling.toUri());
 		compiledClasses.put(className, co);
 		return co;
 	}
@@ -217,4 +226,59 @@ public class EclipseCompilerClassFileManager extends
 
 		return objects;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Appends an directory or jar file to the compiler class path
+	 * 
+	 * @param file
+	 *            the directory or jar file
+	 * @throws IOException
+	 *             if the class path could not be changed
+	 */
+	public void addClassPath(File file) throws IOException {
+		List<File> classpath = CollectionFactory.newList();
+		Iterable<? extends File> current = fileManager
+				.getLocation(StandardLocation.CLASS_PATH);
+		if (current != null) {
+			for (File f : current) {
+				classpath.add(f);
+			}
+		}
+		classpath.add(file);
+		fileManager.setLocation(StandardLocation.CLASS_PATH, classpath);
+	}
+
+	@Override
+	public Iterable<? extends JavaFileObject> getJavaFileObjectsFromFiles(
+			Iterable<? extends File> files) {
+		return fileManager.getJavaFileObjectsFromFiles(files);
+	}
+
+	@Override
+	public Iterable<? extends JavaFileObject> getJavaFileObjects(File... files) {
+		return fileManager.getJavaFileObjects(files);
+	}
+
+	@Override
+	public Iterable<? extends JavaFileObject> getJavaFileObjectsFromStrings(
+			Iterable<String> names) {
+		return fileManager.getJavaFileObjectsFromStrings(names);
+	}
+
+	@Override
+	public Iterable<? extends JavaFileObject> getJavaFileObjects(
+			String... names) {
+		return fileManager.getJavaFileObjects(names);
+	}
+
+	@Override
+	public void setLocation(Location location, Iterable<? extends File> path)
+			throws IOException {
+		fileManager.setLocation(location, path);
+	}
+
+	@Override
+	public Iterable<? extends File> getLocation(Location location) {
+		return fileManager.getLocation(location);
+	}
+}
@@ -18,15 +18,22 @@ package com.l2jserver.service.game.scripting.impl.ecj;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
 
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.ToolProvider;
 
+import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.internal.compiler.tool.EclipseCompiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +41,7 @@ import org.slf4j.LoggerFactory;
 import com.l2jserver.service.game.scripting.CompilationResult;
 import com.l2jserver.service.game.scripting.ScriptClassLoader;
 import com.l2jserver.service.game.scripting.ScriptCompiler;
+import com.l2jserver.service.game.scripting.impl.BinaryClass;
 import com.l2jserver.service.game.scripting.impl.ErrorListener;
 import com.l2jserver.service.game.scripting.impl.JavaSourceFromByteArray;
 import com.l2jserver.service.game.scripting.impl.JavaSourceFromFile;
@@ -153,7 +161,8 @@ public class EclipseScriptCompiler implements ScriptCompiler {
 			compilationUnits.add(compilationUnit);
 		}
 
-		return doCompilation(compilationUnits);
+		return doCompilation(compilationUnits,
+				Collections.<String, byte[]> emptyMap());
 	}
 
 	/**
@@ -167,13 +176,32 @@ public class EclipseScriptCompiler implements ScriptCompiler {
 	 */
 	@Override
 	public CompilationResult compile(Iterable<File> compilationUnits) {
+		return compile(compilationUnits,
+				Collections.<String, byte[]> emptyMap());
+	}
+
+	/**
+	 * Compiles given files against classes compiled before. Files must be java
+	 * sources.
+	 * 
+	 * @param compilationUnits
+	 *            files to compile
+	 * @param compiledClasses
+	 *            the bytecode of the classes compiled before
+	 * @return CompilationResult with classes
+	 * @throws RuntimeException
+	 *             if compilation failed with errros
+	 */
+	@Override
+	public CompilationResult compile(Iterable<File> compilationUnits,
+			Map<String, byte[]> compiledClasses) {
 		List<JavaFileObject> list = CollectionFactory.newList();
 
 		for (File f : compilationUnits) {
 			list.add(new JavaSourceFromFile(f, JavaFileObject.Kind.SOURCE));
 		}
 
-		return doCompilation(list);
+		return doCompilation(list, compiledClasses);
 	}
 
 	/**
@@ -182,12 +210,15 @@ public class EclipseScriptCompiler implements ScriptCompiler {
 	 * 
 	 * @param compilationUnits
 	 *            Units that will be compiled
+	 * @param compiledClasses
+	 *            the bytecode of the classes compiled before
 	 * @return CompilationResult with compiledClasses
 	 * @throws RuntimeException
 	 *             if compilation failed with errros
 	 */
 	protected CompilationResult doCompilation(
-			Iterable<JavaFileObject> compilationUnits) {
+			Collection<JavaFileObject> compilationUnits,
+			Map<String, byte[]> compiledClasses) {
 		List<String> options = Arrays.asList("-encoding", "UTF-8", "-g");
 		DiagnosticListener<JavaFileObject> listener = new ErrorListener();
 		EclipseCompilerClassFileManager manager = new EclipseCompilerClassFileManager(
@@ -202,17 +233,57 @@ public class EclipseScriptCompiler implements ScriptCompiler {
 			}
 		}
 
-		JavaCompiler.CompilationTask task = javaCompiler.getTask(null, manager,
-				listener, options, null, compilationUnits);
-
-		if (!task.call()) {
-			throw new RuntimeException("Error while compiling classes");
+		for (Map.Entry<String, byte[]> entry : compiledClasses.entrySet()) {
+			manager.getCompiledClasses().put(entry.getKey(),
+					new BinaryClass(entry.getKey(), entry.getValue()));
 		}
 
 		ScriptClassLoader cl = manager.getClassLoader(null);
-		Class<?>[] compiledClasses = classNamesToClasses(manager
+		if (!compilationUnits.isEmpty()) {
+			// the eclipse compiler only looks up classes in the class path, the
+			// classes compiled before must be there
+			File classes = null;
+			try {
+				if (!compiledClasses.isEmpty()) {
+					classes = writeClasses(compiledClasses);
+					manager.addClassPath(classes);
+				}
+				JavaCompiler.CompilationTask task = javaCompiler.getTask(null,
+						manager, listener, options, null, compilationUnits);
+
+				if (!task.call()) {
+					throw new RuntimeException("Error while compiling classes");
+				}
+			} catch (IOException e) {
+				throw new RuntimeException("Error while compiling classes", e);
+			} finally {
+				if (classes != null)
+					FileUtils.deleteQuietly(classes);
+			}
+		}
+		Class<?>[] classes = classNamesToClasses(manager
 				.getCompiledClasses().keySet(), cl);
-		return new CompilationResult(compiledClasses, cl);
+		return new CompilationResult(classes, cl);
+	}
+
+	/**
+	 * Writes classes into a temporary class directory
+	 * 
+	 * @param classes
+	 *            the classes bytecode, by class name
+	 * @return the class directory
+	 * @throws IOException
+	 *             if any error occur while writing the classes
+	 */
+	private File writeClasses(Map<String, byte[]> classes) throws IOException {
+		final File directory = Files.createTempDirectory("l2jserver-scripts")
+				.toFile();
+		for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+			FileUtils.writeByteArrayToFile(new File(directory, entry.getKey()
+					.replace('.', File.separatorChar) + ".class"), entry
+					.getValue());
+		}
+		return directory;
 	}
 
 	/**
@@ -244,6 +315,25 @@ public class EclipseScriptCompiler implements ScriptCompiler {
 		return classes;
 	}
 
+	/**
+	 * Reads the compiler version from the Eclipse compiler messages, the same
+	 * shown by <tt>ecj -version</tt>
+	 * 
+	 * @return the compiler version
+	 */
+	@Override
+	public String getVersion() {
+		try {
+			return "ecj "
+					+ ResourceBundle.getBundle(
+							"org.eclipse.jdt.internal.compiler.batch.messages",
+							Locale.ENGLISH, EclipseCompiler.class.getClassLoader())
+							.getString("compiler.version");
+		} catch (MissingResourceException e) {
+			return "ecj";
+		}
+	}
+
 	/**
 	 * Only java files are supported by java compiler
 	 * 
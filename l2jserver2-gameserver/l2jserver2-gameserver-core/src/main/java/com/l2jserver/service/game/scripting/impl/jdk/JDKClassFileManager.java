@@ -87,7 +87,7 @@ public class JDKClassFileManager extends
 	 * @param kind
 	 *            not used
 	 * @param sibling
-	 *            not used
+	 *            the source file the class is compiled from, if any
 	 * @return JavaFileObject that will be uesd to store compiled class data
 	 * @throws IOException
 	 *             never thrown
@@ -96,6 +96,8 @@ public class JDKClassFileManager extends
 	public JavaFileObject getJavaFileForOutput(Location location,
 			String className, Kind kind, FileObject sibling) throws IOException {
 		BinaryClass co = new BinaryClass(className);
+		if (sibling != null)
+			co.setSource(sibling.toUri());
 		compiledClasses.put(className, co);
 		return co;
 	}
@@ -175,6 +177,23 @@ public class JDKClassFileManager extends
 		return compiledClasses;
 	}
 
+	/**
+	 * Infers the binary name of classes compiled by the script compilers, which
+	 * are unknown to the standard file manager
+	 * 
+	 * @param location
+	 *            the location
+	 * @param file
+	 *            the file
+	 * @return the binary name
+	 */
+	@Override
+	public String inferBinaryName(Location location, JavaFileObject file) {
+		if (file instanceof BinaryClass)
+			return ((BinaryClass) file).getClassName();
+		return super.inferBinaryName(location, file);
+	}
+
 	/**
 	 * This method overrides class resolving procedure for compiler. It uses
 	 * classloaders to resolve classes that compiler may need during
@@ -207,6 +207,29 @@ public class JDKScriptClassLoader extends ScriptClassLoader {
 		return Collections.unmodifiableSet(compiledClasses);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] getByteCode(String className) {
+		BinaryClass bc = classFileManager.getCompiledClasses().get(className);
+		if (bc == null)
+			return null;
+		return bc.getBytes();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public File getSourceFile(String className) {
+		BinaryClass bc = classFileManager.getCompiledClasses().get(className);
+		if (bc == null || bc.getSource() == null
+				|| !"file".equals(bc.getSource().getScheme()))
+			return null;
+		return new File(bc.getSource());
+	}
+
 	/**
 	 * Returns list of classes that are members of a package
 	 * 
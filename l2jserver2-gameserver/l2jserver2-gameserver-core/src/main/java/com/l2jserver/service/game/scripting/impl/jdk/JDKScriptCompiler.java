@@ -20,7 +20,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
@@ -33,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import com.l2jserver.service.game.scripting.CompilationResult;
 import com.l2jserver.service.game.scripting.ScriptClassLoader;
 import com.l2jserver.service.game.scripting.ScriptCompiler;
+import com.l2jserver.service.game.scripting.impl.BinaryClass;
 import com.l2jserver.service.game.scripting.impl.ErrorListener;
 import com.l2jserver.service.game.scripting.impl.JavaSourceFromByteArray;
 import com.l2jserver.service.game.scripting.impl.JavaSourceFromFile;
@@ -152,7 +155,8 @@ public class JDKScriptCompiler implements ScriptCompiler {
 			compilationUnits.add(compilationUnit);
 		}
 
-		return doCompilation(compilationUnits);
+		return doCompilation(compilationUnits,
+				Collections.<String, byte[]> emptyMap());
 	}
 
 	/**
@@ -166,13 +170,32 @@ public class JDKScriptCompiler implements ScriptCompiler {
 	 */
 	@Override
 	public CompilationResult compile(Iterable<File> compilationUnits) {
+		return compile(compilationUnits,
+				Collections.<String, byte[]> emptyMap());
+	}
+
+	/**
+	 * Compiles given files against classes compiled before. Files must be java
+	 * sources.
+	 * 
+	 * @param compilationUnits
+	 *            files to compile
+	 * @param compiledClasses
+	 *            the bytecode of the classes compiled before
+	 * @return CompilationResult with classes
+	 * @throws RuntimeException
+	 *             if compilation failed with errros
+	 */
+	@Override
+	public CompilationResult compile(Iterable<File> compilationUnits,
+			Map<String, byte[]> compiledClasses) {
 		List<JavaFileObject> list = CollectionFactory.newList();
 
 		for (File f : compilationUnits) {
 			list.add(new JavaSourceFromFile(f, JavaFileObject.Kind.SOURCE));
 		}
 
-		return doCompilation(list);
+		return doCompilation(list, compiledClasses);
 	}
 
 	/**
@@ -181,12 +204,15 @@ public class JDKScriptCompiler implements ScriptCompiler {
 	 * 
 	 * @param compilationUnits
 	 *            Units that will be compiled
+	 * @param compiledClasses
+	 *            the bytecode of the classes compiled before
 	 * @return CompilationResult with compiledClasses
 	 * @throws RuntimeException
 	 *             if compilation failed with errros
 	 */
 	protected CompilationResult doCompilation(
-			Iterable<JavaFileObject> compilationUnits) {
+			Collection<JavaFileObject> compilationUnits,
+			Map<String, byte[]> compiledClasses) {
 		List<String> options = Arrays.asList("-encoding", "UTF-8", "-g");
 		DiagnosticListener<JavaFileObject> listener = new ErrorListener();
 		JDKClassFileManager manager = new JDKClassFileManager(javaCompiler,
@@ -201,17 +227,23 @@ public class JDKScriptCompiler implements ScriptCompiler {
 			}
 		}
 
-		JavaCompiler.CompilationTask task = javaCompiler.getTask(null, manager,
-				listener, options, null, compilationUnits);
-
-		if (!task.call()) {
-			throw new RuntimeException("Error while compiling classes");
+		for (Map.Entry<String, byte[]> entry : compiledClasses.entrySet()) {
+			manager.getCompiledClasses().put(entry.getKey(),
+					new BinaryClass(entry.getKey(), entry.getValue()));
 		}
 
 		ScriptClassLoader cl = manager.getClassLoader(null);
-		Class<?>[] compiledClasses = classNamesToClasses(manager
+		if (!compilationUnits.isEmpty()) {
+			JavaCompiler.CompilationTask task = javaCompiler.getTask(null,
+					manager, listener, options, null, compilationUnits);
+
+			if (!task.call()) {
+				throw new RuntimeException("Error while compiling classes");
+			}
+		}
+		Class<?>[] classes = classNamesToClasses(manager
 				.getCompiledClasses().keySet(), cl);
-		return new CompilationResult(compiledClasses, cl);
+		return new CompilationResult(classes, cl);
 	}
 
 	/**
@@ -243,6 +275,17 @@ public class JDKScriptCompiler implements ScriptCompiler {
 		return classes;
 	}
 
+	/**
+	 * The system compiler version is the version of the running JDK
+	 * 
+	 * @return the compiler version
+	 */
+	@Override
+	public String getVersion() {
+		return "javac " + System.getProperty("java.vm.vendor") + " "
+				+ System.getProperty("java.version");
+	}
+
 	/**
 	 * Only java files are supported by java compiler
 	 * 
@@ -0,0 +1,80 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.spawn;
+
+import java.util.concurrent.TimeUnit;
+
+import com.l2jserver.model.world.NPC;
+import com.l2jserver.service.Service;
+import com.l2jserver.service.game.npc.NPCService;
+
+/**
+ * This service keeps track of dead {@link NPC NPCs}: it removes their corpses
+ * and respawns them once their respawn interval has passed. Due respawns are
+ * processed in batches, grouped by world region, and only broadcast to
+ * regions observed by a player.
+ * <p>
+ * Pending respawn times are persisted with the {@link NPC}, so that a
+ * restart does not respawn every dead NPC at once. In most cases,
+ * {@link NPCService} should be used instead of this service directly.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public interface RespawnService extends Service {
+	/**
+	 * Schedules the removal of an {@link NPC} corpse and its respawn. If the
+	 * NPC already has a pending respawn, it is replaced.
+	 * 
+	 * @param npc
+	 *            the npc
+	 * @param corpse
+	 *            the time the corpse stays in the world. If zero, the NPC is
+	 *            assumed not to be in the world.
+	 * @param respawn
+	 *            the time until the NPC respawns
+	 * @param unit
+	 *            the unit of <tt>corpse</tt> and <tt>respawn</tt>
+	 */
+	void schedule(NPC npc, long corpse, long respawn, TimeUnit unit);
+
+	/**
+	 * Cancels an pending respawn. The corpse, if still in the world, is kept.
+	 * 
+	 * @param npc
+	 *            the npc
+	 * @return <code>true</code> if the NPC had a pending respawn
+	 */
+	boolean cancel(NPC npc);
+
+	/**
+	 * @param npc
+	 *            the npc
+	 * @return <code>true</code> if the NPC has a pending respawn
+	 */
+	boolean isPending(NPC npc);
+
+	/**
+	 * @return the amount of NPCs waiting to respawn, including the ones whose
+	 *         corpse is still in the world
+	 */
+	int getPending();
+
+	/**
+	 * @return the amount of NPCs whose corpse is still in the world
+	 */
+	int getPendingCorpses();
+}
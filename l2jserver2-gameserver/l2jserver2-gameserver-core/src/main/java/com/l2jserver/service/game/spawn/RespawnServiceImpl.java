@@ -0,0 +1,401 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.spawn;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+import com.l2jserver.model.dao.NPCDAO;
+import com.l2jserver.model.world.NPC;
+import com.l2jserver.service.AbstractConfigurableService;
+import com.l2jserver.service.AbstractService.Depends;
+import com.l2jserver.service.ServiceStartException;
+import com.l2jserver.service.ServiceStopException;
+import com.l2jserver.service.core.metrics.Counter;
+import com.l2jserver.service.core.metrics.Gauge;
+import com.l2jserver.service.core.metrics.MetricRegistry;
+import com.l2jserver.service.core.threading.HashedTimerWheel;
+import com.l2jserver.service.core.threading.HashedTimerWheel.Timeout;
+import com.l2jserver.service.core.threading.ScheduledAsyncFuture;
+import com.l2jserver.service.core.threading.ThreadService;
+import com.l2jserver.service.database.DatabaseService;
+import com.l2jserver.service.game.world.WorldRegions;
+import com.l2jserver.service.game.world.event.WorldEventDispatcherService;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Default implementation for {@link RespawnService}.
+ * <p>
+ * Each dead NPC has a single entry in a {@link HashedTimerWheel}: first for
+ * the corpse removal, then for the respawn. On every tick, the due entries
+ * are grouped by {@link WorldRegions world region} and each region is
+ * processed as a batch. Only
+ * regions with a player in them, or in any of the neighbor regions, dispatch
+ * spawn and unspawn events; NPCs in other regions are silently registered in
+ * the world and players coming close will see them through the known list
+ * update.
+ * <p>
+ * Changes to the pending respawn times are collected and saved once per tick.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+@Depends({ SpawnService.class, WorldEventDispatcherService.class,
+		ThreadService.class, DatabaseService.class })
+public class RespawnServiceImpl extends
+		AbstractConfigurableService<RespawnServiceConfiguration> implements
+		RespawnService {
+	/**
+	 * The amount of slots in the respawn wheel
+	 */
+	private static final int WHEEL_SLOTS = 512;
+
+	/**
+	 * The {@link SpawnService}
+	 */
+	private final SpawnService spawnService;
+	/**
+	 * The world event dispatcher
+	 */
+	private final WorldEventDispatcherService eventDispatcher;
+	/**
+	 * The {@link ThreadService}
+	 */
+	private final ThreadService threadService;
+	/**
+	 * The {@link NPCDAO}
+	 */
+	private final NPCDAO npcDao;
+	/**
+	 * The metric registry
+	 */
+	private final MetricRegistry metrics;
+
+	/**
+	 * The pending respawns, by NPC. Guarded by this service.
+	 */
+	private final Map<NPC, Respawn> pending = CollectionFactory.newMap();
+	/**
+	 * The NPCs whose pending respawn time changed since the last tick.
+	 * Guarded by this service.
+	 */
+	private final List<NPC> changed = CollectionFactory.newList();
+	/**
+	 * The world regions. Only regions observed by a player broadcast
+	 * respawns.
+	 */
+	private final WorldRegions worldRegions = new WorldRegions();
+	/**
+	 * The respawn wheel, in milliseconds since the epoch. Guarded by this
+	 * service.
+	 */
+	private HashedTimerWheel<Respawn> wheel;
+	/**
+	 * The amount of pending respawns whose corpse is still in the world.
+	 * Guarded by this service.
+	 */
+	private int corpses;
+
+	/**
+	 * The amount of NPCs respawned with an broadcast
+	 */
+	private Counter broadcasted;
+	/**
+	 * The amount of NPCs respawned in regions nobody observes
+	 */
+	private Counter silent;
+	/**
+	 * The tick task future
+	 */
+	private ScheduledAsyncFuture tickFuture;
+
+	/**
+	 * @param spawnService
+	 *            the spawn service
+	 * @param eventDispatcher
+	 *            the world service event dispatcher
+	 * @param threadService
+	 *            the thread service
+	 * @param npcDao
+	 *            the npc DAO
+	 * @param metrics
+	 *            the metric registry
+	 */
+	@Inject
+	public RespawnServiceImpl(SpawnService spawnService,
+			WorldEventDispatcherService eventDispatcher,
+			ThreadService threadService, NPCDAO npcDao, MetricRegistry metrics) {
+		super(RespawnServiceConfiguration.class);
+		this.spawnService = spawnService;
+		this.eventDispatcher = eventDispatcher;
+		this.threadService = threadService;
+		this.npcDao = npcDao;
+		this.metrics = metrics;
+	}
+
+	@Override
+	protected void doStart() throws ServiceStartException {
+		final long interval = config.getTickInterval();
+		wheel = new HashedTimerWheel<Respawn>(interval, WHEEL_SLOTS,
+				System.currentTimeMillis());
+		eventDispatcher.addListener(worldRegions);
+
+		metrics.gauge("respawn.pending", new Gauge() {
+			@Override
+			public long getValue() {
+				return getPending();
+			}
+		});
+		metrics.gauge("respawn.corpses", new Gauge() {
+			@Override
+			public long getValue() {
+				return getPendingCorpses();
+			}
+		});
+		broadcasted = metrics.counter("respawn.spawned.broadcast");
+		silent = metrics.counter("respawn.spawned.silent");
+
+		tickFuture = threadService.async(interval, TimeUnit.MILLISECONDS,
+				interval, new Runnable() {
+					@Override
+					public void run() {
+						tick();
+					}
+				});
+	}
+
+	@Override
+	public void schedule(NPC npc, long corpse, long respawn, TimeUnit unit) {
+		Preconditions.checkNotNull(npc, "npc");
+		Preconditions.checkArgument(corpse >= 0, "corpse < 0");
+		Preconditions.checkArgument(respawn >= 0, "respawn < 0");
+		Preconditions.checkNotNull(unit, "unit");
+
+		final long now = System.currentTimeMillis();
+		final Respawn entry = new Respawn(npc, corpse > 0, now
+				+ unit.toMillis(respawn));
+		if (logger.isDebugEnabled())
+			logger.debug("Scheduling respawn of {} in {}ms", npc,
+					unit.toMillis(respawn));
+		synchronized (this) {
+			remove(npc);
+			entry.timeout = wheel.add(entry, now,
+					(entry.corpse ? unit.toMillis(corpse) : entry.time - now));
+			pending.put(npc, entry);
+			if (entry.corpse)
+				corpses++;
+			if (npc.getNextRespawn() != entry.time) {
+				npc.setNextRespawn(entry.time);
+				changed.add(npc);
+			}
+		}
+	}
+
+	@Override
+	public synchronized boolean cancel(NPC npc) {
+		Preconditions.checkNotNull(npc, "npc");
+		if (!remove(npc))
+			return false;
+		npc.setNextRespawn(0);
+		changed.add(npc);
+		return true;
+	}
+
+	/**
+	 * Removes the pending respawn of an NPC. Must be called with the service
+	 * lock held.
+	 * 
+	 * @param npc
+	 *            the npc
+	 * @return <code>true</code> if the NPC had a pending respawn
+	 */
+	private boolean remove(NPC npc) {
+		final Respawn entry = pending.remove(npc);
+		if (entry == null)
+			return false;
+		wheel.remove(entry.timeout);
+		if (entry.corpse)
+			corpses--;
+		return true;
+	}
+
+	/**
+	 * Processes all due corpse removals and respawns, region by region, and
+	 * saves the changed respawn times
+	 */
+	private void tick() {
+		final long now = System.currentTimeMillis();
+		final List<Respawn> expired = CollectionFactory.newList();
+		synchronized (this) {
+			wheel.expire(now, expired);
+		}
+
+		if (!expired.isEmpty()) {
+			final Map<Long, List<Respawn>> regions = CollectionFactory
+					.newMap();
+			for (final Respawn entry : expired) {
+				final Long key = WorldRegions.key(entry.npc);
+				List<Respawn> region = regions.get(key);
+				if (region == null)
+					regions.put(key, region = CollectionFactory
+							.<Respawn> newList());
+				region.add(entry);
+			}
+			final Set<Long> observed = worldRegions.observed();
+			for (final Entry<Long, List<Respawn>> region : regions.entrySet()) {
+				process(region.getValue(), observed.contains(region.getKey()),
+						now);
+			}
+		}
+
+		final NPC[] save;
+		synchronized (this) {
+			if (changed.isEmpty())
+				return;
+			save = changed.toArray(new NPC[changed.size()]);
+			changed.clear();
+		}
+		npcDao.updateObjectsAsync(save);
+	}
+
+	/**
+	 * Processes the due entries of a single region
+	 * 
+	 * @param entries
+	 *            the due entries
+	 * @param broadcast
+	 *            whether the region is observed by any player
+	 * @param now
+	 *            the current time
+	 */
+	private void process(List<Respawn> entries, boolean broadcast, long now) {
+		for (final Respawn entry : entries) {
+			final NPC npc = entry.npc;
+			if (entry.corpse) {
+				// the lock is held while unspawning, otherwise the respawn
+				// could be cancelled or rescheduled (and the NPC spawned again)
+				// before the corpse is removed
+				synchronized (this) {
+					if (pending.get(npc) != entry)
+						// cancelled or rescheduled meanwhile
+						continue;
+					try {
+						spawnService.bulkUnspawn(npc, broadcast);
+					} catch (NotSpawnedServiceException e) {
+						logger.debug("Corpse of {} was not spawned", npc);
+					}
+					entry.corpse = false;
+					corpses--;
+					if (entry.time > now) {
+						entry.timeout = wheel.add(entry, now, entry.time - now);
+						continue;
+					}
+				}
+			}
+			synchronized (this) {
+				if (pending.get(npc) != entry)
+					continue;
+				pending.remove(npc);
+				npc.setNextRespawn(0);
+				changed.add(npc);
+			}
+			try {
+				spawnService.bulkSpawn(npc, broadcast);
+				(broadcast ? broadcasted : silent).increment();
+			} catch (SpawnServiceException e) {
+				logger.warn("Could not respawn " + npc, e);
+			}
+		}
+	}
+
+	@Override
+	public synchronized boolean isPending(NPC npc) {
+		return pending.containsKey(npc);
+	}
+
+	@Override
+	public synchronized int getPending() {
+		return pending.size();
+	}
+
+	@Override
+	public synchronized int getPendingCorpses() {
+		return corpses;
+	}
+
+	@Override
+	protected void doStop() throws ServiceStopException {
+		tickFuture.cancel(false);
+		eventDispatcher.removeListener(worldRegions);
+		metrics.removeAll("respawn.");
+
+		final NPC[] save;
+		synchronized (this) {
+			save = changed.toArray(new NPC[changed.size()]);
+			changed.clear();
+			pending.clear();
+			wheel.clear(null);
+			corpses = 0;
+		}
+		// pending respawn times must be stored before the database stops
+		if (save.length > 0)
+			npcDao.updateObjects(save);
+		worldRegions.clear();
+	}
+
+	/**
+	 * An pending respawn
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class Respawn {
+		/**
+		 * The NPC
+		 */
+		private final NPC npc;
+		/**
+		 * The time the NPC respawns, in milliseconds since the epoch
+		 */
+		private final long time;
+		/**
+		 * Whether the NPC corpse is still in the world
+		 */
+		private boolean corpse;
+		/**
+		 * The timeout in the wheel
+		 */
+		private Timeout<Respawn> timeout;
+
+		/**
+		 * @param npc
+		 *            the NPC
+		 * @param corpse
+		 *            whether the NPC corpse is still in the world
+		 * @param time
+		 *            the time the NPC respawns
+		 */
+		private Respawn(NPC npc, boolean corpse, long time) {
+			this.npc = npc;
+			this.corpse = corpse;
+			this.time = time;
+		}
+	}
+}
@@ -26,6 +26,7 @@ import com.l2jserver.model.world.NPC;
 import com.l2jserver.model.world.PositionableObject;
 import com.l2jserver.model.world.actor.event.ActorTeleportingEvent;
 import com.l2jserver.model.world.event.SpawnEvent;
+import com.l2jserver.model.world.event.UnspawnEvent;
 import com.l2jserver.model.world.player.event.PlayerTeleportedEvent;
 import com.l2jserver.service.Service;
 import com.l2jserver.service.core.threading.AsyncFuture;
@@ -86,6 +87,63 @@ public interface SpawnService extends Service {
 			throws SpawnPointNotFoundServiceException,
 			AlreadySpawnedServiceException;
 
+	/**
+	 * Spawns an object loaded in bulk, at its stored point. This is meant for
+	 * the large amounts of objects loaded from the database at startup.
+	 * <p>
+	 * While no {@link L2Character} is in the world, the object is only
+	 * registered in the world and no {@link SpawnEvent} is dispatched, since
+	 * there is nobody to broadcast it to. Otherwise, this is the same as
+	 * {@link #spawn(PositionableObject, Point3D) spawn(object, null)}.
+	 * 
+	 * @param object
+	 *            the PositionableObject object
+	 * @throws SpawnPointNotFoundServiceException
+	 *             if {@link PositionableObject#getPoint()} is null
+	 * @throws AlreadySpawnedServiceException
+	 *             if the object is already spawned in the world
+	 */
+	void bulkSpawn(PositionableObject object)
+			throws SpawnPointNotFoundServiceException,
+			AlreadySpawnedServiceException;
+
+	/**
+	 * Spawns an object at its stored point, as part of a batch. This is meant
+	 * for callers that know whether the object is observed, such as respawns
+	 * grouped by region.
+	 * <p>
+	 * If <tt>broadcast</tt> is false, the object is only registered in the
+	 * world and no {@link SpawnEvent} is dispatched. Players that later come
+	 * close will see it when their known list is updated.
+	 * 
+	 * @param object
+	 *            the PositionableObject object
+	 * @param broadcast
+	 *            whether an {@link SpawnEvent} is dispatched
+	 * @throws SpawnPointNotFoundServiceException
+	 *             if {@link PositionableObject#getPoint()} is null
+	 * @throws AlreadySpawnedServiceException
+	 *             if the object is already spawned in the world
+	 */
+	void bulkSpawn(PositionableObject object, boolean broadcast)
+			throws SpawnPointNotFoundServiceException,
+			AlreadySpawnedServiceException;
+
+	/**
+	 * Unspawns an object as part of a batch. If <tt>broadcast</tt> is false,
+	 * the object is only removed from the world and no
+	 * {@link UnspawnEvent} is dispatched.
+	 * 
+	 * @param object
+	 *            the PositionableObject object
+	 * @param broadcast
+	 *            whether an {@link UnspawnEvent} is dispatched
+	 * @throws NotSpawnedServiceException
+	 *             if the object is not spawned
+	 */
+	void bulkUnspawn(PositionableObject object, boolean broadcast)
+			throws NotSpawnedServiceException;
+
 	/**
 	 * Schedules an {@link PositionableObject} object to be spawned in a certain
 	 * time.
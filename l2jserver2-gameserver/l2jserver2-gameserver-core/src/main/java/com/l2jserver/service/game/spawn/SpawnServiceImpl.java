@@ -107,16 +107,7 @@ public class SpawnServiceImpl extends AbstractService implements SpawnService {
 
 		log.debug("Spawning {} at {}", object, point);
 
-		// set the spawning point
-		if (updatePoint)
-			object.setPoint(point);
-		// reset actor state
-		if (object instanceof Actor) {
-			((Actor) object).setState(null);
-		}
-		// register object in the world
-		if (!worldService.add(object))
-			throw new AlreadySpawnedServiceException();
+		register(object, point, updatePoint);
 
 		// create the SpawnEvent
 		SpawnEvent event = null;
@@ -135,6 +126,54 @@ public class SpawnServiceImpl extends AbstractService implements SpawnService {
 		// remember: broadcasting is done through events!
 	}
 
+	@Override
+	public void bulkSpawn(PositionableObject object)
+			throws SpawnPointNotFoundServiceException,
+			AlreadySpawnedServiceException {
+		bulkSpawn(object, worldService.getCharacterCount() > 0);
+	}
+
+	@Override
+	public void bulkSpawn(PositionableObject object, boolean broadcast)
+			throws SpawnPointNotFoundServiceException,
+			AlreadySpawnedServiceException {
+		Preconditions.checkNotNull(object, "object");
+		if (broadcast) {
+			spawn(object, null);
+			return;
+		}
+		if (object.getPoint() == null)
+			throw new SpawnPointNotFoundServiceException();
+		register(object, object.getPoint(), false);
+	}
+
+	/**
+	 * Prepares the object and registers it in the world, without dispatching
+	 * any event
+	 * 
+	 * @param object
+	 *            the object
+	 * @param point
+	 *            the spawn point
+	 * @param updatePoint
+	 *            whether <code>point</code> must be set in the object
+	 * @throws AlreadySpawnedServiceException
+	 *             if the object is already spawned in the world
+	 */
+	private void register(PositionableObject object, Point3D point,
+			boolean updatePoint) throws AlreadySpawnedServiceException {
+		// set the spawning point
+		if (updatePoint)
+			object.setPoint(point);
+		// reset actor state
+		if (object instanceof Actor) {
+			((Actor) object).setState(null);
+		}
+		// register object in the world
+		if (!worldService.add(object))
+			throw new AlreadySpawnedServiceException();
+	}
+
 	@Override
 	public <T extends PositionableObject> AsyncFuture<T> spawn(final T object,
 			final Point3D point, long time, TimeUnit unit) {
@@ -142,10 +181,11 @@ public class SpawnServiceImpl extends AbstractService implements SpawnService {
 		Preconditions.checkArgument(time > 0, "time < 0");
 		Preconditions.checkNotNull(unit, "unit");
 
-		log.debug("Scheduling spawn of {} at {} in {}ms", new Object[] {
-				object, point, unit.toMillis(time) });
+		if (log.isDebugEnabled())
+			log.debug("Scheduling spawn of {} at {} in {}ms", new Object[] {
+					object, point, unit.toMillis(time) });
 
-		return threadService.async(time, unit, new AbstractTask<T>() {
+		return threadService.schedule(time, unit, new AbstractTask<T>() {
 			@Override
 			public T call() throws Exception {
 				spawn(object, point);
@@ -185,6 +225,18 @@ public class SpawnServiceImpl extends AbstractService implements SpawnService {
 			eventDispatcher.dispatch(event);
 	}
 
+	@Override
+	public void bulkUnspawn(PositionableObject object, boolean broadcast)
+			throws NotSpawnedServiceException {
+		Preconditions.checkNotNull(object, "object");
+		if (broadcast) {
+			unspawn(object);
+			return;
+		}
+		if (object.getPoint() == null || !worldService.remove(object))
+			throw new NotSpawnedServiceException();
+	}
+
 	@Override
 	public <T extends PositionableObject> AsyncFuture<T> unspawn(
 			final T object, long time, TimeUnit unit) {
@@ -192,10 +244,11 @@ public class SpawnServiceImpl extends AbstractService implements SpawnService {
 		Preconditions.checkArgument(time > 0, "time <= 0");
 		Preconditions.checkNotNull(unit, "unit");
 
-		log.debug("Scheduling unspawn of {} in {}ms", object,
-				unit.toMillis(time));
+		if (log.isDebugEnabled())
+			log.debug("Scheduling unspawn of {} in {}ms", object,
+					unit.toMillis(time));
 
-		return threadService.async(time, unit, new AbstractTask<T>() {
+		return threadService.schedule(time, unit, new AbstractTask<T>() {
 			@Override
 			public T call() throws Exception {
 				unspawn(object);
@@ -31,20 +31,18 @@ import com.l2jserver.model.id.ObjectID;
 import com.l2jserver.model.id.object.allocator.IDAllocator;
 import com.l2jserver.service.AbstractService;
 import com.l2jserver.service.AbstractService.Depends;
-import com.l2jserver.service.ServiceStartException;
 import com.l2jserver.service.ServiceStopException;
-import com.l2jserver.service.cache.Cache;
-import com.l2jserver.service.cache.CacheService;
 import com.l2jserver.service.database.DataAccessObject;
 import com.l2jserver.service.database.DatabaseService;
 
 /**
  * Implementation for {@link WorldIDService} that caches all {@link ID} objects
- * in memory.
+ * in memory, in an {@link ObjectIDTable}. Since IDs are never evicted, there is
+ * no need for a general purpose cache and its per entry overhead.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
-@Depends({ DatabaseService.class, CacheService.class })
+@Depends({ DatabaseService.class })
 public class CachedWorldIDService extends AbstractService implements
 		WorldIDService {
 	/**
@@ -52,10 +50,6 @@ public class CachedWorldIDService extends AbstractService implements
 	 */
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-	/**
-	 * The cache service
-	 */
-	private final CacheService cacheService;
 	/**
 	 * The {@link IDAllocator}
 	 */
@@ -76,18 +70,16 @@ public class CachedWorldIDService extends AbstractService implements
 	private final NPCDAO npcDao;
 
 	/**
-	 * The ID cache
+	 * The ID table
 	 */
-	private Cache<Integer, ObjectID<?>> cache;
+	private final ObjectIDTable table = new ObjectIDTable();
 
 	/**
 	 * The loaded state
 	 */
-	private boolean loaded = false;
+	private volatile boolean loaded = false;
 
 	/**
-	 * @param cacheService
-	 *            the cache service
 	 * @param allocator
 	 *            the id allocator
 	 * @param characterDao
@@ -98,23 +90,14 @@ public class CachedWorldIDService extends AbstractService implements
 	 *            the NPC dao
 	 */
 	@Inject
-	public CachedWorldIDService(CacheService cacheService,
-			IDAllocator allocator, CharacterDAO characterDao, ItemDAO itemDao,
-			NPCDAO npcDao) {
-		this.cacheService = cacheService;
+	public CachedWorldIDService(IDAllocator allocator,
+			CharacterDAO characterDao, ItemDAO itemDao, NPCDAO npcDao) {
 		this.allocator = allocator;
 		this.characterDao = characterDao;
 		this.itemDao = itemDao;
 		this.npcDao = npcDao;
 	}
 
-	@Override
-	protected void doStart() throws ServiceStartException {
-		// we allocate an cache which can fit all ids
-		cache = cacheService.createEternalCache("id-cache",
-				IDAllocator.ALLOCABLE_IDS);
-	}
-
 	@Override
 	public void load() {
 		log.debug("Loading IDs from database");
@@ -129,7 +112,8 @@ public class CachedWorldIDService extends AbstractService implements
 	@Override
 	public void unload() {
 		log.debug("Clearing load IDs");
-		cache.clear();
+		loaded = false;
+		table.clear();
 	}
 
 	/**
@@ -144,9 +128,13 @@ public class CachedWorldIDService extends AbstractService implements
 		final Collection<? extends ObjectID<?>> ids = dao.selectIDs();
 		log.info("Loaded {} IDs from {}", ids.size(), dao);
 
+		final int[] raw = new int[ids.size()];
+		int i = 0;
+		for (final ObjectID<?> id : ids) {
+			raw[i++] = id.intValue();
+		}
+		allocator.allocate(raw);
 		for (final ObjectID<?> id : ids) {
-			log.debug("Loading {}", id);
-			allocator.allocate(id.getID());
 			add(id);
 		}
 	}
@@ -154,31 +142,28 @@ public class CachedWorldIDService extends AbstractService implements
 	@Override
 	@SuppressWarnings("unchecked")
 	public <I extends ObjectID<?>> I resolve(int id) {
-		Preconditions.checkNotNull(id, "id");
 		if (!loaded) {
 			// ignore resolving before all IDs are loaded
 			return null;
 		}
-		log.debug("Resolving {}", id);
-		return (I) cache.get(id);
+		return (I) table.get(id);
 	}
 
 	@Override
 	public <I extends ObjectID<?>> void add(I id) {
 		Preconditions.checkNotNull(id, "id");
-		cache.put(id.getID(), id);
+		table.put(id);
 	}
 
 	@Override
 	public <I extends ObjectID<?>> void remove(I id) {
 		Preconditions.checkNotNull(id, "id");
-		cache.remove(id.getID());
+		table.remove(id.intValue());
 	}
 
 	@Override
 	protected void doStop() throws ServiceStopException {
-		cacheService.dispose(cache);
-		cache = null;
+		unload();
 		allocator.clear();
 	}
 }
@@ -0,0 +1,237 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.world;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.base.Preconditions;
+import com.l2jserver.model.id.ObjectID;
+
+/**
+ * An open addressing hash table of {@link ObjectID}s, keyed by their primitive
+ * <code>int</code> value. Because every {@link ObjectID} knows its own key,
+ * only the references are stored: there are no boxed keys or entry objects.
+ * <p>
+ * Reads are lock-free: they only perform volatile reads on the current slot
+ * array. Writes are serialized and never move a live entry inside the slot
+ * array that readers may be probing. Removed entries leave a tombstone behind
+ * and the table is rebuilt into a new array, which is then published, once
+ * live entries and tombstones fill it above {@link #LOAD_FACTOR}.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ObjectIDTable {
+	/**
+	 * The maximum fraction of slots in use (either live or tombstones)
+	 */
+	private static final float LOAD_FACTOR = 0.5f;
+	/**
+	 * The default initial capacity
+	 */
+	private static final int DEFAULT_CAPACITY = 1024;
+	/**
+	 * The golden ratio multiplier used to spread IDs (which are mostly
+	 * sequential) over the table
+	 */
+	private static final int HASH_MULTIPLIER = 0x9E3779B9;
+	/**
+	 * Marks a slot whose entry has been removed
+	 */
+	private static final Object TOMBSTONE = new Object();
+
+	/**
+	 * The slot array. Only replaced (never modified after being replaced) by
+	 * writers holding the table lock.
+	 */
+	private volatile AtomicReferenceArray<Object> slots;
+	/**
+	 * The amount of live entries
+	 */
+	private volatile int size;
+	/**
+	 * The amount of tombstones in {@link #slots}
+	 */
+	private int tombstones;
+
+	/**
+	 * Creates a new table
+	 * 
+	 * @param expected
+	 *            the expected amount of entries
+	 */
+	public ObjectIDTable(int expected) {
+		Preconditions.checkArgument(expected >= 0, "expected < 0");
+		slots = new AtomicReferenceArray<Object>(capacityFor(expected));
+	}
+
+	/**
+	 * Creates a new table with the default capacity
+	 */
+	public ObjectIDTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param id
+	 *            the raw id
+	 * @return the {@link ObjectID} registered with the given id, if any
+	 */
+	public ObjectID<?> get(int id) {
+		final AtomicReferenceArray<Object> slots = this.slots;
+		final int mask = slots.length() - 1;
+		for (int i = hash(id, mask);; i = (i + 1) & mask) {
+			final Object slot = slots.get(i);
+			if (slot == null)
+				return null;
+			if (slot != TOMBSTONE && ((ObjectID<?>) slot).intValue() == id)
+				return (ObjectID<?>) slot;
+		}
+	}
+
+	/**
+	 * Registers an {@link ObjectID}, replacing any other registered with the
+	 * same raw id
+	 * 
+	 * @param id
+	 *            the id
+	 * @return the replaced {@link ObjectID}, if any
+	 */
+	public synchronized ObjectID<?> put(ObjectID<?> id) {
+		Preconditions.checkNotNull(id, "id");
+		final int key = id.intValue();
+		final AtomicReferenceArray<Object> slots = this.slots;
+		final int mask = slots.length() - 1;
+		int free = -1;
+		for (int i = hash(key, mask);; i = (i + 1) & mask) {
+			final Object slot = slots.get(i);
+			if (slot == null) {
+				if (free == -1)
+					free = i;
+				break;
+			} else if (slot == TOMBSTONE) {
+				if (free == -1)
+					free = i;
+			} else if (((ObjectID<?>) slot).intValue() == key) {
+				slots.set(i, id);
+				return (ObjectID<?>) slot;
+			}
+		}
+		if (slots.get(free) == TOMBSTONE)
+			tombstones--;
+		slots.set(free, id);
+		size++;
+		if (size + tombstones > slots.length() * LOAD_FACTOR)
+			rebuild(capacityFor(size));
+		return null;
+	}
+
+	/**
+	 * Unregisters the {@link ObjectID} with the given raw id
+	 * 
+	 * @param id
+	 *            the raw id
+	 * @return the removed {@link ObjectID}, if any
+	 */
+	public synchronized ObjectID<?> remove(int id) {
+		final AtomicReferenceArray<Object> slots = this.slots;
+		final int mask = slots.length() - 1;
+		for (int i = hash(id, mask);; i = (i + 1) & mask) {
+			final Object slot = slots.get(i);
+			if (slot == null)
+				return null;
+			if (slot != TOMBSTONE && ((ObjectID<?>) slot).intValue() == id) {
+				// a tombstone keeps the probe chain intact for readers
+				slots.set(i, TOMBSTONE);
+				tombstones++;
+				size--;
+				return (ObjectID<?>) slot;
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	public synchronized void clear() {
+		slots = new AtomicReferenceArray<Object>(capacityFor(0));
+		size = 0;
+		tombstones = 0;
+	}
+
+	/**
+	 * @return the amount of registered {@link ObjectID}s
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the amount of slots in the table
+	 */
+	public int capacity() {
+		return slots.length();
+	}
+
+	/**
+	 * Copies all live entries into a new slot array and publishes it
+	 * 
+	 * @param capacity
+	 *            the new capacity
+	 */
+	private void rebuild(int capacity) {
+		final AtomicReferenceArray<Object> old = this.slots;
+		final AtomicReferenceArray<Object> slots = new AtomicReferenceArray<Object>(
+				capacity);
+		final int mask = capacity - 1;
+		for (int i = 0; i < old.length(); i++) {
+			final Object slot = old.get(i);
+			if (slot == null || slot == TOMBSTONE)
+				continue;
+			int j = hash(((ObjectID<?>) slot).intValue(), mask);
+			while (slots.get(j) != null)
+				j = (j + 1) & mask;
+			slots.set(j, slot);
+		}
+		tombstones = 0;
+		this.slots = slots;
+	}
+
+	/**
+	 * @param expected
+	 *            the expected amount of entries
+	 * @return the smallest power of two capacity that keeps
+	 *         <code>expected</code> entries under the load factor
+	 */
+	private static int capacityFor(int expected) {
+		int capacity = 16;
+		while (capacity * LOAD_FACTOR <= expected)
+			capacity <<= 1;
+		return capacity;
+	}
+
+	/**
+	 * @param id
+	 *            the raw id
+	 * @param mask
+	 *            the table mask
+	 * @return the first slot to probe
+	 */
+	private static int hash(int id, int mask) {
+		final int h = id * HASH_MULTIPLIER;
+		return (h ^ (h >>> 16)) & mask;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.world;
+
+import java.util.Set;
+
+import com.l2jserver.model.world.L2Character;
+import com.l2jserver.model.world.PositionableObject;
+import com.l2jserver.model.world.character.event.CharacterEnterWorldEvent;
+import com.l2jserver.model.world.character.event.CharacterLeaveWorldEvent;
+import com.l2jserver.service.game.world.event.WorldEvent;
+import com.l2jserver.service.game.world.event.WorldListener;
+import com.l2jserver.service.game.world.filter.impl.KnownListFilter;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Splits the world in square regions and tracks which of them are observed by
+ * online characters. A region is observed if a character is in it or in any of
+ * the neighbor regions.
+ * <p>
+ * Characters are tracked through {@link CharacterEnterWorldEvent} and
+ * {@link CharacterLeaveWorldEvent}, so instances must be registered as a
+ * {@link WorldListener} (or receive the events from one).
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class WorldRegions implements WorldListener {
+	/**
+	 * The size of an region, as a power of two. Regions must not be smaller
+	 * than the {@link KnownListFilter#KNOWNLIST_RANGE knownlist range}, so that
+	 * every object an player can see is either in his region or in one of the
+	 * neighbor regions.
+	 */
+	public static final int REGION_SHIFT = 11;
+
+	static {
+		if ((1 << REGION_SHIFT) < KnownListFilter.KNOWNLIST_RANGE)
+			throw new ExceptionInInitializerError(
+					"regions are smaller than the knownlist range");
+	}
+
+	/**
+	 * The characters online
+	 */
+	private final Set<L2Character> observers = CollectionFactory
+			.newConcurrentSet();
+
+	@Override
+	public boolean dispatch(WorldEvent e) {
+		if (e instanceof CharacterEnterWorldEvent) {
+			observers.add(((CharacterEnterWorldEvent) e).getCharacter());
+		} else if (e instanceof CharacterLeaveWorldEvent) {
+			observers.remove(((CharacterLeaveWorldEvent) e).getCharacter());
+		}
+		return true;
+	}
+
+	/**
+	 * @return the keys of all regions with a character in them or in any of
+	 *         the neighbor regions
+	 */
+	public Set<Long> observed() {
+		final Set<Long> observed = CollectionFactory.newSet();
+		for (final L2Character observer : observers) {
+			if (!observer.isPositioned())
+				continue;
+			final int rx = observer.getX() >> REGION_SHIFT;
+			final int ry = observer.getY() >> REGION_SHIFT;
+			for (int dx = -1; dx <= 1; dx++) {
+				for (int dy = -1; dy <= 1; dy++) {
+					observed.add(key(rx + dx, ry + dy));
+				}
+			}
+		}
+		return observed;
+	}
+
+	/**
+	 * @return the amount of characters online
+	 */
+	public int getObserverCount() {
+		return observers.size();
+	}
+
+	/**
+	 * Forgets all characters
+	 */
+	public void clear() {
+		observers.clear();
+	}
+
+	/**
+	 * @param object
+	 *            the object
+	 * @return the key of the region the object is in. Objects not positioned
+	 *         are in the region at the origin.
+	 */
+	public static long key(PositionableObject object) {
+		if (!object.isPositioned())
+			return key(0, 0);
+		return key(object.getX() >> REGION_SHIFT,
+				object.getY() >> REGION_SHIFT);
+	}
+
+	/**
+	 * @param rx
+	 *            the region x index
+	 * @param ry
+	 *            the region y index
+	 * @return the region key
+	 */
+	public static long key(int rx, int ry) {
+		return ((long) rx << 32) | (ry & 0xFFFFFFFFL);
+	}
+}
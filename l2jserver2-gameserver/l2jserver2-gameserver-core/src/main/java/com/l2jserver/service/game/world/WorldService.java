@@ -20,6 +20,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import com.l2jserver.model.id.ObjectID;
+import com.l2jserver.model.world.L2Character;
 import com.l2jserver.model.world.NPC;
 import com.l2jserver.model.world.PositionableObject;
 import com.l2jserver.model.world.WorldObject;
@@ -73,6 +74,14 @@ public interface WorldService extends Service, Iterable<WorldObject> {
 	 */
 	boolean contains(WorldObject object);
 
+	/**
+	 * Returns the amount of {@link L2Character} objects in the world, without
+	 * iterating over all objects.
+	 * 
+	 * @return the amount of characters in the world
+	 */
+	int getCharacterCount();
+
 	/**
 	 * Locates the object with the given <tt>id</tt>
 	 * 
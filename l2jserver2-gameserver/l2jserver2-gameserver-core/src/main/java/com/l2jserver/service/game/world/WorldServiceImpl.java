@@ -19,6 +19,7 @@ package com.l2jserver.service.game.world;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import com.l2jserver.model.id.ObjectID;
+import com.l2jserver.model.world.L2Character;
 import com.l2jserver.model.world.PositionableObject;
 import com.l2jserver.model.world.WorldObject;
 import com.l2jserver.service.AbstractService;
@@ -63,6 +65,10 @@ public class WorldServiceImpl extends AbstractService implements WorldService {
 	 * The set of all objects registered in the world
 	 */
 	private final Set<WorldObject> objects = CollectionFactory.newSet();
+	/**
+	 * The amount of {@link L2Character} objects in {@link #objects}
+	 */
+	private final AtomicInteger characters = new AtomicInteger();
 	/**
 	 * The world event dispatcher
 	 */
@@ -88,6 +94,7 @@ public class WorldServiceImpl extends AbstractService implements WorldService {
 	@Override
 	protected void doStart() throws ServiceStartException {
 		objects.clear();
+		characters.set(0);
 		idService.load();
 	}
 
@@ -96,7 +103,11 @@ public class WorldServiceImpl extends AbstractService implements WorldService {
 		Preconditions.checkNotNull(object, "object");
 		Preconditions.checkNotNull(object.getID(), "id");
 		log.debug("Adding object {} to world", object);
-		return objects.add(object);
+		if (!objects.add(object))
+			return false;
+		if (object instanceof L2Character)
+			characters.incrementAndGet();
+		return true;
 	}
 
 	@Override
@@ -106,7 +117,11 @@ public class WorldServiceImpl extends AbstractService implements WorldService {
 		log.debug("Removing object {} from world", object);
 		// we also need to remove all listeners for this object
 		dispatcher.clear(object.getID());
-		return objects.remove(object);
+		if (!objects.remove(object))
+			return false;
+		if (object instanceof L2Character)
+			characters.decrementAndGet();
+		return true;
 	}
 
 	@Override
@@ -116,6 +131,11 @@ public class WorldServiceImpl extends AbstractService implements WorldService {
 		return objects.contains(object);
 	}
 
+	@Override
+	public int getCharacterCount() {
+		return characters.get();
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T extends WorldObject> T find(ObjectID<T> id) {
@@ -183,6 +203,7 @@ public class WorldServiceImpl extends AbstractService implements WorldService {
 	@Override
 	protected void doStop() throws ServiceStopException {
 		objects.clear();
+		characters.set(0);
 		idService.unload();
 	}
 }
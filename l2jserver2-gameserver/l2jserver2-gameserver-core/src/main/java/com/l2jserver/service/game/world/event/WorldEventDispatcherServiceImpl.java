@@ -22,6 +22,7 @@ import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.AbstractFuture;
@@ -30,6 +31,10 @@ import com.l2jserver.model.id.ObjectID;
 import com.l2jserver.model.world.WorldObject;
 import com.l2jserver.service.AbstractConfigurableService;
 import com.l2jserver.service.AbstractService.Depends;
+import com.l2jserver.service.core.metrics.Counter;
+import com.l2jserver.service.core.metrics.Gauge;
+import com.l2jserver.service.core.metrics.Histogram;
+import com.l2jserver.service.core.metrics.MetricRegistry;
 import com.l2jserver.service.core.threading.ThreadPool;
 import com.l2jserver.service.core.threading.ThreadService;
 import com.l2jserver.util.factory.CollectionFactory;
@@ -47,6 +52,10 @@ public class WorldEventDispatcherServiceImpl extends
 	 * The thread service
 	 */
 	private final ThreadService threadService;
+	/**
+	 * The metric registry
+	 */
+	private final MetricRegistry metrics;
 
 	/**
 	 * The execution thread
@@ -67,15 +76,35 @@ public class WorldEventDispatcherServiceImpl extends
 	 */
 	private Queue<EventContainer> events = CollectionFactory
 			.newConcurrentQueue();
+	/**
+	 * The amount of events in {@link #events}, as the queue size is not
+	 * computed in constant time
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	/**
+	 * The amount of events dispatched
+	 */
+	private final Counter dispatched;
+	/**
+	 * The time events wait in the queue before being dispatched
+	 */
+	private final Histogram latency;
 
 	/**
 	 * @param threadService
 	 *            the thread service
+	 * @param metrics
+	 *            the metric registry
 	 */
 	@Inject
-	public WorldEventDispatcherServiceImpl(ThreadService threadService) {
+	public WorldEventDispatcherServiceImpl(ThreadService threadService,
+			MetricRegistry metrics) {
 		super(WorldEventDispatcherServiceConfiguration.class);
 		this.threadService = threadService;
+		this.metrics = metrics;
+		this.dispatched = metrics.counter("world.dispatcher.dispatched");
+		this.latency = metrics.histogram("world.dispatcher.latency");
 	}
 
 	/**
@@ -89,12 +118,20 @@ public class WorldEventDispatcherServiceImpl extends
 
 		threadPool = threadService
 				.createThreadPool("event-dispatcher", threads);
+		metrics.gauge("world.dispatcher.queue", new Gauge() {
+			@Override
+			public long getValue() {
+				return pending.get();
+			}
+		});
 		for (int i = 0; i < threads; i++) {
 			threadPool.async(0, TimeUnit.MILLISECONDS, 10, new Runnable() {
 				@Override
 				public void run() {
 					EventContainer event;
 					while ((event = events.poll()) != null) {
+						pending.decrementAndGet();
+						latency.recordSince(event.queued);
 						synchronized (event) {
 							try {
 								if (event.future.isCancelled())
@@ -109,6 +146,7 @@ public class WorldEventDispatcherServiceImpl extends
 
 								// dispatch
 								doDispatch(event.event);
+								dispatched.increment();
 								// the set will update state
 								event.future.set(event.event);
 							} catch (Throwable t) {
@@ -130,6 +168,8 @@ public class WorldEventDispatcherServiceImpl extends
 		logger.debug("Queing dispatch for event {}", event);
 
 		final WorldEventFutureImpl<E> future = new WorldEventFutureImpl<E>();
+		// counted before queued, so the count never goes below zero
+		pending.incrementAndGet();
 		events.add(new EventContainer(event, future));
 		return future;
 	}
@@ -243,6 +283,7 @@ public class WorldEventDispatcherServiceImpl extends
 	 */
 	@Override
 	public void doStop() {
+		metrics.remove("world.dispatcher.queue");
 		threadService.dispose(threadPool);
 		threadPool = null;
 	}
@@ -345,6 +386,10 @@ public class WorldEventDispatcherServiceImpl extends
 		 * The future
 		 */
 		private final WorldEventFutureImpl<? extends WorldEvent> future;
+		/**
+		 * The {@link System#nanoTime()} the event was queued at
+		 */
+		private final long queued = System.nanoTime();
 
 		/**
 		 * Creates a new instance
@@ -16,8 +16,6 @@
  */
 package com.l2jserver.service.game.world.filter.impl;
 
-import org.apache.commons.math.util.FastMath;
-
 import com.google.common.base.Preconditions;
 import com.l2jserver.model.world.PositionableObject;
 import com.l2jserver.service.game.world.filter.WorldObjectFilter;
@@ -56,23 +54,6 @@ public class RangeFilter implements WorldObjectFilter<PositionableObject> {
 	public boolean accept(PositionableObject other) {
 		if (other == null)
 			return false;
-		if (other.getPoint() == null)
-			return false;
-
-		final double dx = FastMath.abs(object.getPoint().getX()
-				- other.getPoint().getX());
-		final double dy = FastMath.abs(object.getPoint().getY()
-				- other.getPoint().getY());
-		final double dz = FastMath.abs(object.getPoint().getZ()
-				- other.getPoint().getZ());
-
-		if (dx > range)
-			return false;
-		if (dy > range)
-			return false;
-		if (dz > range)
-			return false;
-
-		return true;
+		return object.isInRange(other, range);
 	}
 }
@@ -16,8 +16,6 @@
  */
 package com.l2jserver.service.game.world.filter.impl;
 
-import org.apache.commons.math.util.FastMath;
-
 import com.google.common.base.Preconditions;
 import com.l2jserver.model.world.PositionableObject;
 import com.l2jserver.service.game.world.filter.WorldObjectFilter;
@@ -57,17 +55,7 @@ public class RangePointFilter implements WorldObjectFilter<PositionableObject> {
 	public boolean accept(PositionableObject other) {
 		if (other == null)
 			return false;
-		final double dx = FastMath.abs(point.getX() - other.getPoint().getX());
-		final double dy = FastMath.abs(point.getY() - other.getPoint().getY());
-		final double dz = FastMath.abs(point.getZ() - other.getPoint().getZ());
-
-		if (dx > range)
-			return false;
-		if (dy > range)
-			return false;
-		if (dz > range)
-			return false;
-
-		return true;
+		return other.isInRange(point.getX(), point.getY(), point.getZ(),
+				range);
 	}
 }
@@ -17,6 +17,7 @@
 package com.l2jserver.service.network;
 
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.jboss.netty.bootstrap.ServerBootstrap;
@@ -36,16 +37,23 @@ import com.google.common.base.Preconditions;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.l2jserver.game.net.handler.Lineage2OutboundBatcher;
 import com.l2jserver.model.id.object.CharacterID;
 import com.l2jserver.service.AbstractConfigurableService;
 import com.l2jserver.service.AbstractService.Depends;
 import com.l2jserver.service.core.logging.LoggingService;
+import com.l2jserver.service.core.metrics.Counter;
+import com.l2jserver.service.core.metrics.Gauge;
+import com.l2jserver.service.core.metrics.Histogram;
+import com.l2jserver.service.core.metrics.MetricRegistry;
+import com.l2jserver.service.core.threading.ScheduledAsyncFuture;
 import com.l2jserver.service.core.threading.ThreadPool;
 import com.l2jserver.service.core.threading.ThreadPoolPriority;
 import com.l2jserver.service.core.threading.ThreadService;
 import com.l2jserver.service.game.world.WorldService;
 import com.l2jserver.service.network.keygen.BlowfishKeygenService;
 import com.l2jserver.service.network.model.Lineage2Client;
+import com.l2jserver.service.network.model.packet.ClientPacket;
 import com.l2jserver.service.network.model.packet.ServerPacket;
 import com.l2jserver.util.ThreadPoolUtils;
 import com.l2jserver.util.factory.CollectionFactory;
@@ -94,19 +102,47 @@ public abstract class AbstractNettyNetworkService extends
 	/**
 	 * The client list. This list all active clients in the server
 	 */
-	private Set<Lineage2Client> clients = CollectionFactory.newSet();
+	private Set<Lineage2Client> clients = CollectionFactory.newConcurrentSet();
+	/**
+	 * The task that flushes pending packets of all clients, if batching is
+	 * enabled
+	 */
+	private ScheduledAsyncFuture flushFuture;
+
+	/**
+	 * The metric registry
+	 */
+	private final MetricRegistry metrics;
+	/**
+	 * The received packet counters, by packet class
+	 */
+	private final ConcurrentMap<Class<?>, Counter> receivedCounters = CollectionFactory
+			.newConcurrentMap();
+	/**
+	 * The sent packet counters, by opcode. Filled as packets are sent.
+	 */
+	private final Counter[] sentCounters = new Counter[256];
+	/**
+	 * The time spent processing received packets
+	 */
+	private final Histogram processing;
 
 	/**
 	 * @param injector
 	 *            the {@link Guice} {@link Injector}
 	 * @param threadService
 	 *            the {@link ThreadService}
+	 * @param metrics
+	 *            the metric registry
 	 */
 	@Inject
-	public AbstractNettyNetworkService(Injector injector, ThreadService threadService) {
+	public AbstractNettyNetworkService(Injector injector,
+			ThreadService threadService, MetricRegistry metrics) {
 		super(NetworkServiceConfiguration.class);
 		this.threadService = threadService;
 		this.injector = injector;
+		this.metrics = metrics;
+		this.processing = metrics.histogram("network.packets.processing");
 		InternalLoggerFactory.setDefaultFactory(new Slf4JLoggerFactory());
 	}
 
@@ -130,8 +166,39 @@ public abstract class AbstractNettyNetworkService extends
 				ThreadPoolUtils.wrap(bossPool),
 				ThreadPoolUtils.wrap(workerPool), 50));
 
+		metrics.gauge("network.clients", new Gauge() {
+			@Override
+			public long getValue() {
+				return clients.size();
+			}
+		});
+
 		server.setPipelineFactory(createPipelineFactory(injector));
 		channel = (ServerChannel) server.bind(config.getListenAddress());
+
+		if (config.isBatchingEnabled()) {
+			final int interval = config.getBatchingInterval();
+			flushFuture = threadService.async(interval, TimeUnit.MILLISECONDS,
+					interval, new Runnable() {
+						@Override
+						public void run() {
+							for (final Lineage2Client client : clients) {
+								client.flush();
+							}
+						}
+					});
+		}
+	}
+
+	/**
+	 * Creates the {@link Lineage2OutboundBatcher} for a new channel
+	 * 
+	 * @return the new batcher or <code>null</code> if batching is disabled
+	 */
+	public Lineage2OutboundBatcher createOutboundBatcher() {
+		if (!config.isBatchingEnabled())
+			return null;
+		return new Lineage2OutboundBatcher(config.getBatchingMaxSize());
 	}
 	
 	/**
@@ -141,6 +208,46 @@ public abstract class AbstractNettyNetworkService extends
 	 */
 	protected abstract ChannelPipelineFactory createPipelineFactory(Injector injector);
 
+	/**
+	 * Records a received packet in the packet metrics. Packets are counted by
+	 * class, as <tt>network.packets.in.{class name}</tt>.
+	 * 
+	 * @param packet
+	 *            the received packet
+	 * @param processingTime
+	 *            the time spent processing the packet, in nanoseconds
+	 */
+	public void packetReceived(ClientPacket packet, long processingTime) {
+		Counter counter = receivedCounters.get(packet.getClass());
+		if (counter == null) {
+			counter = metrics.counter("network.packets.in."
+					+ packet.getClass().getSimpleName());
+			receivedCounters.put(packet.getClass(), counter);
+		}
+		counter.increment();
+		processing.record(processingTime);
+	}
+
+	/**
+	 * Records a sent packet in the packet metrics. Packets are counted by
+	 * opcode, as <tt>network.packets.out.0x{opcode}</tt>, as several
+	 * implementations might share an opcode.
+	 * 
+	 * @param packet
+	 *            the sent packet
+	 */
+	public void packetSent(ServerPacket packet) {
+		final int opcode = packet.getOpcode() & 0xFF;
+		Counter counter = sentCounters[opcode];
+		if (counter == null) {
+			// the registry returns the same instance to concurrent callers
+			counter = metrics.counter(String.format(
+					"network.packets.out.0x%02X", opcode));
+			sentCounters[opcode] = counter;
+		}
+		counter.increment();
+	}
+
 	@Override
 	public void register(final Lineage2Client client) {
 		Preconditions.checkNotNull(client, "client");
@@ -195,6 +302,11 @@ public abstract class AbstractNettyNetworkService extends
 
 	@Override
 	protected void doStop() {
+		if (flushFuture != null) {
+			flushFuture.cancel(false);
+			flushFuture = null;
+		}
+		metrics.remove("network.clients");
 		try {
 			channel.close().awaitUninterruptibly();
 			server.releaseExternalResources();
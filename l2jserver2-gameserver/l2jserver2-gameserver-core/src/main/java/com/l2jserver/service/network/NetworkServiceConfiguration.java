@@ -46,4 +46,53 @@ public interface NetworkServiceConfiguration extends ServiceConfiguration {
 	@ConfigurationPropertySetter
 	@ConfigurationXPath("server/@listen")
 	void setListenAddress(InetSocketAddress addr);
+
+	/**
+	 * @return whether outbound packets are collected and sent in batches
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "false")
+	@ConfigurationXPath("batching/@enabled")
+	boolean isBatchingEnabled();
+
+	/**
+	 * @param enabled
+	 *            whether outbound packets are collected and sent in batches
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("batching/@enabled")
+	void setBatchingEnabled(boolean enabled);
+
+	/**
+	 * @return the interval between flushes of the pending packets of all
+	 *         clients, in milliseconds
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "20")
+	@ConfigurationXPath("batching/@interval")
+	int getBatchingInterval();
+
+	/**
+	 * @param interval
+	 *            the interval between flushes of the pending packets of all
+	 *            clients, in milliseconds
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("batching/@interval")
+	void setBatchingInterval(int interval);
+
+	/**
+	 * @return the amount of pending bytes that causes a client to be flushed
+	 *         immediately
+	 */
+	@ConfigurationPropertyGetter(defaultValue = "8192")
+	@ConfigurationXPath("batching/@max-size")
+	int getBatchingMaxSize();
+
+	/**
+	 * @param size
+	 *            the amount of pending bytes that causes a client to be
+	 *            flushed immediately
+	 */
+	@ConfigurationPropertySetter
+	@ConfigurationXPath("batching/@max-size")
+	void setBatchingMaxSize(int size);
 }
\ No newline at end of file
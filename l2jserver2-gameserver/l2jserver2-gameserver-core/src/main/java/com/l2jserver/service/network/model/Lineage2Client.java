@@ -159,6 +159,12 @@ public interface Lineage2Client {
 	 */
 	ChannelFuture write(ServerPacket packet);
 
+	/**
+	 * Sends all packets written to this client that are still waiting to be
+	 * batched together. Does nothing if batching is disabled.
+	 */
+	void flush();
+
 	/**
 	 * Sends a string message to this client
 	 * 
@@ -194,6 +200,22 @@ public interface Lineage2Client {
 	 */
 	ChannelFuture sendSystemMessage(SystemMessage message, Object... args);
 
+	/**
+	 * Sends a {@link SystemMessage} with a single number argument to this
+	 * client. Prefer this method over
+	 * {@link #sendSystemMessage(SystemMessage, Object...)} for frequent
+	 * messages, such as damage notifications.
+	 * 
+	 * @param message
+	 *            the {@link SystemMessage}
+	 * @param number
+	 *            the number argument
+	 * @return the {@link ChannelFuture} that will be notified once the packet
+	 *         has been written.
+	 * @see SystemMessage
+	 */
+	ChannelFuture sendSystemMessage(SystemMessage message, int number);
+
 	/**
 	 * Sends a <code>SM_ACTION_FAILED</code> to the client.
 	 * <p>
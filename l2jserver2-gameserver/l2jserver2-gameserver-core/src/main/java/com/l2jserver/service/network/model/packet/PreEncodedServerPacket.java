@@ -0,0 +1,75 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.network.model.packet;
+
+import java.nio.ByteOrder;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.l2jserver.service.network.model.Lineage2Client;
+
+/**
+ * An immutable {@link ServerPacket} whose data was encoded once, when created.
+ * Writing it only copies the encoded bytes, so a single instance can be shared
+ * by all clients and threads.
+ * <p>
+ * Only packets whose data does not depend on the client can be pre-encoded:
+ * the packet is encoded with a <code>null</code> client.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class PreEncodedServerPacket implements ServerPacket {
+	/**
+	 * The packet opcode
+	 */
+	private final int opcode;
+	/**
+	 * The encoded packet data, without the opcode
+	 */
+	private final ChannelBuffer data;
+
+	/**
+	 * @param packet
+	 *            the packet to encode
+	 */
+	public PreEncodedServerPacket(ServerPacket packet) {
+		this.opcode = packet.getOpcode();
+		final ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(
+				ByteOrder.LITTLE_ENDIAN, 16);
+		packet.write(null, buffer);
+		this.data = ChannelBuffers.unmodifiableBuffer(ChannelBuffers
+				.copiedBuffer(buffer));
+	}
+
+	@Override
+	public void write(Lineage2Client client, ChannelBuffer buffer) {
+		buffer.writeBytes(data, data.readerIndex(), data.readableBytes());
+	}
+
+	@Override
+	public int getOpcode() {
+		return opcode;
+	}
+
+	/**
+	 * @return the amount of encoded bytes, without the opcode
+	 */
+	public int getLength() {
+		return data.readableBytes();
+	}
+}
@@ -16,8 +16,6 @@
  */
 package com.l2jserver.util.geometry;
 
-import org.apache.commons.math.geometry.Vector3D;
-
 import com.l2jserver.model.template.TemplateCoordinate;
 
 /**
@@ -29,9 +27,17 @@ import com.l2jserver.model.template.TemplateCoordinate;
  */
 public class Coordinate {
 	/**
-	 * The backing vector of this Coordinate
+	 * The x cord
+	 */
+	protected final int x;
+	/**
+	 * The y cord
+	 */
+	protected final int y;
+	/**
+	 * The z cord
 	 */
-	protected final Vector3D vector;
+	protected final int z;
 
 	/**
 	 * Creates a new coordinate
@@ -44,28 +50,30 @@ public class Coordinate {
 	 *            the z point
 	 */
 	protected Coordinate(int x, int y, int z) {
-		this.vector = new Vector3D(x, y, z);
+		this.x = x;
+		this.y = y;
+		this.z = z;
 	}
 
 	/**
 	 * @return the x cord
 	 */
 	public int getX() {
-		return (int) vector.getX();
+		return x;
 	}
 
 	/**
 	 * @return the y cord
 	 */
 	public int getY() {
-		return (int) vector.getY();
+		return y;
 	}
 
 	/**
 	 * @return the z cord
 	 */
 	public int getZ() {
-		return (int) vector.getZ();
+		return z;
 	}
 
 	/**
@@ -77,7 +85,7 @@ public class Coordinate {
 	 * @return the calculated distance
 	 */
 	public double getDistance(Coordinate other) {
-		return Vector3D.distance(vector, other.vector);
+		return Math.sqrt(getDistanceSquared(other));
 	}
 
 	/**
@@ -90,7 +98,10 @@ public class Coordinate {
 	 * @return the calculated distance
 	 */
 	public double getDistanceSquared(Coordinate other) {
-		return Vector3D.distanceSq(vector, other.vector);
+		final double dx = (double) other.x - x;
+		final double dy = (double) other.y - y;
+		final double dz = (double) other.z - z;
+		return dx * dx + dy * dy + dz * dz;
 	}
 
 	/**
@@ -123,7 +134,7 @@ public class Coordinate {
 
 	@Override
 	public String toString() {
-		return "Coordinate [" + vector + "]";
+		return "Coordinate [" + x + "," + y + "," + z + "]";
 	}
 
 	/**
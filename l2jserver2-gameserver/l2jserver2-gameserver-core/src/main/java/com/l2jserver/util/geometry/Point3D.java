@@ -19,14 +19,17 @@ package com.l2jserver.util.geometry;
 /**
  * An point is composed of an Coordinate and an angle. The angle represents the
  * facing angle of the point, that is, the direction the point is "looking".
+ * <p>
+ * All axis are stored as primitives: the {@link Coordinate} is only created
+ * when requested by {@link #getCoordinate()}.
  * 
  * @author <a href="http://www.rogiel.com">Rogiel</a>
  */
 public class Point3D extends Point {
 	/**
-	 * The point coordinate
+	 * The z axis
 	 */
-	protected final Coordinate coordinate;
+	protected final int z;
 	/**
 	 * The point angle
 	 */
@@ -41,13 +44,11 @@ public class Point3D extends Point {
 	 *            the angle
 	 */
 	public Point3D(Coordinate coordinate, double angle) {
-		super(coordinate.getX(), coordinate.getY());
-		this.coordinate = coordinate;
-		this.angle = angle;
+		this(coordinate.getX(), coordinate.getY(), coordinate.getZ(), angle);
 	}
 
 	/**
-	 * Creates a new point with 3 axis
+	 * Creates a new point
 	 * 
 	 * @param x
 	 *            the x axis
@@ -55,35 +56,34 @@ public class Point3D extends Point {
 	 *            the y axis
 	 * @param z
 	 *            the z axis
+	 * @param angle
+	 *            the angle
 	 */
-	public Point3D(int x, int y, int z) {
-		this(new Coordinate(x, y, z), 0);
-	}
-
-	/**
-	 * @return the x
-	 * @see com.l2jserver.util.geometry.Coordinate#getX()
-	 */
-	@Override
-	public int getX() {
-		return coordinate.getX();
+	public Point3D(int x, int y, int z, double angle) {
+		super(x, y);
+		this.z = z;
+		this.angle = angle;
 	}
 
 	/**
-	 * @return the y
-	 * @see com.l2jserver.util.geometry.Coordinate#getY()
+	 * Creates a new point with 3 axis
+	 * 
+	 * @param x
+	 *            the x axis
+	 * @param y
+	 *            the y axis
+	 * @param z
+	 *            the z axis
 	 */
-	@Override
-	public int getY() {
-		return coordinate.getY();
+	public Point3D(int x, int y, int z) {
+		this(x, y, z, 0);
 	}
 
 	/**
 	 * @return the z
-	 * @see com.l2jserver.util.geometry.Coordinate#getZ()
 	 */
 	public int getZ() {
-		return coordinate.getZ();
+		return z;
 	}
 
 	/**
@@ -93,7 +93,7 @@ public class Point3D extends Point {
 	 * @see com.l2jserver.util.geometry.Coordinate#getDistance(com.l2jserver.util.geometry.Coordinate)
 	 */
 	public double getDistance(Coordinate other) {
-		return coordinate.getDistance(other);
+		return distance(other.getX(), other.getY(), other.getZ());
 	}
 
 	/**
@@ -103,7 +103,23 @@ public class Point3D extends Point {
 	 * @see com.l2jserver.util.geometry.Coordinate#getDistance(com.l2jserver.util.geometry.Coordinate)
 	 */
 	public double getDistance(Point3D other) {
-		return coordinate.getDistance(other.coordinate);
+		return distance(other.x, other.y, other.z);
+	}
+
+	/**
+	 * @param x
+	 *            the other x axis
+	 * @param y
+	 *            the other y axis
+	 * @param z
+	 *            the other z axis
+	 * @return the distance
+	 */
+	private double distance(int x, int y, int z) {
+		final double dx = (double) x - this.x;
+		final double dy = (double) y - this.y;
+		final double dz = (double) z - this.z;
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
 	}
 
 	/**
@@ -117,7 +133,7 @@ public class Point3D extends Point {
 	 * @return the coordinate
 	 */
 	public Coordinate getCoordinate() {
-		return coordinate;
+		return Coordinate.fromXYZ(x, y, z);
 	}
 
 	/*
@@ -127,8 +143,7 @@ public class Point3D extends Point {
 	 */
 	@Override
 	public String toString() {
-		return "Point3D [" + coordinate.getX() + "," + coordinate.getY() + ","
-				+ coordinate.getZ() + "," + angle + "]";
+		return "Point3D [" + x + "," + y + "," + z + "," + angle + "]";
 	}
 
 	/**
@@ -145,7 +160,7 @@ public class Point3D extends Point {
 	 * @return the new {@link Point3D} object created
 	 */
 	public static final Point3D fromXYZA(int x, int y, int z, double angle) {
-		return new Point3D(Coordinate.fromXYZ(x, y, z), angle);
+		return new Point3D(x, y, z, angle);
 	}
 
 	/**
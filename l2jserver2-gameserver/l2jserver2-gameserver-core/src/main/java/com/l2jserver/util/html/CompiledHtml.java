@@ -0,0 +1,200 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.util.html;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * An HTML page parsed once into literal segments and variable placeholders.
+ * Literal segments are kept already encoded as they are sent to the client
+ * (UTF-16LE), so that writing a page is just a copy of its literal bytes and
+ * the encoding of a few variable values.
+ * <p>
+ * Placeholders are the variable name between a prefix and a suffix, such as
+ * <tt>%objectId%</tt> or <tt>${name}</tt>. Only the variables given when
+ * compiling are replaced, any other text is kept as is. Values are given by
+ * variable index, in the order the variables were given to
+ * {@link #compile(String, String, String, String...)}.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class CompiledHtml {
+	/**
+	 * The charset used by the client
+	 */
+	private static final Charset CHARSET = Charset.forName("UTF-16LE");
+
+	/**
+	 * The encoded literal segments. A segment is <code>null</code> if it is a
+	 * placeholder.
+	 */
+	private final byte[][] literals;
+	/**
+	 * The variable index of each placeholder segment, -1 for literals
+	 */
+	private final int[] variables;
+	/**
+	 * The amount of variables
+	 */
+	private final int variableCount;
+	/**
+	 * The encoded length of all literal segments
+	 */
+	private final int literalLength;
+
+	/**
+	 * @param literals
+	 *            the encoded literal segments
+	 * @param variables
+	 *            the variable index of each placeholder segment
+	 * @param variableCount
+	 *            the amount of variables
+	 */
+	private CompiledHtml(byte[][] literals, int[] variables, int variableCount) {
+		this.literals = literals;
+		this.variables = variables;
+		this.variableCount = variableCount;
+		int length = 0;
+		for (final byte[] literal : literals) {
+			if (literal != null)
+				length += literal.length;
+		}
+		this.literalLength = length;
+	}
+
+	/**
+	 * Parses the given HTML
+	 * 
+	 * @param html
+	 *            the html code
+	 * @param prefix
+	 *            the placeholder prefix
+	 * @param suffix
+	 *            the placeholder suffix
+	 * @param variables
+	 *            the variable names
+	 * @return the compiled html
+	 */
+	public static CompiledHtml compile(String html, String prefix,
+			String suffix, String... variables) {
+		final List<String> names = Arrays.asList(variables);
+		final List<byte[]> literals = CollectionFactory.newList();
+		final List<Integer> indexes = CollectionFactory.newList();
+
+		int literalStart = 0;
+		int start = html.indexOf(prefix);
+		while (start >= 0) {
+			final int end = html.indexOf(suffix, start + prefix.length());
+			if (end < 0)
+				break;
+			final int variable = names.indexOf(html.substring(
+					start + prefix.length(), end));
+			if (variable < 0) {
+				// not a placeholder, keep searching from the next character
+				start = html.indexOf(prefix, start + 1);
+				continue;
+			}
+			if (start > literalStart) {
+				literals.add(html.substring(literalStart, start).getBytes(
+						CHARSET));
+				indexes.add(-1);
+			}
+			literals.add(null);
+			indexes.add(variable);
+			literalStart = end + suffix.length();
+			start = html.indexOf(prefix, literalStart);
+		}
+		if (literalStart < html.length()) {
+			literals.add(html.substring(literalStart).getBytes(CHARSET));
+			indexes.add(-1);
+		}
+
+		final int[] variableIndexes = new int[indexes.size()];
+		for (int i = 0; i < variableIndexes.length; i++) {
+			variableIndexes[i] = indexes.get(i);
+		}
+		return new CompiledHtml(literals.toArray(new byte[literals.size()][]),
+				variableIndexes, variables.length);
+	}
+
+	/**
+	 * Writes the page as an null-terminated string, as
+	 * {@link com.l2jserver.util.BufferUtils#writeString(ChannelBuffer, String)
+	 * BufferUtils.writeString} does. The buffer must be little endian.
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @param values
+	 *            the variable values, by variable index. <code>null</code>
+	 *            values are written as empty strings.
+	 */
+	public void write(ChannelBuffer buffer, String... values) {
+		checkValues(values);
+		buffer.ensureWritableBytes(literalLength + 2);
+		for (int i = 0; i < literals.length; i++) {
+			if (literals[i] != null) {
+				buffer.writeBytes(literals[i]);
+				continue;
+			}
+			final String value = values[variables[i]];
+			if (value == null)
+				continue;
+			final int len = value.length();
+			for (int c = 0; c < len; c++) {
+				buffer.writeChar(value.charAt(c));
+			}
+		}
+		buffer.writeShort(0);
+	}
+
+	/**
+	 * @param values
+	 *            the variable values, by variable index. <code>null</code>
+	 *            values are replaced by empty strings.
+	 * @return the html code, with the variables replaced
+	 */
+	public String toString(String... values) {
+		checkValues(values);
+		final StringBuilder html = new StringBuilder(literalLength / 2);
+		for (int i = 0; i < literals.length; i++) {
+			if (literals[i] != null)
+				html.append(new String(literals[i], CHARSET));
+			else if (values[variables[i]] != null)
+				html.append(values[variables[i]]);
+		}
+		return html.toString();
+	}
+
+	/**
+	 * @param values
+	 *            the variable values
+	 * @throws IllegalArgumentException
+	 *             if the amount of values does not match the amount of
+	 *             variables
+	 */
+	private void checkValues(String[] values) {
+		if (values.length != variableCount)
+			throw new IllegalArgumentException("Expected " + variableCount
+					+ " values, got " + values.length);
+	}
+}
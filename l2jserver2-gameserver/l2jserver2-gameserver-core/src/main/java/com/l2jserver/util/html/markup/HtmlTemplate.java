@@ -17,8 +17,6 @@
 package com.l2jserver.util.html.markup;
 
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Pattern;
 
 import org.htmlparser.Tag;
 import org.htmlparser.nodes.TextNode;
@@ -90,19 +88,34 @@ public abstract class HtmlTemplate {
 	protected abstract void build(MarkupTag body);
 
 	/**
-	 * Replace the variables in the template
+	 * Replace the variables in the template, in a single pass. Unknown
+	 * variables are kept as is.
 	 * 
 	 * @param template
 	 *            the generated template HTML
 	 * @return the HTML with variables replaced
 	 */
 	public String replace(String template) {
-		for (final Entry<String, String> variable : variables.entrySet()) {
-			template = template.replaceAll(
-					Pattern.quote("${" + variable.getKey() + "}"),
-					variable.getValue());
+		if (variables.isEmpty())
+			return template;
+		final StringBuilder html = new StringBuilder(template.length());
+		int last = 0;
+		int start = template.indexOf("${");
+		while (start >= 0) {
+			final int end = template.indexOf('}', start + 2);
+			if (end < 0)
+				break;
+			final String value = variables.get(template.substring(start + 2,
+					end));
+			if (value == null) {
+				start = template.indexOf("${", start + 1);
+				continue;
+			}
+			html.append(template, last, start).append(value);
+			last = end + 1;
+			start = template.indexOf("${", last);
 		}
-		return template;
+		return html.append(template, last, template.length()).toString();
 	}
 
 	/**
@@ -0,0 +1,149 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.game.ai.desires;
+
+import java.util.Iterator;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DesireQueue}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class DesireQueueTest {
+	/**
+	 * Tests that desires are polled most powerful first
+	 */
+	@Test
+	public void testOrder() {
+		final DesireQueue queue = new DesireQueue();
+		for (int i = 0; i < 100; i++) {
+			queue.addDesire(desire(i, (i * 37) % 100));
+		}
+		Assert.assertEquals(100, queue.size());
+
+		int last = Integer.MAX_VALUE;
+		Desire desire;
+		while ((desire = queue.poll()) != null) {
+			Assert.assertTrue(desire.getDesirePower() <= last);
+			last = desire.getDesirePower();
+		}
+		Assert.assertTrue(queue.isEmpty());
+	}
+
+	/**
+	 * Tests that equal desires are merged
+	 */
+	@Test
+	public void testMerge() {
+		final DesireQueue queue = new DesireQueue();
+		queue.addDesire(desire(1, 10));
+		queue.addDesire(desire(2, 20));
+		final Desire merged = desire(1, 15);
+		queue.addDesire(merged);
+
+		Assert.assertEquals(2, queue.size());
+		Assert.assertSame(merged, queue.peek());
+		Assert.assertEquals(25, merged.getDesirePower());
+	}
+
+	/**
+	 * Tests removal, re-prioritization and clearing
+	 */
+	@Test
+	public void testRemoveAndUpdate() {
+		final DesireQueue queue = new DesireQueue();
+		final Desire a = desire(1, 10);
+		final Desire b = desire(2, 20);
+		final Desire c = desire(3, 30);
+		queue.addDesire(a);
+		queue.addDesire(b);
+		queue.addDesire(c);
+
+		Assert.assertTrue(queue.removeDesire(desire(3, 0)));
+		Assert.assertFalse(queue.contains(c));
+		a.increaseDesirePower(50);
+		Assert.assertTrue(queue.updateDesire(a));
+		Assert.assertSame(a, queue.peek());
+
+		queue.iterateDesires(new DesireIteratorHandler() {
+			@Override
+			public void next(Desire desire, Iterator<Desire> iterator) {
+				iterator.remove();
+			}
+		}, new DesireIteratorFilter() {
+			@Override
+			public boolean isOk(Desire desire) {
+				return desire == a;
+			}
+		});
+		Assert.assertSame(b, queue.poll());
+
+		queue.addDesire(a);
+		queue.clear();
+		queue.addDesire(c);
+		Assert.assertSame(c, queue.poll());
+		Assert.assertNull(queue.poll());
+	}
+
+	/**
+	 * @param id
+	 *            the desire id
+	 * @param power
+	 *            the desire power
+	 * @return the desire
+	 */
+	private static Desire desire(int id, int power) {
+		return new TestDesire(id, power);
+	}
+
+	/**
+	 * Desire identified by an id
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class TestDesire extends AbstractDesire {
+		/**
+		 * The desire id
+		 */
+		private final int id;
+
+		/**
+		 * @param id
+		 *            the desire id
+		 * @param power
+		 *            the desire power
+		 */
+		public TestDesire(int id, int power) {
+			super(power);
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof TestDesire && ((TestDesire) obj).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.model.world.actor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.l2jserver.model.game.Skill;
+import com.l2jserver.model.id.template.SkillTemplateID;
+import com.l2jserver.model.template.SkillTemplate;
+
+/**
+ * Tests for {@link ActorSkillContainer}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ActorSkillContainerTest {
+	/**
+	 * Tests lookups on a large container, including ids colliding in the
+	 * index
+	 */
+	@Test
+	public void testLookup() {
+		final ActorSkillContainer container = new ActorSkillContainer(null);
+		final Skill[] skills = new Skill[300];
+		for (int i = 0; i < skills.length; i++) {
+			skills[i] = skill(i * 1024 + 1, 1 + i % 10, false);
+		}
+		container.load(Arrays.asList(skills));
+
+		Assert.assertEquals(skills.length, container.size());
+		for (int i = 0; i < skills.length; i++) {
+			Assert.assertSame(skills[i],
+					container.hasSkill(skills[i].getTemplateID()));
+			Assert.assertSame(skills[i], container.getSkill(i * 1024 + 1));
+		}
+		Assert.assertNull(container.getSkill(2));
+		Assert.assertEquals(0, container.getLevel(id(2, false)));
+	}
+
+	/**
+	 * Tests level-aware lookups and deduplication while loading
+	 */
+	@Test
+	public void testLevels() {
+		final ActorSkillContainer container = new ActorSkillContainer(null);
+		final Skill low = skill(10, 2, false);
+		final Skill high = skill(10, 5, false);
+		container.load(Arrays.asList(low, high, skill(10, 3, false)));
+
+		Assert.assertEquals(1, container.size());
+		Assert.assertEquals(5, container.getLevel(low.getTemplateID()));
+		Assert.assertSame(high, container.hasSkill(low.getTemplateID(), 5));
+		Assert.assertNull(container.hasSkill(low.getTemplateID(), 6));
+	}
+
+	/**
+	 * Tests the passive skill list and snapshot isolation
+	 */
+	@Test
+	public void testSnapshot() {
+		final ActorSkillContainer container = new ActorSkillContainer(null);
+		final Skill active = skill(1, 1, false);
+		final Skill passive = skill(2, 1, true);
+		container.add(active);
+		container.add(passive);
+
+		final ActorSkillContainer.Snapshot snapshot = container.snapshot();
+		final List<Skill> passives = container.getPassives();
+		Assert.assertEquals(Arrays.asList(passive), passives);
+
+		container.remove(passive.getTemplateID());
+		Assert.assertNull(container.hasSkill(passive.getTemplateID()));
+		Assert.assertTrue(container.getPassives().isEmpty());
+		// previous snapshot is untouched
+		Assert.assertEquals(2, snapshot.size());
+		Assert.assertSame(passive, snapshot.get(2));
+		Assert.assertEquals(1, passives.size());
+	}
+
+	/**
+	 * @param id
+	 *            the template id
+	 * @param level
+	 *            the skill level
+	 * @param passive
+	 *            whether the skill template is passive
+	 * @return the skill
+	 */
+	private static Skill skill(int id, int level, boolean passive) {
+		return new Skill(id(id, passive), level);
+	}
+
+	/**
+	 * @param id
+	 *            the template id
+	 * @param passive
+	 *            whether the skill template is passive
+	 * @return an template id not backed by the template service
+	 */
+	private static SkillTemplateID id(int id, boolean passive) {
+		final SkillTemplate template = new SkillTemplate();
+		template.setID(new SkillTemplateID(id, null));
+		template.setPassive(passive);
+		return new SkillTemplateID(id, null) {
+			@Override
+			public SkillTemplate loadTemplate() {
+				return template;
+			}
+		};
+	}
+}
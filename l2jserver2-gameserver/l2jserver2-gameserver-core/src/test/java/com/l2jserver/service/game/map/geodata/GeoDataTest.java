@@ -0,0 +1,182 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.map.geodata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.l2jserver.service.game.map.Tile;
+
+/**
+ * Tests for {@link GeoData}, using a synthetic region covering world x and y
+ * from 0 to 32767. All blocks are flat at height 0, except:
+ * <ul>
+ * <li>block (0, 0): a wall between the 4th and 5th cell columns (world x
+ * 64);</li>
+ * <li>block (2, 0): flat at height 500;</li>
+ * <li>block (0, 1): two layers, at heights 0 and 200.</li>
+ * </ul>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class GeoDataTest {
+	/**
+	 * The geodata
+	 */
+	private static GeoData geodata;
+
+	/**
+	 * Creates the geodata
+	 * 
+	 * @throws IOException
+	 *             if the region file could not be written
+	 */
+	@BeforeClass
+	public static void setUp() throws IOException {
+		geodata = createGeoData();
+	}
+
+	/**
+	 * Writes the synthetic region file into a temporary directory
+	 * 
+	 * @return the geodata for the synthetic region
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	public static GeoData createGeoData() throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024).order(
+				ByteOrder.LITTLE_ENDIAN);
+		for (int bx = 0; bx < GeoDataRegion.BLOCKS; bx++) {
+			for (int by = 0; by < GeoDataRegion.BLOCKS; by++) {
+				if (bx == 0 && by == 0) {
+					buffer.put((byte) 1);
+					for (int cx = 0; cx < 8; cx++) {
+						for (int cy = 0; cy < 8; cy++) {
+							int nswe = Tile.ALL;
+							if (cx == 3)
+								nswe &= ~Tile.EAST;
+							else if (cx == 4)
+								nswe &= ~Tile.WEST;
+							buffer.putShort(cell(0, nswe));
+						}
+					}
+				} else if (bx == 0 && by == 1) {
+					buffer.put((byte) 2);
+					for (int i = 0; i < 64; i++) {
+						buffer.put((byte) 2);
+						buffer.putShort(cell(0, Tile.ALL));
+						buffer.putShort(cell(200, Tile.ALL));
+					}
+				} else {
+					buffer.put((byte) 0);
+					buffer.putShort((short) (bx == 2 && by == 0 ? 500 : 0));
+				}
+			}
+		}
+
+		final Path directory = Files.createTempDirectory("geodata");
+		final Path file = directory.resolve("20_18.l2j");
+		Files.write(file,
+				Arrays.copyOf(buffer.array(), buffer.position()));
+		file.toFile().deleteOnExit();
+		directory.toFile().deleteOnExit();
+		return new GeoData(directory);
+	}
+
+	/**
+	 * Tests height lookups, including multilayer cells
+	 */
+	@Test
+	public void testHeight() {
+		Assert.assertEquals(500, height(300, 50, 0));
+		Assert.assertEquals(0, height(50, 50, 100));
+		Assert.assertEquals(200, height(50, 200, 190));
+		Assert.assertEquals(0, height(50, 200, 10));
+		// no geodata
+		Assert.assertFalse(geodata.hasGeoData(GeoData.getGeoX(-5000),
+				GeoData.getGeoY(50)));
+		Assert.assertEquals(1234, height(-5000, 50, 1234));
+	}
+
+	/**
+	 * Tests movement checks
+	 */
+	@Test
+	public void testCanMoveTo() {
+		// wall
+		Assert.assertFalse(geodata.canMoveTo(8, 8, 0, 120, 8, 0));
+		Assert.assertFalse(geodata.canMoveTo(120, 8, 0, 8, 8, 0));
+		// along the wall
+		Assert.assertTrue(geodata.canMoveTo(8, 8, 0, 8, 120, 0));
+		// cliff
+		Assert.assertFalse(geodata.canMoveTo(140, 50, 0, 300, 50, 0));
+		// open field
+		Assert.assertTrue(geodata.canMoveTo(140, 500, 0, 900, 700, 0));
+		// no geodata
+		Assert.assertTrue(geodata.canMoveTo(-5000, 50, 0, -4000, 50, 0));
+	}
+
+	/**
+	 * Tests line of sight checks
+	 */
+	@Test
+	public void testCanSeeTarget() {
+		// hill
+		Assert.assertFalse(geodata.canSeeTarget(140, 50, 0, 500, 50, 0));
+		// wall
+		Assert.assertFalse(geodata.canSeeTarget(8, 8, 0, 120, 8, 0));
+		// open field
+		Assert.assertTrue(geodata.canSeeTarget(140, 500, 0, 900, 700, 0));
+		// from the hill edge, down to the field
+		Assert.assertTrue(geodata.canSeeTarget(380, 50, 500, 900, 50, 0));
+		// from the middle of the hill top, the edge hides the field
+		Assert.assertFalse(geodata.canSeeTarget(260, 50, 500, 500, 50, 0));
+	}
+
+	/**
+	 * @param x
+	 *            the world x
+	 * @param y
+	 *            the world y
+	 * @param z
+	 *            the reference z
+	 * @return the height
+	 */
+	private static int height(int x, int y, int z) {
+		return geodata.getHeight(GeoData.getGeoX(x), GeoData.getGeoY(y), z);
+	}
+
+	/**
+	 * @param height
+	 *            the cell height
+	 * @param nswe
+	 *            the cell NSWE flags
+	 * @return the stored cell value
+	 */
+	private static short cell(int height, int nswe) {
+		return (short) (((height << 1) & 0xFFF0) | nswe);
+	}
+}
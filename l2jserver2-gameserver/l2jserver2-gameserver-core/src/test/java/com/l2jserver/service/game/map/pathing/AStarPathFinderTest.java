@@ -0,0 +1,102 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.map.pathing;
+
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.l2jserver.service.game.map.geodata.GeoData;
+import com.l2jserver.service.game.map.geodata.GeoDataTest;
+import com.l2jserver.util.geometry.Point3D;
+
+/**
+ * Tests for {@link AStarPathFinder}, over the {@link GeoDataTest} region
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class AStarPathFinderTest {
+	/**
+	 * The geodata
+	 */
+	private static GeoData geodata;
+	/**
+	 * The path finder
+	 */
+	private static AStarPathFinder finder;
+
+	/**
+	 * Creates the geodata
+	 * 
+	 * @throws IOException
+	 *             if the region file could not be written
+	 */
+	@BeforeClass
+	public static void setUp() throws IOException {
+		geodata = GeoDataTest.createGeoData();
+		finder = new AStarPathFinder(geodata, 64, 10000);
+	}
+
+	/**
+	 * Tests a straight line path
+	 */
+	@Test
+	public void testStraight() {
+		final Point3D target = Point3D.fromXYZ(900, 700, 0);
+		final Path path = finder.findPath(Point3D.fromXYZ(140, 500, 0),
+				target);
+		Assert.assertEquals(1, path.getPointCount());
+		Assert.assertSame(target, path.getTarget());
+	}
+
+	/**
+	 * Tests a path around the wall
+	 */
+	@Test
+	public void testAroundWall() {
+		final Point3D source = Point3D.fromXYZ(8, 8, 0);
+		final Point3D target = Point3D.fromXYZ(120, 8, 0);
+		final Path path = finder.findPath(source, target);
+		Assert.assertNotNull(path);
+		Assert.assertTrue(path.getPointCount() > 1);
+		Assert.assertSame(target, path.getTarget());
+
+		// every segment must be walkable
+		Point3D last = source;
+		for (final Point3D point : path) {
+			Assert.assertTrue(geodata.canMoveTo(last.getX(), last.getY(),
+					last.getZ(), point.getX(), point.getY(), point.getZ()));
+			last = point;
+		}
+	}
+
+	/**
+	 * Tests unreachable targets
+	 */
+	@Test
+	public void testUnreachable() {
+		// on top of the cliff
+		Assert.assertNull(finder.findPath(Point3D.fromXYZ(140, 50, 0),
+				Point3D.fromXYZ(300, 50, 500)));
+		// out of the search radius
+		Assert.assertNull(finder.findPath(Point3D.fromXYZ(8, 8, 0),
+				Point3D.fromXYZ(8 + 16 * 100, 8, 0)));
+	}
+}
@@ -27,6 +27,8 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Scopes;
+import com.l2jserver.service.core.threading.ThreadService;
+import com.l2jserver.service.core.threading.ThreadServiceImpl;
 
 /**
  * Test for {@link ScriptingService}
@@ -41,6 +43,8 @@ public class ScriptingServiceImplTest {
 			.createInjector(new AbstractModule() {
 				@Override
 				protected void configure() {
+					bind(ThreadService.class).to(ThreadServiceImpl.class).in(
+							Scopes.SINGLETON);
 					bind(ScriptingService.class).to(ScriptingServiceImpl.class)
 							.in(Scopes.SINGLETON);
 				}
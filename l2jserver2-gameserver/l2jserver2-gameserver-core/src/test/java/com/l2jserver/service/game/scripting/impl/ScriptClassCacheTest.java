@@ -0,0 +1,225 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.scripting.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.l2jserver.service.game.scripting.ScriptCompiler;
+import com.l2jserver.service.game.scripting.impl.ecj.EclipseScriptCompiler;
+import com.l2jserver.service.game.scripting.impl.jdk.JDKScriptCompiler;
+
+/**
+ * Tests for {@link ScriptClassCache}. Uses a context with three sources:
+ * <tt>A</tt>, which uses <tt>B</tt>, <tt>B</tt> and <tt>C</tt>, which uses
+ * server classes only.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ScriptClassCacheTest {
+	/**
+	 * The {@link Guice} {@link Injector}
+	 */
+	private final Injector injector = Guice.createInjector();
+
+	/**
+	 * The context root
+	 */
+	private Path root;
+	/**
+	 * The cache directory
+	 */
+	private Path cache;
+
+	/**
+	 * Creates the context sources
+	 * 
+	 * @throws IOException
+	 *             if the sources could not be written
+	 */
+	@Before
+	public void setUp() throws IOException {
+		root = Files.createTempDirectory("scripts");
+		cache = Files.createTempDirectory("script-cache");
+		write("test/A.java", "package test; public class A { "
+				+ "public int get() { return B.VALUE + new B.Inner().get(); } }");
+		write("test/B.java", "package test; public class B { "
+				+ "public static int VALUE = 1; "
+				+ "public static class Inner { public int get() { return 10; } } }");
+		write("test/C.java", "package test; public class C { "
+				+ "public java.util.List<String> get() { "
+				+ "return com.l2jserver.util.factory.CollectionFactory.newList(); } }");
+	}
+
+	/**
+	 * Deletes the sources and the cache
+	 */
+	@After
+	public void tearDown() {
+		FileUtils.deleteQuietly(root.toFile());
+		FileUtils.deleteQuietly(cache.toFile());
+	}
+
+	/**
+	 * Tests caching with the eclipse compiler
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	@Test
+	public void testEclipseCompiler() throws Exception {
+		testCache(EclipseScriptCompiler.class);
+	}
+
+	/**
+	 * Tests caching with the JDK compiler
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	@Test
+	public void testJDKCompiler() throws Exception {
+		testCache(JDKScriptCompiler.class);
+	}
+
+	/**
+	 * Tests the classes referenced by a class file
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	@Test
+	public void testReferences() throws Exception {
+		final ScriptContextImpl context = createContext(EclipseScriptCompiler.class);
+		context.init();
+		final byte[] a = context.getClassLoader().getByteCode("test.A");
+		Assert.assertTrue(ScriptClassCache.references(a).contains("test.B"));
+		Assert.assertTrue(ScriptClassCache.references(a).contains(
+				"test.B$Inner"));
+		Assert.assertFalse(ScriptClassCache.references(a).contains("test.C"));
+		context.shutdown();
+	}
+
+	/**
+	 * @param compiler
+	 *            the compiler class
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	private void testCache(Class<? extends ScriptCompiler> compiler)
+			throws Exception {
+		// cold cache
+		ScriptContextImpl context = createContext(compiler);
+		context.init();
+		Assert.assertEquals(3, context.getCompilationStatistics()
+				.getCompiledSources());
+		Assert.assertEquals(11, invoke(context, "test.A"));
+		context.shutdown();
+
+		// warm cache, as in a server restart
+		context = createContext(compiler);
+		context.init();
+		Assert.assertEquals(3, context.getCompilationStatistics().getSources());
+		Assert.assertEquals(0, context.getCompilationStatistics()
+				.getCompiledSources());
+		Assert.assertEquals(11, invoke(context, "test.A"));
+		Assert.assertNotNull(context.getClassLoader().loadClass("test.C")
+				.getMethod("get").invoke(
+						context.getClassLoader().loadClass("test.C")
+								.newInstance()));
+
+		// B changed: B and A are compiled again
+		write("test/B.java", "package test; public class B { "
+				+ "public static int VALUE = 2; "
+				+ "public static class Inner { public int get() { return 20; } } }");
+		context.reload();
+		Assert.assertEquals(2, context.getCompilationStatistics()
+				.getCompiledSources());
+		Assert.assertEquals(22, invoke(context, "test.A"));
+
+		// a new source
+		write("test/D.java", "package test; public class D { }");
+		context.reload();
+		Assert.assertEquals(1, context.getCompilationStatistics()
+				.getCompiledSources());
+		Assert.assertEquals(4, context.getCompilationStatistics().getSources());
+		context.shutdown();
+
+		// another compiler never reuses the classes
+		context = createContext(compiler == JDKScriptCompiler.class ? EclipseScriptCompiler.class
+				: JDKScriptCompiler.class);
+		context.init();
+		Assert.assertEquals(4, context.getCompilationStatistics()
+				.getCompiledSources());
+		context.shutdown();
+	}
+
+	/**
+	 * @param compiler
+	 *            the compiler class
+	 * @return a new context, with a new cache instance
+	 */
+	private ScriptContextImpl createContext(
+			Class<? extends ScriptCompiler> compiler) {
+		final ScriptContextImpl context = new ScriptContextImpl(injector,
+				root.toFile());
+		context.setCompilerClassName(compiler.getName());
+		context.setClassCache(new ScriptClassCache(cache, root.toFile()));
+		return context;
+	}
+
+	/**
+	 * @param context
+	 *            the context
+	 * @param className
+	 *            the class name
+	 * @return the value returned by <tt>get()</tt>
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	private int invoke(ScriptContextImpl context, String className)
+			throws Exception {
+		final Class<?> clazz = context.getClassLoader().loadClass(className);
+		return (Integer) clazz.getMethod("get").invoke(clazz.newInstance());
+	}
+
+	/**
+	 * @param path
+	 *            the source path, relative to the context root
+	 * @param source
+	 *            the source code
+	 * @throws IOException
+	 *             if the source could not be written
+	 */
+	private void write(String path, String source) throws IOException {
+		final File file = root.resolve(path).toFile();
+		FileUtils.writeStringToFile(file, source, Charset.forName("UTF-8")
+				.name());
+	}
+}
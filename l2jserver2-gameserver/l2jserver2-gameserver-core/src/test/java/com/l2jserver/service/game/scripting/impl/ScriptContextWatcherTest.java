@@ -0,0 +1,137 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.scripting.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.l2jserver.service.game.scripting.ScriptClassLoader;
+import com.l2jserver.service.game.scripting.impl.ecj.EclipseScriptCompiler;
+
+/**
+ * Tests for {@link ScriptContextWatcher}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ScriptContextWatcherTest {
+	/**
+	 * The {@link Guice} {@link Injector}
+	 */
+	private final Injector injector = Guice.createInjector();
+
+	/**
+	 * The context root
+	 */
+	private Path root;
+
+	/**
+	 * Creates the context sources
+	 * 
+	 * @throws IOException
+	 *             if the sources could not be written
+	 */
+	@Before
+	public void setUp() throws IOException {
+		root = Files.createTempDirectory("scripts");
+		write("test/A.java", "package test; public class A { "
+				+ "public int get() { return 1; } }");
+	}
+
+	/**
+	 * Deletes the sources
+	 */
+	@After
+	public void tearDown() {
+		FileUtils.deleteQuietly(root.toFile());
+	}
+
+	/**
+	 * Tests that a changed source is recompiled and swapped in
+	 * 
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	@Test
+	public void testRecompile() throws Exception {
+		final ScriptContextImpl context = new ScriptContextImpl(injector,
+				root.toFile());
+		context.setCompilerClassName(EclipseScriptCompiler.class.getName());
+		context.init();
+		final ScriptClassLoader loader = context.getClassLoader();
+
+		final ScriptContextWatcher watcher = new ScriptContextWatcher(100);
+		watcher.watch(context);
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watcher.call();
+			}
+		});
+		thread.start();
+
+		write("test/A.java", "package test; public class A { "
+				+ "public int get() { return 2; } }");
+		for (int i = 0; i < 200 && context.getClassLoader() == loader; i++) {
+			Thread.sleep(50);
+		}
+		watcher.close();
+		thread.join();
+
+		Assert.assertNotSame(loader, context.getClassLoader());
+		Assert.assertEquals(1, get(loader));
+		Assert.assertEquals(2, get(context.getClassLoader()));
+		context.shutdown();
+	}
+
+	/**
+	 * @param loader
+	 *            the class loader
+	 * @return the value returned by <tt>test.A.get()</tt>
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	private int get(ClassLoader loader) throws Exception {
+		final Class<?> type = loader.loadClass("test.A");
+		return (Integer) type.getMethod("get").invoke(type.newInstance());
+	}
+
+	/**
+	 * @param path
+	 *            the source path, relative to the root
+	 * @param source
+	 *            the source code
+	 * @throws IOException
+	 *             if the source could not be written
+	 */
+	private void write(String path, String source) throws IOException {
+		final File file = root.resolve(path).toFile();
+		FileUtils.writeStringToFile(file, source, Charset.forName("UTF-8")
+				.name());
+	}
+}
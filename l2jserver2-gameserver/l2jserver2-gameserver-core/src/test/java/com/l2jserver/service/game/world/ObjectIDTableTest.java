@@ -0,0 +1,142 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.service.game.world;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.l2jserver.model.id.ObjectID;
+import com.l2jserver.model.id.object.allocator.IDAllocator;
+import com.l2jserver.model.world.WorldObject;
+
+/**
+ * Tests for {@link ObjectIDTable}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ObjectIDTableTest {
+	/**
+	 * Tests registering, replacing and removing IDs
+	 */
+	@Test
+	public void testPutGetRemove() {
+		final ObjectIDTable table = new ObjectIDTable();
+		final ObjectID<?> id = id(IDAllocator.FIRST_ID);
+		Assert.assertNull(table.get(IDAllocator.FIRST_ID));
+		Assert.assertNull(table.put(id));
+		Assert.assertSame(id, table.get(IDAllocator.FIRST_ID));
+
+		final ObjectID<?> other = id(IDAllocator.FIRST_ID);
+		Assert.assertSame(id, table.put(other));
+		Assert.assertSame(other, table.get(IDAllocator.FIRST_ID));
+		Assert.assertEquals(1, table.size());
+
+		Assert.assertSame(other, table.remove(IDAllocator.FIRST_ID));
+		Assert.assertNull(table.remove(IDAllocator.FIRST_ID));
+		Assert.assertNull(table.get(IDAllocator.FIRST_ID));
+		Assert.assertEquals(0, table.size());
+	}
+
+	/**
+	 * Tests growing the table and reusing the slots of removed IDs
+	 */
+	@Test
+	public void testGrowAndChurn() {
+		final ObjectIDTable table = new ObjectIDTable(0);
+		for (int i = 0; i < 100000; i++) {
+			table.put(id(IDAllocator.FIRST_ID + i));
+		}
+		Assert.assertEquals(100000, table.size());
+		for (int i = 0; i < 100000; i++) {
+			Assert.assertEquals(IDAllocator.FIRST_ID + i,
+					(int) table.get(IDAllocator.FIRST_ID + i).getID());
+		}
+		Assert.assertNull(table.get(IDAllocator.FIRST_ID + 100000));
+
+		final int capacity = table.capacity();
+		// remove and add IDs, the table must not grow
+		for (int i = 0; i < 1000000; i++) {
+			table.remove(IDAllocator.FIRST_ID + i);
+			table.put(id(IDAllocator.FIRST_ID + 100000 + i));
+		}
+		Assert.assertEquals(100000, table.size());
+		Assert.assertEquals(capacity, table.capacity());
+		Assert.assertNull(table.get(IDAllocator.FIRST_ID + 999999));
+		Assert.assertNotNull(table.get(IDAllocator.FIRST_ID + 1000000));
+	}
+
+	/**
+	 * Tests that readers always see IDs that are never removed, while another
+	 * thread adds and removes IDs (forcing the table to be rebuilt)
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the readers
+	 */
+	@Test
+	public void testConcurrentReads() throws InterruptedException {
+		final ObjectIDTable table = new ObjectIDTable(0);
+		for (int i = 0; i < 1000; i++) {
+			table.put(id(IDAllocator.FIRST_ID + i));
+		}
+
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicReference<String> error = new AtomicReference<String>();
+		final Thread[] readers = new Thread[4];
+		for (int r = 0; r < readers.length; r++) {
+			readers[r] = new Thread() {
+				@Override
+				public void run() {
+					while (running.get()) {
+						for (int i = 0; i < 1000; i++) {
+							if (table.get(IDAllocator.FIRST_ID + i) == null)
+								error.set("ID " + i + " not found");
+						}
+					}
+				}
+			};
+			readers[r].start();
+		}
+		for (int i = 0; i < 200000; i++) {
+			table.put(id(IDAllocator.FIRST_ID + 1000 + i));
+			if (i % 3 != 0)
+				table.remove(IDAllocator.FIRST_ID + 1000 + i);
+		}
+		running.set(false);
+		for (final Thread reader : readers) {
+			reader.join();
+		}
+		Assert.assertNull(error.get());
+	}
+
+	/**
+	 * @param id
+	 *            the raw id
+	 * @return a new {@link ObjectID}
+	 */
+	private static ObjectID<?> id(int id) {
+		return new ObjectID<WorldObject>(id) {
+			@Override
+			public WorldObject getObject() {
+				return null;
+			}
+		};
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.util.html;
+
+import java.nio.ByteOrder;
+
+import junit.framework.Assert;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+
+import com.l2jserver.util.BufferUtils;
+
+/**
+ * Tests for {@link CompiledHtml}
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class CompiledHtmlTest {
+	/**
+	 * The html used in tests
+	 */
+	private static final String HTML = "<html><body><table width=100%>"
+			+ "<a action=\"bypass -h npc_%objectId%_Chat 1\">Chat</a>"
+			+ "%unknown%</table>%objectId%</body></html>";
+
+	/**
+	 * Tests rendering the html as string
+	 */
+	@Test
+	public void testToString() {
+		final CompiledHtml html = CompiledHtml.compile(HTML, "%", "%",
+				"objectId");
+		Assert.assertEquals(HTML.replace("%objectId%", "1234"),
+				html.toString("1234"));
+		Assert.assertEquals(HTML.replace("%objectId%", ""),
+				html.toString((String) null));
+		// values are not expanded again
+		Assert.assertEquals("${b}-${a}", CompiledHtml.compile("${a}-${b}",
+				"${", "}", "b", "a").toString("${a}", "${b}"));
+	}
+
+	/**
+	 * Tests that writing produces the same bytes as
+	 * {@link BufferUtils#writeString(ChannelBuffer, String)}
+	 */
+	@Test
+	public void testWrite() {
+		final CompiledHtml html = CompiledHtml.compile(HTML, "%", "%",
+				"objectId");
+		final ChannelBuffer expected = ChannelBuffers.dynamicBuffer(
+				ByteOrder.LITTLE_ENDIAN, 16);
+		BufferUtils.writeString(expected, HTML.replace("%objectId%", "1234"));
+		final ChannelBuffer actual = ChannelBuffers.dynamicBuffer(
+				ByteOrder.LITTLE_ENDIAN, 16);
+		html.write(actual, "1234");
+		Assert.assertEquals(expected, actual);
+	}
+}
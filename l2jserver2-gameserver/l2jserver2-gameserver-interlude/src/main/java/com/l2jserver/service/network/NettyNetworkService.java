@@ -24,6 +24,7 @@ import com.google.inject.Injector;
 import com.l2jserver.game.net.Lineage2PipelineFactory;
 import com.l2jserver.service.AbstractService.Depends;
 import com.l2jserver.service.core.logging.LoggingService;
+import com.l2jserver.service.core.metrics.MetricRegistry;
 import com.l2jserver.service.core.threading.ThreadService;
 import com.l2jserver.service.game.world.WorldService;
 import com.l2jserver.service.network.keygen.BlowfishKeygenService;
@@ -42,10 +43,13 @@ public class NettyNetworkService extends
 	 *            the {@link Guice} {@link Injector}
 	 * @param threadService
 	 *            the {@link ThreadService}
+	 * @param metrics
+	 *            the metric registry
 	 */
 	@Inject
-	public NettyNetworkService(Injector injector, ThreadService threadService) {
-		super(injector, threadService);
+	public NettyNetworkService(Injector injector, ThreadService threadService,
+			MetricRegistry metrics) {
+		super(injector, threadService, metrics);
 	}
 	
 	@Override
@@ -65,6 +65,7 @@ import com.l2jserver.model.world.character.event.CharacterTargetDeselectedEvent;
 import com.l2jserver.model.world.character.event.CharacterTargetSelectedEvent;
 import com.l2jserver.model.world.character.event.CharacterWalkingEvent;
 import com.l2jserver.model.world.item.ItemCreatedEvent;
+import com.l2jserver.model.world.item.ItemDecayEvent;
 import com.l2jserver.model.world.item.ItemDropEvent;
 import com.l2jserver.model.world.item.ItemPickEvent;
 import com.l2jserver.model.world.item.ItemRemovedEvent;
@@ -171,7 +172,8 @@ public class BroadcastServiceImpl extends AbstractService implements
 					conn.write(new SM_OBJECT_REMOVE(object));
 				} else if (e instanceof ActorTeleportingEvent
 						|| e instanceof CharacterLeaveWorldEvent
-						|| e instanceof ActorUnspawnEvent) {
+						|| e instanceof ActorUnspawnEvent
+						|| e instanceof ItemDecayEvent) {
 					// object is now out of sight
 					conn.write(new SM_OBJECT_REMOVE(object));
 				} else if (e instanceof CharacterWalkingEvent) {
@@ -245,8 +247,12 @@ public class BroadcastServiceImpl extends AbstractService implements
 					conn.write(new SM_CHAR_TELEPORT((L2Character) evt
 							.getActor(), evt.getPoint()));
 				} else if (e instanceof NPCTalkEvent) {
-					conn.write(new SM_HTML(((NPCTalkEvent) e).getNPC(),
-							((NPCTalkEvent) e).getHtml()));
+					final NPCTalkEvent evt = (NPCTalkEvent) e;
+					if (evt.getCompiledHtml() != null)
+						conn.write(new SM_HTML(evt.getNPC(), evt
+								.getCompiledHtml(), evt.getValues()));
+					else
+						conn.write(new SM_HTML(evt.getNPC(), evt.getHtml()));
 					conn.sendActionFailed();
 				} else if (e instanceof CharacterCreateShortcutEvent) {
 					conn.write(new SM_CHAR_SHORTCUT_REGISTER(
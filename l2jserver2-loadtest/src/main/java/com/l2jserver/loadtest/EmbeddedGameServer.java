@@ -0,0 +1,71 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.loadtest;
+
+import java.nio.file.Path;
+
+import com.google.inject.Guice;
+import com.l2jserver.L2JGameServerMain;
+import com.l2jserver.model.id.provider.IDProviderModule;
+import com.l2jserver.service.Service;
+import com.l2jserver.service.ServiceManager;
+
+/**
+ * Runs a game server inside the load test JVM, with the same services and
+ * start order as {@link L2JGameServerMain}. The services descriptor should
+ * use an in-memory database so every run starts from an empty world.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class EmbeddedGameServer {
+	/**
+	 * The service manager
+	 */
+	private final ServiceManager serviceManager = new ServiceManager();
+
+	/**
+	 * Loads the services descriptor and starts all services
+	 * 
+	 * @param descriptor
+	 *            the services descriptor
+	 * @throws Exception
+	 *             if any service could not be loaded or started
+	 */
+	@SuppressWarnings("unchecked")
+	public void start(Path descriptor) throws Exception {
+		serviceManager.load(descriptor);
+		serviceManager.init(Guice.createInjector(new IDProviderModule(),
+				serviceManager.newGuiceModule()));
+		for (final Class<?>[] category : L2JGameServerMain.SERVICES) {
+			serviceManager.start((Class<? extends Service>[]) category);
+		}
+	}
+
+	/**
+	 * Stops all services, in the reverse start order
+	 * 
+	 * @throws Exception
+	 *             if any service could not be stopped
+	 */
+	@SuppressWarnings("unchecked")
+	public void stop() throws Exception {
+		for (int i = L2JGameServerMain.SERVICES.length - 1; i >= 0; i--) {
+			serviceManager
+					.stop((Class<? extends Service>[]) L2JGameServerMain.SERVICES[i]);
+		}
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.loadtest;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+
+import com.l2jserver.loadtest.bot.Bot;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Runs a load test against a game server. Arguments:
+ * <ul>
+ * <li><tt>-bots N</tt>: the amount of bots (default 100)</li>
+ * <li><tt>-duration S</tt>: the measured duration in seconds, after all bots
+ * entered the world (default 60)</li>
+ * <li><tt>-interval MS</tt>: the interval between each bot action (default
+ * 500)</li>
+ * <li><tt>-host HOST</tt> and <tt>-port PORT</tt>: the server address (default
+ * 127.0.0.1:7777)</li>
+ * <li><tt>-embedded [FILE]</tt>: starts a server in this JVM, configured by
+ * the given services descriptor (default <tt>services.xml</tt>). Server CPU
+ * and heap are only reported for embedded servers.</li>
+ * </ul>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class LoadTestMain {
+	/**
+	 * The interval between bot connections during the ramp up, in
+	 * milliseconds
+	 */
+	private static final int RAMP_UP_INTERVAL = 20;
+	/**
+	 * The maximum time waited for all bots to enter the world, in milliseconds
+	 */
+	private static final long RAMP_UP_TIMEOUT = 5 * 60 * 1000;
+
+	/**
+	 * Main method
+	 * 
+	 * @param args
+	 *            the arguments
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	public static void main(String[] args) throws Exception {
+		Thread.currentThread().setName(ServerMonitor.BOT_THREAD + "main");
+		BasicConfigurator.configure();
+		Logger.getRootLogger().setLevel(Level.WARN);
+
+		int bots = 100;
+		int duration = 60;
+		int interval = 500;
+		String host = "127.0.0.1";
+		int port = 7777;
+		String embedded = null;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-bots":
+				bots = Integer.parseInt(args[++i]);
+				break;
+			case "-duration":
+				duration = Integer.parseInt(args[++i]);
+				break;
+			case "-interval":
+				interval = Integer.parseInt(args[++i]);
+				break;
+			case "-host":
+				host = args[++i];
+				break;
+			case "-port":
+				port = Integer.parseInt(args[++i]);
+				break;
+			case "-embedded":
+				if (i + 1 < args.length && !args[i + 1].startsWith("-"))
+					embedded = args[++i];
+				else
+					embedded = "services.xml";
+				break;
+			default:
+				System.out.println("Unknown argument: " + args[i]);
+				return;
+			}
+		}
+
+		EmbeddedGameServer server = null;
+		ServerMonitor monitor = null;
+		if (embedded != null) {
+			System.out.println("Starting embedded server...");
+			server = new EmbeddedGameServer();
+			server.start(Paths.get(embedded));
+			monitor = new ServerMonitor();
+		}
+
+		final ThreadFactory threadFactory = new BotThreadFactory();
+		final ExecutorService executor = Executors
+				.newCachedThreadPool(threadFactory);
+		final NioClientSocketChannelFactory factory = new NioClientSocketChannelFactory(
+				executor, executor);
+		final ScheduledExecutorService scheduler = Executors
+				.newScheduledThreadPool(
+						Runtime.getRuntime().availableProcessors(),
+						threadFactory);
+
+		final LoadTestStatistics statistics = new LoadTestStatistics();
+		final InetSocketAddress address = new InetSocketAddress(host, port);
+		final List<Bot> clients = CollectionFactory.newList();
+		try {
+			System.out.printf("Connecting %d bots to %s...%n", bots, address);
+			for (int i = 0; i < bots; i++) {
+				final Bot bot = new Bot(i, statistics, scheduler, interval);
+				bot.connect(factory, address);
+				clients.add(bot);
+				Thread.sleep(RAMP_UP_INTERVAL);
+			}
+			final long deadline = System.currentTimeMillis() + RAMP_UP_TIMEOUT;
+			while (statistics.getBotsInWorld() < bots
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(100);
+			}
+			System.out.printf("%d bots in world, measuring for %d seconds%n",
+					statistics.getBotsInWorld(), duration);
+
+			statistics.reset();
+			if (monitor != null) {
+				monitor.reset();
+				scheduler.scheduleAtFixedRate(monitor, 0, 1, TimeUnit.SECONDS);
+			}
+			final long start = System.nanoTime();
+			Thread.sleep(duration * 1000L);
+			final double seconds = (System.nanoTime() - start) / 1000000000d;
+
+			statistics.print(System.out, seconds);
+			if (monitor != null)
+				monitor.print(System.out);
+		} finally {
+			for (final Bot bot : clients) {
+				bot.disconnect();
+			}
+			scheduler.shutdownNow();
+			factory.releaseExternalResources();
+			if (server != null) {
+				try {
+					server.stop();
+				} catch (Exception e) {
+					System.out.println("Embedded server did not stop cleanly: "
+							+ e);
+				}
+				// server threads are not daemons
+				System.exit(0);
+			}
+		}
+	}
+
+	/**
+	 * Creates daemon threads named after {@link ServerMonitor#BOT_THREAD}, so
+	 * their CPU time is not accounted to the server
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class BotThreadFactory implements ThreadFactory {
+		/**
+		 * The thread counter
+		 */
+		private final AtomicInteger counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, ServerMonitor.BOT_THREAD
+					+ counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
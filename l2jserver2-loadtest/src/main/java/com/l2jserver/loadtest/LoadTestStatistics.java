@@ -0,0 +1,221 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the traffic and round-trip latencies measured by the bots. Latencies
+ * are grouped by request, named after the request and the response packets
+ * (e.g. <tt>CM_CHAR_MOVE/SM_ACTOR_MOVE</tt>).
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class LoadTestStatistics {
+	/**
+	 * The amount of packets sent
+	 */
+	private final AtomicLong packetsSent = new AtomicLong();
+	/**
+	 * The amount of bytes sent
+	 */
+	private final AtomicLong bytesSent = new AtomicLong();
+	/**
+	 * The amount of packets received
+	 */
+	private final AtomicLong packetsReceived = new AtomicLong();
+	/**
+	 * The amount of bytes received
+	 */
+	private final AtomicLong bytesReceived = new AtomicLong();
+	/**
+	 * The amount of bots that entered the world
+	 */
+	private final AtomicLong botsInWorld = new AtomicLong();
+	/**
+	 * The amount of bots disconnected before the end of the test
+	 */
+	private final AtomicLong botsDisconnected = new AtomicLong();
+	/**
+	 * The round trip latencies, by request
+	 */
+	private final Map<String, Latencies> latencies = new TreeMap<>();
+
+	/**
+	 * @param bytes
+	 *            the packet size
+	 */
+	public void sent(int bytes) {
+		packetsSent.incrementAndGet();
+		bytesSent.addAndGet(bytes);
+	}
+
+	/**
+	 * @param bytes
+	 *            the packet size
+	 */
+	public void received(int bytes) {
+		packetsReceived.incrementAndGet();
+		bytesReceived.addAndGet(bytes);
+	}
+
+	/**
+	 * Registers a bot that has entered the world
+	 */
+	public void enteredWorld() {
+		botsInWorld.incrementAndGet();
+	}
+
+	/**
+	 * Registers a bot that has been disconnected
+	 */
+	public void disconnected() {
+		botsDisconnected.incrementAndGet();
+	}
+
+	/**
+	 * @param request
+	 *            the request name
+	 * @param nanos
+	 *            the round-trip time, in nanoseconds
+	 */
+	public void latency(String request, long nanos) {
+		Latencies samples;
+		synchronized (latencies) {
+			samples = latencies.get(request);
+			if (samples == null) {
+				samples = new Latencies();
+				latencies.put(request, samples);
+			}
+		}
+		samples.add(nanos);
+	}
+
+	/**
+	 * @return the amount of bots that entered the world
+	 */
+	public long getBotsInWorld() {
+		return botsInWorld.get();
+	}
+
+	/**
+	 * @return the amount of packets received
+	 */
+	public long getPacketsReceived() {
+		return packetsReceived.get();
+	}
+
+	/**
+	 * Clears all counters and latencies, except the amount of bots. Used to
+	 * discard the ramp up.
+	 */
+	public void reset() {
+		packetsSent.set(0);
+		bytesSent.set(0);
+		packetsReceived.set(0);
+		bytesReceived.set(0);
+		synchronized (latencies) {
+			latencies.clear();
+		}
+	}
+
+	/**
+	 * Prints the throughput and latencies
+	 * 
+	 * @param out
+	 *            the output stream
+	 * @param seconds
+	 *            the measured duration, in seconds
+	 */
+	public void print(PrintStream out, double seconds) {
+		out.printf("Bots: %d in world, %d disconnected%n", botsInWorld.get(),
+				botsDisconnected.get());
+		out.printf("Sent:     %,12d packets %,10.0f packets/s %,10.1f KB/s%n",
+				packetsSent.get(), packetsSent.get() / seconds,
+				bytesSent.get() / seconds / 1024);
+		out.printf("Received: %,12d packets %,10.0f packets/s %,10.1f KB/s%n",
+				packetsReceived.get(), packetsReceived.get() / seconds,
+				bytesReceived.get() / seconds / 1024);
+		out.printf("%-36s %9s %9s %9s %9s %9s%n", "Round trip (ms)", "count",
+				"p50", "p90", "p99", "max");
+		synchronized (latencies) {
+			for (final Entry<String, Latencies> entry : latencies.entrySet()) {
+				final long[] samples = entry.getValue().sorted();
+				if (samples.length == 0)
+					continue;
+				out.printf("%-36s %9d %9.2f %9.2f %9.2f %9.2f%n",
+						entry.getKey(), samples.length,
+						percentile(samples, 0.50), percentile(samples, 0.90),
+						percentile(samples, 0.99),
+						samples[samples.length - 1] / 1000000d);
+			}
+		}
+	}
+
+	/**
+	 * @param sorted
+	 *            the sorted samples
+	 * @param percentile
+	 *            the percentile, from 0 to 1
+	 * @return the percentile value, in milliseconds
+	 */
+	private static double percentile(long[] sorted, double percentile) {
+		final int index = (int) Math.min(sorted.length - 1,
+				Math.round(percentile * (sorted.length - 1)));
+		return sorted[index] / 1000000d;
+	}
+
+	/**
+	 * The latency samples of a request
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class Latencies {
+		/**
+		 * The samples, in nanoseconds
+		 */
+		private long[] samples = new long[1024];
+		/**
+		 * The amount of samples
+		 */
+		private int size;
+
+		/**
+		 * @param nanos
+		 *            the sample
+		 */
+		public synchronized void add(long nanos) {
+			if (size == samples.length)
+				samples = Arrays.copyOf(samples, size * 2);
+			samples[size++] = nanos;
+		}
+
+		/**
+		 * @return a sorted copy of the samples
+		 */
+		public synchronized long[] sorted() {
+			final long[] sorted = Arrays.copyOf(samples, size);
+			Arrays.sort(sorted);
+			return sorted;
+		}
+	}
+}
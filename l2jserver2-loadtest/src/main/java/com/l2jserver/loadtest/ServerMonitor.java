@@ -0,0 +1,122 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.loadtest;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Samples the CPU and heap used by an {@link EmbeddedGameServer}. Since the
+ * server shares the JVM with the bots, the server CPU time is the JVM CPU time
+ * minus the time spent on threads whose name starts with {@link #BOT_THREAD}.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class ServerMonitor implements Runnable {
+	/**
+	 * The name prefix of the threads running bot code
+	 */
+	public static final String BOT_THREAD = "loadtest-";
+
+	/**
+	 * The thread management bean
+	 */
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	/**
+	 * The memory management bean
+	 */
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+	/**
+	 * The server CPU time at the start of the measurement, in nanoseconds
+	 */
+	private long startCpu;
+	/**
+	 * The time at the start of the measurement, in nanoseconds
+	 */
+	private long startTime;
+	/**
+	 * The sum of all heap samples, in bytes
+	 */
+	private long heapSum;
+	/**
+	 * The highest heap sample, in bytes
+	 */
+	private long heapMax;
+	/**
+	 * The amount of heap samples
+	 */
+	private int samples;
+
+	/**
+	 * Starts a new measurement
+	 */
+	public synchronized void reset() {
+		startCpu = getServerCpuTime();
+		startTime = System.nanoTime();
+		heapSum = 0;
+		heapMax = 0;
+		samples = 0;
+	}
+
+	/**
+	 * Samples the heap usage. Should be scheduled periodically.
+	 */
+	@Override
+	public synchronized void run() {
+		final long used = memory.getHeapMemoryUsage().getUsed();
+		heapSum += used;
+		heapMax = Math.max(heapMax, used);
+		samples++;
+	}
+
+	/**
+	 * Prints the server CPU and heap usage since the last {@link #reset()}
+	 * 
+	 * @param out
+	 *            the output stream
+	 */
+	public synchronized void print(PrintStream out) {
+		final double elapsed = System.nanoTime() - startTime;
+		final double cpu = (getServerCpuTime() - startCpu) / elapsed;
+		out.printf("Server CPU: %.1f%% of one core (%d processors)%n",
+				cpu * 100, Runtime.getRuntime().availableProcessors());
+		if (samples > 0)
+			out.printf("Server heap: %,d KB average, %,d KB max%n", heapSum
+					/ samples / 1024, heapMax / 1024);
+	}
+
+	/**
+	 * @return the CPU time of all threads not running bot code, in
+	 *         nanoseconds. Time of threads that already died is not accounted.
+	 */
+	private long getServerCpuTime() {
+		long total = 0;
+		for (final ThreadInfo info : threads.getThreadInfo(threads
+				.getAllThreadIds())) {
+			if (info == null || info.getThreadName().startsWith(BOT_THREAD))
+				continue;
+			final long time = threads.getThreadCpuTime(info.getThreadId());
+			if (time > 0)
+				total += time;
+		}
+		return total;
+	}
+}
@@ -0,0 +1,554 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.loadtest.bot;
+
+import static org.jboss.netty.channel.Channels.pipeline;
+
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.l2jserver.L2JConstant;
+import com.l2jserver.game.net.codec.Lineage2Decrypter;
+import com.l2jserver.game.net.codec.Lineage2Encrypter;
+import com.l2jserver.game.net.codec.Lineage2FrameDecoder;
+import com.l2jserver.game.net.codec.Lineage2FrameEncoder;
+import com.l2jserver.game.net.packet.client.CM_AUTH_LOGIN;
+import com.l2jserver.game.net.packet.client.CM_CHAR_ACTION;
+import com.l2jserver.game.net.packet.client.CM_CHAR_ATTACK;
+import com.l2jserver.game.net.packet.client.CM_CHAR_CHAT;
+import com.l2jserver.game.net.packet.client.CM_CHAR_CREATE;
+import com.l2jserver.game.net.packet.client.CM_CHAR_MOVE;
+import com.l2jserver.game.net.packet.client.CM_CHAR_SELECT;
+import com.l2jserver.game.net.packet.client.CM_ENTER_WORLD;
+import com.l2jserver.game.net.packet.client.CM_PROTOCOL_VERSION;
+import com.l2jserver.game.net.packet.server.SM_ACTOR_ATTACK;
+import com.l2jserver.game.net.packet.server.SM_ACTOR_CHAT;
+import com.l2jserver.game.net.packet.server.SM_ACTOR_MOVE;
+import com.l2jserver.game.net.packet.server.SM_CHAR_CREATE_FAIL;
+import com.l2jserver.game.net.packet.server.SM_CHAR_CREATE_OK;
+import com.l2jserver.game.net.packet.server.SM_CHAR_INFO;
+import com.l2jserver.game.net.packet.server.SM_CHAR_LIST;
+import com.l2jserver.game.net.packet.server.SM_CHAR_SELECTED;
+import com.l2jserver.game.net.packet.server.SM_CHAR_TARGET;
+import com.l2jserver.game.net.packet.server.SM_KEY;
+import com.l2jserver.game.net.packet.server.SM_NPC_INFO;
+import com.l2jserver.game.net.packet.server.SM_OBJECT_REMOVE;
+import com.l2jserver.loadtest.LoadTestStatistics;
+import com.l2jserver.model.template.actor.ActorSex;
+import com.l2jserver.model.template.character.CharacterClass;
+import com.l2jserver.service.network.model.Lineage2CryptographyKey;
+import com.l2jserver.util.BufferUtils;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * A simulated player. The bot connects to the game server, exchanges the
+ * cryptography key, logs in, creates a character if the account has none and
+ * enters the world. Once in the world, on each action it either moves around
+ * its position, validates its position, chats or attacks a NPC it has seen.
+ * <p>
+ * The bot uses the game server frame and cryptography codecs, which are
+ * symmetric. Round-trip times are measured between a request and the first
+ * response packet that refers to it.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class Bot extends SimpleChannelUpstreamHandler {
+	/**
+	 * The logger
+	 */
+	private static final Logger log = LoggerFactory.getLogger(Bot.class);
+
+	/**
+	 * The last 8 bytes of the cryptography key, never sent by the server
+	 */
+	private static final byte[] STATIC_KEY = { (byte) 0xc8, (byte) 0x27,
+			(byte) 0x93, (byte) 0x01, (byte) 0xa1, (byte) 0x6c, (byte) 0x31,
+			(byte) 0x97 };
+	/**
+	 * The offset added by the server to NPC template ids in
+	 * {@link SM_NPC_INFO}
+	 */
+	private static final int NPC_TEMPLATE_OFFSET = 1000000;
+	/**
+	 * The maximum amount of NPCs remembered as attack targets
+	 */
+	private static final int MAX_TARGETS = 64;
+	/**
+	 * The maximum distance of each move
+	 */
+	private static final int MOVE_DISTANCE = 300;
+
+	/**
+	 * The bot state
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private enum State {
+		/**
+		 * Waiting for {@link SM_KEY}
+		 */
+		HANDSHAKE,
+		/**
+		 * Waiting for {@link SM_CHAR_LIST}
+		 */
+		LOGIN,
+		/**
+		 * Waiting for {@link SM_CHAR_CREATE_OK}
+		 */
+		CREATE,
+		/**
+		 * Waiting for {@link SM_CHAR_SELECTED}
+		 */
+		SELECT,
+		/**
+		 * Waiting for {@link SM_CHAR_INFO}
+		 */
+		ENTER,
+		/**
+		 * In the world
+		 */
+		WORLD;
+	}
+
+	/**
+	 * The bot number
+	 */
+	private final int number;
+	/**
+	 * The statistics
+	 */
+	private final LoadTestStatistics statistics;
+	/**
+	 * The scheduler for bot actions
+	 */
+	private final ScheduledExecutorService scheduler;
+	/**
+	 * The interval between actions, in milliseconds
+	 */
+	private final long interval;
+	/**
+	 * The random number generator
+	 */
+	private final Random random;
+
+	/**
+	 * The outgoing packets encrypter
+	 */
+	private final Lineage2Encrypter encrypter = new Lineage2Encrypter();
+	/**
+	 * The incoming packets decrypter
+	 */
+	private final Lineage2Decrypter decrypter = new Lineage2Decrypter();
+
+	/**
+	 * The bot channel
+	 */
+	private Channel channel;
+	/**
+	 * The bot state
+	 */
+	private volatile State state = State.HANDSHAKE;
+	/**
+	 * The action task
+	 */
+	private ScheduledFuture<?> actionFuture;
+
+	/**
+	 * The character object id
+	 */
+	private int objectId;
+	/**
+	 * The character x
+	 */
+	private int x;
+	/**
+	 * The character y
+	 */
+	private int y;
+	/**
+	 * The character z
+	 */
+	private int z;
+	/**
+	 * The NPCs seen, as object id, x, y and z
+	 */
+	private final List<int[]> targets = CollectionFactory.newList();
+	/**
+	 * The requests waiting for a response, by the response opcode
+	 */
+	private final Map<Integer, Request> requests = CollectionFactory
+			.newMap();
+
+	/**
+	 * @param number
+	 *            the bot number, used on the account and character names
+	 * @param statistics
+	 *            the statistics
+	 * @param scheduler
+	 *            the scheduler for bot actions
+	 * @param interval
+	 *            the interval between actions, in milliseconds
+	 */
+	public Bot(int number, LoadTestStatistics statistics,
+			ScheduledExecutorService scheduler, long interval) {
+		this.number = number;
+		this.statistics = statistics;
+		this.scheduler = scheduler;
+		this.interval = interval;
+		this.random = new Random(number);
+	}
+
+	/**
+	 * Connects the bot to the server
+	 * 
+	 * @param factory
+	 *            the channel factory
+	 * @param address
+	 *            the server address
+	 */
+	public void connect(ChannelFactory factory, SocketAddress address) {
+		final ChannelPipeline pipeline = pipeline();
+		pipeline.addLast("frame.encoder", new Lineage2FrameEncoder());
+		pipeline.addLast("frame.decoder", new Lineage2FrameDecoder());
+		pipeline.addLast(Lineage2Encrypter.HANDLER_NAME, encrypter);
+		pipeline.addLast(Lineage2Decrypter.HANDLER_NAME, decrypter);
+		pipeline.addLast("bot", this);
+
+		final ClientBootstrap bootstrap = new ClientBootstrap(factory);
+		bootstrap.setPipeline(pipeline);
+		bootstrap.setOption("tcpNoDelay", true);
+		bootstrap.connect(address);
+	}
+
+	/**
+	 * Disconnects the bot
+	 */
+	public void disconnect() {
+		if (actionFuture != null)
+			actionFuture.cancel(false);
+		if (channel != null)
+			channel.close();
+	}
+
+	/**
+	 * @return whether the bot is in the world
+	 */
+	public boolean isInWorld() {
+		return state == State.WORLD;
+	}
+
+	@Override
+	public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e)
+			throws Exception {
+		channel = e.getChannel();
+		send(ClientPackets.protocolVersion(L2JConstant.SUPPORTED_PROTOCOL),
+				CM_PROTOCOL_VERSION.class, SM_KEY.class, SM_KEY.OPCODE, null);
+	}
+
+	@Override
+	public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e)
+			throws Exception {
+		if (actionFuture != null && !actionFuture.isCancelled()) {
+			actionFuture.cancel(false);
+			statistics.disconnected();
+		}
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e)
+			throws Exception {
+		// writes racing with the disconnection are expected
+		if (!(e.getCause() instanceof ClosedChannelException))
+			log.warn("Bot " + number + " error", e.getCause());
+		e.getChannel().close();
+	}
+
+	@Override
+	public void messageReceived(ChannelHandlerContext ctx, MessageEvent e)
+			throws Exception {
+		final ChannelBuffer buffer = (ChannelBuffer) e.getMessage();
+		statistics.received(buffer.readableBytes() + 2);
+		final int opcode = buffer.readUnsignedByte();
+
+		if (state == State.HANDSHAKE) {
+			received(opcode, 0);
+			handshake(buffer);
+			return;
+		}
+		received(opcode, (buffer.readableBytes() >= 4 ? buffer
+				.getInt(buffer.readerIndex()) : 0));
+
+		switch (state) {
+		case LOGIN:
+			if (opcode == SM_CHAR_LIST.OPCODE) {
+				if (buffer.readInt() == 0) {
+					state = State.CREATE;
+					send(ClientPackets.charCreate("Bot" + number,
+							CharacterClass.HUMAN_FIGHTER, ActorSex.MALE),
+							CM_CHAR_CREATE.class, SM_CHAR_CREATE_OK.class,
+							SM_CHAR_CREATE_OK.OPCODE, null);
+				} else {
+					select();
+				}
+			}
+			break;
+		case CREATE:
+			if (opcode == SM_CHAR_CREATE_OK.OPCODE) {
+				select();
+			} else if (opcode == SM_CHAR_CREATE_FAIL.OPCODE) {
+				log.warn("Bot {} could not create its character", number);
+				channel.close();
+			}
+			break;
+		case SELECT:
+			if (opcode == SM_CHAR_SELECTED.OPCODE) {
+				BufferUtils.readString(buffer); // name
+				synchronized (this) {
+					objectId = buffer.readInt();
+				}
+				state = State.ENTER;
+				send(ClientPackets.enterWorld(), CM_ENTER_WORLD.class,
+						SM_CHAR_INFO.class, SM_CHAR_INFO.OPCODE, null);
+			}
+			break;
+		case ENTER:
+			if (opcode == SM_CHAR_INFO.OPCODE) {
+				synchronized (this) {
+					x = buffer.readInt();
+					y = buffer.readInt();
+					z = buffer.readInt();
+				}
+				state = State.WORLD;
+				statistics.enteredWorld();
+				actionFuture = scheduler.scheduleAtFixedRate(new Runnable() {
+					@Override
+					public void run() {
+						act();
+					}
+				}, random.nextInt((int) interval), interval,
+						TimeUnit.MILLISECONDS);
+			}
+			// fall through, NPCs are sent while entering the world
+		case WORLD:
+			if (opcode == SM_NPC_INFO.OPCODE) {
+				npcInfo(buffer);
+			} else if (opcode == SM_OBJECT_REMOVE.OPCODE) {
+				removeTarget(buffer.readInt());
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Reads the {@link SM_KEY} packet and enables the cryptography
+	 * 
+	 * @param buffer
+	 *            the packet buffer
+	 */
+	private void handshake(ChannelBuffer buffer) {
+		if (buffer.readByte() == 0) {
+			log.warn("Bot {}: protocol version not accepted", number);
+			channel.close();
+			return;
+		}
+		final byte[] key = new byte[16];
+		buffer.readBytes(key, 0, 8);
+		System.arraycopy(STATIC_KEY, 0, key, 8, 8);
+		final Lineage2CryptographyKey inKey = new Lineage2CryptographyKey(key);
+		decrypter.enable(inKey);
+		encrypter.enable(inKey.copy());
+
+		state = State.LOGIN;
+		send(ClientPackets.authLogin("bot" + number, number, number, number,
+				number), CM_AUTH_LOGIN.class, SM_CHAR_LIST.class,
+				SM_CHAR_LIST.OPCODE, null);
+	}
+
+	/**
+	 * Selects the first character
+	 */
+	private void select() {
+		state = State.SELECT;
+		send(ClientPackets.charSelect(0), CM_CHAR_SELECT.class,
+				SM_CHAR_SELECTED.class, SM_CHAR_SELECTED.OPCODE, null);
+	}
+
+	/**
+	 * Reads a {@link SM_NPC_INFO} packet and remembers the NPC as a target
+	 * 
+	 * @param buffer
+	 *            the packet buffer
+	 */
+	private void npcInfo(ChannelBuffer buffer) {
+		final int id = buffer.readInt();
+		final int template = buffer.readInt();
+		// SM_ITEM_GROUND shares the opcode, its second field is an object id
+		if (template < NPC_TEMPLATE_OFFSET
+				|| template >= 2 * NPC_TEMPLATE_OFFSET)
+			return;
+		buffer.readInt(); // attackable
+		final int[] target = { id, buffer.readInt(), buffer.readInt(),
+				buffer.readInt() };
+		synchronized (this) {
+			removeTarget(id);
+			if (targets.size() < MAX_TARGETS)
+				targets.add(target);
+		}
+	}
+
+	/**
+	 * @param id
+	 *            the object id of the NPC to forget
+	 */
+	private synchronized void removeTarget(int id) {
+		for (int i = 0; i < targets.size(); i++) {
+			if (targets.get(i)[0] == id) {
+				targets.remove(i);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Performs a random action
+	 */
+	private synchronized void act() {
+		if (!channel.isConnected())
+			return;
+		final int action = random.nextInt(10);
+		if (action < 5) {
+			final int tx = x + random.nextInt(2 * MOVE_DISTANCE)
+					- MOVE_DISTANCE;
+			final int ty = y + random.nextInt(2 * MOVE_DISTANCE)
+					- MOVE_DISTANCE;
+			send(ClientPackets.move(tx, ty, z, x, y, z), CM_CHAR_MOVE.class,
+					SM_ACTOR_MOVE.class, SM_ACTOR_MOVE.OPCODE, objectId);
+			// the position is validated from the target on the next actions
+			x = tx;
+			y = ty;
+		} else if (action < 7) {
+			send(ClientPackets.position(x, y, z, 0), null, null, -1, null);
+		} else if (action < 8 || targets.isEmpty()) {
+			send(ClientPackets.chat("Hello from bot " + number),
+					CM_CHAR_CHAT.class, SM_ACTOR_CHAT.class,
+					SM_ACTOR_CHAT.OPCODE, objectId);
+		} else {
+			final int[] target = targets.get(random.nextInt(targets.size()));
+			send(ClientPackets.action(target[0], x, y, z),
+					CM_CHAR_ACTION.class, SM_CHAR_TARGET.class,
+					SM_CHAR_TARGET.OPCODE, target[0]);
+			send(ClientPackets.attack(target[0], x, y, z),
+					CM_CHAR_ATTACK.class, SM_ACTOR_ATTACK.class,
+					SM_ACTOR_ATTACK.OPCODE, objectId);
+		}
+	}
+
+	/**
+	 * Sends a packet
+	 * 
+	 * @param buffer
+	 *            the packet buffer
+	 * @param request
+	 *            the request packet class, for the round-trip time. Can be
+	 *            <code>null</code> if the packet has no response.
+	 * @param response
+	 *            the response packet class
+	 * @param responseOpcode
+	 *            the response opcode
+	 * @param responseId
+	 *            the object id the response must start with, if any
+	 */
+	private synchronized void send(ChannelBuffer buffer, Class<?> request,
+			Class<?> response, int responseOpcode, Integer responseId) {
+		if (request != null && !requests.containsKey(responseOpcode)) {
+			requests.put(responseOpcode, new Request(request.getSimpleName()
+					+ "/" + response.getSimpleName(), responseId));
+		}
+		statistics.sent(buffer.readableBytes());
+		channel.write(buffer);
+	}
+
+	/**
+	 * Completes the request waiting for the response, if any
+	 * 
+	 * @param opcode
+	 *            the received opcode
+	 * @param id
+	 *            the first integer of the packet
+	 */
+	private synchronized void received(int opcode, int id) {
+		final Request request = requests.get(opcode);
+		if (request == null)
+			return;
+		if (request.responseId != null && request.responseId != id)
+			return;
+		requests.remove(opcode);
+		statistics.latency(request.name, System.nanoTime() - request.sent);
+	}
+
+	/**
+	 * A request waiting for its response
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class Request {
+		/**
+		 * The request name, as <tt>request/response</tt>
+		 */
+		private final String name;
+		/**
+		 * The object id the response must start with, if any
+		 */
+		private final Integer responseId;
+		/**
+		 * The time the request was sent, in nanoseconds
+		 */
+		private final long sent = System.nanoTime();
+
+		/**
+		 * @param name
+		 *            the request name, as <tt>request/response</tt>
+		 * @param responseId
+		 *            the object id the response must start with, if any
+		 */
+		public Request(String name, Integer responseId) {
+			this.name = name;
+			this.responseId = responseId;
+		}
+	}
+}
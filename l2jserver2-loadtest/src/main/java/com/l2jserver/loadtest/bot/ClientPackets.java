@@ -0,0 +1,257 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.loadtest.bot;
+
+import java.nio.ByteOrder;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.l2jserver.game.net.packet.client.CM_AUTH_LOGIN;
+import com.l2jserver.game.net.packet.client.CM_CHAR_ACTION;
+import com.l2jserver.game.net.packet.client.CM_CHAR_ATTACK;
+import com.l2jserver.game.net.packet.client.CM_CHAR_ATTACK.CharacterAttackAction;
+import com.l2jserver.game.net.packet.client.CM_CHAR_CHAT;
+import com.l2jserver.game.net.packet.client.CM_CHAR_CREATE;
+import com.l2jserver.game.net.packet.client.CM_CHAR_MOVE;
+import com.l2jserver.game.net.packet.client.CM_CHAR_MOVE.MovementType;
+import com.l2jserver.game.net.packet.client.CM_CHAR_POSITION;
+import com.l2jserver.game.net.packet.client.CM_CHAR_SELECT;
+import com.l2jserver.game.net.packet.client.CM_ENTER_WORLD;
+import com.l2jserver.game.net.packet.client.CM_PROTOCOL_VERSION;
+import com.l2jserver.model.template.actor.ActorSex;
+import com.l2jserver.model.template.character.CharacterClass;
+import com.l2jserver.model.world.character.CharacterAppearance.CharacterFace;
+import com.l2jserver.model.world.character.CharacterAppearance.CharacterHairColor;
+import com.l2jserver.model.world.character.CharacterAppearance.CharacterHairStyle;
+import com.l2jserver.service.game.character.CharacterAction;
+import com.l2jserver.service.game.chat.ChatMessageType;
+import com.l2jserver.service.network.model.ProtocolVersion;
+import com.l2jserver.util.BufferUtils;
+
+/**
+ * Encodes the packets sent by the bots. Each packet is written in the same
+ * layout its <code>CM_*</code> class reads on the server. Buffers are returned
+ * with an empty length header, filled by the frame encoder.
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public final class ClientPackets {
+	/**
+	 * Utility class
+	 */
+	private ClientPackets() {
+	}
+
+	/**
+	 * @param opcode
+	 *            the packet opcode
+	 * @return a new buffer with the length header and opcode written
+	 */
+	private static ChannelBuffer packet(int opcode) {
+		final ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(
+				ByteOrder.LITTLE_ENDIAN, 32);
+		buffer.writeShort(0); // length, written by the frame encoder
+		buffer.writeByte(opcode);
+		return buffer;
+	}
+
+	/**
+	 * @param version
+	 *            the protocol version
+	 * @return the {@link CM_PROTOCOL_VERSION} packet
+	 */
+	public static ChannelBuffer protocolVersion(ProtocolVersion version) {
+		final ChannelBuffer buffer = packet(CM_PROTOCOL_VERSION.OPCODE);
+		buffer.writeShort(version.version);
+		return buffer;
+	}
+
+	/**
+	 * @param login
+	 *            the account login name
+	 * @param playKey1
+	 *            the first play key
+	 * @param playKey2
+	 *            the second play key
+	 * @param loginKey1
+	 *            the first login key
+	 * @param loginKey2
+	 *            the second login key
+	 * @return the {@link CM_AUTH_LOGIN} packet
+	 */
+	public static ChannelBuffer authLogin(String login, int playKey1,
+			int playKey2, int loginKey1, int loginKey2) {
+		final ChannelBuffer buffer = packet(CM_AUTH_LOGIN.OPCODE);
+		BufferUtils.writeString(buffer, login);
+		buffer.writeInt(playKey1);
+		buffer.writeInt(playKey2);
+		buffer.writeInt(loginKey1);
+		buffer.writeInt(loginKey2);
+		return buffer;
+	}
+
+	/**
+	 * @param name
+	 *            the character name
+	 * @param characterClass
+	 *            the character class
+	 * @param sex
+	 *            the character sex
+	 * @return the {@link CM_CHAR_CREATE} packet
+	 */
+	public static ChannelBuffer charCreate(String name,
+			CharacterClass characterClass, ActorSex sex) {
+		final ChannelBuffer buffer = packet(CM_CHAR_CREATE.OPCODE);
+		BufferUtils.writeString(buffer, name);
+		buffer.writeInt(characterClass.race.id);
+		buffer.writeInt(sex.option);
+		buffer.writeInt(characterClass.id);
+		// intelligence, strength, concentration, mentality, dexterity and
+		// witness: ignored by the server
+		for (int i = 0; i < 6; i++) {
+			buffer.writeInt(0);
+		}
+		buffer.writeInt(CharacterHairStyle.STYLE_A.option);
+		buffer.writeInt(CharacterHairColor.COLOR_A.option);
+		buffer.writeInt(CharacterFace.FACE_A.option);
+		return buffer;
+	}
+
+	/**
+	 * @param slot
+	 *            the character slot
+	 * @return the {@link CM_CHAR_SELECT} packet
+	 */
+	public static ChannelBuffer charSelect(int slot) {
+		final ChannelBuffer buffer = packet(CM_CHAR_SELECT.OPCODE);
+		buffer.writeInt(slot);
+		return buffer;
+	}
+
+	/**
+	 * @return the {@link CM_ENTER_WORLD} packet
+	 */
+	public static ChannelBuffer enterWorld() {
+		final ChannelBuffer buffer = packet(CM_ENTER_WORLD.OPCODE);
+		buffer.writeZero(32 + 4 * 4 + 32 + 4);
+		return buffer;
+	}
+
+	/**
+	 * @param x
+	 *            the target x
+	 * @param y
+	 *            the target y
+	 * @param z
+	 *            the target z
+	 * @param originX
+	 *            the current x
+	 * @param originY
+	 *            the current y
+	 * @param originZ
+	 *            the current z
+	 * @return the {@link CM_CHAR_MOVE} packet
+	 */
+	public static ChannelBuffer move(int x, int y, int z, int originX,
+			int originY, int originZ) {
+		final ChannelBuffer buffer = packet(CM_CHAR_MOVE.OPCODE);
+		buffer.writeInt(x);
+		buffer.writeInt(y);
+		buffer.writeInt(z);
+		buffer.writeInt(originX);
+		buffer.writeInt(originY);
+		buffer.writeInt(originZ);
+		buffer.writeInt(MovementType.MOUSE.id);
+		return buffer;
+	}
+
+	/**
+	 * @param x
+	 *            the current x
+	 * @param y
+	 *            the current y
+	 * @param z
+	 *            the current z
+	 * @param heading
+	 *            the current heading
+	 * @return the {@link CM_CHAR_POSITION} packet
+	 */
+	public static ChannelBuffer position(int x, int y, int z, int heading) {
+		final ChannelBuffer buffer = packet(CM_CHAR_POSITION.OPCODE);
+		buffer.writeInt(x);
+		buffer.writeInt(y);
+		buffer.writeInt(z);
+		buffer.writeInt(heading);
+		buffer.writeInt(0); // vehicle
+		return buffer;
+	}
+
+	/**
+	 * @param message
+	 *            the message
+	 * @return the {@link CM_CHAR_CHAT} packet, sent to all nearby players
+	 */
+	public static ChannelBuffer chat(String message) {
+		final ChannelBuffer buffer = packet(CM_CHAR_CHAT.OPCODE);
+		BufferUtils.writeString(buffer, message);
+		buffer.writeInt(ChatMessageType.ALL.id);
+		return buffer;
+	}
+
+	/**
+	 * @param objectId
+	 *            the target object id
+	 * @param x
+	 *            the current x
+	 * @param y
+	 *            the current y
+	 * @param z
+	 *            the current z
+	 * @return the {@link CM_CHAR_ACTION} packet
+	 */
+	public static ChannelBuffer action(int objectId, int x, int y, int z) {
+		final ChannelBuffer buffer = packet(CM_CHAR_ACTION.OPCODE);
+		buffer.writeInt(objectId);
+		buffer.writeInt(x);
+		buffer.writeInt(y);
+		buffer.writeInt(z);
+		buffer.writeByte(CharacterAction.CLICK.id);
+		return buffer;
+	}
+
+	/**
+	 * @param objectId
+	 *            the target object id
+	 * @param x
+	 *            the current x
+	 * @param y
+	 *            the current y
+	 * @param z
+	 *            the current z
+	 * @return the {@link CM_CHAR_ATTACK} packet
+	 */
+	public static ChannelBuffer attack(int objectId, int x, int y, int z) {
+		final ChannelBuffer buffer = packet(CM_CHAR_ATTACK.OPCODE);
+		buffer.writeInt(objectId);
+		buffer.writeInt(x);
+		buffer.writeInt(y);
+		buffer.writeInt(z);
+		buffer.writeByte(CharacterAttackAction.CLICK.id);
+		return buffer;
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.tool.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import com.l2jserver.service.database.ddl.QueryFactory;
+import com.l2jserver.service.database.ddl.TableFactory;
+import com.l2jserver.service.database.model.QNPC;
+import com.l2jserver.service.database.sql.AbstractSQLDatabaseService.SelectStreamQuery;
+import com.l2jserver.service.database.sql.H2DatabaseEngine;
+import com.l2jserver.service.database.sql.SQLDatabaseRow;
+import com.l2jserver.util.factory.CollectionFactory;
+import com.mysema.query.sql.AbstractSQLQuery;
+import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.SQLQueryFactory;
+import com.mysema.query.sql.dml.SQLInsertClause;
+import com.mysema.query.types.Path;
+
+/**
+ * Measures the time to ready and the peak heap usage of loading every row of
+ * the <tt>npc</tt> table from an H2 database and registering an object for
+ * each of them in a set (standing in for the world). Rows are either listed
+ * first and then processed, the way <tt>SelectListQuery</tt> does, or
+ * processed as they are read from the {@link ResultSet}, the way
+ * {@link SelectStreamQuery} does.
+ * <p>
+ * Each mode runs in a fresh database, so only run one mode per JVM to get
+ * meaningful peak heap numbers.
+ * <p>
+ * Usage: <tt>BulkLoadBenchmark list|stream [rows] [fetch size]</tt>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class BulkLoadBenchmark {
+	/**
+	 * The NPC entity
+	 */
+	private static final QNPC e = QNPC.npc;
+
+	/**
+	 * @param args
+	 *            the arguments
+	 * @throws SQLException
+	 *             if any database error occur
+	 */
+	public static void main(String[] args) throws SQLException {
+		final boolean stream = (args.length > 0 && args[0].equals("stream"));
+		final int rows = (args.length > 1 ? Integer.parseInt(args[1]) : 200000);
+		final int fetchSize = (args.length > 2 ? Integer.parseInt(args[2])
+				: SelectStreamQuery.DEFAULT_FETCH_SIZE);
+
+		final H2DatabaseEngine engine = new H2DatabaseEngine();
+		try (final Connection conn = engine.newDriver().connect(
+				"jdbc:h2:mem:benchmark", new Properties())) {
+			try (final Statement statement = conn.createStatement()) {
+				statement.execute(QueryFactory.createTableQuery(
+						TableFactory.createTable(e), engine.getTemplate()));
+			}
+			final SQLQueryFactory<? extends AbstractSQLQuery<?>, ?, ?, ?, ?, ?> factory = engine
+					.createSQLQueryFactory(conn);
+			final SQLInsertClause insert = factory.insert(e);
+			for (int i = 0; i < rows; i++) {
+				insert.columns(e.npcId, e.npcTemplateId, e.hp, e.mp, e.pointX,
+						e.pointY, e.pointZ, e.pointAngle, e.respawnTime)
+						.values(i, 20000 + (i % 1000), 100.0, 50.0, i * 10,
+								i * 20, -3000, 0.0, 60000L).addBatch();
+			}
+			insert.execute();
+
+			System.gc();
+			final long baseline = resetPeakHeap();
+			final long start = System.nanoTime();
+			final Set<Object> world = CollectionFactory.newSet();
+			if (stream)
+				stream(factory, engine.getConfiguration(), fetchSize, world);
+			else
+				list(factory, world);
+			final long elapsed = System.nanoTime() - start;
+
+			System.out.printf(
+					"%s: %d objects ready in %.0f ms, peak heap %.1f MiB above baseline%n",
+					(stream ? "stream (fetch size " + fetchSize + ")"
+							: "list"), world.size(), elapsed / 1e6,
+					(peakHeap() - baseline) / (1024.0 * 1024.0));
+		}
+	}
+
+	/**
+	 * Lists all rows and then creates the objects
+	 * 
+	 * @param factory
+	 *            the query factory
+	 * @param world
+	 *            the set receiving the objects
+	 */
+	private static void list(
+			SQLQueryFactory<? extends AbstractSQLQuery<?>, ?, ?, ?, ?, ?> factory,
+			Set<Object> world) {
+		final List<Object[]> results = factory.query().from(e).list(e.all());
+		final SQLDatabaseRow row = new SQLDatabaseRow(e);
+		final List<Object> objects = CollectionFactory.newList();
+		for (final Object[] data : results) {
+			row.setRow(data);
+			objects.add(create(row));
+		}
+		for (final Object object : objects) {
+			world.add(object);
+		}
+	}
+
+	/**
+	 * Creates and registers objects as rows are read
+	 * 
+	 * @param factory
+	 *            the query factory
+	 * @param configuration
+	 *            the querydsl configuration
+	 * @param fetchSize
+	 *            the JDBC fetch size
+	 * @param world
+	 *            the set receiving the objects
+	 * @throws SQLException
+	 *             if any database error occur
+	 */
+	private static void stream(
+			SQLQueryFactory<? extends AbstractSQLQuery<?>, ?, ?, ?, ?, ?> factory,
+			Configuration configuration, int fetchSize, Set<Object> world)
+			throws SQLException {
+		final List<Path<?>> columns = e.getColumns();
+		final Object[] data = new Object[columns.size()];
+		final SQLDatabaseRow row = new SQLDatabaseRow(e);
+		final ResultSet rs = factory.query().from(e).getResults(e.all());
+		try {
+			rs.setFetchSize(fetchSize);
+			while (rs.next()) {
+				for (int i = 0; i < data.length; i++) {
+					final Path<?> column = columns.get(i);
+					data[i] = configuration.get(rs, column, i + 1,
+							column.getType());
+				}
+				row.setRow(data);
+				world.add(create(row));
+			}
+		} finally {
+			rs.getStatement().close();
+		}
+	}
+
+	/**
+	 * Creates the object for a row, reading the same columns the NPC mapper
+	 * does
+	 * 
+	 * @param row
+	 *            the row
+	 * @return the object
+	 */
+	private static Object create(SQLDatabaseRow row) {
+		return new long[] { row.getInt(e.npcId), row.getInt(e.npcTemplateId),
+				row.getInt(e.pointX), row.getInt(e.pointY),
+				row.getInt(e.pointZ), row.getLong(e.respawnTime) };
+	}
+
+	/**
+	 * Resets the peak usage of all heap pools
+	 * 
+	 * @return the current heap usage
+	 */
+	private static long resetPeakHeap() {
+		long used = 0;
+		for (final MemoryPoolMXBean pool : ManagementFactory
+				.getMemoryPoolMXBeans()) {
+			if (pool.getType() != MemoryType.HEAP)
+				continue;
+			pool.resetPeakUsage();
+			used += pool.getUsage().getUsed();
+		}
+		return used;
+	}
+
+	/**
+	 * @return the sum of the peak usage of all heap pools
+	 */
+	private static long peakHeap() {
+		long peak = 0;
+		for (final MemoryPoolMXBean pool : ManagementFactory
+				.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		}
+		return peak;
+	}
+}
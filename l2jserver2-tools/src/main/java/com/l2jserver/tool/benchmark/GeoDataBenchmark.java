@@ -0,0 +1,120 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.tool.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.l2jserver.service.game.map.geodata.GeoData;
+
+/**
+ * Measures the amount of line of sight checks per second across the whole
+ * world map. Pairs of points up to {@link #MAX_DISTANCE} apart are spread
+ * over the whole geodata area.
+ * <p>
+ * Usage: <tt>GeoDataBenchmark &lt;geodata directory&gt; [seconds]</tt>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class GeoDataBenchmark {
+	/**
+	 * The amount of pre-generated point pairs
+	 */
+	private static final int PAIRS = 1 << 16;
+	/**
+	 * The maximum distance between two points in a pair, in each axis
+	 */
+	private static final int MAX_DISTANCE = 2000;
+
+	/**
+	 * @param args
+	 *            the arguments
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err
+					.println("Usage: GeoDataBenchmark <geodata directory> [seconds]");
+			System.exit(1);
+		}
+		final Path directory = Paths.get(args[0]);
+		final long duration = TimeUnit.SECONDS.toNanos(args.length > 1 ? Long
+				.parseLong(args[1]) : 10);
+		final GeoData geodata = new GeoData(directory);
+
+		// points are generated up front, so that only the queries are measured
+		final Random random = new Random(0);
+		final int[] points = new int[PAIRS * 6];
+		for (int i = 0; i < points.length; i += 6) {
+			final int x = GeoData.WORLD_X_MIN
+					+ random.nextInt(GeoData.WORLD_X_MAX - GeoData.WORLD_X_MIN
+							- MAX_DISTANCE);
+			final int y = GeoData.WORLD_Y_MIN
+					+ random.nextInt(GeoData.WORLD_Y_MAX - GeoData.WORLD_Y_MIN
+							- MAX_DISTANCE);
+			points[i] = x;
+			points[i + 1] = y;
+			points[i + 2] = geodata.getHeight(GeoData.getGeoX(x),
+					GeoData.getGeoY(y), 0);
+			points[i + 3] = x + random.nextInt(MAX_DISTANCE);
+			points[i + 4] = y + random.nextInt(MAX_DISTANCE);
+			points[i + 5] = geodata.getHeight(GeoData.getGeoX(points[i + 3]),
+					GeoData.getGeoY(points[i + 4]), points[i + 2]);
+		}
+		System.out.println("Loaded " + geodata.getLoadedRegionCount()
+				+ " regions");
+
+		// warm up
+		run(geodata, points, TimeUnit.SECONDS.toNanos(2));
+
+		final long start = System.nanoTime();
+		final long[] result = run(geodata, points, duration);
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf(
+				"%d line of sight checks in %.2fs: %.0f checks/s (%.1f%% visible)%n",
+				result[0], seconds, result[0] / seconds, result[1] * 100.0
+						/ result[0]);
+	}
+
+	/**
+	 * Runs line of sight checks over the given points
+	 * 
+	 * @param geodata
+	 *            the geodata
+	 * @param points
+	 *            the point pairs
+	 * @param duration
+	 *            the duration, in nanoseconds
+	 * @return the amount of checks and the amount of visible targets
+	 */
+	private static long[] run(GeoData geodata, int[] points, long duration) {
+		final long end = System.nanoTime() + duration;
+		long checks = 0;
+		long visible = 0;
+		while (System.nanoTime() < end) {
+			for (int i = 0; i < points.length; i += 6) {
+				if (geodata.canSeeTarget(points[i], points[i + 1],
+						points[i + 2], points[i + 3], points[i + 4],
+						points[i + 5]))
+					visible++;
+			}
+			checks += PAIRS;
+		}
+		return new long[] { checks, visible };
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.tool.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.l2jserver.model.id.object.allocator.BitSetIDAllocator;
+import com.l2jserver.model.id.object.allocator.IDAllocator;
+
+/**
+ * Measures the throughput of {@link BitSetIDAllocator} with several threads
+ * allocating IDs and releasing them again, the way items and NPCs are created
+ * and destroyed while the server runs. Each thread keeps up to
+ * {@link #LIVE_IDS} IDs alive, releasing the oldest one for every new
+ * allocation.
+ * <p>
+ * Usage: <tt>IDAllocatorBenchmark [max threads] [seconds]</tt>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class IDAllocatorBenchmark {
+	/**
+	 * The amount of IDs each thread keeps allocated
+	 */
+	private static final int LIVE_IDS = 4096;
+
+	/**
+	 * @param args
+	 *            the arguments
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the threads
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		// without a configuration, log4j would format every debug message
+		Logger.getRootLogger().setLevel(Level.INFO);
+		final int maxThreads = (args.length > 0 ? Integer.parseInt(args[0])
+				: Runtime.getRuntime().availableProcessors());
+		final long duration = TimeUnit.SECONDS.toMillis(args.length > 1 ? Long
+				.parseLong(args[1]) : 3);
+
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			// warm up
+			run(threads, duration / 2);
+			final long operations = run(threads, duration);
+			System.out.printf("%d threads: %.2f M allocate+release/s%n",
+					threads, operations / (duration / 1000.0) / 1e6);
+		}
+	}
+
+	/**
+	 * @param threads
+	 *            the amount of threads
+	 * @param duration
+	 *            the duration, in milliseconds
+	 * @return the amount of allocate and release pairs performed
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the threads
+	 */
+	private static long run(int threads, long duration)
+			throws InterruptedException {
+		final IDAllocator allocator = new BitSetIDAllocator();
+		((BitSetIDAllocator) allocator).init();
+
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicLong operations = new AtomicLong();
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			new Thread() {
+				@Override
+				public void run() {
+					final int[] live = new int[LIVE_IDS];
+					for (int i = 0; i < live.length; i++) {
+						live[i] = allocator.allocate();
+					}
+					long count = 0;
+					for (int i = 0; running.get(); i = (i + 1) % LIVE_IDS) {
+						allocator.release(live[i]);
+						live[i] = allocator.allocate();
+						count++;
+					}
+					operations.addAndGet(count);
+					done.countDown();
+				}
+			}.start();
+		}
+		Thread.sleep(duration);
+		running.set(false);
+		done.await();
+		return operations.get();
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.tool.benchmark;
+
+import java.util.Random;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
+
+import com.google.common.cache.CacheBuilder;
+import com.l2jserver.model.id.ObjectID;
+import com.l2jserver.model.id.object.allocator.IDAllocator;
+import com.l2jserver.model.world.WorldObject;
+import com.l2jserver.service.game.world.ObjectIDTable;
+
+/**
+ * Compares the retained heap and the lookup latency of the ID registry used by
+ * <tt>CachedWorldIDService</tt> when backed by the eternal caches of
+ * <tt>GuavaCacheService</tt> and <tt>EhCacheService</tt> (configured the same
+ * way they are) and by an {@link ObjectIDTable}. EhCache presizes its store to
+ * the maximum amount of elements, so it is sized to the amount of IDs instead
+ * of {@link IDAllocator#ALLOCABLE_IDS}, which does not fit in the heap.
+ * <p>
+ * Only run one mode per JVM, so that the heap numbers are not polluted.
+ * <p>
+ * Usage: <tt>IDCacheBenchmark guava|ehcache|table [ids]</tt>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class IDCacheBenchmark {
+	/**
+	 * The amount of lookups per round
+	 */
+	private static final int LOOKUPS = 10000000;
+	/**
+	 * The amount of measured rounds
+	 */
+	private static final int ROUNDS = 5;
+
+	/**
+	 * @param args
+	 *            the arguments
+	 */
+	public static void main(String[] args) {
+		final String mode = (args.length > 0 ? args[0] : "table");
+		final int count = (args.length > 1 ? Integer.parseInt(args[1])
+				: 1000000);
+
+		// the ID objects are retained by the world anyway, do not count them
+		final ObjectID<?>[] ids = new ObjectID<?>[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = new ObjectID<WorldObject>(IDAllocator.FIRST_ID + i) {
+				@Override
+				public WorldObject getObject() {
+					return null;
+				}
+			};
+		}
+		final int[] keys = new int[LOOKUPS];
+		final Random random = new Random(0);
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = IDAllocator.FIRST_ID + random.nextInt(count);
+		}
+
+		final long baseline = usedHeap();
+		final Registry registry;
+		if (mode.equals("guava"))
+			registry = new GuavaRegistry();
+		else if (mode.equals("ehcache"))
+			registry = new EhCacheRegistry(count);
+		else
+			registry = new TableRegistry();
+		for (final ObjectID<?> id : ids) {
+			registry.put(id);
+		}
+		final long retained = usedHeap() - baseline;
+
+		for (int round = -2; round < ROUNDS; round++) {
+			final long start = System.nanoTime();
+			int found = 0;
+			for (final int key : keys) {
+				if (registry.get(key) != null)
+					found++;
+			}
+			final long elapsed = System.nanoTime() - start;
+			if (round >= 0)
+				System.out.printf(
+						"%s: %d ids, %.1f MiB, %.1f ns/lookup (%d found)%n",
+						mode, count, retained / (1024.0 * 1024.0),
+						(double) elapsed / LOOKUPS, found);
+		}
+		registry.dispose();
+	}
+
+	/**
+	 * @return the used heap after a full collection
+	 */
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * The measured registry
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private interface Registry {
+		/**
+		 * @param id
+		 *            the id to register
+		 */
+		void put(ObjectID<?> id);
+
+		/**
+		 * @param id
+		 *            the raw id
+		 * @return the registered id
+		 */
+		Object get(int id);
+
+		/**
+		 * Disposes the registry
+		 */
+		void dispose();
+	}
+
+	/**
+	 * The Guava backed registry
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class GuavaRegistry implements Registry {
+		/**
+		 * The cache
+		 */
+		private final com.google.common.cache.Cache<Integer, ObjectID<?>> cache = CacheBuilder
+				.newBuilder().maximumSize(Integer.MAX_VALUE).build();
+
+		@Override
+		public void put(ObjectID<?> id) {
+			cache.put(id.getID(), id);
+		}
+
+		@Override
+		public Object get(int id) {
+			return cache.getIfPresent(id);
+		}
+
+		@Override
+		public void dispose() {
+			cache.invalidateAll();
+		}
+	}
+
+	/**
+	 * The EhCache backed registry
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class EhCacheRegistry implements Registry {
+		/**
+		 * The cache manager
+		 */
+		private final CacheManager manager = new CacheManager();
+		/**
+		 * The cache
+		 */
+		private final Cache cache;
+
+		/**
+		 * @param size
+		 *            the cache size
+		 */
+		public EhCacheRegistry(int size) {
+			cache = new Cache(new CacheConfiguration("id-cache", size)
+					.memoryStoreEvictionPolicy(MemoryStoreEvictionPolicy.LRU)
+					.overflowToDisk(true).eternal(true)
+					.diskExpiryThreadIntervalSeconds(0));
+			manager.addCache(cache);
+		}
+
+		@Override
+		public void put(ObjectID<?> id) {
+			cache.put(new Element(id.getID(), id));
+		}
+
+		@Override
+		public Object get(int id) {
+			final Element element = cache.get(id);
+			return (element == null ? null : element.getObjectValue());
+		}
+
+		@Override
+		public void dispose() {
+			manager.shutdown();
+		}
+	}
+
+	/**
+	 * The {@link ObjectIDTable} backed registry
+	 * 
+	 * @author <a href="http://www.rogiel.com">Rogiel</a>
+	 */
+	private static class TableRegistry implements Registry {
+		/**
+		 * The table
+		 */
+		private final ObjectIDTable table = new ObjectIDTable();
+
+		@Override
+		public void put(ObjectID<?> id) {
+			table.put(id);
+		}
+
+		@Override
+		public Object get(int id) {
+			return table.get(id);
+		}
+
+		@Override
+		public void dispose() {
+			table.clear();
+		}
+	}
+}
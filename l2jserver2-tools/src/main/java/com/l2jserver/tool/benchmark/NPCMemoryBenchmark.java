@@ -0,0 +1,94 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.tool.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.l2jserver.model.id.object.NPCID;
+import com.l2jserver.model.id.template.NPCTemplateID;
+import com.l2jserver.model.template.NPCTemplate;
+import com.l2jserver.model.world.NPC;
+import com.l2jserver.util.geometry.Point3D;
+
+/**
+ * Measures the retained heap per {@link NPC}, created the way
+ * <tt>NPCMapper</tt> does when loading them from the database, and prints the
+ * top of the class histogram of the heap (the same as
+ * <tt>jmap -histo:live</tt>).
+ * <p>
+ * Usage: <tt>NPCMemoryBenchmark [npcs] [histogram rows]</tt>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class NPCMemoryBenchmark {
+	/**
+	 * @param args
+	 *            the arguments
+	 * @throws JMException
+	 *             if the class histogram could not be taken
+	 */
+	public static void main(String[] args) throws JMException {
+		final int count = (args.length > 0 ? Integer.parseInt(args[0])
+				: 41561);
+		final int rows = (args.length > 1 ? Integer.parseInt(args[1]) : 15);
+
+		final NPCTemplate template = new NPCTemplate();
+		template.setID(new NPCTemplateID(20000, null));
+
+		final long baseline = usedHeap();
+		final NPC[] npcs = new NPC[count];
+		for (int i = 0; i < count; i++) {
+			final NPC npc = new NPC(template);
+			npc.setID(new NPCID(0x10000000 + i, null, null));
+			npc.setHP(100);
+			npc.setMP(50);
+			npc.setPoint(Point3D.fromXYZA(i * 10, i * 20, -3000, 0));
+			npc.setRespawnInterval(60000);
+			npcs[i] = npc;
+		}
+		final long retained = usedHeap() - baseline - 16 - 4L * count;
+
+		System.out.printf("%d NPCs: %.1f bytes per NPC%n", count,
+				(double) retained / count);
+		final String histogram = (String) ManagementFactory
+				.getPlatformMBeanServer().invoke(
+						new ObjectName(
+								"com.sun.management:type=DiagnosticCommand"),
+						"gcClassHistogram", new Object[] { null },
+						new String[] { String[].class.getName() });
+		final String[] lines = histogram.split("\n");
+		for (int i = 0; i < Math.min(lines.length, rows + 2); i++) {
+			System.out.println(lines[i]);
+		}
+		// keep the NPCs reachable until the histogram is taken
+		System.out.println(npcs.length);
+	}
+
+	/**
+	 * @return the used heap after a full collection
+	 */
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
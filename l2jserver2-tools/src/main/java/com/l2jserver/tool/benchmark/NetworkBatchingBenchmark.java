@@ -0,0 +1,260 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.tool.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelDownstreamHandler;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+
+import com.l2jserver.game.net.codec.Lineage2Encrypter;
+import com.l2jserver.game.net.codec.Lineage2FrameEncoder;
+import com.l2jserver.game.net.codec.Lineage2PacketWriter;
+import com.l2jserver.game.net.handler.Lineage2OutboundBatcher;
+import com.l2jserver.game.net.packet.server.SM_SYSTEM_MESSAGE;
+import com.l2jserver.service.network.model.Lineage2CryptographyKey;
+import com.l2jserver.service.network.model.SystemMessage;
+import com.l2jserver.util.factory.CollectionFactory;
+
+/**
+ * Simulates a crowd: every 10 milliseconds, each connected client receives a
+ * burst of packets, like the attacks and system messages broadcasted during a
+ * siege. Packets are encoded and encrypted by the game server codecs and sent
+ * over loopback sockets, either written one by one or through the
+ * {@link Lineage2OutboundBatcher}, flushed every 20 milliseconds as the
+ * network service does.
+ * <p>
+ * The amount of writes reaching the socket and the time between each packet
+ * write and the completion of its future are measured.
+ * <p>
+ * Usage: <tt>NetworkBatchingBenchmark [clients] [burst] [seconds]</tt>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class NetworkBatchingBenchmark {
+	/**
+	 * The interval between bursts, in milliseconds
+	 */
+	private static final int BURST_INTERVAL = 10;
+	/**
+	 * The interval between flushes, in milliseconds
+	 */
+	private static final int FLUSH_INTERVAL = 20;
+
+	/**
+	 * @param args
+	 *            the arguments
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	public static void main(String[] args) throws Exception {
+		Logger.getRootLogger().setLevel(Level.INFO);
+		final int clients = (args.length > 0 ? Integer.parseInt(args[0]) : 200);
+		final int burst = (args.length > 1 ? Integer.parseInt(args[1]) : 8);
+		final int seconds = (args.length > 2 ? Integer.parseInt(args[2]) : 5);
+
+		run("direct", clients, burst, 1, false);
+		run("batched", clients, burst, 1, true);
+		run("direct", clients, burst, seconds, false);
+		run("batched", clients, burst, seconds, true);
+	}
+
+	/**
+	 * @param mode
+	 *            the mode name
+	 * @param clientCount
+	 *            the number of clients
+	 * @param burst
+	 *            the number of packets sent to each client on each burst
+	 * @param seconds
+	 *            the duration of the run
+	 * @param batching
+	 *            whether to batch packets
+	 * @throws Exception
+	 *             if any error occur
+	 */
+	private static void run(String mode, int clientCount, final int burst,
+			int seconds, final boolean batching) throws Exception {
+		final AtomicLong writes = new AtomicLong();
+		final List<Channel> channels = CollectionFactory.newList();
+		final byte[] key = new byte[16];
+		Arrays.fill(key, (byte) 0x5A);
+
+		final ServerBootstrap server = new ServerBootstrap(
+				new NioServerSocketChannelFactory(
+						Executors.newCachedThreadPool(),
+						Executors.newCachedThreadPool()));
+		server.setPipelineFactory(new ChannelPipelineFactory() {
+			@Override
+			public ChannelPipeline getPipeline() throws Exception {
+				final ChannelPipeline pipeline = Channels.pipeline();
+				pipeline.addLast("write.counter",
+						new SimpleChannelDownstreamHandler() {
+							@Override
+							public void writeRequested(
+									ChannelHandlerContext ctx, MessageEvent e)
+									throws Exception {
+								writes.incrementAndGet();
+								super.writeRequested(ctx, e);
+							}
+						});
+				if (batching)
+					pipeline.addLast(Lineage2OutboundBatcher.HANDLER_NAME,
+							new Lineage2OutboundBatcher(8192));
+				pipeline.addLast("frame.encoder", new Lineage2FrameEncoder());
+				final Lineage2Encrypter encrypter = new Lineage2Encrypter();
+				encrypter.enable(new Lineage2CryptographyKey(key.clone()));
+				pipeline.addLast(Lineage2Encrypter.HANDLER_NAME, encrypter);
+				pipeline.addLast(Lineage2PacketWriter.HANDLER_NAME,
+						new Lineage2PacketWriter());
+				pipeline.addLast("registry", new SimpleChannelUpstreamHandler() {
+					@Override
+					public void channelConnected(ChannelHandlerContext ctx,
+							ChannelStateEvent e) throws Exception {
+						synchronized (channels) {
+							channels.add(e.getChannel());
+						}
+					}
+				});
+				return pipeline;
+			}
+		});
+		final Channel serverChannel = server.bind(new InetSocketAddress(
+				"127.0.0.1", 0));
+		final InetSocketAddress address = (InetSocketAddress) serverChannel
+				.getLocalAddress();
+
+		// the clients only read and discard everything
+		final ExecutorService readers = Executors.newCachedThreadPool();
+		final List<Socket> sockets = CollectionFactory.newList();
+		for (int i = 0; i < clientCount; i++) {
+			final Socket socket = new Socket(address.getAddress(),
+					address.getPort());
+			sockets.add(socket);
+			readers.execute(new Runnable() {
+				@Override
+				public void run() {
+					final byte[] buffer = new byte[64 * 1024];
+					try (final InputStream in = socket.getInputStream()) {
+						while (in.read(buffer) >= 0)
+							;
+					} catch (IOException e) {
+						// closed
+					}
+				}
+			});
+		}
+		while (true) {
+			synchronized (channels) {
+				if (channels.size() == clientCount)
+					break;
+			}
+			Thread.sleep(10);
+		}
+
+		final ScheduledExecutorService flusher = Executors
+				.newSingleThreadScheduledExecutor();
+		if (batching) {
+			flusher.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					for (final Channel channel : channels) {
+						channel.getPipeline()
+								.get(Lineage2OutboundBatcher.class).flush();
+					}
+				}
+			}, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+
+		final int bursts = seconds * 1000 / BURST_INTERVAL;
+		final long[] latencies = new long[bursts * clientCount * burst];
+		final AtomicInteger completed = new AtomicInteger();
+		writes.set(0);
+		final long start = System.nanoTime();
+		for (int b = 0; b < bursts; b++) {
+			final long burstStart = System.nanoTime();
+			for (final Channel channel : channels) {
+				for (int p = 0; p < burst; p++) {
+					final long written = System.nanoTime();
+					final ChannelFuture future;
+					synchronized (channel) {
+						future = channel.write(SM_SYSTEM_MESSAGE.withNumber(
+								SystemMessage.YOU_DID_S1_DMG, p));
+					}
+					future.addListener(new ChannelFutureListener() {
+						@Override
+						public void operationComplete(ChannelFuture future)
+								throws Exception {
+							latencies[completed.getAndIncrement()] = System
+									.nanoTime() - written;
+						}
+					});
+				}
+			}
+			final long sleep = BURST_INTERVAL
+					- TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+							- burstStart);
+			if (sleep > 0)
+				Thread.sleep(sleep);
+		}
+		while (completed.get() < latencies.length) {
+			Thread.sleep(10);
+		}
+		final long time = System.nanoTime() - start;
+
+		flusher.shutdownNow();
+		for (final Socket socket : sockets) {
+			socket.close();
+		}
+		serverChannel.close().awaitUninterruptibly();
+		server.releaseExternalResources();
+		readers.shutdownNow();
+
+		Arrays.sort(latencies);
+		final double secs = time / 1000000000d;
+		System.out.printf("%-8s %d clients, %,d packets: %,.0f writes/s, "
+				+ "%,.0f packets/s, latency p50 %.2f ms, p99 %.2f ms%n", mode,
+				clientCount, latencies.length, writes.get() / secs,
+				latencies.length / secs,
+				latencies[latencies.length / 2] / 1000000d,
+				latencies[(int) (latencies.length * 0.99)] / 1000000d);
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.l2jserver.tool.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.l2jserver.service.game.map.geodata.GeoData;
+import com.l2jserver.service.game.map.pathing.AStarPathFinder;
+import com.l2jserver.util.geometry.Point3D;
+
+/**
+ * Measures the amount of paths found per second and the amount of memory
+ * allocated per path by {@link AStarPathFinder}. Pairs of points up to
+ * {@link #MAX_DISTANCE} apart are spread over the whole geodata area; the
+ * path cache is not used.
+ * <p>
+ * Usage: <tt>PathingBenchmark &lt;geodata directory&gt; [seconds]</tt>
+ * 
+ * @author <a href="http://www.rogiel.com">Rogiel</a>
+ */
+public class PathingBenchmark {
+	/**
+	 * The amount of pre-generated point pairs
+	 */
+	private static final int PAIRS = 1 << 12;
+	/**
+	 * The maximum distance between two points in a pair, in each axis
+	 */
+	private static final int MAX_DISTANCE = 1500;
+
+	/**
+	 * @param args
+	 *            the arguments
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err
+					.println("Usage: PathingBenchmark <geodata directory> [seconds]");
+			System.exit(1);
+		}
+		final long duration = TimeUnit.SECONDS.toNanos(args.length > 1 ? Long
+				.parseLong(args[1]) : 10);
+		final GeoData geodata = new GeoData(Paths.get(args[0]));
+		final AStarPathFinder finder = new AStarPathFinder(geodata, 128,
+				10000);
+
+		final Random random = new Random(0);
+		final Point3D[] points = new Point3D[PAIRS * 2];
+		for (int i = 0; i < points.length; i += 2) {
+			final int x = GeoData.WORLD_X_MIN
+					+ random.nextInt(GeoData.WORLD_X_MAX - GeoData.WORLD_X_MIN
+							- MAX_DISTANCE);
+			final int y = GeoData.WORLD_Y_MIN
+					+ random.nextInt(GeoData.WORLD_Y_MAX - GeoData.WORLD_Y_MIN
+							- MAX_DISTANCE);
+			final int z = geodata.getHeight(GeoData.getGeoX(x),
+					GeoData.getGeoY(y), 0);
+			final int tx = x + random.nextInt(MAX_DISTANCE);
+			final int ty = y + random.nextInt(MAX_DISTANCE);
+			points[i] = Point3D.fromXYZ(x, y, z);
+			points[i + 1] = Point3D.fromXYZ(tx, ty, geodata.getHeight(
+					GeoData.getGeoX(tx), GeoData.getGeoY(ty), z));
+		}
+
+		// warm up
+		run(finder, points, TimeUnit.SECONDS.toNanos(2));
+
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		final long allocated = allocatedBytes(threads);
+		final long start = System.nanoTime();
+		final long[] result = run(finder, points, duration);
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf(
+				"%d paths in %.2fs: %.0f paths/s (%.1f%% found)%n",
+				result[0], seconds, result[0] / seconds, result[1] * 100.0
+						/ result[0]);
+		if (allocated >= 0)
+			System.out.printf("%.0f bytes allocated per path%n",
+					(double) (allocatedBytes(threads) - allocated)
+							/ result[0]);
+	}
+
+	/**
+	 * Finds paths between the given points
+	 * 
+	 * @param finder
+	 *            the path finder
+	 * @param points
+	 *            the point pairs
+	 * @param duration
+	 *            the duration, in nanoseconds
+	 * @return the amount of searches and the amount of paths found
+	 */
+	private static long[] run(AStarPathFinder finder, Point3D[] points,
+			long duration) {
+		final long end = System.nanoTime() + duration;
+		long searches = 0;
+		long found = 0;
+		while (System.nanoTime() < end) {
+			for (int i = 0; i < points.length; i += 2) {
+				if (finder.findPath(points[i], points[i + 1]) != null)
+					found++;
+			}
+			searches += PAIRS;
+		}
+		return new long[] { searches, found };
+	}
+
+	/**
+	 * @param threads
+	 *            the thread management bean
+	 * @return the amount of bytes allocated by the current thread. -1 if the
+	 *         JVM does not support it.
+	 */
+	private static long allocatedBytes(ThreadMXBean threads) {
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		return ((com.sun.management.ThreadMXBean) threads)
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of l2jserver2 <l2jserver2.com>.
+ *
+ * l2jserver2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * l2jserver2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with l2jserver2.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * Stand-alone benchmarks that do not fit the per-operation harness in
+ * <tt>l2jserver2-benchmarks</tt>, which calls a single operation repeatedly in
+ * one thread and only reports its average time. Each of them is a
+ * <tt>main</tt> class with its own arguments:
+ * <ul>
+ * <li>{@link com.l2jserver.tool.benchmark.NetworkBatchingBenchmark} drives
+ * loopback sockets at a fixed rate and reports socket writes per second and
+ * latency percentiles, not the time of an operation;</li>
+ * <li>{@link com.l2jserver.tool.benchmark.IDAllocatorBenchmark} measures how
+ * the allocator scales with the amount of threads. The single thread case is
+ * part of the harness;</li>
+ * <li>{@link com.l2jserver.tool.benchmark.NPCMemoryBenchmark},
+ * {@link com.l2jserver.tool.benchmark.IDCacheBenchmark} and
+ * {@link com.l2jserver.tool.benchmark.BulkLoadBenchmark} measure the retained
+ * or peak heap, and should run a single mode in a fresh JVM;</li>
+ * <li>{@link com.l2jserver.tool.benchmark.GeoDataBenchmark} and
+ * {@link com.l2jserver.tool.benchmark.PathingBenchmark} need the geodata
+ * files, which are not distributed with the server.</li>
+ * </ul>
+ * Any other micro benchmark belongs in the harness.
+ */
+package com.l2jserver.tool.benchmark;